@@ -0,0 +1,373 @@
+package org.lukecreator.aw;
+
+import org.sqlite.SQLiteConfig;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out SQLite connections to the rest of the service.
+ * <p>
+ * There is exactly one writer connection, guarded by a lock so only one thread writes at a time, and a small pool of
+ * read-only connections so lookups coming from Tomcat and JDA threads can run side by side. The database is put into
+ * WAL mode so readers never block the writer (and vice versa).
+ * <p>
+ * Leases are thread-confined: asking for another lease on a thread that already holds one hands back the same
+ * connection, so nested data-layer calls never need a second connection. While a thread holds the writer, its reads
+ * also go through the writer so that they can see its own uncommitted changes.
+ * <p>
+ * Every connection keeps a cache of the {@link AWQuery} statements it has prepared, so each query is only parsed and
+ * planned once per connection for the lifetime of the pool.
+ */
+public final class AWConnectionPool {
+    private final Connection writer;
+    private final ReentrantLock writeLock = new ReentrantLock(true);
+    private final BlockingQueue<Connection> readers;
+    private final List<Connection> allReaders;
+    private final long busyTimeoutMillis;
+    private final Map<Connection, StatementCache> statementCaches = new IdentityHashMap<>();
+
+    private final ThreadLocal<Lease> currentWriteLease = new ThreadLocal<>();
+    private final ThreadLocal<Lease> currentReadLease = new ThreadLocal<>();
+
+    /**
+     * Opens the writer connection and all reader connections.
+     *
+     * @param url               The JDBC URL of the SQLite database.
+     * @param readerCount       The number of read-only connections to keep open. Must be at least 1.
+     * @param busyTimeoutMillis How long SQLite (and this pool) will wait on a lock before giving up, in milliseconds.
+     * @throws SQLException If any of the connections couldn't be opened.
+     */
+    public AWConnectionPool(String url, int readerCount, int busyTimeoutMillis) throws SQLException {
+        if (readerCount < 1)
+            throw new IllegalArgumentException("There must be at least one reader connection. Got " + readerCount);
+        this.busyTimeoutMillis = busyTimeoutMillis;
+
+        // the writer is opened first so the database is in WAL mode before any reader attaches.
+        SQLiteConfig writerConfig = new SQLiteConfig();
+        writerConfig.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        writerConfig.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        writerConfig.setBusyTimeout(busyTimeoutMillis);
+        this.writer = DriverManager.getConnection(url, writerConfig.toProperties());
+        this.writer.setAutoCommit(true);
+        this.statementCaches.put(this.writer, new StatementCache(this.writer));
+
+        SQLiteConfig readerConfig = new SQLiteConfig();
+        readerConfig.setReadOnly(true);
+        readerConfig.setBusyTimeout(busyTimeoutMillis);
+
+        this.readers = new ArrayBlockingQueue<>(readerCount);
+        this.allReaders = new ArrayList<>(readerCount);
+        for (int i = 0; i < readerCount; i++) {
+            Connection reader = DriverManager.getConnection(url, readerConfig.toProperties());
+            this.readers.add(reader);
+            this.allReaders.add(reader);
+            this.statementCaches.put(reader, new StatementCache(reader));
+        }
+    }
+
+    /**
+     * Leases a connection that can be used for reading. Close the lease when done with it, preferably using
+     * try-with-resources. If the current thread is holding the writer, the writer is returned instead.
+     *
+     * @return A lease on a connection which can be used for reading.
+     * @throws SQLException If no reader became free within the busy timeout.
+     */
+    public Lease read() throws SQLException {
+        Lease lease = this.currentWriteLease.get();
+        if (lease == null)
+            lease = this.currentReadLease.get();
+        if (lease != null) {
+            lease.depth++;
+            return lease;
+        }
+
+        Connection connection;
+        try {
+            connection = this.readers.poll(this.busyTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database reader.", e);
+        }
+        if (connection == null)
+            throw new SQLException("Timed out after " + this.busyTimeoutMillis + "ms waiting for a database reader.");
+
+        lease = new Lease(this, connection, false);
+        this.currentReadLease.set(lease);
+        return lease;
+    }
+
+    /**
+     * Leases the writer connection. Only one thread can hold it at a time; others will wait (up to the busy timeout)
+     * for it to be released. Close the lease when done with it, preferably using try-with-resources.
+     *
+     * @return A lease on the writer connection.
+     * @throws SQLException If the writer didn't become free within the busy timeout.
+     */
+    public Lease write() throws SQLException {
+        Lease lease = this.currentWriteLease.get();
+        if (lease != null) {
+            lease.depth++;
+            return lease;
+        }
+
+        try {
+            if (!this.writeLock.tryLock(this.busyTimeoutMillis, TimeUnit.MILLISECONDS))
+                throw new SQLException("Timed out after " + this.busyTimeoutMillis + "ms waiting for the database writer.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the database writer.", e);
+        }
+
+        lease = new Lease(this, this.writer, true);
+        this.currentWriteLease.set(lease);
+        return lease;
+    }
+
+    /**
+     * @return If any thread is currently holding the writer.
+     */
+    public boolean isWriting() {
+        return this.writeLock.isLocked();
+    }
+
+    private void release(Lease lease) {
+        if (--lease.depth > 0)
+            return;
+
+        if (lease.isWriter) {
+            this.currentWriteLease.remove();
+            this.writeLock.unlock();
+        } else {
+            this.currentReadLease.remove();
+            this.readers.offer(lease.connection);
+        }
+    }
+
+    /**
+     * Closes every connection held by this pool. Leases still in use afterward will fail.
+     */
+    public void close() {
+        for (StatementCache cache : this.statementCaches.values())
+            cache.close();
+        try {
+            this.writer.close();
+        } catch (SQLException e) {
+            System.err.println("Failed to close database writer: " + e);
+        }
+        for (Connection reader : this.allReaders) {
+            try {
+                reader.close();
+            } catch (SQLException e) {
+                System.err.println("Failed to close database reader: " + e);
+            }
+        }
+    }
+
+    /**
+     * A thread-confined lease on one of the pool's connections. Closing it hands the connection back to the pool once
+     * the outermost lease on this thread is closed.
+     */
+    public static final class Lease implements AutoCloseable {
+        private final AWConnectionPool pool;
+        private final Connection connection;
+        private final boolean isWriter;
+        private int depth = 1;
+
+        private Lease(AWConnectionPool pool, Connection connection, boolean isWriter) {
+            this.pool = pool;
+            this.connection = connection;
+            this.isWriter = isWriter;
+        }
+
+        public Connection connection() {
+            return this.connection;
+        }
+
+        public boolean isWriter() {
+            return this.isWriter;
+        }
+
+        /**
+         * Starts a transaction on the writer, so every statement until {@link Transaction#commit()} is committed
+         * together. If the thread is already inside a transaction, the new one is nested in it using a savepoint.
+         * Closing the transaction without committing rolls it back.
+         *
+         * @return The new transaction.
+         * @throws SQLException          If the transaction couldn't be started.
+         * @throws IllegalStateException If this isn't a lease on the writer.
+         */
+        public Transaction beginTransaction() throws SQLException {
+            if (!this.isWriter)
+                throw new IllegalStateException("Transactions can only be started on the writer.");
+            return new Transaction(this.connection);
+        }
+
+        /**
+         * Gets a prepared statement for the given query on this lease's connection, reusing the one cached from an
+         * earlier call if possible. Close the returned statement when done with it, preferably using try-with-resources.
+         *
+         * @param query The query to prepare.
+         * @return A statement ready to have its parameters set.
+         * @throws SQLException If the statement couldn't be prepared.
+         */
+        public AWStatement prepare(AWQuery query) throws SQLException {
+            return this.pool.statementCaches.get(this.connection).checkOut(query);
+        }
+
+        @Override
+        public void close() {
+            this.pool.release(this);
+        }
+    }
+
+    /**
+     * A transaction on the writer connection. Commit it with {@link #commit()}; closing it without committing rolls back
+     * everything done since it began. Use with try-with-resources, inside the write lease it was started from.
+     */
+    public static final class Transaction implements AutoCloseable {
+        private final Connection connection;
+        /**
+         * If this transaction is nested inside another one, the savepoint it started at. Otherwise {@code null}.
+         */
+        private final Savepoint start;
+        private boolean finished = false;
+
+        private Transaction(Connection connection) throws SQLException {
+            this.connection = connection;
+            if (connection.getAutoCommit()) {
+                connection.setAutoCommit(false);
+                this.start = null;
+            } else {
+                this.start = connection.setSavepoint();
+            }
+        }
+
+        /**
+         * Marks a point inside this transaction that can be rolled back to without losing the rest of it.
+         *
+         * @return The new savepoint. Pass it to either {@link #release(Savepoint)} or {@link #rollbackTo(Savepoint)}.
+         * @throws SQLException If the savepoint couldn't be created.
+         */
+        public Savepoint savepoint() throws SQLException {
+            return this.connection.setSavepoint();
+        }
+
+        /**
+         * Keeps everything done since the given savepoint, and forgets the savepoint.
+         *
+         * @param savepoint The savepoint to release.
+         * @throws SQLException If the savepoint couldn't be released.
+         */
+        public void release(Savepoint savepoint) throws SQLException {
+            this.connection.releaseSavepoint(savepoint);
+        }
+
+        /**
+         * Undoes everything done since the given savepoint, and forgets the savepoint.
+         *
+         * @param savepoint The savepoint to roll back to.
+         * @throws SQLException If the rollback failed.
+         */
+        public void rollbackTo(Savepoint savepoint) throws SQLException {
+            this.connection.rollback(savepoint);
+            this.connection.releaseSavepoint(savepoint);
+        }
+
+        /**
+         * Commits this transaction. If it's nested, its changes are handed to the outer transaction instead.
+         *
+         * @throws SQLException If the commit failed. The transaction will be rolled back when closed.
+         */
+        public void commit() throws SQLException {
+            if (this.start == null) {
+                this.connection.commit();
+                this.connection.setAutoCommit(true);
+            } else {
+                this.connection.releaseSavepoint(this.start);
+            }
+            this.finished = true;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (this.finished)
+                return;
+            this.finished = true;
+
+            if (this.start == null) {
+                try {
+                    this.connection.rollback();
+                } finally {
+                    this.connection.setAutoCommit(true);
+                }
+            } else {
+                this.connection.rollback(this.start);
+                this.connection.releaseSavepoint(this.start);
+            }
+        }
+    }
+
+    /**
+     * The statements prepared on a single connection. Only touched by the thread currently leasing that connection, so
+     * it needs no locking of its own.
+     */
+    static final class StatementCache {
+        private final Connection connection;
+        private final EnumMap<AWQuery, PreparedStatement> statements = new EnumMap<>(AWQuery.class);
+        private final EnumSet<AWQuery> checkedOut = EnumSet.noneOf(AWQuery.class);
+
+        private StatementCache(Connection connection) {
+            this.connection = connection;
+        }
+
+        private AWStatement checkOut(AWQuery query) throws SQLException {
+            query.recordCall();
+
+            // the same query being used again while it's still open (e.g., from a nested call) gets its own one-off
+            // statement so the two don't trample each other's parameters or results.
+            if (!this.checkedOut.add(query))
+                return new AWStatement(this.connection.prepareStatement(query.sql), null, query);
+
+            PreparedStatement statement = this.statements.get(query);
+            if (statement == null || statement.isClosed()) {
+                try {
+                    statement = this.connection.prepareStatement(query.sql);
+                } catch (SQLException e) {
+                    this.checkedOut.remove(query);
+                    throw e;
+                }
+                this.statements.put(query, statement);
+            }
+            return new AWStatement(statement, this, query);
+        }
+
+        void checkIn(AWQuery query) {
+            this.checkedOut.remove(query);
+        }
+
+        private void close() {
+            for (PreparedStatement statement : this.statements.values()) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    System.err.println("Failed to close cached statement: " + e);
+                }
+            }
+            this.statements.clear();
+        }
+    }
+}
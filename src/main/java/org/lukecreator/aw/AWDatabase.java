@@ -1,27 +1,166 @@
 package org.lukecreator.aw;
 
 import org.lukecreator.aw.data.AWPlayer;
+import org.lukecreator.aw.data.AWPlayerCache;
+import org.lukecreator.aw.data.AWStatsBuffer;
+import org.lukecreator.aw.data.TicketArchive;
 
-import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Manages the SQLite backend.
  */
 public class AWDatabase {
     private static final String DB_URL = System.getenv("AW_DB_URL");
+    /**
+     * The number of read-only connections to keep open, set by the `AW_DB_READERS` environment variable.
+     * Defaults to the number of cores, up to 4.
+     */
+    private static final int READER_COUNT = intFromEnv("AW_DB_READERS",
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+    /**
+     * How long to wait on a locked database before giving up, set by the `AW_DB_BUSY_TIMEOUT` environment variable.
+     * Defaults to 5 seconds.
+     */
+    private static final int BUSY_TIMEOUT_MILLIS = intFromEnv("AW_DB_BUSY_TIMEOUT", 5000);
 
     /**
-     * The active database connection.
+     * The active connection pool.
      */
-    public static Connection connection = null;
+    private static AWConnectionPool pool = null;
+    /**
+     * Runs database work handed off by {@link #supplyAsync} and {@link #runAsync}, so callers like the Discord bot's
+     * handlers don't have to wait on SQLite. One thread per connection; any more would only wait on the pool. Only
+     * database work belongs here; anything that waits on something else (like an HTTP call) would hold up every query
+     * queued behind it.
+     */
+    private static ExecutorService executor = null;
 
     public static void init() throws Exception {
-        connection = DriverManager.getConnection(DB_URL);
-        connection.setAutoCommit(true);
-        if (connection == null)
-            throw new Exception("Something happened and the database couldn't be connected to.");
-        System.out.println("Connected to database.");
+        init(DB_URL);
+    }
+
+    /**
+     * Opens, migrates and starts using the database at the given URL, instead of the one in `AW_DB_URL`. Tests use this
+     * to run against a temporary file.
+     *
+     * @param url The JDBC URL of the database.
+     */
+    public static void init(String url) throws Exception {
+        pool = new AWConnectionPool(url, READER_COUNT, BUSY_TIMEOUT_MILLIS);
+        AtomicInteger threadNumber = new AtomicInteger(1);
+        executor = Executors.newFixedThreadPool(READER_COUNT + 1, runnable -> {
+            Thread thread = new Thread(runnable, "aw-db-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AWMigrations.migrate(pool);
+        if (Main.DEBUG)
+            AWQueryPlans.verify(pool);
+        AWStatsBuffer.start();
+        TicketArchive.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            // the executor, buffer and archiver use the pool, so they have to be stopped before the pool closes.
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(10, TimeUnit.SECONDS))
+                    System.err.println("Timed out waiting for queued database work to finish.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            TicketArchive.close();
+            AWStatsBuffer.close();
+            if (Main.DEBUG) {
+                AWQuery.printStatistics();
+                AWPlayerCache.printStatistics();
+            }
+            pool.close();
+        }, "aw-database-shutdown"));
+        System.out.println("Connected to database. (" + READER_COUNT + " readers, " + BUSY_TIMEOUT_MILLIS + "ms busy timeout)");
+    }
+
+    /**
+     * Leases a connection for reading. Use with try-with-resources.
+     *
+     * @return A lease on a reader connection, or the writer if this thread is already holding it.
+     * @throws SQLException If no connection became available in time.
+     */
+    public static AWConnectionPool.Lease read() throws SQLException {
+        return pool.read();
+    }
+
+    /**
+     * Leases the writer connection. Use with try-with-resources, and hold it for as short a time as possible.
+     *
+     * @return A lease on the writer connection.
+     * @throws SQLException If the writer didn't become available in time.
+     */
+    public static AWConnectionPool.Lease write() throws SQLException {
+        return pool.write();
+    }
+
+    /**
+     * @return If any thread is currently holding the writer connection. Always false if the database was never opened.
+     */
+    public static boolean isWriting() {
+        return pool != null && pool.isWriting();
+    }
+
+    /**
+     * Runs database work on the database executor instead of the calling thread.
+     *
+     * @param work The work to run. It can lease connections like any other code.
+     * @return A future completed with the work's result, or exceptionally with whatever it threw (usually an
+     * {@link SQLException}).
+     */
+    public static <T> CompletableFuture<T> supplyAsync(SQLSupplier<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(work.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Runs database work on the database executor instead of the calling thread.
+     *
+     * @param work The work to run. It can lease connections like any other code.
+     * @return A future completed once the work is done, or exceptionally with whatever it threw (usually an
+     * {@link SQLException}).
+     */
+    public static CompletableFuture<Void> runAsync(SQLRunnable work) {
+        return supplyAsync(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Reads an integer setting from an environment variable.
+     *
+     * @param name         The name of the environment variable.
+     * @param defaultValue The value to use if the variable isn't set or isn't a valid integer.
+     * @return The value of the setting.
+     */
+    public static int intFromEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank())
+            return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Ignoring invalid value for " + name + ": " + value);
+            return defaultValue;
+        }
     }
 
     /**
@@ -83,4 +222,20 @@ public class AWDatabase {
             return null;
         return loadPlayer(user.userId(), loadStats, loadBans, loadUnbans, loadPunchUpdates);
     }
+
+    /**
+     * Database work with a result, for {@link #supplyAsync}.
+     */
+    @FunctionalInterface
+    public interface SQLSupplier<T> {
+        T get() throws SQLException;
+    }
+
+    /**
+     * Database work without a result, for {@link #runAsync}.
+     */
+    @FunctionalInterface
+    public interface SQLRunnable {
+        void run() throws SQLException;
+    }
 }
@@ -0,0 +1,191 @@
+package org.lukecreator.aw;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brings the database schema up to date on startup.
+ * <p>
+ * Each migration is one of the SQL scripts in {@code resources/sql}, applied in order and recorded in the
+ * {@code schema_migrations} table so it only ever runs once. Databases created by hand before this existed are
+ * detected by looking for what each of the original scripts created, so they get the same migrations (and indexes) as
+ * a fresh deployment without anything being run twice.
+ */
+public final class AWMigrations {
+    /**
+     * Every migration, in the order they're applied. The version of a migration is its position in this list, starting
+     * at 1. Only ever add to the end of this.
+     */
+    private static final Migration[] MIGRATIONS = {
+            new Migration("v1-initial.sql", "players", null),
+            new Migration("v2-add-blacklist.sql", "players", "is_appeal_blacklisted"),
+            new Migration("v3-add-discord-to-roblox-translation.sql", "discord_roblox_links", null),
+            new Migration("v4-tickets-evidence.sql", "tickets", null),
+            new Migration("v5-more-ban-support.sql", "discord_ban_records", null),
+            new Migration("v6-better-blacklist-support.sql", "discord_appeal_blacklists", null),
+            new Migration("v7-performance-indexes.sql", null, null),
+            new Migration("v8-gamepass-ownership.sql", null, null),
+            new Migration("v9-staff-ban-counts.sql", null, null),
+            new Migration("v10-search-index.sql", null, null),
+            new Migration("v11-ticket-archive.sql", null, null),
+            new Migration("v12-unique-bans.sql", null, null),
+    };
+
+    private AWMigrations() {
+    }
+
+    /**
+     * Applies every migration that hasn't been applied to the database yet. Each migration is applied in its own
+     * transaction, so a failing migration leaves the database at the version before it.
+     *
+     * @param pool The pool to run the migrations through.
+     * @throws SQLException If a migration failed to apply.
+     */
+    static void migrate(AWConnectionPool pool) throws SQLException {
+        try (var db = pool.write()) {
+            Connection connection = db.connection();
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("""
+                        CREATE TABLE IF NOT EXISTS schema_migrations
+                        (
+                            version    INTEGER NOT NULL PRIMARY KEY,
+                            name       TEXT    NOT NULL,
+                            applied_at INTEGER NOT NULL -- The unix millisecond the migration was applied.
+                        )""");
+            }
+
+            int currentVersion = currentVersion(connection);
+            if (currentVersion == 0)
+                currentVersion = adoptUnversionedSchema(connection);
+
+            int applied = 0;
+            for (int version = currentVersion + 1; version <= MIGRATIONS.length; version++) {
+                Migration migration = MIGRATIONS[version - 1];
+                try (var transaction = db.beginTransaction()) {
+                    try (Statement statement = connection.createStatement()) {
+                        for (String sql : migration.statements())
+                            statement.executeUpdate(sql);
+                    }
+                    record(connection, version, migration);
+                    transaction.commit();
+                } catch (SQLException e) {
+                    throw new SQLException("Failed to apply migration " + migration.name + ": " + e.getMessage(), e);
+                }
+                System.out.println("Applied database migration " + migration.name);
+                applied++;
+            }
+
+            if (applied > 0) {
+                // refresh the planner's statistics so the new indexes actually get picked up.
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("PRAGMA optimize");
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The version of the latest migration applied to the database, or 0 if none have been recorded.
+     */
+    private static int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             var results = statement.executeQuery("SELECT MAX(version) FROM schema_migrations")) {
+            return results.next() ? results.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Databases set up before migrations were tracked have some of the original scripts already applied by hand. This
+     * records every leading migration whose table/column already exists as applied, so it isn't run again.
+     *
+     * @return The version the database is at after adopting it.
+     */
+    private static int adoptUnversionedSchema(Connection connection) throws SQLException {
+        int version = 0;
+        for (Migration migration : MIGRATIONS) {
+            if (!migration.isPresent(connection))
+                break;
+            version++;
+            record(connection, version, migration);
+        }
+        if (version > 0)
+            System.out.println("Adopted existing database schema at version " + version);
+        return version;
+    }
+
+    private static void record(Connection connection, int version, Migration migration) throws SQLException {
+        try (var statement = connection.prepareStatement(
+                "INSERT INTO schema_migrations (version, name, applied_at) VALUES (?, ?, ?)")) {
+            statement.setInt(1, version);
+            statement.setString(2, migration.name);
+            statement.setLong(3, System.currentTimeMillis());
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * A single migration script.
+     *
+     * @param name        The file name of the script in {@code resources/sql}.
+     * @param probeTable  If not null, a table this migration creates (or alters). Used to detect whether the migration
+     *                    was already applied by hand to a database that predates {@code schema_migrations}.
+     * @param probeColumn If not null, a column of {@code probeTable} that this migration adds.
+     */
+    private record Migration(String name, String probeTable, String probeColumn) {
+        /**
+         * @return If what this migration creates is already in the database. Always false for migrations without a
+         * probe, since those were never applied by hand.
+         */
+        boolean isPresent(Connection connection) throws SQLException {
+            if (this.probeTable == null)
+                return false;
+            String sql = this.probeColumn == null
+                    ? "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?"
+                    : "SELECT 1 FROM pragma_table_info(?) WHERE name = ?";
+            try (var statement = connection.prepareStatement(sql)) {
+                statement.setString(1, this.probeTable);
+                if (this.probeColumn != null)
+                    statement.setString(2, this.probeColumn);
+                try (var results = statement.executeQuery()) {
+                    return results.next();
+                }
+            }
+        }
+
+        /**
+         * Reads the script and splits it into its individual statements, since JDBC only runs one at a time.
+         *
+         * @return The statements of the script, in order.
+         */
+        List<String> statements() throws SQLException {
+            String script;
+            try (InputStream stream = AWMigrations.class.getResourceAsStream("/sql/" + this.name)) {
+                if (stream == null)
+                    throw new SQLException("Missing migration script " + this.name);
+                script = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new SQLException("Couldn't read migration script " + this.name, e);
+            }
+
+            // the scripts only use line comments, and never put a semicolon inside a string.
+            StringBuilder withoutComments = new StringBuilder();
+            for (String line : script.split("\\R")) {
+                int comment = line.indexOf("--");
+                withoutComments.append(comment == -1 ? line : line.substring(0, comment)).append('\n');
+            }
+
+            List<String> statements = new ArrayList<>();
+            for (String statement : withoutComments.toString().split(";")) {
+                if (!statement.isBlank())
+                    statements.add(statement.trim());
+            }
+            return statements;
+        }
+    }
+}
@@ -0,0 +1,564 @@
+package org.lukecreator.aw;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Catalog of every SQL statement the service runs against the database.
+ * <p>
+ * Keeping them in one place lets {@link AWConnectionPool} prepare each one once per connection and reuse it, rather
+ * than having SQLite re-parse and re-plan the same text on every call. Use {@link AWConnectionPool.Lease#prepare(AWQuery)}
+ * to get a statement for one of these.
+ */
+public enum AWQuery {
+    // bans
+    LOAD_BANS("""
+            SELECT user_id, responsible_moderator, reason, starts, ends, linked_ticket, is_legacy
+            FROM bans
+            WHERE user_id = ?
+            ORDER BY starts"""),
+    SET_LATEST_BAN_ENDS("""
+            UPDATE bans
+            SET ends = ?
+            WHERE user_id = ?
+            AND starts = (
+                SELECT MAX(starts)
+                FROM bans
+                WHERE user_id = ?
+            )"""),
+    CLEAR_BANS("""
+            DELETE FROM bans WHERE user_id = ?"""),
+    // a ban is identified by its user and start time. an identical ban isn't rewritten, so replays change nothing.
+    UPSERT_BAN("""
+            INSERT INTO bans (user_id, responsible_moderator, reason, starts, ends, linked_ticket, is_legacy)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (user_id, starts) DO UPDATE SET
+                                                        responsible_moderator = excluded.responsible_moderator,
+                                                        reason = excluded.reason,
+                                                        ends = excluded.ends,
+                                                        linked_ticket = excluded.linked_ticket,
+                                                        is_legacy = excluded.is_legacy
+            WHERE (responsible_moderator, reason, ends, linked_ticket, is_legacy)
+                      IS NOT (excluded.responsible_moderator, excluded.reason, excluded.ends,
+                              excluded.linked_ticket, excluded.is_legacy)"""),
+
+    // evidence
+    LOAD_EVIDENCE("""
+            SELECT timestamp, accused_user, details, url FROM evidence WHERE evidence_id = ?"""),
+    DELETE_EVIDENCE("""
+            DELETE FROM evidence WHERE evidence_id = ?"""),
+    LOAD_EVIDENCE_AGAINST_USER("""
+            SELECT evidence_id, timestamp, accused_user, details, url
+            FROM evidence
+            WHERE accused_user NOT NULL AND accused_user = ?"""),
+    UPSERT_EVIDENCE("""
+            INSERT INTO evidence (evidence_id, timestamp, accused_user, details, url)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (evidence_id) DO UPDATE SET
+                                                    timestamp = excluded.timestamp,
+                                                    accused_user = excluded.accused_user,
+                                                    details = excluded.details,
+                                                    url = excluded.url"""),
+
+    // players
+    /**
+     * Loads a player and any of their stats (with gamepasses), bans, unbans, and punch updates in a single round trip. Each row's
+     * {@code kind} says which table it came from (see {@code AWPlayer.loadFromDatabase}), and the generic columns are
+     * filled in differently for each kind. Parameters are the user ID followed by a flag for each optional section.
+     */
+    HYDRATE_PLAYER("""
+            SELECT 0 AS kind, username AS text, appeal_blacklist_reason AS text2,
+                   is_appeal_blacklisted AS n1, appeal_blacklist_date AS n2, appeal_blacklist_issuer AS n3, NULL AS n4, NULL AS n5
+            FROM players WHERE user_id = ?1
+            UNION ALL
+            SELECT 1, NULL, NULL, punches, NULL, NULL, NULL, NULL
+            FROM stats WHERE ?2 AND user_id = ?1
+            UNION ALL
+            SELECT 2, reason, NULL, responsible_moderator, starts, ends, linked_ticket, is_legacy
+            FROM bans WHERE ?3 AND user_id = ?1
+            UNION ALL
+            SELECT 3, NULL, NULL, responsible_moderator, date, NULL, NULL, NULL
+            FROM unbans WHERE ?4 AND user_id = ?1
+            UNION ALL
+            SELECT 4, NULL, NULL, responsible_moderator, date, old_punches, new_punches, NULL
+            FROM punch_update_records WHERE ?5 AND user_id = ?1
+            UNION ALL
+            SELECT 5, NULL, NULL, NULL, gamepass_id, NULL, NULL, NULL
+            FROM gamepass_ownership WHERE ?2 AND user_id = ?1
+            ORDER BY kind, n2"""),
+    ENSURE_PLAYER("""
+            INSERT INTO players (user_id, username, is_appeal_blacklisted, appeal_blacklist_date, appeal_blacklist_reason, appeal_blacklist_issuer)
+            VALUES (?, ?, FALSE, 0, NULL, 0)
+            ON CONFLICT (user_id) DO NOTHING"""),
+    SET_USERNAME("""
+            UPDATE players
+            SET username = ?
+            WHERE user_id = ?"""),
+    REMOVE_PLAYER_BLACKLIST("""
+            UPDATE players
+            SET (is_appeal_blacklisted, appeal_blacklist_date, appeal_blacklist_reason, appeal_blacklist_issuer) = (FALSE, 0, NULL, 0)
+            WHERE user_id = ?"""),
+    SET_PLAYER_BLACKLIST("""
+            UPDATE players
+            SET (is_appeal_blacklisted, appeal_blacklist_date, appeal_blacklist_reason, appeal_blacklist_issuer) = (TRUE, ?, ?, ?)
+            WHERE user_id = ?"""),
+
+    // punch update records
+    LOAD_PUNCH_UPDATES("""
+            SELECT user_id, responsible_moderator, date, old_punches, new_punches
+            FROM punch_update_records
+            WHERE user_id = ?
+            ORDER BY date"""),
+    CLEAR_PUNCH_UPDATES("""
+            DELETE FROM punch_update_records WHERE user_id = ?"""),
+    INSERT_PUNCH_UPDATE("""
+            INSERT INTO punch_update_records VALUES (?, ?, ?, ?, ?)"""),
+
+    // stats
+    /**
+     * Loads a player's punches (kind 0, at most one row) followed by each gamepass they own (kind 1), in order of ID.
+     */
+    LOAD_STATS("""
+            SELECT 0 AS kind, punches AS value FROM stats WHERE user_id = ?1
+            UNION ALL
+            SELECT 1, gamepass_id FROM gamepass_ownership WHERE user_id = ?1
+            ORDER BY kind, value"""),
+    ENSURE_STATS("""
+            INSERT INTO stats (user_id, punches)
+            VALUES (?, 0)
+            ON CONFLICT (user_id) DO NOTHING"""),
+    SET_PUNCHES("""
+            UPDATE stats
+            SET punches = ?
+            WHERE user_id = ?"""),
+    UPSERT_PUNCHES("""
+            INSERT INTO stats (user_id, punches)
+            VALUES (?, ?)
+            ON CONFLICT (user_id) DO UPDATE SET punches = excluded.punches"""),
+
+    // gamepass ownership
+    LOAD_GAMEPASSES("""
+            SELECT gamepass_id FROM gamepass_ownership WHERE user_id = ? ORDER BY gamepass_id"""),
+    ADD_GAMEPASS("""
+            INSERT INTO gamepass_ownership (user_id, gamepass_id) VALUES (?, ?) ON CONFLICT DO NOTHING"""),
+    REMOVE_GAMEPASS("""
+            DELETE FROM gamepass_ownership WHERE user_id = ? AND gamepass_id = ?"""),
+    GAMEPASS_OWNERS("""
+            SELECT user_id FROM gamepass_ownership WHERE gamepass_id = ? ORDER BY user_id LIMIT ?"""),
+    COUNT_GAMEPASS_OWNERS("""
+            SELECT COUNT(*) FROM gamepass_ownership WHERE gamepass_id = ?"""),
+
+    // tickets
+    // closed tickets are moved to tickets_archive after a while (see TicketArchive), so reads look in both tables.
+    // the + in "+is_open" keeps SQLite from picking tickets_by_is_open, which matches nearly every closed ticket, over
+    // a better index. everything in tickets_archive is closed, so it isn't checked there.
+    MAX_TICKET_ID("""
+            SELECT MAX(COALESCE((SELECT MAX(ticket_id) FROM tickets), 0),
+                       COALESCE((SELECT MAX(ticket_id) FROM tickets_archive), 0))"""),
+    LOAD_TICKET("""
+            SELECT ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id FROM tickets
+            WHERE ticket_id = ?1
+            UNION ALL
+            SELECT ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id FROM tickets_archive
+            WHERE ticket_id = ?1"""),
+    TICKETS_BY_OWNER("""
+            SELECT * FROM (SELECT ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id FROM tickets
+                           WHERE owner_discord_id = ?1 ORDER BY opened_timestamp DESC LIMIT ?2)
+            UNION ALL
+            SELECT * FROM (SELECT ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id FROM tickets_archive
+                           WHERE owner_discord_id = ?1 ORDER BY opened_timestamp DESC LIMIT ?2)
+            ORDER BY opened_timestamp DESC LIMIT ?2"""),
+    TICKETS_BY_OWNER_AND_TYPE("""
+            SELECT * FROM (SELECT ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id FROM tickets
+                           WHERE owner_discord_id = ?1 AND type = ?2 ORDER BY opened_timestamp DESC LIMIT ?3)
+            UNION ALL
+            SELECT * FROM (SELECT ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id FROM tickets_archive
+                           WHERE owner_discord_id = ?1 AND type = ?2 ORDER BY opened_timestamp DESC LIMIT ?3)
+            ORDER BY opened_timestamp DESC LIMIT ?3"""),
+    TICKETS_BY_CLOSER("""
+            SELECT * FROM (SELECT ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id FROM tickets
+                           WHERE +is_open = false AND closed_by = ?1 ORDER BY opened_timestamp DESC LIMIT ?2)
+            UNION ALL
+            SELECT * FROM (SELECT ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id FROM tickets_archive
+                           WHERE closed_by = ?1 ORDER BY opened_timestamp DESC LIMIT ?2)
+            ORDER BY opened_timestamp DESC LIMIT ?2"""),
+    TICKETS_BY_CLOSER_AND_TYPE("""
+            SELECT * FROM (SELECT ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id FROM tickets
+                           WHERE +is_open = false AND closed_by = ?1 AND type = ?2 ORDER BY opened_timestamp DESC LIMIT ?3)
+            UNION ALL
+            SELECT * FROM (SELECT ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id FROM tickets_archive
+                           WHERE closed_by = ?1 AND type = ?2 ORDER BY opened_timestamp DESC LIMIT ?3)
+            ORDER BY opened_timestamp DESC LIMIT ?3"""),
+    TICKET_SUMMARIES_BY_OWNER("""
+            SELECT * FROM (SELECT ticket_id, type, discord_channel_id, opened_timestamp, is_open, close_reason, closed_by FROM tickets
+                           WHERE owner_discord_id = ?1 AND (opened_timestamp, ticket_id) < (?2, ?3)
+                           ORDER BY opened_timestamp DESC, ticket_id DESC LIMIT ?4)
+            UNION ALL
+            SELECT * FROM (SELECT ticket_id, type, discord_channel_id, opened_timestamp, is_open, close_reason, closed_by FROM tickets_archive
+                           WHERE owner_discord_id = ?1 AND (opened_timestamp, ticket_id) < (?2, ?3)
+                           ORDER BY opened_timestamp DESC, ticket_id DESC LIMIT ?4)
+            ORDER BY opened_timestamp DESC, ticket_id DESC LIMIT ?4"""),
+    TICKET_SUMMARIES_BY_OWNER_AND_TYPE("""
+            SELECT * FROM (SELECT ticket_id, type, discord_channel_id, opened_timestamp, is_open, close_reason, closed_by FROM tickets
+                           WHERE owner_discord_id = ?1 AND type = ?2 AND (opened_timestamp, ticket_id) < (?3, ?4)
+                           ORDER BY opened_timestamp DESC, ticket_id DESC LIMIT ?5)
+            UNION ALL
+            SELECT * FROM (SELECT ticket_id, type, discord_channel_id, opened_timestamp, is_open, close_reason, closed_by FROM tickets_archive
+                           WHERE owner_discord_id = ?1 AND type = ?2 AND (opened_timestamp, ticket_id) < (?3, ?4)
+                           ORDER BY opened_timestamp DESC, ticket_id DESC LIMIT ?5)
+            ORDER BY opened_timestamp DESC, ticket_id DESC LIMIT ?5"""),
+    TICKET_SUMMARIES_BY_CLOSER("""
+            SELECT * FROM (SELECT ticket_id, type, discord_channel_id, opened_timestamp, is_open, close_reason, closed_by FROM tickets
+                           WHERE +is_open = false AND closed_by = ?1 AND (opened_timestamp, ticket_id) < (?2, ?3)
+                           ORDER BY opened_timestamp DESC, ticket_id DESC LIMIT ?4)
+            UNION ALL
+            SELECT * FROM (SELECT ticket_id, type, discord_channel_id, opened_timestamp, is_open, close_reason, closed_by FROM tickets_archive
+                           WHERE closed_by = ?1 AND (opened_timestamp, ticket_id) < (?2, ?3)
+                           ORDER BY opened_timestamp DESC, ticket_id DESC LIMIT ?4)
+            ORDER BY opened_timestamp DESC, ticket_id DESC LIMIT ?4"""),
+    TICKET_SUMMARIES_BY_CLOSER_AND_TYPE("""
+            SELECT * FROM (SELECT ticket_id, type, discord_channel_id, opened_timestamp, is_open, close_reason, closed_by FROM tickets
+                           WHERE +is_open = false AND closed_by = ?1 AND type = ?2 AND (opened_timestamp, ticket_id) < (?3, ?4)
+                           ORDER BY opened_timestamp DESC, ticket_id DESC LIMIT ?5)
+            UNION ALL
+            SELECT * FROM (SELECT ticket_id, type, discord_channel_id, opened_timestamp, is_open, close_reason, closed_by FROM tickets_archive
+                           WHERE closed_by = ?1 AND type = ?2 AND (opened_timestamp, ticket_id) < (?3, ?4)
+                           ORDER BY opened_timestamp DESC, ticket_id DESC LIMIT ?5)
+            ORDER BY opened_timestamp DESC, ticket_id DESC LIMIT ?5"""),
+    TICKET_CURSOR("""
+            SELECT opened_timestamp FROM tickets WHERE ticket_id = ?1
+            UNION ALL
+            SELECT opened_timestamp FROM tickets_archive WHERE ticket_id = ?1"""),
+    COUNT_TICKETS_BY_OWNER("""
+            SELECT (SELECT COUNT(*) FROM tickets WHERE owner_discord_id = ?1)
+                 + (SELECT COUNT(*) FROM tickets_archive WHERE owner_discord_id = ?1)"""),
+    COUNT_TICKETS_BY_OWNER_AND_TYPE("""
+            SELECT (SELECT COUNT(*) FROM tickets WHERE owner_discord_id = ?1 AND type = ?2)
+                 + (SELECT COUNT(*) FROM tickets_archive WHERE owner_discord_id = ?1 AND type = ?2)"""),
+    COUNT_TICKETS_BY_CLOSER("""
+            SELECT (SELECT COUNT(*) FROM tickets WHERE +is_open = false AND closed_by = ?1)
+                 + (SELECT COUNT(*) FROM tickets_archive WHERE closed_by = ?1)"""),
+    COUNT_TICKETS_BY_CLOSER_AND_TYPE("""
+            SELECT (SELECT COUNT(*) FROM tickets WHERE +is_open = false AND closed_by = ?1 AND type = ?2)
+                 + (SELECT COUNT(*) FROM tickets_archive WHERE closed_by = ?1 AND type = ?2)"""),
+    UPSERT_TICKET("""
+            INSERT INTO tickets (ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id, closed_timestamp)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, CASE WHEN ?5 THEN NULL ELSE ?10 END) ON CONFLICT(ticket_id) DO UPDATE SET
+                                                                                    discord_channel_id = excluded.discord_channel_id,
+                                                                                    type = excluded.type,
+                                                                                    opened_timestamp = excluded.opened_timestamp,
+                                                                                    is_open = excluded.is_open,
+                                                                                    close_reason = excluded.close_reason,
+                                                                                    closed_by = excluded.closed_by,
+                                                                                    input_questions = excluded.input_questions,
+                                                                                    owner_discord_id = excluded.owner_discord_id,
+                                                                                    closed_timestamp = CASE WHEN excluded.is_open THEN NULL
+                                                                                        ELSE COALESCE(tickets.closed_timestamp, excluded.closed_timestamp) END"""),
+    DELETE_TICKET("""
+            DELETE FROM tickets WHERE ticket_id = ?"""),
+    DELETE_ARCHIVED_TICKET("""
+            DELETE FROM tickets_archive WHERE ticket_id = ?"""),
+    UNLINK_ALL_EVIDENCE_FROM_TICKET("""
+            DELETE FROM ticket_evidence_link WHERE ticket_id = ?"""),
+    UNLINK_ALL_EVIDENCE_FROM_ARCHIVED_TICKET("""
+            DELETE FROM ticket_evidence_link_archive WHERE ticket_id = ?"""),
+
+    // ticket archive
+    ARCHIVABLE_TICKETS("""
+            SELECT ticket_id FROM tickets
+            WHERE +is_open = false AND closed_timestamp < ?
+            ORDER BY closed_timestamp LIMIT ?"""),
+    ARCHIVE_TICKET("""
+            INSERT INTO tickets_archive (ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id, closed_timestamp)
+            SELECT ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id, closed_timestamp FROM tickets
+            WHERE ticket_id = ?"""),
+    ARCHIVE_TICKET_EVIDENCE_LINKS("""
+            INSERT OR IGNORE INTO ticket_evidence_link_archive (ticket_id, evidence_id)
+            SELECT ticket_id, evidence_id FROM ticket_evidence_link
+            WHERE ticket_id = ?"""),
+    RESTORE_TICKET("""
+            INSERT INTO tickets (ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id, closed_timestamp)
+            SELECT ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id, closed_timestamp FROM tickets_archive
+            WHERE ticket_id = ?"""),
+    RESTORE_TICKET_EVIDENCE_LINKS("""
+            INSERT OR IGNORE INTO ticket_evidence_link (ticket_id, evidence_id)
+            SELECT ticket_id, evidence_id FROM ticket_evidence_link_archive
+            WHERE ticket_id = ?"""),
+
+    // tickets (manager)
+    OPEN_TICKETS("""
+            SELECT ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id FROM tickets
+            WHERE is_open = TRUE"""),
+
+    // unbans
+    LOAD_UNBANS("""
+            SELECT user_id, responsible_moderator, date
+            FROM unbans
+            WHERE user_id = ?
+            ORDER BY date"""),
+    CLEAR_UNBANS("""
+            DELETE FROM unbans WHERE user_id = ?"""),
+    INSERT_UNBAN("""
+            INSERT INTO unbans VALUES (?, ?, ?)"""),
+    INSERT_UNBAN_IF_NEW("""
+            INSERT INTO unbans
+            SELECT ?1, ?2, ?3
+            WHERE NOT EXISTS (SELECT 1 FROM unbans WHERE user_id = ?1 AND date = ?3)"""),
+
+    // bulk import/export
+    EXPORT_BANS(true, """
+            SELECT user_id, responsible_moderator, reason, starts, ends, linked_ticket, is_legacy
+            FROM bans
+            ORDER BY user_id, starts"""),
+    EXPORT_UNBANS(true, """
+            SELECT user_id, responsible_moderator, date
+            FROM unbans
+            ORDER BY user_id, date"""),
+
+    // staff ban counts
+    STAFF_WEEKLY_BAN_COUNT("""
+            SELECT ban_count FROM staff_weekly_ban_counts
+            WHERE week_start = ? AND responsible_moderator = ?"""),
+    STAFF_WEEKLY_BAN_COUNTS("""
+            SELECT responsible_moderator, ban_count FROM staff_weekly_ban_counts
+            WHERE week_start = ? AND ban_count > 0"""),
+    ADJUST_STAFF_BAN_COUNTS("""
+            INSERT INTO staff_weekly_ban_counts (week_start, responsible_moderator, ban_count)
+            SELECT week_start, responsible_moderator, ?2 FROM staff_ban_credits WHERE user_id = ?1
+            ON CONFLICT (week_start, responsible_moderator) DO UPDATE SET ban_count = ban_count + excluded.ban_count"""),
+    DELETE_STAFF_BAN_CREDITS("""
+            DELETE FROM staff_ban_credits WHERE user_id = ?"""),
+    INSERT_STAFF_BAN_CREDITS("""
+            INSERT INTO staff_ban_credits (user_id, week_start, responsible_moderator)
+            SELECT user_id, week_start, responsible_moderator
+            FROM (SELECT user_id, responsible_moderator, starts, week_start,
+                         ROW_NUMBER() OVER (PARTITION BY user_id, week_start ORDER BY starts DESC) AS latest
+                  FROM (SELECT user_id, responsible_moderator, starts,
+                               (starts / 86400000 - (starts / 86400000 + 3) % 7) * 86400000 AS week_start
+                        FROM bans WHERE user_id = ?)) ban
+            WHERE latest = 1
+              AND responsible_moderator IS NOT NULL
+              AND NOT EXISTS (SELECT 1 FROM unbans WHERE unbans.user_id = ban.user_id AND unbans.date > ban.starts)"""),
+    CLEAR_ALL_STAFF_BAN_CREDITS(true, """
+            DELETE FROM staff_ban_credits"""),
+    CLEAR_ALL_STAFF_BAN_COUNTS(true, """
+            DELETE FROM staff_weekly_ban_counts"""),
+    REBUILD_STAFF_BAN_CREDITS(true, """
+            INSERT INTO staff_ban_credits (user_id, week_start, responsible_moderator)
+            SELECT user_id, week_start, responsible_moderator
+            FROM (SELECT user_id, responsible_moderator, starts, week_start,
+                         ROW_NUMBER() OVER (PARTITION BY user_id, week_start ORDER BY starts DESC) AS latest
+                  FROM (SELECT user_id, responsible_moderator, starts,
+                               (starts / 86400000 - (starts / 86400000 + 3) % 7) * 86400000 AS week_start
+                        FROM bans)) ban
+            WHERE latest = 1
+              AND responsible_moderator IS NOT NULL
+              AND NOT EXISTS (SELECT 1 FROM unbans WHERE unbans.user_id = ban.user_id AND unbans.date > ban.starts)"""),
+    REBUILD_STAFF_BAN_COUNTS(true, """
+            INSERT INTO staff_weekly_ban_counts (week_start, responsible_moderator, ban_count)
+            SELECT week_start, responsible_moderator, COUNT(*)
+            FROM staff_ban_credits
+            GROUP BY week_start, responsible_moderator"""),
+
+    // discord appeal blacklists
+    IS_DISCORD_BLACKLISTED("""
+            SELECT 1 FROM discord_appeal_blacklists WHERE discord_id = ? LIMIT 1"""),
+    DELETE_DISCORD_BLACKLIST("""
+            DELETE FROM discord_appeal_blacklists WHERE discord_id = ?"""),
+    LOAD_DISCORD_BLACKLIST("""
+            SELECT appeal_blacklist_reason, appeal_blacklist_date, appeal_blacklist_issuer
+            FROM discord_appeal_blacklists
+            WHERE discord_id = ?"""),
+    UPSERT_DISCORD_BLACKLIST("""
+            INSERT INTO discord_appeal_blacklists (discord_id, appeal_blacklist_reason, appeal_blacklist_date, appeal_blacklist_issuer)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (discord_id) DO UPDATE SET
+                                                   appeal_blacklist_reason = excluded.appeal_blacklist_reason,
+                                                   appeal_blacklist_date = excluded.appeal_blacklist_date,
+                                                   appeal_blacklist_issuer = excluded.appeal_blacklist_issuer"""),
+
+    // discord >< roblox links
+    CREATE_DISCORD_ROBLOX_LINK("""
+            INSERT INTO discord_roblox_links (discord_id, roblox_id) VALUES (?, ?) ON CONFLICT DO NOTHING"""),
+    DELETE_LINK_BY_DISCORD_ID("""
+            DELETE FROM discord_roblox_links WHERE discord_id = ?"""),
+    DELETE_LINK_BY_ROBLOX_ID("""
+            DELETE FROM discord_roblox_links WHERE roblox_id = ?"""),
+    ROBLOX_ID_FROM_DISCORD_ID("""
+            SELECT roblox_id from discord_roblox_links where discord_id = ?"""),
+    DISCORD_ID_FROM_ROBLOX_ID("""
+            SELECT discord_id from discord_roblox_links where roblox_id = ?"""),
+    ALL_DISCORD_ROBLOX_LINKS(true, """
+            SELECT discord_id, roblox_id
+            FROM discord_roblox_links"""),
+
+    // full-text search
+    SEARCH_BANS("""
+            SELECT m.rowid AS search_rowid, b.user_id, b.responsible_moderator, b.reason, b.starts, b.ends, b.linked_ticket, b.is_legacy
+            FROM (SELECT rowid, rank FROM ban_search WHERE ban_search MATCH ?1 ORDER BY rowid DESC LIMIT ?2) m
+            JOIN bans b ON b.rowid = m.rowid
+            ORDER BY m.rank, m.rowid DESC
+            LIMIT ?3 OFFSET ?4"""),
+    BAN_SEARCH_SNIPPET("""
+            SELECT snippet(ban_search, 0, '**', '**', '...', 24)
+            FROM ban_search WHERE ban_search MATCH ? AND rowid = ?"""),
+    SEARCH_EVIDENCE("""
+            SELECT m.rowid AS search_rowid, e.evidence_id, e.timestamp, e.accused_user, e.details, e.url
+            FROM (SELECT rowid, rank FROM evidence_search WHERE evidence_search MATCH ?1 ORDER BY rowid DESC LIMIT ?2) m
+            JOIN evidence e ON e.evidence_id = m.rowid
+            ORDER BY m.rank, m.rowid DESC
+            LIMIT ?3 OFFSET ?4"""),
+    EVIDENCE_SEARCH_SNIPPET("""
+            SELECT snippet(evidence_search, 0, '**', '**', '...', 24)
+            FROM evidence_search WHERE evidence_search MATCH ? AND rowid = ?"""),
+    SEARCH_TICKETS("""
+            WITH m AS (SELECT rowid, rank FROM ticket_search WHERE ticket_search MATCH ?1 ORDER BY rowid DESC LIMIT ?2)
+            SELECT m.rowid AS search_rowid, t.ticket_id, t.type, t.discord_channel_id, t.opened_timestamp, t.is_open, t.close_reason, t.closed_by, m.rank
+            FROM m JOIN tickets t ON t.ticket_id = m.rowid
+            UNION ALL
+            SELECT m.rowid AS search_rowid, t.ticket_id, t.type, t.discord_channel_id, t.opened_timestamp, t.is_open, t.close_reason, t.closed_by, m.rank
+            FROM m JOIN tickets_archive t ON t.ticket_id = m.rowid
+            ORDER BY rank, search_rowid DESC
+            LIMIT ?3 OFFSET ?4"""),
+    TICKET_SEARCH_SNIPPET("""
+            SELECT snippet(ticket_search, 0, '**', '**', '...', 24)
+            FROM ticket_search WHERE ticket_search MATCH ? AND rowid = ?"""),
+    INDEX_BAN("""
+            INSERT INTO ban_search (rowid, reason)
+            SELECT rowid, reason FROM bans WHERE user_id = ? AND starts = ?"""),
+    // takes the same parameters as UPSERT_BAN, and matches exactly the stored bans it's about to change.
+    UNINDEX_CHANGED_BAN("""
+            INSERT INTO ban_search (ban_search, rowid, reason)
+            SELECT 'delete', rowid, reason FROM bans
+            WHERE user_id = ?1 AND starts = ?4
+              AND (responsible_moderator, reason, ends, linked_ticket, is_legacy) IS NOT (?2, ?3, ?5, ?6, ?7)"""),
+    UNINDEX_USER_BANS("""
+            INSERT INTO ban_search (ban_search, rowid, reason)
+            SELECT 'delete', rowid, reason FROM bans WHERE user_id = ?"""),
+    INDEX_EVIDENCE("""
+            INSERT INTO evidence_search (rowid, details)
+            SELECT evidence_id, details FROM evidence WHERE evidence_id = ?"""),
+    UNINDEX_EVIDENCE("""
+            INSERT INTO evidence_search (evidence_search, rowid, details)
+            SELECT 'delete', evidence_id, details FROM evidence WHERE evidence_id = ?"""),
+    INDEX_TICKET("""
+            INSERT INTO ticket_search (rowid, input_questions)
+            SELECT ticket_id, input_questions FROM tickets WHERE ticket_id = ?"""),
+    UNINDEX_TICKET("""
+            INSERT INTO ticket_search (ticket_search, rowid, input_questions)
+            SELECT 'delete', ticket_id, input_questions FROM tickets WHERE ticket_id = ?1
+            UNION ALL
+            SELECT 'delete', ticket_id, input_questions FROM tickets_archive WHERE ticket_id = ?1"""),
+    REBUILD_BAN_SEARCH(true, """
+            INSERT INTO ban_search (ban_search) VALUES ('rebuild')"""),
+    REBUILD_EVIDENCE_SEARCH(true, """
+            INSERT INTO evidence_search (evidence_search) VALUES ('rebuild')"""),
+    REBUILD_TICKET_SEARCH(true, """
+            INSERT INTO ticket_search (ticket_search) VALUES ('rebuild')"""),
+
+    // ticket/ban evidence links
+    // the links of archived tickets are in ticket_evidence_link_archive, so reads look in both tables.
+    EVIDENCE_IDS_LINKED_TO_TICKET("""
+            SELECT evidence_id FROM ticket_evidence_link
+            WHERE ticket_id = ?1
+            UNION ALL
+            SELECT evidence_id FROM ticket_evidence_link_archive
+            WHERE ticket_id = ?1"""),
+    LINK_EVIDENCE_TO_TICKET("""
+            INSERT INTO ticket_evidence_link VALUES (?, ?)"""),
+    UNLINK_EVIDENCE_FROM_TICKET("""
+            DELETE FROM ticket_evidence_link WHERE ticket_id = ? AND evidence_id = ?"""),
+    UNLINK_EVIDENCE_FROM_ARCHIVED_TICKET("""
+            DELETE FROM ticket_evidence_link_archive WHERE ticket_id = ? AND evidence_id = ?"""),
+    UNLINK_EVIDENCE_FROM_ALL_TICKETS("""
+            DELETE FROM ticket_evidence_link WHERE evidence_id = ?"""),
+    UNLINK_EVIDENCE_FROM_ALL_ARCHIVED_TICKETS("""
+            DELETE FROM ticket_evidence_link_archive WHERE evidence_id = ?"""),
+    EVIDENCE_LINKED_TO_TICKET("""
+            SELECT e.evidence_id, e.timestamp, e.accused_user, e.details, e.url
+            FROM (SELECT evidence_id FROM ticket_evidence_link WHERE ticket_id = ?1
+                  UNION ALL
+                  SELECT evidence_id FROM ticket_evidence_link_archive WHERE ticket_id = ?1) link
+            JOIN evidence e ON e.evidence_id = link.evidence_id
+            ORDER BY link.evidence_id"""),
+    TICKET_IDS_LINKED_TO_EVIDENCE("""
+            SELECT ticket_id FROM ticket_evidence_link
+            WHERE evidence_id = ?1
+            UNION ALL
+            SELECT ticket_id FROM ticket_evidence_link_archive
+            WHERE evidence_id = ?1"""),
+    TICKETS_LINKED_TO_EVIDENCE("""
+            WITH link AS (SELECT ticket_id FROM ticket_evidence_link WHERE evidence_id = ?1
+                          UNION ALL
+                          SELECT ticket_id FROM ticket_evidence_link_archive WHERE evidence_id = ?1)
+            SELECT t.ticket_id, t.discord_channel_id, t.type, t.opened_timestamp, t.is_open, t.close_reason, t.closed_by, t.input_questions, t.owner_discord_id
+            FROM link JOIN tickets t ON t.ticket_id = link.ticket_id
+            UNION ALL
+            SELECT t.ticket_id, t.discord_channel_id, t.type, t.opened_timestamp, t.is_open, t.close_reason, t.closed_by, t.input_questions, t.owner_discord_id
+            FROM link JOIN tickets_archive t ON t.ticket_id = link.ticket_id"""),
+    EVIDENCE_LINKED_TO_USER_BANS("""
+            SELECT e.evidence_id, e.timestamp, e.accused_user, e.details, e.url
+            FROM ban_evidence_link link
+            JOIN evidence e ON e.evidence_id = link.evidence_id
+            WHERE link.user_id = ?
+            ORDER BY link.starts_timestamp, link.evidence_id"""),
+    EVIDENCE_LINKED_TO_BAN("""
+            SELECT e.evidence_id, e.timestamp, e.accused_user, e.details, e.url
+            FROM ban_evidence_link link
+            JOIN evidence e ON e.evidence_id = link.evidence_id
+            WHERE link.user_id = ? AND link.starts_timestamp = ?
+            ORDER BY link.evidence_id"""),
+    LINK_EVIDENCE_TO_BAN("""
+            INSERT INTO ban_evidence_link VALUES (?, ?, ?)"""),
+    UNLINK_EVIDENCE_FROM_BAN("""
+            DELETE FROM ban_evidence_link WHERE user_id = ? AND starts_timestamp = ? AND evidence_id = ?"""),
+    BANS_LINKED_TO_EVIDENCE("""
+            SELECT b.user_id, b.responsible_moderator, b.reason, b.starts, b.ends, b.linked_ticket, b.is_legacy
+            FROM ban_evidence_link link
+            JOIN bans b ON b.user_id = link.user_id AND b.starts = link.starts_timestamp
+            WHERE link.evidence_id = ?""");
+
+    /**
+     * The SQL text of this query.
+     */
+    public final String sql;
+    /**
+     * If this query is meant to read its entire table, like loading every row at startup. Every other query has to be
+     * answered from an index, which {@link AWQueryPlans} checks for.
+     */
+    public final boolean fullScan;
+    private final LongAdder calls = new LongAdder();
+
+    AWQuery(String sql) {
+        this(false, sql);
+    }
+
+    AWQuery(boolean fullScan, String sql) {
+        this.fullScan = fullScan;
+        this.sql = sql;
+    }
+
+    /**
+     * Prints how many times each query has been run since startup, most-used first. Queries that were never run are
+     * left out.
+     */
+    public static void printStatistics() {
+        System.out.println("Query statistics:");
+        Arrays.stream(values())
+                .filter(query -> query.calls() > 0)
+                .sorted(Comparator.comparingLong(AWQuery::calls).reversed())
+                .forEach(query -> System.out.println("\t" + query.name() + ": " + query.calls()));
+    }
+
+    /**
+     * @return How many times this query has been prepared for use since startup.
+     */
+    public long calls() {
+        return this.calls.sum();
+    }
+
+    void recordCall() {
+        this.calls.increment();
+    }
+}
@@ -0,0 +1,143 @@
+package org.lukecreator.aw;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks the query plan of every statement in {@link AWQuery}, so a query that stops using an index (or a new one that
+ * never had one) gets caught before it turns into a slow staff command on a large table.
+ * <p>
+ * This runs at startup in debug mode, against the real schema after it's been migrated.
+ */
+public final class AWQueryPlans {
+    private AWQueryPlans() {
+    }
+
+    /**
+     * Runs {@code EXPLAIN QUERY PLAN} for every query and collects each step that scans a whole table. Queries marked as
+     * {@link AWQuery#fullScan} are skipped.
+     *
+     * @param connection The connection to plan the queries on.
+     * @return A line describing each full table scan, e.g. {@code "LOAD_BANS: SCAN bans"}. Empty if every
+     * query is answered from an index.
+     * @throws SQLException If a query couldn't be planned, which usually means it no longer matches the schema.
+     */
+    public static List<String> findTableScans(Connection connection) throws SQLException {
+        List<String> scans = new ArrayList<>();
+        for (AWQuery query : AWQuery.values()) {
+            if (query.fullScan)
+                continue;
+            for (String step : findTableScans(connection, query))
+                scans.add(query.name() + ": " + step);
+        }
+        return scans;
+    }
+
+    /**
+     * @param connection The connection to plan the query on.
+     * @param query      The query to plan.
+     * @return Each step in the plan of the query that scans a whole table, whether or not it's marked as
+     * {@link AWQuery#fullScan}.
+     * @throws SQLException If the query couldn't be planned.
+     */
+    static List<String> findTableScans(Connection connection, AWQuery query) throws SQLException {
+        List<String> steps = plan(connection, query);
+        List<String> subqueries = subqueryNames(steps);
+        List<String> scans = new ArrayList<>();
+        for (String step : steps) {
+            if (isTableScan(step, subqueries))
+                scans.add(step);
+        }
+        return scans;
+    }
+
+    /**
+     * Checks the plan of every query, failing if any of them scan a whole table.
+     *
+     * @param pool The pool to plan the queries through.
+     * @throws IllegalStateException If a query scans a whole table. Every offending step is listed in the message.
+     * @throws SQLException          If a query couldn't be planned.
+     */
+    static void verify(AWConnectionPool pool) throws SQLException {
+        List<String> scans;
+        try (var db = pool.read()) {
+            scans = findTableScans(db.connection());
+        }
+        if (scans.isEmpty()) {
+            System.out.println("Checked the query plans of " + AWQuery.values().length + " queries; none scan a whole table.");
+            return;
+        }
+        System.err.println("These queries scan a whole table; add an index for them, or mark them as a full scan in AWQuery:");
+        for (String scan : scans)
+            System.err.println("\t" + scan);
+        throw new IllegalStateException(scans.size() + " queries scan a whole table.");
+    }
+
+    /**
+     * @return The detail of each step in the plan of the given query.
+     */
+    private static List<String> plan(Connection connection, AWQuery query) throws SQLException {
+        try (var statement = connection.prepareStatement("EXPLAIN QUERY PLAN " + query.sql)) {
+            // planned with values like the ones the query really runs with, in case SQLite looks at them.
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++)
+                statement.setObject(i, sampleParameter(query, i));
+
+            List<String> steps = new ArrayList<>();
+            try (var results = statement.executeQuery()) {
+                while (results.next())
+                    steps.add(results.getString("detail"));
+            }
+            return steps;
+        } catch (SQLException e) {
+            throw new SQLException("Couldn't plan " + query.name() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return The names of the subqueries in a plan that are given an alias, like {@code CO-ROUTINE ban} for
+     * {@code FROM (...) ban}. Scanning those shows up as {@code SCAN ban}, which isn't a table.
+     */
+    private static List<String> subqueryNames(List<String> steps) {
+        List<String> names = new ArrayList<>();
+        for (String step : steps) {
+            if (step.startsWith("CO-ROUTINE "))
+                names.add(step.substring("CO-ROUTINE ".length()));
+            else if (step.startsWith("MATERIALIZE "))
+                names.add(step.substring("MATERIALIZE ".length()));
+        }
+        return names;
+    }
+
+    /**
+     * @return A value to plan the given parameter of a query with. Nearly every parameter is an ID, timestamp, flag or
+     * limit, which 1 stands in for. The only text that's searched on is a full-text query, which always comes first.
+     */
+    private static Object sampleParameter(AWQuery query, int index) {
+        if (index == 1 && query.sql.contains(" MATCH ?"))
+            return "ban";
+        return 1L;
+    }
+
+    /**
+     * Full scans show up as {@code SCAN <table>} (or {@code SCAN TABLE <table>} on older versions of SQLite), even when
+     * they go through an index, like {@code SCAN bans USING COVERING INDEX bans_by_user}. Scans of a subquery or a
+     * constant row aren't counted, and neither are scans of a virtual table (like a full-text index) that pass it a
+     * constraint, like {@code SCAN ban_search VIRTUAL TABLE INDEX 0:M1}.
+     */
+    static boolean isTableScan(String step, List<String> subqueries) {
+        if (!step.startsWith("SCAN "))
+            return false;
+        if (step.contains(" VIRTUAL TABLE INDEX "))
+            return step.endsWith(":");
+        String target = step.substring("SCAN ".length());
+        if (target.startsWith("TABLE "))
+            target = target.substring("TABLE ".length());
+        if (target.startsWith("(") || target.startsWith("CONSTANT ROW"))
+            return false;
+        int end = target.indexOf(' ');
+        return !subqueries.contains(end < 0 ? target : target.substring(0, end));
+    }
+}
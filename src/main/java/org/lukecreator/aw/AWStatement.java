@@ -0,0 +1,99 @@
+package org.lukecreator.aw;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A prepared statement for one of the queries in {@link AWQuery}, borrowed from a connection's statement cache.
+ * <p>
+ * Closing it clears its parameters and batch and hands it back to the cache rather than closing the underlying statement, so
+ * always close it (preferably using try-with-resources) the same way you would a normal {@link PreparedStatement}.
+ */
+public final class AWStatement implements AutoCloseable {
+    private final PreparedStatement statement;
+    private final AWConnectionPool.StatementCache cache;
+    private final AWQuery query;
+
+    /**
+     * @param statement The underlying statement.
+     * @param cache     The cache to return the statement to when closed, or {@code null} if the statement isn't cached
+     *                  and should really be closed.
+     * @param query     The query the statement was prepared from.
+     */
+    AWStatement(PreparedStatement statement, AWConnectionPool.StatementCache cache, AWQuery query) {
+        this.statement = statement;
+        this.cache = cache;
+        this.query = query;
+    }
+
+    public AWQuery query() {
+        return this.query;
+    }
+
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        this.statement.setLong(parameterIndex, x);
+    }
+
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        this.statement.setInt(parameterIndex, x);
+    }
+
+    public void setString(int parameterIndex, String x) throws SQLException {
+        this.statement.setString(parameterIndex, x);
+    }
+
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        this.statement.setBoolean(parameterIndex, x);
+    }
+
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        this.statement.setNull(parameterIndex, sqlType);
+    }
+
+    public ResultSet executeQuery() throws SQLException {
+        return this.statement.executeQuery();
+    }
+
+    public int executeUpdate() throws SQLException {
+        return this.statement.executeUpdate();
+    }
+
+    public boolean execute() throws SQLException {
+        return this.statement.execute();
+    }
+
+    /**
+     * Adds the current parameters to this statement's batch, to be run with the rest of it by {@link #executeBatch()}.
+     * Use this instead of executing the statement once per row when writing many rows at once.
+     */
+    public void addBatch() throws SQLException {
+        this.statement.addBatch();
+    }
+
+    /**
+     * Runs every set of parameters added with {@link #addBatch()}, in the order they were added, and empties the batch.
+     *
+     * @return The number of rows each set of parameters changed.
+     * @throws SQLException If any of them failed. The ones before it have still run, so batches that need to be all or
+     *                      nothing should run inside a transaction.
+     */
+    public int[] executeBatch() throws SQLException {
+        return this.statement.executeBatch();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (this.cache == null) {
+            this.statement.close();
+            return;
+        }
+        try {
+            // a batch that failed (or was never run) mustn't be run by whoever borrows this next.
+            this.statement.clearBatch();
+            this.statement.clearParameters();
+        } finally {
+            this.cache.checkIn(this.query);
+        }
+    }
+}
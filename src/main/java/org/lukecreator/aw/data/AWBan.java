@@ -2,6 +2,7 @@ package org.lukecreator.aw.data;
 
 import com.google.gson.JsonObject;
 
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Objects;
 
@@ -39,6 +40,25 @@ public final class AWBan {
         this.isLegacy = isLegacy;
     }
 
+    /**
+     * Creates an {@link AWBan} from the current row of a result set containing the columns of the {@code bans} table.
+     *
+     * @param results The result set, positioned on the row to read.
+     * @return The ban in the row.
+     * @throws SQLException If one of the columns couldn't be read.
+     */
+    public static AWBan fromRow(ResultSet results) throws SQLException {
+        return new AWBan(
+                results.getLong("user_id"),
+                results.getLong("responsible_moderator"),
+                results.getString("reason"),
+                results.getLong("starts"),
+                results.getLong("ends"),
+                results.getLong("linked_ticket"),
+                results.getBoolean("is_legacy")
+        );
+    }
+
     /**
      * Creates an {@link AWBan} object from the provided JSON data and user ID.
      *
@@ -1,10 +1,11 @@
 package org.lukecreator.aw.data;
 
 import org.jetbrains.annotations.Nullable;
-import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.AWConnectionPool;
+import org.lukecreator.aw.AWQuery;
+import org.lukecreator.aw.AWStatement;
+import org.lukecreator.aw.data.repository.Repositories;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.*;
@@ -35,50 +36,6 @@ public class AWBans {
         }
     }
 
-    /**
-     * Counts the number of distinct bans issued by a specific moderator (or staff member) within a specified time range.
-     * Only bans that have not been overturned (unbanned) are considered.
-     *
-     * @param staffRobloxId The Roblox ID of the staff member responsible for issuing the bans.
-     * @param weekStart     The start timestamp (inclusive) of the week-long time range in milliseconds.
-     * @param weekEnd       The end timestamp (inclusive) of the week-long time range in milliseconds.
-     * @return The count of distinct bans issued by the specified staff member within the given time range.
-     * If there are no bans, returns 0.
-     * @throws SQLException If an error occurs while querying the database.
-     */
-    public static int countBansByStaff(long staffRobloxId, long weekStart, long weekEnd) throws SQLException {
-        final String query = """
-                SELECT COUNT(*)
-                FROM bans ban
-                LEFT JOIN unbans unban ON ban.user_id = unban.user_id
-                                       AND unban.date > ban.starts
-                WHERE ban.responsible_moderator = ?
-                AND ban.starts >= ? AND ban.starts <= ?
-                AND unban.user_id IS NULL
-                AND ban.starts = (
-                    SELECT MAX(b2.starts)
-                    FROM bans b2
-                    WHERE b2.user_id = ban.user_id
-                      AND b2.starts >= ? AND b2.starts <= ?
-                )
-                """;
-
-        try (PreparedStatement statement = AWDatabase.connection.prepareStatement(query)) {
-            statement.setLong(1, staffRobloxId);
-            statement.setLong(2, weekStart);
-            statement.setLong(3, weekEnd);
-            statement.setLong(4, weekStart);
-            statement.setLong(5, weekEnd);
-
-            try (ResultSet result = statement.executeQuery()) {
-                if (result.next()) {
-                    return result.getInt(1);
-                }
-                return 0;
-            }
-        }
-    }
-
     /**
      * Loads a list of bans associated with a specific user ID from the database.
      *
@@ -87,28 +44,8 @@ public class AWBans {
      * an empty {@link AWBans} object associated with the given user ID is returned.
      */
     public static AWBans loadFromDatabase(long userId) {
-        try (var statement = AWDatabase.connection.prepareStatement(
-                """
-                        SELECT user_id, responsible_moderator, reason, starts, ends, linked_ticket, is_legacy
-                        FROM bans
-                        WHERE user_id = ?
-                        ORDER BY starts""")) {
-            statement.setLong(1, userId);
-            try (var resultSet = statement.executeQuery()) {
-                ArrayList<AWBan> bans = new ArrayList<>();
-                while (resultSet.next()) {
-                    bans.add(new AWBan(
-                            resultSet.getLong("user_id"),
-                            resultSet.getLong("responsible_moderator"),
-                            resultSet.getString("reason"),
-                            resultSet.getLong("starts"),
-                            resultSet.getLong("ends"),
-                            resultSet.getLong("linked_ticket"),
-                            resultSet.getBoolean("is_legacy")
-                    ));
-                }
-                return new AWBans(userId, bans.toArray(new AWBan[0]));
-            }
+        try {
+            return new AWBans(userId, Repositories.bans().load(userId).toArray(new AWBan[0]));
         } catch (Exception e) {
             System.err.println("Issue occurred when loading bans (" + userId + ") from database: " + e);
             return new AWBans(userId);
@@ -160,20 +97,8 @@ public class AWBans {
      * @param ends The unix millisecond timestamp that the current ban ends.
      */
     public void setBanEnds(long ends) throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("""
-                UPDATE bans
-                SET ends = ?
-                WHERE user_id = ?
-                AND starts = (
-                    SELECT MAX(starts)
-                    FROM bans
-                    WHERE user_id = ?
-                )""");
-
-        statement.setLong(1, ends);
-        statement.setLong(2, this.userId);
-        statement.setLong(3, this.userId);
-        statement.executeUpdate();
+        Repositories.bans().setLatestEnds(this.userId, ends);
+        AWPlayerCache.invalidate(this.userId);
 
         if (this.bans.isEmpty())
             return; // do nothing, since player is not banned.
@@ -198,9 +123,8 @@ public class AWBans {
      * @throws SQLException If an issue occurs while clearing the banlist.
      */
     public void clearBans() throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("DELETE FROM bans WHERE user_id = ?");
-        statement.setLong(1, this.userId);
-        statement.execute();
+        Repositories.bans().clear(this.userId);
+        AWPlayerCache.invalidate(this.userId);
         this.bans.clear();
     }
 
@@ -213,24 +137,83 @@ public class AWBans {
      * @throws SQLException If an issue occurs while inserting the ban into the database.
      */
     public void addBan(AWBan ban) throws SQLException {
-        // check if this ban overlaps any other ban. if so, it doesn't need to be registered.
-        if (!this.bans.isEmpty()) {
-            for (AWBan sampleBan : this.bans) {
-                if (sampleBan.starts() == ban.starts()) {
-                    // remove any/all bans for this user that have the same starting timestamp
-                    long userId = ban.userId();
-                    long startsTimestamp = ban.starts();
-                    var statement = AWDatabase.connection.prepareStatement("DELETE FROM bans WHERE user_id = ? AND starts = ?");
-                    statement.setLong(1, userId);
-                    statement.setLong(2, startsTimestamp);
-                    statement.execute();
-                }
-            }
-            // apply to the local cache too
+        this.addBans(List.of(ban));
+    }
+
+    /**
+     * Adds many bans to the database and the internal list of bans at once, in a single batch write.
+     * Any ban on record with the same start time as one of the input bans is replaced, just like {@link #addBan(AWBan)}.
+     *
+     * @param bans The bans to be added, all of this user.
+     * @throws SQLException If an issue occurs while inserting the bans into the database. None of them are added if so.
+     */
+    public void addBans(List<AWBan> bans) throws SQLException {
+        if (bans.isEmpty())
+            return;
+
+        // any ban for this user with the same starting timestamp is replaced.
+        Repositories.bans().add(bans, null);
+        for (AWBan ban : bans) {
             this.bans.removeIf(test -> test.starts() == ban.starts());
+            this.bans.add(ban);
         }
+        AWPlayerCache.invalidate(this.userId);
+    }
 
-        var statement = AWDatabase.connection.prepareStatement("INSERT INTO bans VALUES (?, ?, ?, ?, ?, ?, ?)");
+    /**
+     * Upserts bans by user and start time in one batch, keeping the search index in step. A ban identical to the one
+     * on record isn't written at all, so replaying the same bans (like a retried fulfillment) costs an index lookup
+     * each rather than a delete and insert. If two of the bans are of the same user and start at the same time, the
+     * later one wins. Shared with {@link BanTransfer}. Staff ban counts aren't touched; recount the users of the
+     * returned bans afterward.
+     *
+     * @param db             The writer lease, inside a transaction.
+     * @param bans           The bans to write.
+     * @param linkedTicketId The ticket to link the bans to, or null for none.
+     * @return The bans that were actually inserted or changed.
+     * @throws SQLException If the bans couldn't be written.
+     */
+    public static List<AWBan> upsertBans(AWConnectionPool.Lease db, List<AWBan> bans, @Nullable Long linkedTicketId)
+            throws SQLException {
+        Collection<AWBan> unique = bans;
+        if (bans.size() > 1) {
+            // the unindex below runs for every ban before any of them are written, so it can't see duplicates.
+            Map<BanKey, AWBan> byKey = new LinkedHashMap<>();
+            for (AWBan ban : bans)
+                byKey.put(new BanKey(ban.userId(), ban.starts()), ban);
+            unique = byKey.values();
+        }
+
+        SearchIndex.unindexChangedBans(db, unique, linkedTicketId);
+        int[] written;
+        try (var statement = db.prepare(AWQuery.UPSERT_BAN)) {
+            for (AWBan ban : unique) {
+                bindBan(statement, ban, linkedTicketId);
+                statement.addBatch();
+            }
+            written = statement.executeBatch();
+        }
+
+        List<AWBan> changed = new ArrayList<>();
+        int index = 0;
+        for (AWBan ban : unique) {
+            if (written[index++] > 0)
+                changed.add(ban);
+        }
+        SearchIndex.indexBans(db, changed);
+        return changed;
+    }
+
+    /**
+     * Binds a single ban to an {@link AWQuery#UPSERT_BAN} or {@link AWQuery#UNINDEX_CHANGED_BAN} statement, without
+     * running it. Callers either execute the statement or add it to a batch.
+     *
+     * @param statement      The prepared statement.
+     * @param ban            The ban to bind.
+     * @param linkedTicketId The ticket to link the ban to, or null for none.
+     * @throws SQLException If the parameters couldn't be set.
+     */
+    static void bindBan(AWStatement statement, AWBan ban, @Nullable Long linkedTicketId) throws SQLException {
         statement.setLong(1, ban.userId());
 
         if (ban.responsibleModerator() == null)
@@ -246,10 +229,15 @@ public class AWBans {
         else
             statement.setLong(5, ban.ends());
 
-        statement.setNull(6, Types.INTEGER);
+        if (linkedTicketId == null)
+            statement.setNull(6, Types.INTEGER);
+        else
+            statement.setLong(6, linkedTicketId);
+
         statement.setBoolean(7, ban.isLegacy());
-        statement.execute();
-        this.bans.add(ban);
+    }
+
+    private record BanKey(long userId, long starts) {
     }
 
     public int size() {
@@ -1,9 +1,11 @@
 package org.lukecreator.aw.data;
 
 import net.dv8tion.jda.api.entities.Message;
-import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.AWStatement;
 import org.lukecreator.aw.RobloxAPI;
+import org.lukecreator.aw.data.repository.Repositories;
 
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -81,19 +83,7 @@ public class AWEvidence {
      * @throws SQLException If an SQL error occurs while accessing the database.
      */
     public static AWEvidence loadFromDatabase(long id) throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement
-                ("SELECT timestamp, accused_user, details, url FROM evidence WHERE evidence_id = ?");
-        statement.setLong(1, id);
-        try (var resultSet = statement.executeQuery()) {
-            if (resultSet.next()) {
-                long timestamp = resultSet.getLong("timestamp");
-                Long accusedUserRobloxId = resultSet.getLong("accused_user");
-                String details = resultSet.getString("details");
-                String url = resultSet.getString("url");
-                return new AWEvidence(id, timestamp, accusedUserRobloxId, details, url);
-            }
-        }
-        return null;
+        return Repositories.evidence().load(id);
     }
 
     /**
@@ -104,13 +94,7 @@ public class AWEvidence {
      * @throws SQLException If an error occurs while executing the SQL statement.
      */
     public static void removeFromDatabase(long id) throws SQLException {
-        // remove from the overall evidence database
-        var statement = AWDatabase.connection.prepareStatement("DELETE FROM evidence WHERE evidence_id = ?");
-        statement.setLong(1, id);
-        statement.execute();
-
-        // remove any ticket links to this evidence
-        Links.TicketEvidenceLinks.deleteEvidence(id);
+        Repositories.evidence().delete(id);
     }
 
     /**
@@ -137,22 +121,39 @@ public class AWEvidence {
      * @throws SQLException If an error occurs while querying the database.
      */
     public static AWEvidence[] loadEvidenceAgainstUserId(long userId) throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("""
-                SELECT evidence_id, timestamp, accused_user, details, url
-                FROM evidence
-                WHERE accused_user NOT NULL AND accused_user = ?""");
-        statement.setLong(1, userId);
+        return Repositories.evidence().loadAgainstUser(userId);
+    }
+
+    /**
+     * Creates an {@code AWEvidence} from the current row of a result set containing the columns of the
+     * {@code evidence} table.
+     *
+     * @param resultSet The result set, positioned on the row to read.
+     * @return The evidence in the row.
+     * @throws SQLException If one of the columns couldn't be read.
+     */
+    static AWEvidence fromRow(ResultSet resultSet) throws SQLException {
+        long evidenceId = resultSet.getLong("evidence_id");
+        long timestamp = resultSet.getLong("timestamp");
+        Long accusedUserRobloxId = resultSet.getLong("accused_user");
+        String details = resultSet.getString("details");
+        String url = resultSet.getString("url");
+        return new AWEvidence(evidenceId, timestamp, accusedUserRobloxId, details, url);
+    }
+
+    /**
+     * Reads every row of the given statement's results as evidence.
+     *
+     * @param statement A statement selecting the columns of the {@code evidence} table.
+     * @return The evidence, in the order the statement returned it.
+     * @throws SQLException If the statement failed.
+     */
+    public static AWEvidence[] readAll(AWStatement statement) throws SQLException {
         try (var resultSet = statement.executeQuery()) {
             List<AWEvidence> evidenceList = new ArrayList<>();
             while (resultSet.next()) {
-                long evidenceId = resultSet.getLong("evidence_id");
-                long timestamp = resultSet.getLong("timestamp");
-                Long accusedUserRobloxId = resultSet.getLong("accused_user");
-                String details = resultSet.getString("details");
-                String url = resultSet.getString("url");
-                evidenceList.add(new AWEvidence(evidenceId, timestamp, accusedUserRobloxId, details, url));
+                evidenceList.add(fromRow(resultSet));
             }
-
             return evidenceList.toArray(new AWEvidence[0]);
         }
     }
@@ -237,24 +238,6 @@ public class AWEvidence {
      * @throws SQLException If an error occurs while preparing or executing the SQL statement.
      */
     public void pushToDatabase() throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("""
-                INSERT INTO evidence (evidence_id, timestamp, accused_user, details, url)
-                VALUES (?, ?, ?, ?, ?)
-                ON CONFLICT (evidence_id) DO UPDATE SET
-                                                        timestamp = excluded.timestamp,
-                                                        accused_user = excluded.accused_user,
-                                                        details = excluded.details,
-                                                        url = excluded.url""");
-        statement.setLong(1, this.evidenceId);
-        statement.setLong(2, this.timestamp);
-
-        if (this.accusedUserRobloxId == null)
-            statement.setNull(3, java.sql.Types.INTEGER);
-        else
-            statement.setLong(3, this.accusedUserRobloxId);
-
-        statement.setString(4, this.details);
-        statement.setString(5, this.url);
-        statement.execute();
+        Repositories.evidence().save(this);
     }
 }
@@ -3,9 +3,13 @@ package org.lukecreator.aw.data;
 import net.dv8tion.jda.api.entities.UserSnowflake;
 import org.jetbrains.annotations.Nullable;
 import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.data.repository.Repositories;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * An Ability Wars player.
@@ -84,41 +88,80 @@ public final class AWPlayer {
         this.punchUpdates = punchUpdates;
     }
 
+    /**
+     * Loads a player from the database, along with whichever of their stats, bans, unbans, and punch updates are
+     * requested. Everything comes back from a single query; the player's row is only written if it doesn't exist yet.
+     * <p>
+     * Recently loaded players are kept in {@link AWPlayerCache}, so repeated lookups of the same player usually don't
+     * touch the database at all. Punch update history can grow without limit, so it's never cached; asking for it
+     * always loads it. Every call still returns a new instance, which the caller is free to modify.
+     *
+     * @param userId           The Roblox user ID of the player to load.
+     * @param loadStats        Whether to load the stats for the player.
+     * @param loadBans         Whether to load the ban records for the player.
+     * @param loadUnbans       Whether to load the unban records for the player.
+     * @param loadPunchUpdates Whether to load the punch update records for the player.
+     * @return The loaded player. Sections which weren't requested are left empty.
+     */
     public static AWPlayer loadFromDatabase(long userId,
                                             boolean loadStats,
                                             boolean loadBans,
                                             boolean loadUnbans,
                                             boolean loadPunchUpdates) {
-        try (var statement = AWDatabase.connection.prepareStatement("""
-                SELECT username, is_appeal_blacklisted, appeal_blacklist_reason, appeal_blacklist_date, appeal_blacklist_issuer
-                FROM players
-                WHERE user_id = ?""")) {
-            statement.setLong(1, userId);
-            try (var results = statement.executeQuery()) {
-                if (!results.next()) {
-                    return AWPlayer.createWithOptionalExtras(userId, null, false,
-                            null, 0L, 0L,
-                            loadStats, loadBans, loadUnbans, loadPunchUpdates);
+        Snapshot snapshot = AWPlayerCache.get(userId);
+        if (snapshot == null) {
+            // when caching, load every other section so the snapshot can serve any later request.
+            boolean cache = AWPlayerCache.isEnabled();
+            long generation = AWPlayerCache.generation();
+            try {
+                snapshot = Repositories.players().load(userId,
+                        cache || loadStats, cache || loadBans, cache || loadUnbans, loadPunchUpdates);
+            } catch (SQLException e) {
+                System.err.println("Failed to load player " + userId + ":\n\n" + e);
+                return new AWPlayer(userId, null, false,
+                        null, 0L, 0L,
+                        null, null, null, null);
+            }
+
+            if (!snapshot.exists()) {
+                try {
+                    new AWPlayer(userId, null, false, null, 0L, 0L,
+                            null, null, null, null).ensureDefaultPlayer();
+                } catch (SQLException e) {
+                    System.err.println("Failed to create default player " + userId + ":\n\n" + e);
                 }
-                return AWPlayer.createWithOptionalExtras(
-                        userId,
-                        results.getString("username"),
-                        results.getBoolean("is_appeal_blacklisted"),
-                        results.getString("appeal_blacklist_reason"),
-                        results.getLong("appeal_blacklist_date"),
-                        results.getLong("appeal_blacklist_issuer"),
-                        loadStats,
-                        loadBans,
-                        loadUnbans,
-                        loadPunchUpdates
-                );
             }
-        } catch (SQLException e) {
-            System.err.println("Failed to load stats for user " + userId + ":\n\n" + e);
-            return new AWPlayer(userId, null, false,
-                    null, 0L, 0L,
-                    null, null, null, null);
+            if (cache)
+                AWPlayerCache.put(userId, snapshot.withPunchUpdates(new AWPunchUpdate[0]), generation);
+        } else if (loadPunchUpdates) {
+            try {
+                snapshot = snapshot.withPunchUpdates(
+                        Repositories.punchUpdates().load(userId).toArray(new AWPunchUpdate[0]));
+            } catch (SQLException e) {
+                System.err.println("Failed to load punch update records of player " + userId + ":\n\n" + e);
+            }
         }
+        return snapshot.toPlayer(loadStats, loadBans, loadUnbans, loadPunchUpdates);
+    }
+
+    /**
+     * Loads a player like {@link #loadFromDatabase}, but on the database executor, without blocking the calling thread.
+     * A player who isn't cached yet is a database round trip (and maybe a write), so code on the Discord bot's threads
+     * should use this. See {@link AWDatabase#supplyAsync}.
+     *
+     * @param userId           The Roblox user ID of the player to load.
+     * @param loadStats        Whether to load the stats for the player.
+     * @param loadBans         Whether to load the ban records for the player.
+     * @param loadUnbans       Whether to load the unban records for the player.
+     * @param loadPunchUpdates Whether to load the punch update records for the player.
+     * @return A future of the loaded player. Sections which weren't requested are left empty.
+     */
+    public static CompletableFuture<AWPlayer> loadFromDatabaseAsync(long userId,
+                                                                    boolean loadStats,
+                                                                    boolean loadBans,
+                                                                    boolean loadUnbans,
+                                                                    boolean loadPunchUpdates) {
+        return AWDatabase.supplyAsync(() -> loadFromDatabase(userId, loadStats, loadBans, loadUnbans, loadPunchUpdates));
     }
 
     public static AWPlayer empty(long userId) {
@@ -133,36 +176,8 @@ public final class AWPlayer {
                 AWPunchUpdates.empty(userId));
     }
 
-    private static AWPlayer createWithOptionalExtras(long userId, String username,
-                                                     boolean isAppealBlacklisted,
-                                                     @Nullable String appealBlacklistReason,
-                                                     long appealBlacklistDate,
-                                                     long appealBlacklistIssuer,
-                                                     boolean loadStats,
-                                                     boolean loadBans,
-                                                     boolean loadUnbans,
-                                                     boolean loadPunchUpdates) throws SQLException {
-        AWStats stats = loadStats ? AWStats.loadFromDatabase(userId) : AWStats.empty(userId);
-        AWBans bans = loadBans ? AWBans.loadFromDatabase(userId) : AWBans.empty(userId);
-        AWUnbans unbans = loadUnbans ? AWUnbans.loadFromDatabase(userId) : AWUnbans.empty(userId);
-        AWPunchUpdates punchUpdates = loadPunchUpdates ? AWPunchUpdates.loadFromDatabase(userId) : AWPunchUpdates.empty(userId);
-
-        AWPlayer created = new AWPlayer(userId, username,
-                isAppealBlacklisted, appealBlacklistReason, appealBlacklistDate, appealBlacklistIssuer,
-                stats, bans, unbans, punchUpdates);
-
-        created.ensureDefaultPlayer();
-        return created;
-    }
-
     public void ensureDefaultPlayer() throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("""
-                INSERT INTO players (user_id, username, is_appeal_blacklisted, appeal_blacklist_date, appeal_blacklist_reason, appeal_blacklist_issuer)
-                VALUES (?, ?, FALSE, 0, NULL, 0)
-                ON CONFLICT (user_id) DO NOTHING""");
-        statement.setLong(1, this.userId);
-        statement.setString(2, this.username);
-        statement.executeUpdate();
+        Repositories.players().ensureExists(this.userId, this.username);
     }
 
 
@@ -173,15 +188,8 @@ public final class AWPlayer {
      * @throws SQLException If an error occurs while updating the username in the database.
      */
     public void setUsername(String newUsername) throws SQLException {
-        this.ensureDefaultPlayer();
-        var statement = AWDatabase.connection.prepareStatement("""
-                UPDATE players
-                SET username = ?
-                WHERE user_id = ?"""
-        );
-        statement.setString(1, newUsername);
-        statement.setLong(2, this.userId);
-        statement.executeUpdate();
+        Repositories.players().setUsername(this.userId, newUsername);
+        AWPlayerCache.invalidate(this.userId);
         this.username = newUsername;
     }
 
@@ -214,13 +222,8 @@ public final class AWPlayer {
      * @throws SQLException If an error occurs while updating the database.
      */
     public void removeBlacklist() throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("""
-                UPDATE players
-                SET (is_appeal_blacklisted, appeal_blacklist_date, appeal_blacklist_reason, appeal_blacklist_issuer) = (FALSE, 0, NULL, 0)
-                WHERE user_id = ?"""
-        );
-        statement.setLong(1, this.userId);
-        statement.executeUpdate();
+        Repositories.players().removeBlacklist(this.userId);
+        AWPlayerCache.invalidate(this.userId);
     }
 
     /**
@@ -239,16 +242,8 @@ public final class AWPlayer {
         this.appealBlacklistDate = System.currentTimeMillis();
         this.appealBlacklistIssuer = issuer.getIdLong();
 
-        this.ensureDefaultPlayer();
-        var statement = AWDatabase.connection.prepareStatement("""
-                UPDATE players
-                SET (is_appeal_blacklisted, appeal_blacklist_date, appeal_blacklist_reason, appeal_blacklist_issuer) = (TRUE, ?, ?, ?)
-                WHERE user_id = ?""");
-        statement.setLong(1, this.appealBlacklistDate);
-        statement.setString(2, reason);
-        statement.setLong(3, issuer.getIdLong());
-        statement.setLong(4, this.userId);
-        statement.executeUpdate();
+        Repositories.players().setBlacklist(this.userId, this.appealBlacklistDate, reason, this.appealBlacklistIssuer);
+        AWPlayerCache.invalidate(this.userId);
     }
 
     /**
@@ -258,17 +253,21 @@ public final class AWPlayer {
      * @throws SQLException If something went wrong while updating the database.
      */
     public void unban(Long responsibleModerator) throws SQLException {
-        this.ensureDefaultPlayer();
+        try (var transaction = Repositories.beginTransaction()) {
+            this.ensureDefaultPlayer();
 
-        long time = System.currentTimeMillis();
+            long time = System.currentTimeMillis();
 
-        // get the last ban on record and set its "ends" field.
-        AWBans bans = (this.bans == null) ? AWBans.loadFromDatabase(this.userId) : this.bans;
-        bans.setBanEnds(time);
+            // get the last ban on record and set its "ends" field.
+            AWBans bans = (this.bans == null) ? AWBans.loadFromDatabase(this.userId) : this.bans;
+            bans.setBanEnds(time);
 
-        // add an unban record
-        AWUnbans unbans = (this.unbans == null) ? AWUnbans.loadFromDatabase(this.userId) : this.unbans;
-        unbans.addUnban(new AWUnban(this.userId, responsibleModerator, time));
+            // add an unban record
+            AWUnbans unbans = (this.unbans == null) ? AWUnbans.loadFromDatabase(this.userId) : this.unbans;
+            unbans.addUnban(new AWUnban(this.userId, responsibleModerator, time));
+            transaction.commit();
+        }
+        AWPlayerCache.invalidate(this.userId);
     }
 
     @Override
@@ -301,4 +300,55 @@ public final class AWPlayer {
                 "unbans=" + this.unbans + ", " +
                 "punchUpdates=" + this.punchUpdates + ']';
     }
+
+    /**
+     * An immutable copy of everything loaded for a player, as it was in the database. This is what
+     * {@link AWPlayerCache} holds; each load builds a fresh {@link AWPlayer} from it.
+     */
+    public record Snapshot(long userId, boolean exists, String username,
+                    boolean isAppealBlacklisted, @Nullable String appealBlacklistReason,
+                    long appealBlacklistDate, long appealBlacklistIssuer,
+                    long punches, long[] gamepasses,
+                    AWBan[] bans, AWUnban[] unbans, AWPunchUpdate[] punchUpdates) {
+        /**
+         * @return A copy of this snapshot with the given punch update records in place of its own. Cached snapshots
+         * are stored without any, and given them when they're asked for.
+         */
+        Snapshot withPunchUpdates(AWPunchUpdate[] punchUpdates) {
+            return new Snapshot(this.userId, this.exists, this.username,
+                    this.isAppealBlacklisted, this.appealBlacklistReason,
+                    this.appealBlacklistDate, this.appealBlacklistIssuer,
+                    this.punches, this.gamepasses,
+                    this.bans, this.unbans, punchUpdates);
+        }
+
+        /**
+         * Builds a new player from this snapshot, with changes still waiting in {@link AWStatsBuffer} applied on top.
+         * Sections which weren't requested are left empty.
+         */
+        AWPlayer toPlayer(boolean loadStats, boolean loadBans, boolean loadUnbans, boolean loadPunchUpdates) {
+            AWStats stats = AWStats.empty(this.userId);
+            if (loadStats) {
+                Long pendingPunches = AWStatsBuffer.pendingPunches(this.userId);
+                stats = new AWStats(this.userId,
+                        pendingPunches == null ? this.punches : pendingPunches,
+                        this.gamepasses.clone());
+            }
+
+            AWPunchUpdates punchUpdates = AWPunchUpdates.empty(this.userId);
+            if (loadPunchUpdates) {
+                ArrayList<AWPunchUpdate> records = new ArrayList<>(Arrays.asList(this.punchUpdates));
+                AWStatsBuffer.addPendingRecords(this.userId, records);
+                punchUpdates = new AWPunchUpdates(this.userId, records.toArray(new AWPunchUpdate[0]));
+            }
+
+            return new AWPlayer(this.userId, this.username,
+                    this.isAppealBlacklisted, this.appealBlacklistReason,
+                    this.appealBlacklistDate, this.appealBlacklistIssuer,
+                    stats,
+                    loadBans ? new AWBans(this.userId, this.bans.clone()) : AWBans.empty(this.userId),
+                    loadUnbans ? new AWUnbans(this.userId, this.unbans.clone()) : AWUnbans.empty(this.userId),
+                    punchUpdates);
+        }
+    }
 }
@@ -0,0 +1,164 @@
+package org.lukecreator.aw.data;
+
+import org.jetbrains.annotations.Nullable;
+import org.lukecreator.aw.AWDatabase;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of recently loaded players, so the same player being looked up over and over (ban checks, unban
+ * tickets, info requests from the game) doesn't go to the database each time.
+ * <p>
+ * Entries are evicted least-recently-used first once the cache is full, and expire after a while regardless. Every
+ * method that writes a player's data invalidates their entry, so a load after a write always sees it.
+ * <p>
+ * Players are cached as immutable {@link AWPlayer.Snapshot}s; {@link AWPlayer#loadFromDatabase} builds a new
+ * {@link AWPlayer} from the snapshot for each caller. Snapshots are cached without the player's punch update history,
+ * which can be far larger than everything else put together and is only needed by a few callers.
+ */
+public final class AWPlayerCache {
+    /**
+     * The maximum number of players to keep cached, set by the `AW_PLAYER_CACHE_SIZE` environment variable. Defaults to
+     * 1024. Set to 0 to disable the cache.
+     */
+    private static final int MAX_SIZE = AWDatabase.intFromEnv("AW_PLAYER_CACHE_SIZE", 1024);
+    /**
+     * How long a player stays cached after being loaded, set by the `AW_PLAYER_CACHE_TTL_MILLIS` environment variable.
+     * Defaults to 60 seconds.
+     */
+    private static final long TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            AWDatabase.intFromEnv("AW_PLAYER_CACHE_TTL_MILLIS", 60_000));
+
+    private static final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            if (this.size() <= MAX_SIZE)
+                return false;
+            evictions.increment();
+            return true;
+        }
+    };
+    /**
+     * Incremented on every invalidation. A load only gets cached if nothing was invalidated while it was running, since
+     * it could have read the data from before the write.
+     */
+    private static final AtomicLong generation = new AtomicLong();
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+
+    private AWPlayerCache() {
+    }
+
+    /**
+     * @return If players are being cached at all.
+     */
+    public static boolean isEnabled() {
+        return MAX_SIZE > 0;
+    }
+
+    /**
+     * Gets a player's cached snapshot, counting it as a hit or a miss.
+     *
+     * @param userId The Roblox user ID of the player.
+     * @return The snapshot, or null if the player isn't cached (or their entry expired).
+     */
+    @Nullable
+    static AWPlayer.Snapshot get(long userId) {
+        if (!isEnabled())
+            return null;
+        synchronized (entries) {
+            Entry entry = entries.get(userId);
+            if (entry != null && System.nanoTime() - entry.loadedAt < TTL_NANOS) {
+                hits.increment();
+                return entry.snapshot;
+            }
+            if (entry != null)
+                entries.remove(userId);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * @return The current generation; pass it to {@link #put} once the load that started now is done. If a write is in
+     * progress, it could be invalidating players without having committed yet (and reads on the writing thread see its
+     * uncommitted changes), so nothing loaded now can be cached and this returns -1.
+     */
+    static long generation() {
+        if (AWDatabase.isWriting())
+            return -1;
+        return generation.get();
+    }
+
+    /**
+     * Caches a freshly loaded snapshot, unless it might already be out of date.
+     *
+     * @param userId          The Roblox user ID of the player.
+     * @param snapshot        The snapshot that was loaded.
+     * @param startGeneration The value of {@link #generation()} from before the snapshot started loading.
+     */
+    static void put(long userId, AWPlayer.Snapshot snapshot, long startGeneration) {
+        if (!isEnabled() || startGeneration == -1)
+            return;
+        synchronized (entries) {
+            if (generation.get() != startGeneration)
+                return;
+            entries.put(userId, new Entry(snapshot, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Drops a player from the cache. Call this after anything about the player is written to the database.
+     *
+     * @param userId The Roblox user ID of the player.
+     */
+    public static void invalidate(long userId) {
+        if (!isEnabled())
+            return;
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.remove(userId);
+        }
+    }
+
+    /**
+     * @return How many loads were served from the cache since startup.
+     */
+    public static long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return How many loads had to go to the database since startup.
+     */
+    public static long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return How many players were evicted to make room for others since startup.
+     */
+    public static long evictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Prints the cache's hit rate since startup.
+     */
+    public static void printStatistics() {
+        long hits = hits();
+        long total = hits + misses();
+        System.out.println("Player cache: " + hits + "/" + total + " hits" +
+                (total == 0 ? "" : " (" + (hits * 100 / total) + "%)") +
+                ", " + evictions() + " evictions");
+    }
+
+    private record Entry(AWPlayer.Snapshot snapshot, long loadedAt) {
+    }
+}
@@ -1,10 +1,13 @@
 package org.lukecreator.aw.data;
 
-import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.AWQuery;
+import org.lukecreator.aw.AWStatement;
+import org.lukecreator.aw.data.repository.Repositories;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 /**
  * Represents an updatable list of punch updates for a particular player.
@@ -40,26 +43,10 @@ public class AWPunchUpdates {
      * database operation, an empty {@link AWPunchUpdates} object associated with the given user ID is returned.
      */
     public static AWPunchUpdates loadFromDatabase(long userId) {
-        try (var statement = AWDatabase.connection.prepareStatement(
-                """
-                        SELECT user_id, responsible_moderator, date, old_punches, new_punches
-                        FROM punch_update_records
-                        WHERE user_id = ?
-                        ORDER BY date""")) {
-            statement.setLong(1, userId);
-            try (var resultSet = statement.executeQuery()) {
-                ArrayList<AWPunchUpdate> punchUpdates = new ArrayList<>();
-                while (resultSet.next()) {
-                    punchUpdates.add(new AWPunchUpdate(
-                            resultSet.getLong("user_id"),
-                            resultSet.getLong("responsible_moderator"),
-                            resultSet.getLong("date"),
-                            resultSet.getLong("old_punches"),
-                            resultSet.getLong("new_punches")
-                    ));
-                }
-                return new AWPunchUpdates(userId, punchUpdates.toArray(new AWPunchUpdate[0]));
-            }
+        try {
+            List<AWPunchUpdate> punchUpdates = Repositories.punchUpdates().load(userId);
+            AWStatsBuffer.addPendingRecords(userId, punchUpdates);
+            return new AWPunchUpdates(userId, punchUpdates.toArray(new AWPunchUpdate[0]));
         } catch (Exception e) {
             System.err.println("Issue occurred when loading punch update records (" + userId + ") from database: " + e);
             return new AWPunchUpdates(userId);
@@ -77,9 +64,9 @@ public class AWPunchUpdates {
      * @throws SQLException If an issue occurs while clearing the records from the database.
      */
     public void clearRecords() throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("DELETE FROM punch_update_records WHERE user_id = ?");
-        statement.setLong(1, this.userId);
-        statement.execute();
+        AWStatsBuffer.discardRecords(this.userId);
+        Repositories.punchUpdates().clear(this.userId);
+        AWPlayerCache.invalidate(this.userId);
         this.punchUpdates.clear();
     }
 
@@ -92,7 +79,34 @@ public class AWPunchUpdates {
      * @throws SQLException If an issue occurs while inserting the record into the database.
      */
     public void addRecord(AWPunchUpdate record) throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("INSERT INTO punch_update_records VALUES (?, ?, ?, ?, ?)");
+        Repositories.punchUpdates().add(List.of(record));
+        AWPlayerCache.invalidate(record.userId());
+        this.punchUpdates.add(record);
+    }
+
+    /**
+     * Adds a punch update record to the internal list of punch update records, and queues it to be written to the
+     * database by {@link AWStatsBuffer}.
+     *
+     * @param record The {@link AWPunchUpdate} object representing the punch update to be added.
+     */
+    public void queueRecord(AWPunchUpdate record) {
+        AWStatsBuffer.addRecord(record);
+        this.punchUpdates.add(record);
+    }
+
+    public int size() {
+        return this.punchUpdates.size();
+    }
+
+    /**
+     * Binds a punch update record to a prepared {@link AWQuery#INSERT_PUNCH_UPDATE} statement, without running it.
+     *
+     * @param statement The statement to bind the record to.
+     * @param record    The record to bind.
+     * @throws SQLException If the parameters couldn't be set.
+     */
+    public static void bindRecord(AWStatement statement, AWPunchUpdate record) throws SQLException {
         statement.setLong(1, record.userId());
 
         if (record.responsibleModerator() == null)
@@ -103,8 +117,5 @@ public class AWPunchUpdates {
         statement.setLong(3, record.date());
         statement.setLong(4, record.oldPunches());
         statement.setLong(5, record.newPunches());
-
-        statement.execute();
-        this.punchUpdates.add(record);
     }
 }
@@ -1,12 +1,10 @@
 package org.lukecreator.aw.data;
 
-import org.lukecreator.aw.AWDatabase;
 import org.lukecreator.aw.RobloxAPI;
+import org.lukecreator.aw.data.repository.Repositories;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 
 /**
  * A record of an Ability Wars player's stats.
@@ -20,7 +18,7 @@ public final class AWStats {
      */
     private final long userId;
     /**
-     * The identifiers of the gamepasses this player owns.
+     * The identifiers of the gamepasses this player owns, sorted.
      */
     private long[] gamepasses;
     /**
@@ -35,35 +33,53 @@ public final class AWStats {
     }
 
     public static AWStats loadFromDatabase(long userId) {
-        try (var statement = AWDatabase.connection.prepareStatement("""
-                SELECT user_id, punches, gamepasses
-                FROM stats
-                WHERE user_id = ?""")) {
-            statement.setLong(1, userId);
-            try (var results = statement.executeQuery()) {
-                if (!results.next()) {
-                    return new AWStats(userId, 0, new long[0]);
-                }
-                String gamepassesString = results.getString("gamepasses");
-                List<Long> _gamepasses = (gamepassesString == null || gamepassesString.isBlank()) ?
-                        new ArrayList<>() :
-                        Arrays.stream(gamepassesString.split(","))
-                                .map(Long::parseLong)
-                                .toList();
-                long[] gamepasses = _gamepasses.stream().mapToLong(Long::longValue).toArray();
-
-                return new AWStats(
-                        results.getLong("user_id"),
-                        results.getLong("punches"),
-                        gamepasses
-                );
-            }
+        try {
+            AWStats stats = Repositories.players().loadStats(userId);
+            Long pendingPunches = AWStatsBuffer.pendingPunches(userId);
+            if (pendingPunches != null)
+                stats.punches = pendingPunches;
+            return stats;
         } catch (SQLException e) {
             System.err.println("Failed to load stats for user " + userId + ":\n\n" + e);
             return new AWStats(userId, 0, new long[0]);
         }
     }
 
+    /**
+     * Finds the players that own a gamepass, using the reverse index on {@code gamepass_ownership}.
+     *
+     * @param gamepassId The ID of the gamepass.
+     * @param limit      The maximum number of players to return.
+     * @return The Roblox IDs of up to {@code limit} players that own the gamepass, in order of ID.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static long[] ownersOf(long gamepassId, int limit) throws SQLException {
+        return Repositories.players().gamepassOwners(gamepassId, limit);
+    }
+
+    /**
+     * Counts the players that own a gamepass.
+     *
+     * @param gamepassId The ID of the gamepass.
+     * @return The number of players that own the gamepass.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static int countOwners(long gamepassId) throws SQLException {
+        return Repositories.players().countGamepassOwners(gamepassId);
+    }
+
+    /**
+     * Puts a list of gamepass IDs in the form they're stored and loaded in: sorted, without duplicates.
+     *
+     * @param gamepasses The gamepass IDs. Can be null, meaning no gamepasses.
+     * @return A sorted copy of the IDs, without duplicates.
+     */
+    public static long[] normalizeGamepasses(long[] gamepasses) {
+        if (gamepasses == null || gamepasses.length == 0)
+            return new long[0];
+        return Arrays.stream(gamepasses).sorted().distinct().toArray();
+    }
+
     public static AWStats empty(long userId) {
         return new AWStats(userId, 0, new long[0]);
     }
@@ -108,12 +124,7 @@ public final class AWStats {
     }
 
     public void ensureDefaultStats() throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("""
-                INSERT INTO stats (user_id, punches, gamepasses)
-                VALUES (?, 0, NULL)
-                ON CONFLICT (user_id) DO NOTHING""");
-        statement.setLong(1, this.userId);
-        statement.executeUpdate();
+        Repositories.players().ensureStats(this.userId);
     }
 
     /**
@@ -123,15 +134,21 @@ public final class AWStats {
      * @throws SQLException If an error occurs while updating the database.
      */
     public void setPunches(long punches) throws SQLException {
-        this.ensureDefaultStats();
-        var statement = AWDatabase.connection.prepareStatement("""
-                UPDATE stats
-                SET punches = ?
-                WHERE user_id = ?"""
-        );
-        statement.setLong(1, punches);
-        statement.setLong(2, this.userId);
-        statement.executeUpdate();
+        AWStatsBuffer.discardPunches(this.userId);
+        Repositories.players().setPunches(this.userId, punches);
+        AWPlayerCache.invalidate(this.userId);
+        this.punches = punches;
+    }
+
+    /**
+     * Updates the number of punches for the current user and queues the change to be written to the database by
+     * {@link AWStatsBuffer}. Use this for changes reported by the game, which can come in faster than they're worth
+     * writing one at a time.
+     *
+     * @param punches The new number of punches to be set for the user.
+     */
+    public void queuePunches(long punches) {
+        AWStatsBuffer.setPunches(this.userId, punches);
         this.punches = punches;
     }
 
@@ -157,23 +174,34 @@ public final class AWStats {
 
     /**
      * Updates the gamepasses associated with the current user in the database and updates the internal state.
+     * Only the gamepasses that were added or removed are written.
      *
-     * @param gamepasses An array of gamepasses (as Strings) to be associated with the user. If the array is null
-     *                   or empty, the gamepasses will be set to null in the database.
+     * @param gamepasses The IDs of every gamepass the user owns. If the array is null or empty, the user is left
+     *                   owning no gamepasses.
      * @throws SQLException If an error occurs while updating the database.
      */
     public void setGamepasses(long[] gamepasses) throws SQLException {
-        this.ensureDefaultStats();
-        var statement = AWDatabase.connection.prepareStatement("""
-                UPDATE stats
-                SET gamepasses = ?
-                WHERE user_id = ?"""
-        );
-        String gamepassesString = (gamepasses == null || gamepasses.length == 0) ? null : String.join(",",
-                Arrays.stream(gamepasses).mapToObj(String::valueOf).toArray(String[]::new));
-        statement.setString(1, gamepassesString);
-        statement.setLong(2, this.userId);
-        statement.executeUpdate();
-        this.gamepasses = gamepasses;
+        long[] newGamepasses = normalizeGamepasses(gamepasses);
+        Repositories.players().setGamepasses(this.userId, newGamepasses);
+        AWPlayerCache.invalidate(this.userId);
+        this.gamepasses = newGamepasses;
+    }
+
+    /**
+     * Collects gamepass IDs from a result set into a {@code long[]} without boxing them.
+     */
+    public static final class GamepassList {
+        private long[] ids = new long[8];
+        private int count = 0;
+
+        public void add(long id) {
+            if (this.count == this.ids.length)
+                this.ids = Arrays.copyOf(this.ids, this.count * 2);
+            this.ids[this.count++] = id;
+        }
+
+        public long[] toArray() {
+            return Arrays.copyOf(this.ids, this.count);
+        }
     }
 }
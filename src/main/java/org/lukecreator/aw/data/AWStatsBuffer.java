@@ -0,0 +1,360 @@
+package org.lukecreator.aw.data;
+
+import org.jetbrains.annotations.Nullable;
+import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.data.repository.Repositories;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind buffer for the punch changes the game reports.
+ * <p>
+ * During events the game can report punch changes for the same player many times a minute. Rather than writing each
+ * one as it arrives, punches are collapsed to the latest value per player, and punch update records are queued up (all
+ * of them, since they're history). Everything buffered is written in a single transaction every few seconds, or sooner
+ * once enough has piled up, and once more when the service shuts down.
+ * <p>
+ * Loads in {@link AWStats}, {@link AWPunchUpdates} and {@link AWPlayer} include whatever is still buffered, so a
+ * buffered change is visible right away even though it hasn't been written yet.
+ * <p>
+ * Changes made inside a transaction can be {@link #stage() staged} on the thread making them, so they only reach the
+ * buffer once the transaction commits, and are dropped if it (or a savepoint in it) is rolled back.
+ */
+public final class AWStatsBuffer {
+    /**
+     * How often the buffer is flushed, set by the `AW_STATS_FLUSH_MILLIS` environment variable. Defaults to 2 seconds.
+     */
+    private static final int FLUSH_INTERVAL_MILLIS = AWDatabase.intFromEnv("AW_STATS_FLUSH_MILLIS", 2000);
+    /**
+     * How many buffered changes trigger a flush before the next scheduled one, set by the `AW_STATS_FLUSH_SIZE`
+     * environment variable. Defaults to 500.
+     */
+    private static final int FLUSH_THRESHOLD = AWDatabase.intFromEnv("AW_STATS_FLUSH_SIZE", 500);
+
+    /**
+     * The latest punches of each player with a change that hasn't been written yet.
+     */
+    private static final ConcurrentHashMap<Long, Long> pendingPunches = new ConcurrentHashMap<>();
+    /**
+     * Punch update records that haven't been written yet, oldest first.
+     */
+    private static final ConcurrentLinkedQueue<AWPunchUpdate> pendingRecords = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger pendingRecordCount = new AtomicInteger();
+    private static final AtomicBoolean earlyFlushQueued = new AtomicBoolean();
+    /**
+     * Only one flush runs at a time; a flush relies on nothing else removing from the buffer while it writes. Never
+     * wait on the writer while holding this.
+     */
+    private static final Object flushLock = new Object();
+
+    /**
+     * The changes staged on each thread, if it's staging them. See {@link #stage()}.
+     */
+    private static final ThreadLocal<Staging> staging = new ThreadLocal<>();
+
+    private static volatile ScheduledExecutorService flusher = null;
+
+    private AWStatsBuffer() {
+    }
+
+    /**
+     * Starts flushing the buffer on a schedule. Until this is called, buffered changes are only written by
+     * {@link #flush()} and {@link #close()}.
+     */
+    public static synchronized void start() {
+        if (flusher != null)
+            return;
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "aw-stats-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(AWStatsBuffer::flushQuietly,
+                FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the scheduled flushes and writes everything left in the buffer. Called on shutdown, before the database
+     * is closed.
+     */
+    public static synchronized void close() {
+        ScheduledExecutorService current = flusher;
+        flusher = null;
+        if (current != null) {
+            current.shutdown();
+            try {
+                if (!current.awaitTermination(10, TimeUnit.SECONDS))
+                    System.err.println("Timed out waiting for the stats buffer's last scheduled flush.");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        try {
+            flush();
+        } catch (SQLException e) {
+            // nothing's left to retry this, so at least make sure the changes can be recovered from the logs.
+            System.err.println("Failed to write buffered stats on shutdown:\n\n" + e);
+            pendingPunches.forEach((userId, punches) ->
+                    System.err.println("\tLost punches: user " + userId + " -> " + punches));
+            for (AWPunchUpdate record : pendingRecords)
+                System.err.println("\tLost punch update record: " + record);
+        }
+    }
+
+    /**
+     * Buffers a player's new punches. Only the latest punches of each player are written.
+     *
+     * @param userId  The ID of the player.
+     * @param punches The player's new number of punches.
+     */
+    public static void setPunches(long userId, long punches) {
+        Staging current = staging.get();
+        if (current != null) {
+            current.punches.add(new StagedPunches(userId, punches));
+            return;
+        }
+        pendingPunches.put(userId, punches);
+        flushEarlyIfFull();
+    }
+
+    /**
+     * Buffers a punch update record. Every record is written, in the order they were buffered.
+     *
+     * @param record The record to write.
+     */
+    public static void addRecord(AWPunchUpdate record) {
+        Staging current = staging.get();
+        if (current != null) {
+            current.records.add(record);
+            return;
+        }
+        pendingRecords.add(record);
+        pendingRecordCount.incrementAndGet();
+        flushEarlyIfFull();
+    }
+
+    /**
+     * Drops a player's buffered punches, so they don't overwrite a value written directly to the database.
+     *
+     * @param userId The ID of the player.
+     */
+    static void discardPunches(long userId) {
+        Staging current = staging.get();
+        if (current != null)
+            current.punches.removeIf(staged -> staged.userId() == userId);
+        // waits out a running flush, which could otherwise write the discarded value after the direct one.
+        synchronized (flushLock) {
+            pendingPunches.remove(userId);
+        }
+    }
+
+    /**
+     * Drops a player's buffered punch update records, for when their records are cleared.
+     *
+     * @param userId The ID of the player.
+     */
+    static void discardRecords(long userId) {
+        Staging current = staging.get();
+        if (current != null)
+            current.records.removeIf(record -> record.userId() == userId);
+        synchronized (flushLock) {
+            if (pendingRecords.removeIf(record -> record.userId() == userId))
+                pendingRecordCount.set(pendingRecords.size());
+        }
+    }
+
+    /**
+     * @param userId The ID of the player.
+     * @return The player's buffered punches, or null if there are none.
+     */
+    @Nullable
+    static Long pendingPunches(long userId) {
+        Staging current = staging.get();
+        if (current != null) {
+            for (int i = current.punches.size() - 1; i >= 0; i--) {
+                StagedPunches staged = current.punches.get(i);
+                if (staged.userId() == userId)
+                    return staged.punches();
+            }
+        }
+        return pendingPunches.get(userId);
+    }
+
+    /**
+     * Adds a player's buffered punch update records to the end of the given list.
+     *
+     * @param userId The ID of the player.
+     * @param into   The list to add the records to.
+     */
+    static void addPendingRecords(long userId, List<AWPunchUpdate> into) {
+        if (pendingRecordCount.get() != 0) {
+            // a running flush has already committed its records but not yet removed them from the buffer.
+            synchronized (flushLock) {
+                for (AWPunchUpdate record : pendingRecords) {
+                    if (record.userId() == userId)
+                        into.add(record);
+                }
+            }
+        }
+        // anything staged on this thread came after what's already buffered.
+        Staging current = staging.get();
+        if (current != null) {
+            for (AWPunchUpdate record : current.records) {
+                if (record.userId() == userId)
+                    into.add(record);
+            }
+        }
+    }
+
+    /**
+     * Starts staging the changes this thread buffers, instead of buffering them right away. Loads on this thread still
+     * see them. Use with try-with-resources around a transaction: {@link Staging#publish()} once it's committed, and
+     * {@link Staging#rollbackTo} along with any savepoint that's rolled back. Whatever isn't published when the staging
+     * is closed is dropped.
+     *
+     * @return The staged changes.
+     * @throws IllegalStateException If this thread is already staging changes.
+     */
+    public static Staging stage() {
+        if (staging.get() != null)
+            throw new IllegalStateException("This thread is already staging buffered stats.");
+        Staging current = new Staging();
+        staging.set(current);
+        return current;
+    }
+
+    /**
+     * Writes everything in the buffer in a single transaction. Changes buffered while the flush is running are left for
+     * the next one. If the write fails, the buffer is left as it was.
+     *
+     * @throws SQLException If the changes couldn't be written.
+     */
+    public static void flush() throws SQLException {
+        earlyFlushQueued.set(false);
+        if (pendingPunches.isEmpty() && pendingRecordCount.get() == 0)
+            return;
+
+        // the transaction (and with it, the writer) is taken before the flush lock. a thread that already holds the
+        // writer can then take the flush lock (to read or discard buffered changes) without waiting on a flush that's
+        // waiting on it.
+        try (var transaction = Repositories.beginTransaction()) {
+            synchronized (flushLock) {
+                Map<Long, Long> punches = new HashMap<>(pendingPunches);
+                List<AWPunchUpdate> records = new ArrayList<>(pendingRecords);
+                if (punches.isEmpty() && records.isEmpty())
+                    return;
+
+                Repositories.players().setPunches(punches);
+                Repositories.punchUpdates().add(records);
+                transaction.commit();
+
+                // everything stays visible to loads until it's committed. a player whose punches changed again during
+                // the write keeps their newer value buffered.
+                punches.forEach(pendingPunches::remove);
+                for (int i = 0; i < records.size(); i++)
+                    pendingRecords.poll();
+                pendingRecordCount.addAndGet(-records.size());
+
+                // cached players were loaded from before this write, with these changes only applied from the buffer.
+                punches.keySet().forEach(AWPlayerCache::invalidate);
+                for (AWPunchUpdate record : records)
+                    AWPlayerCache.invalidate(record.userId());
+            }
+        }
+    }
+
+    private static void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Failed to flush buffered stats; will retry on the next flush.\n\n" + e);
+        }
+    }
+
+    private static void flushEarlyIfFull() {
+        if (pendingPunches.size() + pendingRecordCount.get() < FLUSH_THRESHOLD)
+            return;
+        ScheduledExecutorService current = flusher;
+        if (current == null || !earlyFlushQueued.compareAndSet(false, true))
+            return;
+        try {
+            current.execute(AWStatsBuffer::flushQuietly);
+        } catch (RejectedExecutionException e) {
+            // shutting down; close() writes whatever's left.
+        }
+    }
+
+    private record StagedPunches(long userId, long punches) {
+    }
+
+    /**
+     * The changes a thread has staged with {@link #stage()}, in the order they were made.
+     */
+    public static final class Staging implements AutoCloseable {
+        private final ArrayList<StagedPunches> punches = new ArrayList<>();
+        private final ArrayList<AWPunchUpdate> records = new ArrayList<>();
+
+        private Staging() {
+        }
+
+        /**
+         * @return A mark to {@link #rollbackTo} if the changes staged after it have to be dropped, like a savepoint.
+         */
+        public Mark mark() {
+            return new Mark(this.punches.size(), this.records.size());
+        }
+
+        /**
+         * Drops every change staged since the mark was taken.
+         *
+         * @param mark The mark, from {@link #mark()}.
+         */
+        public void rollbackTo(Mark mark) {
+            // changes can also be discarded out of order (see discardPunches), so there may be fewer than were marked.
+            if (this.punches.size() > mark.punches)
+                this.punches.subList(mark.punches, this.punches.size()).clear();
+            if (this.records.size() > mark.records)
+                this.records.subList(mark.records, this.records.size()).clear();
+        }
+
+        /**
+         * Moves everything staged into the buffer, to be written with the next flush. Call this once the transaction
+         * the changes were made in has committed. Changes made after this are staged again, until it's closed.
+         */
+        public void publish() {
+            for (StagedPunches staged : this.punches)
+                pendingPunches.put(staged.userId(), staged.punches());
+            if (!this.records.isEmpty()) {
+                pendingRecords.addAll(this.records);
+                pendingRecordCount.addAndGet(this.records.size());
+            }
+            this.punches.clear();
+            this.records.clear();
+            flushEarlyIfFull();
+        }
+
+        /**
+         * Stops staging on this thread, dropping anything that wasn't published.
+         */
+        @Override
+        public void close() {
+            staging.remove();
+        }
+
+        public record Mark(int punches, int records) {
+        }
+    }
+}
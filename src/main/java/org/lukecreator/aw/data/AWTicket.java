@@ -22,16 +22,18 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jspecify.annotations.NonNull;
 import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.data.repository.Repositories;
 import org.lukecreator.aw.data.tickets.*;
 import org.lukecreator.aw.discord.AbilityWarsBot;
 import org.lukecreator.aw.discord.commands.TicketManageCommand;
 import org.lukecreator.aw.webserver.fulfillments.InfoFulfillment;
 
 import java.awt.*;
-import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
@@ -178,14 +180,7 @@ public abstract class AWTicket {
 
     private static void initializeNextAvailableTicketID() throws SQLException {
         // fetch the highest ticket ID from the database
-        var statement = AWDatabase.connection.prepareStatement("SELECT MAX(ticket_id) FROM tickets");
-        try (var results = statement.executeQuery()) {
-            if (results.next()) {
-                nextId = new AtomicLong(results.getLong(1) + 1);
-                return;
-            }
-        }
-        nextId = new AtomicLong(1L);
+        nextId = new AtomicLong(Repositories.tickets().maxId() + 1);
     }
 
     /**
@@ -227,94 +222,76 @@ public abstract class AWTicket {
      * @throws SQLException If something went wrong with the database internally.
      */
     public static AWTicket loadFromDatabase(long id) throws SQLException {
-        try (var statement = AWDatabase.connection.prepareStatement("""
-                SELECT discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id FROM tickets
-                WHERE ticket_id = ?""")) {
-            statement.setLong(1, id);
-            try (var results = statement.executeQuery()) {
-                if (!results.next()) {
-                    return null;
-                }
-
-                long discordChannelId = results.getLong(1);
-                Type type = Type.fromId(results.getInt(2));
-
-                if (type == null) {
-                    throw new RuntimeException("Loaded ticket without a valid type. (type: %d, id: %d)"
-                            .formatted(results.getInt(2), id));
-                }
-
-                long openedTimestamp = results.getLong(3);
-                boolean isOpen = results.getBoolean(4);
-                String closeReason = results.getString(5);
-                long closedByDiscordId = results.getLong(6);
-                String inputQuestionsRaw = results.getString(7);
-                long ownerDiscordId = results.getLong(8);
-                JsonObject inputQuestions = JsonParser.parseString(inputQuestionsRaw).getAsJsonObject();
-
-                AWTicket loadedTicket = createBasedOnType(type, id, discordChannelId, openedTimestamp, isOpen,
-                        closeReason, closedByDiscordId, inputQuestions, ownerDiscordId);
-                loadedTicket.processInputQuestionsJSON(inputQuestions);
-                return loadedTicket;
-            }
-        }
+        return Repositories.tickets().load(id);
     }
 
     /**
-     * Retrieves an array of AWTicket objects by executing the provided PreparedStatement.
+     * Loads every open ticket from the database in a single query.
      *
-     * @param statement the PreparedStatement used to query the database for ticket information
-     * @return an array of AWTicket objects retrieved and sorted by their opened timestamp in descending order
-     * @throws SQLException if a database access error occurs or the statement execution fails
+     * @return A list of all open tickets. Tickets with an unknown type are logged and left out.
+     * @throws SQLException If something went wrong with the database internally.
      */
-    @NotNull
-    private static AWTicket[] getAWTicketsByStatement(PreparedStatement statement) throws SQLException {
-        try (var results = statement.executeQuery()) {
-            List<AWTicket> tickets = new ArrayList<>();
-            while (results.next()) {
-                long ticketId = results.getLong(1);
-                AWTicket ticket = loadFromDatabase(ticketId);
-                tickets.add(ticket);
-            }
-            tickets.sort((a, b) -> Long.compare(b.openedTimestamp, a.openedTimestamp));
-            return tickets.toArray(new AWTicket[0]);
+    public static List<AWTicket> loadOpenTickets() throws SQLException {
+        return Repositories.tickets().loadOpen();
+    }
+
+    /**
+     * Builds a ticket out of the current row of a result set. The row must contain every column of the
+     * {@code tickets} table, in the order they're declared in.
+     *
+     * @param results The result set, positioned on the row to read.
+     * @return The ticket, with its input questions already processed.
+     * @throws SQLException If a column couldn't be read.
+     */
+    public static AWTicket fromRow(ResultSet results) throws SQLException {
+        long id = results.getLong(1);
+        long discordChannelId = results.getLong(2);
+        Type type = Type.fromId(results.getInt(3));
+
+        if (type == null) {
+            throw new RuntimeException("Loaded ticket without a valid type. (type: %d, id: %d)"
+                    .formatted(results.getInt(3), id));
         }
+
+        long openedTimestamp = results.getLong(4);
+        boolean isOpen = results.getBoolean(5);
+        String closeReason = results.getString(6);
+        long closedByDiscordId = results.getLong(7);
+        String inputQuestionsRaw = results.getString(8);
+        long ownerDiscordId = results.getLong(9);
+        JsonObject inputQuestions = JsonParser.parseString(inputQuestionsRaw).getAsJsonObject();
+
+        AWTicket loadedTicket = createBasedOnType(type, id, discordChannelId, openedTimestamp, isOpen,
+                closeReason, closedByDiscordId, inputQuestions, ownerDiscordId);
+        loadedTicket.processInputQuestionsJSON(inputQuestions);
+        return loadedTicket;
     }
 
     /**
      * Loads all tickets associated with the specified owner from the database.
      *
      * @param owner The UserSnowflake object representing the owner whose tickets are to be loaded.
-     * @param limit The maximum number of tickets to load. Keep this low because it fully loads every ticket.
+     * @param limit The maximum number of tickets to load. Keep this low because it fully loads every ticket;
+     *              use {@link TicketSummary#historyByOwner} for listing.
      * @return An array of AWTicket objects sorted by their opened timestamps in descending order.
      * @throws SQLException If a database access error occurs.
      */
     public static AWTicket[] loadByOwner(UserSnowflake owner, int limit) throws SQLException {
-        long ownerId = owner.getIdLong();
-        try (var statement = AWDatabase.connection.prepareStatement("SELECT ticket_id FROM tickets WHERE owner_discord_id = ? ORDER BY opened_timestamp DESC LIMIT ?")) {
-            statement.setLong(1, ownerId);
-            statement.setInt(2, limit);
-            return getAWTicketsByStatement(statement);
-        }
+        return Repositories.tickets().loadByOwner(owner.getIdLong(), null, limit);
     }
 
     /**
      * Loads all tickets associated with the specified owner from the database.
      *
      * @param owner The UserSnowflake object representing the owner whose tickets are to be loaded.
-     * @param limit The maximum number of tickets to load. Keep this low because it fully loads every ticket.
+     * @param limit The maximum number of tickets to load. Keep this low because it fully loads every ticket;
+     *              use {@link TicketSummary#historyByOwner} for listing.
      * @param type  The type of ticket to restrict the lookup to.
      * @return An array of AWTicket objects sorted by their opened timestamps in descending order.
      * @throws SQLException If a database access error occurs.
      */
     public static AWTicket[] loadByOwner(UserSnowflake owner, int limit, Type type) throws SQLException {
-        long ownerId = owner.getIdLong();
-        try (var statement = AWDatabase.connection.prepareStatement("SELECT ticket_id FROM tickets WHERE owner_discord_id = ? AND type = ? ORDER BY opened_timestamp DESC LIMIT ?")) {
-            statement.setLong(1, ownerId);
-            statement.setInt(2, type.id);
-            statement.setInt(3, limit);
-            return getAWTicketsByStatement(statement);
-        }
+        return Repositories.tickets().loadByOwner(owner.getIdLong(), type, limit);
     }
 
     /**
@@ -325,12 +302,7 @@ public abstract class AWTicket {
      * @throws SQLException If a database access error occurs.
      */
     public static AWTicket[] loadByCloser(UserSnowflake closer, int limit) throws SQLException {
-        long closerId = closer.getIdLong();
-        try (var statement = AWDatabase.connection.prepareStatement("SELECT ticket_id FROM tickets WHERE is_open = false AND closed_by = ? ORDER BY opened_timestamp DESC LIMIT ?")) {
-            statement.setLong(1, closerId);
-            statement.setInt(2, limit);
-            return getAWTicketsByStatement(statement);
-        }
+        return Repositories.tickets().loadByCloser(closer.getIdLong(), null, limit);
     }
 
     /**
@@ -342,13 +314,7 @@ public abstract class AWTicket {
      * @throws SQLException If a database access error occurs.
      */
     public static AWTicket[] loadByCloser(UserSnowflake closer, int limit, Type type) throws SQLException {
-        long closerId = closer.getIdLong();
-        try (var statement = AWDatabase.connection.prepareStatement("SELECT ticket_id FROM tickets WHERE is_open = false AND closed_by = ? AND type = ? ORDER BY opened_timestamp DESC LIMIT ?")) {
-            statement.setLong(1, closerId);
-            statement.setInt(2, type.id);
-            statement.setInt(3, limit);
-            return getAWTicketsByStatement(statement);
-        }
+        return Repositories.tickets().loadByCloser(closer.getIdLong(), type, limit);
     }
 
     /**
@@ -358,16 +324,7 @@ public abstract class AWTicket {
      * @return The number of tickets associated with the specified owner.
      */
     public static int countByOwner(UserSnowflake owner) throws SQLException {
-        long ownerId = owner.getIdLong();
-        try (var statement = AWDatabase.connection.prepareStatement("SELECT COUNT(*) FROM tickets WHERE owner_discord_id = ?")) {
-            statement.setLong(1, ownerId);
-            try (var results = statement.executeQuery()) {
-                if (!results.next()) {
-                    return 0;
-                }
-                return results.getInt(1);
-            }
-        }
+        return Repositories.tickets().countByOwner(owner.getIdLong(), null);
     }
 
     /**
@@ -378,17 +335,19 @@ public abstract class AWTicket {
      * @return The number of tickets associated with the specified owner.
      */
     public static int countByOwner(UserSnowflake owner, Type type) throws SQLException {
-        long ownerId = owner.getIdLong();
-        try (var statement = AWDatabase.connection.prepareStatement("SELECT COUNT(*) FROM tickets WHERE owner_discord_id = ? AND type = ?")) {
-            statement.setLong(1, ownerId);
-            statement.setInt(2, type.id);
-            try (var results = statement.executeQuery()) {
-                if (!results.next()) {
-                    return 0;
-                }
-                return results.getInt(1);
-            }
-        }
+        return Repositories.tickets().countByOwner(owner.getIdLong(), type);
+    }
+
+    /**
+     * Counts the number of tickets associated with the specified owner on the database executor, without blocking the
+     * calling thread. See {@link AWDatabase#supplyAsync}.
+     *
+     * @param owner The UserSnowflake object representing the owner whose tickets are to be counted.
+     * @param type  The type of ticket to restrict the count to, or null to count every type.
+     * @return A future of the number of tickets associated with the specified owner.
+     */
+    public static CompletableFuture<Integer> countByOwnerAsync(UserSnowflake owner, @Nullable Type type) {
+        return AWDatabase.supplyAsync(() -> type == null ? countByOwner(owner) : countByOwner(owner, type));
     }
 
     /**
@@ -399,16 +358,7 @@ public abstract class AWTicket {
      * @throws SQLException If a database access error occurs during the query.
      */
     public static int countByCloser(UserSnowflake closer) throws SQLException {
-        long closerId = closer.getIdLong();
-        try (var statement = AWDatabase.connection.prepareStatement("SELECT COUNT(*) FROM tickets WHERE is_open = false AND closed_by = ?")) {
-            statement.setLong(1, closerId);
-            try (var results = statement.executeQuery()) {
-                if (!results.next()) {
-                    return 0;
-                }
-                return results.getInt(1);
-            }
-        }
+        return Repositories.tickets().countByCloser(closer.getIdLong(), null);
     }
 
     /**
@@ -420,17 +370,7 @@ public abstract class AWTicket {
      * @throws SQLException If a database access error occurs during the query.
      */
     public static int countByCloser(UserSnowflake closer, Type type) throws SQLException {
-        long closerId = closer.getIdLong();
-        try (var statement = AWDatabase.connection.prepareStatement("SELECT COUNT(*) FROM tickets WHERE is_open = false AND closed_by = ? AND type = ?")) {
-            statement.setLong(1, closerId);
-            statement.setInt(2, type.id);
-            try (var results = statement.executeQuery()) {
-                if (!results.next()) {
-                    return 0;
-                }
-                return results.getInt(1);
-            }
-        }
+        return Repositories.tickets().countByCloser(closer.getIdLong(), type);
     }
 
     /**
@@ -455,33 +395,13 @@ public abstract class AWTicket {
 
     /**
      * Updates this ticket in the database with its current state. This should generally be called when any change is
-     * made and the ticket is done being updated for the time being.
+     * made and the ticket is done being updated for the time being. If the ticket was archived, it's moved back out of
+     * the archive.
      *
      * @throws SQLException If something went wrong with the database internally.
      */
     public void updateInDatabase() throws SQLException {
-        try (var statement = AWDatabase.connection.prepareStatement("""
-                INSERT INTO tickets (ticket_id, discord_channel_id, type, opened_timestamp, is_open, close_reason, closed_by, input_questions, owner_discord_id)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT(ticket_id) DO UPDATE SET
-                                                                                        discord_channel_id = excluded.discord_channel_id,
-                                                                                        type = excluded.type,
-                                                                                        opened_timestamp = excluded.opened_timestamp,
-                                                                                        is_open = excluded.is_open,
-                                                                                        close_reason = excluded.close_reason,
-                                                                                        closed_by = excluded.closed_by,
-                                                                                        input_questions = excluded.input_questions,
-                                                                                        owner_discord_id = excluded.owner_discord_id""")) {
-            statement.setLong(1, this.id);
-            statement.setLong(2, this.discordChannelId);
-            statement.setInt(3, this.type().id);
-            statement.setLong(4, this.openedTimestamp);
-            statement.setBoolean(5, this.isOpen);
-            statement.setString(6, this.closeReason);
-            statement.setLong(7, this.closedByDiscordId);
-            statement.setString(8, this.getInputQuestionsJSON().toString());
-            statement.setLong(9, this.ownerDiscordId);
-            statement.executeUpdate();
-        }
+        Repositories.tickets().save(this);
     }
 
     public long getDiscordChannelId() {
@@ -796,19 +716,14 @@ public abstract class AWTicket {
     }
 
     /**
-     * Deletes the current ticket's data from the database entirely, including evidence links.
+     * Deletes the current ticket's data from the database entirely, including evidence links, whether it's archived or
+     * not.
      *
      * @throws SQLException If a database access error occurs while executing the SQL statements.
      */
     @SuppressWarnings("unused")
     public void removeFromDatabase() throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("DELETE FROM tickets WHERE ticket_id = ?");
-        statement.setLong(1, this.id);
-        statement.executeUpdate();
-
-        statement = AWDatabase.connection.prepareStatement("DELETE FROM ticket_evidence_link WHERE ticket_id = ?");
-        statement.setLong(1, this.id);
-        statement.executeUpdate();
+        Repositories.tickets().delete(this.id);
     }
 
     /**
@@ -8,7 +8,6 @@ import net.dv8tion.jda.api.entities.channel.concrete.Category;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import org.apache.commons.collections4.queue.CircularFifoQueue;
 import org.jetbrains.annotations.Nullable;
-import org.lukecreator.aw.AWDatabase;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -69,27 +68,17 @@ public class AWTicketsManager {
 
     /**
      * Loads all open tickets from the database into the cache. Discards the previous contents of the cache, if any.
-     * This can use the database for quite a while, since it needs {@code N+1} individual accesses to load all the tickets.
      *
      * @throws SQLException If something went wrong with the database for some reason.
      */
     public static void loadTicketsFromDatabase() throws SQLException {
+        List<AWTicket> openTickets = AWTicket.loadOpenTickets();
+
         OPEN_TICKETS_BY_ID.clear();
         OPEN_TICKETS_BY_DISCORD_CHANNEL_ID.clear();
-
-        // collect a list of open ticket IDs
-        try (var statement = AWDatabase.connection.prepareStatement("""
-                SELECT ticket_id from tickets where is_open = TRUE""")) {
-            try (var results = statement.executeQuery()) {
-                while (results.next()) {
-                    var ticketId = results.getLong(1);
-                    AWTicket ticket = AWTicket.loadFromDatabase(ticketId);
-                    if (ticket == null)
-                        continue;
-                    OPEN_TICKETS_BY_ID.put(ticketId, ticket);
-                    OPEN_TICKETS_BY_DISCORD_CHANNEL_ID.put(ticket.getDiscordChannelId(), ticket);
-                }
-            }
+        for (AWTicket ticket : openTickets) {
+            OPEN_TICKETS_BY_ID.put(ticket.id, ticket);
+            OPEN_TICKETS_BY_DISCORD_CHANNEL_ID.put(ticket.getDiscordChannelId(), ticket);
         }
 
         // any additional necessary setup for specific ticket types
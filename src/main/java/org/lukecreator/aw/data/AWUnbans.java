@@ -1,11 +1,11 @@
 package org.lukecreator.aw.data;
 
-import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.data.repository.Repositories;
 
 import java.sql.SQLException;
-import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 /**
  * Represents an updatable list of unbans for a particular user.
@@ -41,24 +41,8 @@ public class AWUnbans {
      * an empty {@link AWUnbans} object associated with the given user ID is returned.
      */
     public static AWUnbans loadFromDatabase(long userId) {
-        try (var statement = AWDatabase.connection.prepareStatement(
-                """
-                        SELECT user_id, responsible_moderator, date
-                        FROM unbans
-                        WHERE user_id = ?
-                        ORDER BY date""")) {
-            statement.setLong(1, userId);
-            try (var resultSet = statement.executeQuery()) {
-                ArrayList<AWUnban> unbans = new ArrayList<>();
-                while (resultSet.next()) {
-                    unbans.add(new AWUnban(
-                            resultSet.getLong("user_id"),
-                            resultSet.getLong("responsible_moderator"),
-                            resultSet.getLong("date")
-                    ));
-                }
-                return new AWUnbans(userId, unbans.toArray(new AWUnban[0]));
-            }
+        try {
+            return new AWUnbans(userId, Repositories.unbans().load(userId).toArray(new AWUnban[0]));
         } catch (Exception e) {
             System.err.println("Issue occurred when loading unbans (" + userId + ") from database: " + e);
             return new AWUnbans(userId);
@@ -75,9 +59,8 @@ public class AWUnbans {
      * @throws SQLException If an issue occurs while clearing the unban list.
      */
     public void clearBans() throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("DELETE FROM unbans WHERE user_id = ?");
-        statement.setLong(1, this.userId);
-        statement.execute();
+        Repositories.unbans().clear(this.userId);
+        AWPlayerCache.invalidate(this.userId);
         this.unbans.clear();
     }
 
@@ -90,17 +73,8 @@ public class AWUnbans {
      * @throws SQLException If an issue occurs while inserting the unban into the database.
      */
     public void addUnban(AWUnban unban) throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("INSERT INTO unbans VALUES (?, ?, ?)");
-        statement.setLong(1, unban.userId());
-
-        if (unban.responsibleModerator() == null)
-            statement.setNull(2, Types.INTEGER);
-        else
-            statement.setLong(2, unban.responsibleModerator());
-
-        statement.setLong(3, unban.date());
-
-        statement.execute();
+        Repositories.unbans().add(List.of(unban));
+        AWPlayerCache.invalidate(unban.userId());
         this.unbans.add(unban);
     }
 }
@@ -0,0 +1,291 @@
+package org.lukecreator.aw.data;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.lukecreator.aw.AWConnectionPool;
+import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.AWQuery;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Bulk import and export of bans and unbans as NDJSON (one JSON object per line), for reconciling with the game's own
+ * data store.
+ * <p>
+ * Each line is either a ban, in the same format as a ban fulfillment (see {@link AWBan#fromFulfillmentJSON}), or an
+ * unban:
+ * <pre>
+ * {"type":"ban","user":1,"responsible_user":2,"reason":"exploiting","starts":1700000000000,"ends":null,"legacy":true}
+ * {"type":"unban","user":1,"responsible_user":2,"date":1700000500000}
+ * </pre>
+ * Bans may also have a "linked_ticket". Both directions stream, so memory use doesn't grow with the number of rows.
+ * <p>
+ * Imports and exports read and write the database in large batches, not through the repositories (see
+ * {@link org.lukecreator.aw.data.repository.Repositories}), so they always use the database, whatever repositories
+ * are installed.
+ */
+public class BanTransfer {
+    /**
+     * How many records are written in each transaction during an import. The writer is released between batches, so
+     * the game's own writes aren't held up for the length of a whole import.
+     */
+    private static final int BATCH_SIZE = 1000;
+    /**
+     * The most errors kept to report back from an import; the rest are only counted.
+     */
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final Gson gson = new Gson();
+
+    /**
+     * Imports bans and unbans from NDJSON.
+     * <p>
+     * Bans follow the same rules as {@link AWBans#addBan}: a ban replaces any ban of the same user with the same start
+     * time, so importing the same file twice doesn't duplicate anything. An unban is skipped if the user already has an
+     * unban at the same date. Lines that can't be read are skipped and reported, and blank lines are ignored.
+     *
+     * @param input The NDJSON to import. It's read line by line, and isn't closed.
+     * @return How many records were imported or skipped.
+     * @throws IOException  If the input couldn't be read. Batches before the failure stay imported.
+     * @throws SQLException If a batch couldn't be committed. Batches before it stay imported.
+     */
+    public static ImportResult importNdjson(Reader input) throws IOException, SQLException {
+        BufferedReader reader = input instanceof BufferedReader buffered ? buffered : new BufferedReader(input);
+        ImportResult result = new ImportResult();
+        List<Record> batch = new ArrayList<>(BATCH_SIZE);
+
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank())
+                continue;
+            try {
+                batch.add(parseRecord(line, lineNumber));
+            } catch (RuntimeException e) {
+                // bad JSON, a missing or mistyped field (Gson throws a few different exceptions for those), or a
+                // missing start time, which fromFulfillmentJSON throws a bare RuntimeException for.
+                result.skip("line " + lineNumber + ": " + e.getMessage());
+                continue;
+            }
+            if (batch.size() >= BATCH_SIZE) {
+                writeBatch(batch, result);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty())
+            writeBatch(batch, result);
+        return result;
+    }
+
+    /**
+     * Exports every ban and then every unban as NDJSON, in the format {@link #importNdjson} reads. Rows are written as
+     * they're read, straight from the database.
+     *
+     * @param output Where to write the NDJSON. It isn't closed or flushed at the end.
+     * @return The number of lines written.
+     * @throws IOException  If the output couldn't be written to.
+     * @throws SQLException If the bans couldn't be read.
+     */
+    public static long exportNdjson(Writer output) throws IOException, SQLException {
+        long lines = 0;
+        try (var db = AWDatabase.read()) {
+            try (var statement = db.prepare(AWQuery.EXPORT_BANS);
+                 ResultSet results = statement.executeQuery()) {
+                while (results.next()) {
+                    JsonObject json = new JsonObject();
+                    json.addProperty("type", "ban");
+                    json.addProperty("user", results.getLong("user_id"));
+                    long responsibleModerator = results.getLong("responsible_moderator");
+                    if (!results.wasNull())
+                        json.addProperty("responsible_user", responsibleModerator);
+                    String reason = results.getString("reason");
+                    if (reason != null)
+                        json.addProperty("reason", reason);
+                    json.addProperty("starts", results.getLong("starts"));
+                    long ends = results.getLong("ends");
+                    if (!results.wasNull())
+                        json.addProperty("ends", ends);
+                    json.addProperty("legacy", results.getBoolean("is_legacy"));
+                    long linkedTicket = results.getLong("linked_ticket");
+                    if (!results.wasNull())
+                        json.addProperty("linked_ticket", linkedTicket);
+                    output.write(gson.toJson(json));
+                    output.write('\n');
+                    lines++;
+                }
+            }
+            try (var statement = db.prepare(AWQuery.EXPORT_UNBANS);
+                 ResultSet results = statement.executeQuery()) {
+                while (results.next()) {
+                    JsonObject json = new JsonObject();
+                    json.addProperty("type", "unban");
+                    json.addProperty("user", results.getLong("user_id"));
+                    long responsibleModerator = results.getLong("responsible_moderator");
+                    if (!results.wasNull())
+                        json.addProperty("responsible_user", responsibleModerator);
+                    json.addProperty("date", results.getLong("date"));
+                    output.write(gson.toJson(json));
+                    output.write('\n');
+                    lines++;
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static Record parseRecord(String line, int lineNumber) {
+        JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+        String type = require(json, "type").getAsString();
+        long userId = require(json, "user").getAsLong();
+        return switch (type) {
+            case "ban" -> {
+                AWBan ban = AWBan.fromFulfillmentJSON(userId, json);
+                if (json.has("linked_ticket") && !json.get("linked_ticket").isJsonNull())
+                    ban.linkedTicketId = json.get("linked_ticket").getAsLong();
+                yield new Record(lineNumber, ban, null);
+            }
+            case "unban" -> {
+                long date = require(json, "date").getAsLong();
+                Long responsibleModerator = (json.has("responsible_user") && !json.get("responsible_user").isJsonNull())
+                        ? json.get("responsible_user").getAsLong() : null;
+                yield new Record(lineNumber, null, new AWUnban(userId, responsibleModerator, date));
+            }
+            default -> throw new IllegalStateException("unknown type \"" + type + "\"");
+        };
+    }
+
+    private static JsonElement require(JsonObject json, String field) {
+        JsonElement element = json.get(field);
+        if (element == null || element.isJsonNull())
+            throw new IllegalStateException("missing \"" + field + "\"");
+        return element;
+    }
+
+    /**
+     * Writes a batch of records in one transaction. A record that fails is rolled back on its own and reported.
+     */
+    private static void writeBatch(List<Record> batch, ImportResult result) throws SQLException {
+        HashSet<Long> touchedUsers = new HashSet<>();
+        int bans = 0, unbans = 0;
+        try (var db = AWDatabase.write();
+             var transaction = db.beginTransaction()) {
+            for (Record record : batch) {
+                Savepoint savepoint = transaction.savepoint();
+                try {
+                    if (record.ban != null) {
+                        if (writeBan(db, record.ban))
+                            bans++;
+                        touchedUsers.add(record.ban.userId());
+                    } else {
+                        if (writeUnban(db, record.unban))
+                            unbans++;
+                        touchedUsers.add(record.unban.userId());
+                    }
+                    transaction.release(savepoint);
+                } catch (SQLException e) {
+                    transaction.rollbackTo(savepoint);
+                    result.skip("line " + record.lineNumber + ": " + e.getMessage());
+                }
+            }
+            // once per user rather than once per record; a user can have many bans in the same batch.
+            for (long userId : touchedUsers)
+                StaffBanCounts.recount(db, userId);
+            transaction.commit();
+        }
+        result.bans += bans;
+        result.unbans += unbans;
+        touchedUsers.forEach(AWPlayerCache::invalidate);
+    }
+
+    private static void ensurePlayer(AWConnectionPool.Lease db, long userId) throws SQLException {
+        try (var statement = db.prepare(AWQuery.ENSURE_PLAYER)) {
+            statement.setLong(1, userId);
+            statement.setNull(2, Types.VARCHAR);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * @return If the ban was new or changed, rather than identical to one already on record.
+     */
+    private static boolean writeBan(AWConnectionPool.Lease db, AWBan ban) throws SQLException {
+        ensurePlayer(db, ban.userId());
+        // same as AWBans.addBan: a ban with the same start time is replaced.
+        return !AWBans.upsertBans(db, List.of(ban), ban.linkedTicketId).isEmpty();
+    }
+
+    /**
+     * @return If the unban was new, rather than a duplicate of one already on record.
+     */
+    private static boolean writeUnban(AWConnectionPool.Lease db, AWUnban unban) throws SQLException {
+        ensurePlayer(db, unban.userId());
+        try (var statement = db.prepare(AWQuery.INSERT_UNBAN_IF_NEW)) {
+            statement.setLong(1, unban.userId());
+            if (unban.responsibleModerator() == null)
+                statement.setNull(2, Types.INTEGER);
+            else
+                statement.setLong(2, unban.responsibleModerator());
+            statement.setLong(3, unban.date());
+            return statement.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * A parsed line of an import; exactly one of {@code ban} and {@code unban} is set.
+     */
+    private record Record(int lineNumber, AWBan ban, AWUnban unban) {
+    }
+
+    /**
+     * The outcome of an import.
+     */
+    public static final class ImportResult {
+        /**
+         * The first few reasons lines were skipped, like {@code "line 12: missing \"date\""}.
+         */
+        public final List<String> errors = new ArrayList<>();
+        /**
+         * The number of bans written (including ones that replaced a ban with the same start time). Bans identical to
+         * one already on record aren't counted.
+         */
+        public int bans;
+        /**
+         * The number of unbans written. Duplicates of unbans already on record aren't counted.
+         */
+        public int unbans;
+        /**
+         * The number of lines that couldn't be imported.
+         */
+        public int skipped;
+
+        private void skip(String error) {
+            this.skipped++;
+            if (this.errors.size() < MAX_REPORTED_ERRORS)
+                this.errors.add(error);
+        }
+
+        /**
+         * @return This result as JSON, to send back to whoever started the import.
+         */
+        public JsonObject toJSON() {
+            JsonObject json = new JsonObject();
+            json.addProperty("bans", this.bans);
+            json.addProperty("unbans", this.unbans);
+            json.addProperty("skipped", this.skipped);
+            json.add("errors", gson.toJsonTree(this.errors));
+            return json;
+        }
+    }
+}
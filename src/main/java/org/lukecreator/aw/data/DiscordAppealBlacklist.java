@@ -2,9 +2,8 @@ package org.lukecreator.aw.data;
 
 import net.dv8tion.jda.api.entities.User;
 import org.jetbrains.annotations.Nullable;
-import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.data.repository.Repositories;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
 
 /**
@@ -46,12 +45,7 @@ public class DiscordAppealBlacklist {
      * @throws SQLException If a database access error occurs or the query fails.
      */
     public static boolean isBlacklisted(long discordId) throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("""
-                SELECT 1 FROM discord_appeal_blacklists WHERE discord_id = ? LIMIT 1""");
-        statement.setLong(1, discordId);
-        try (ResultSet results = statement.executeQuery()) {
-            return results.next();
-        }
+        return Repositories.discordBlacklists().isBlacklisted(discordId);
     }
 
     /**
@@ -75,10 +69,7 @@ public class DiscordAppealBlacklist {
      * @throws SQLException If a database access error occurs or the operation fails.
      */
     public static void remove(long discordId) throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("""
-                DELETE FROM discord_appeal_blacklists WHERE discord_id = ?""");
-        statement.setLong(1, discordId);
-        statement.executeUpdate();
+        Repositories.discordBlacklists().delete(discordId);
     }
 
     /**
@@ -89,21 +80,7 @@ public class DiscordAppealBlacklist {
      * @throws SQLException If a database access error occurs or the query fails.
      */
     public static DiscordAppealBlacklist get(long discordId) throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("""
-                SELECT appeal_blacklist_reason, appeal_blacklist_date, appeal_blacklist_issuer
-                FROM discord_appeal_blacklists
-                WHERE discord_id = ?""");
-        statement.setLong(1, discordId);
-        try (var results = statement.executeQuery()) {
-            if (!results.next()) {
-                return null;
-            }
-            return new DiscordAppealBlacklist(discordId,
-                    results.getLong(3),
-                    results.getString(1),
-                    results.getLong(2)
-            );
-        }
+        return Repositories.discordBlacklists().load(discordId);
     }
 
     /**
@@ -117,17 +94,6 @@ public class DiscordAppealBlacklist {
      * @throws SQLException If an error occurs while executing the SQL upsert command.
      */
     public void pushToDatabase() throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("""
-                INSERT INTO discord_appeal_blacklists (discord_id, appeal_blacklist_reason, appeal_blacklist_date, appeal_blacklist_issuer)
-                VALUES (?, ?, ?, ?)
-                ON CONFLICT (discord_id) DO UPDATE SET
-                                                       appeal_blacklist_reason = excluded.appeal_blacklist_reason,
-                                                       appeal_blacklist_date = excluded.appeal_blacklist_date,
-                                                       appeal_blacklist_issuer = excluded.appeal_blacklist_issuer""");
-        statement.setLong(1, this.discordId);
-        statement.setString(2, this.reason);
-        statement.setLong(3, this.date);
-        statement.setLong(4, this.issuerId);
-        statement.executeUpdate();
+        Repositories.discordBlacklists().save(this);
     }
 }
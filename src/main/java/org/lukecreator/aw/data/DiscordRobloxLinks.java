@@ -1,11 +1,11 @@
 package org.lukecreator.aw.data;
 
 import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.data.repository.Repositories;
 
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * API for interfacing with the database for Discord >< Roblox links.
@@ -20,11 +20,7 @@ public class DiscordRobloxLinks {
      * @throws SQLException If a database access error occurs or the SQL statement execution fails.
      */
     public static void createLink(long discordId, long robloxId) throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("""
-                INSERT INTO discord_roblox_links (discord_id, roblox_id) VALUES (?, ?) ON CONFLICT DO NOTHING""");
-        statement.setLong(1, discordId);
-        statement.setLong(2, robloxId);
-        statement.executeUpdate();
+        Repositories.links().linkDiscordToRoblox(discordId, robloxId);
     }
 
     /**
@@ -34,10 +30,7 @@ public class DiscordRobloxLinks {
      * @throws SQLException If a database access error occurs or the SQL statement execution fails.
      */
     public static void removeByDiscordId(long discordId) throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("""
-                DELETE FROM discord_roblox_links WHERE discord_id = ?""");
-        statement.setLong(1, discordId);
-        statement.executeUpdate();
+        Repositories.links().unlinkDiscordId(discordId);
     }
 
     /**
@@ -47,9 +40,7 @@ public class DiscordRobloxLinks {
      * @throws SQLException If a database access error occurs or the SQL statement execution fails.
      */
     public static void removeByRobloxId(long robloxId) throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("""
-                DELETE FROM discord_roblox_links WHERE roblox_id = ?""");
-        statement.setLong(1, robloxId);
+        Repositories.links().unlinkRobloxId(robloxId);
     }
 
     /**
@@ -60,15 +51,18 @@ public class DiscordRobloxLinks {
      * @throws SQLException If a database access error occurs or the query execution fails.
      */
     public static Long robloxIdFromDiscordId(long discordId) throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("""
-                SELECT roblox_id from discord_roblox_links where discord_id = ?""");
-        statement.setLong(1, discordId);
-        try (var results = statement.executeQuery()) {
-            if (!results.next()) {
-                return null;
-            }
-            return results.getLong(1);
-        }
+        return Repositories.links().robloxIdFromDiscordId(discordId);
+    }
+
+    /**
+     * Retrieves the Roblox ID associated with a given Discord ID on the database executor, without blocking the calling
+     * thread. See {@link AWDatabase#supplyAsync}.
+     *
+     * @param discordId The Discord ID for which the associated Roblox ID is being queried.
+     * @return A future of the Roblox ID associated with the provided Discord ID, or null if no association exists.
+     */
+    public static CompletableFuture<Long> robloxIdFromDiscordIdAsync(long discordId) {
+        return AWDatabase.supplyAsync(() -> robloxIdFromDiscordId(discordId));
     }
 
     /**
@@ -79,15 +73,7 @@ public class DiscordRobloxLinks {
      * @throws SQLException If a database access error occurs or the query execution fails.
      */
     public static Long discordIdFromRobloxId(long robloxId) throws SQLException {
-        var statement = AWDatabase.connection.prepareStatement("""
-                SELECT discord_id from discord_roblox_links where roblox_id = ?""");
-        statement.setLong(1, robloxId);
-        try (var results = statement.executeQuery()) {
-            if (!results.next()) {
-                return null;
-            }
-            return results.getLong(1);
-        }
+        return Repositories.links().discordIdFromRobloxId(robloxId);
     }
 
     /**
@@ -102,21 +88,6 @@ public class DiscordRobloxLinks {
      * @throws SQLException If a database access error occurs or the query execution fails.
      */
     public static HashMap<Long, Long> getAllLinks() throws SQLException {
-        PreparedStatement statement = AWDatabase.connection.prepareStatement("""
-                SELECT discord_id, roblox_id
-                FROM discord_roblox_links""");
-        HashMap<Long, Long> links = new HashMap<>();
-
-        try (statement) {
-            try (ResultSet results = statement.executeQuery()) {
-                while (results.next()) {
-                    long discordId = results.getLong(1);
-                    long robloxId = results.getLong(2);
-                    links.put(discordId, robloxId);
-                }
-            }
-        }
-
-        return links;
+        return new HashMap<>(Repositories.links().allDiscordRobloxLinks());
     }
 }
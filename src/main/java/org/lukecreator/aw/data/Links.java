@@ -1,11 +1,8 @@
 package org.lukecreator.aw.data;
 
-import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.data.repository.Repositories;
 
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Methods for accessing links between tickets/bans and evidence.
@@ -13,15 +10,15 @@ import java.util.List;
 @SuppressWarnings("unused") // I'll use these eventually
 public class Links {
     /**
-     * Methods for accessing links between tickets and evidence.
+     * Methods for accessing links between tickets and evidence. The links of archived tickets are kept separately (see
+     * {@link TicketArchive}), and everything here covers both.
      */
     public static class TicketEvidenceLinks {
         /**
          * Retrieves an array of evidence entries linked to a specific ticket.
          * <p>
-         * This method utilizes the {@code ticket_evidence_link} table to fetch the IDs of evidence
-         * associated with the given ticket, then loads the corresponding evidence entries
-         * from the database.
+         * This method joins the {@code ticket_evidence_link} table against the evidence table, so all
+         * the evidence linked to the ticket is loaded in a single query.
          *
          * @param ticketId The unique identifier of the ticket whose linked evidence is to be retrieved.
          * @return An array of {@code AWEvidence} objects representing the evidence linked to the given ticket.
@@ -29,16 +26,7 @@ public class Links {
          * @throws SQLException If an error occurs while querying the database.
          */
         public static AWEvidence[] getEvidenceLinkedToTicket(long ticketId) throws SQLException {
-            long[] evidenceIds = getEvidenceIDsLinkedToTicket(ticketId);
-            List<AWEvidence> evidence = new ArrayList<>();
-
-            for (long evidenceId : evidenceIds) {
-                AWEvidence evidenceEntry = AWEvidence.loadFromDatabase(evidenceId);
-                if (evidenceEntry != null)
-                    evidence.add(evidenceEntry);
-            }
-
-            return evidence.toArray(new AWEvidence[0]);
+            return Repositories.links().evidenceLinkedToTicket(ticketId);
         }
 
         /**
@@ -54,34 +42,18 @@ public class Links {
          * @throws SQLException If an error occurs while querying the database.
          */
         public static long[] getEvidenceIDsLinkedToTicket(long ticketId) throws SQLException {
-            var statement = AWDatabase.connection.prepareStatement("""
-                    SELECT evidence_id FROM ticket_evidence_link
-                    WHERE ticket_id = ?""");
-            statement.setLong(1, ticketId);
-
-            try (ResultSet results = statement.executeQuery()) {
-                List<Long> idList = new ArrayList<>();
-                while (results.next()) {
-                    long evidenceId = results.getLong("evidence_id");
-                    idList.add(evidenceId);
-                }
-
-                return idList.stream().mapToLong(Long::longValue).toArray();
-            }
+            return Repositories.links().evidenceIdsLinkedToTicket(ticketId);
         }
 
         /**
-         * Links a specific piece of evidence to a ticket in the database.
+         * Links one or more pieces of evidence to a ticket in the database, in a single batch write.
          *
-         * @param ticketId   The unique identifier of the ticket to which the evidence is to be linked.
-         * @param evidenceId The unique identifier of the evidence to be linked to the ticket.
-         * @throws SQLException If an error occurs while executing the database query.
+         * @param ticketId    The unique identifier of the ticket to which the evidence is to be linked.
+         * @param evidenceIds The unique identifiers of the evidence to be linked to the ticket.
+         * @throws SQLException If an error occurs while executing the database query. None of the links are written if so.
          */
-        public static void linkEvidenceToTicket(long ticketId, long evidenceId) throws SQLException {
-            var statement = AWDatabase.connection.prepareStatement("INSERT INTO ticket_evidence_link VALUES (?, ?)");
-            statement.setLong(1, ticketId);
-            statement.setLong(2, evidenceId);
-            statement.execute();
+        public static void linkEvidenceToTicket(long ticketId, long... evidenceIds) throws SQLException {
+            Repositories.links().linkEvidenceToTicket(ticketId, evidenceIds);
         }
 
         /**
@@ -92,10 +64,7 @@ public class Links {
          * @throws SQLException If an error occurs while executing the database query.
          */
         public static void unlinkEvidenceFromTicket(long ticketId, long evidenceId) throws SQLException {
-            var statement = AWDatabase.connection.prepareStatement("DELETE FROM ticket_evidence_link WHERE ticket_id = ? AND evidence_id = ?");
-            statement.setLong(1, ticketId);
-            statement.setLong(2, evidenceId);
-            statement.execute();
+            Repositories.links().unlinkEvidenceFromTicket(ticketId, evidenceId);
         }
 
         /**
@@ -105,17 +74,14 @@ public class Links {
          * @throws SQLException If an error occurs while executing the database query.
          */
         public static void deleteEvidence(long evidenceId) throws SQLException {
-            var statement = AWDatabase.connection.prepareStatement("DELETE FROM ticket_evidence_link WHERE evidence_id = ?");
-            statement.setLong(1, evidenceId);
-            statement.execute();
+            Repositories.links().unlinkEvidenceFromAllTickets(evidenceId);
         }
 
         /**
          * Retrieves an array of tickets linked to a specific piece of evidence.
          * <p>
-         * This method queries the {@code ticket_evidence_link} table to retrieve the ticket IDs
-         * associated with the given evidence ID, then loads the corresponding ticket entries
-         * from the database.
+         * This method joins the {@code ticket_evidence_link} table against the tickets table, so every
+         * linked ticket is loaded in a single query.
          *
          * @param evidenceId The unique identifier of the evidence whose linked tickets are to be retrieved.
          * @return An array of {@code AWTicket} objects representing the tickets linked to the specified evidence.
@@ -123,19 +89,7 @@ public class Links {
          * @throws SQLException If an error occurs while querying the database.
          */
         public static AWTicket[] getTicketsLinkedToEvidence(long evidenceId) throws SQLException {
-            var statement = AWDatabase.connection.prepareStatement("""
-                    SELECT ticket_id FROM ticket_evidence_link
-                    WHERE evidence_id = ?""");
-            statement.setLong(1, evidenceId);
-            try (ResultSet results = statement.executeQuery()) {
-                List<AWTicket> ticketList = new ArrayList<>();
-                while (results.next()) {
-                    long ticketId = results.getLong("ticket_id");
-                    ticketList.add(AWTicket.loadFromDatabase(ticketId));
-                }
-
-                return ticketList.toArray(new AWTicket[0]);
-            }
+            return Repositories.links().ticketsLinkedToEvidence(evidenceId);
         }
 
         /**
@@ -151,19 +105,7 @@ public class Links {
          * @throws SQLException If an error occurs while querying the database.
          */
         public static Long[] getTicketIDsLinkedToEvidence(long evidenceId) throws SQLException {
-            var statement = AWDatabase.connection.prepareStatement("""
-                    SELECT ticket_id FROM ticket_evidence_link
-                    WHERE evidence_id = ?""");
-            statement.setLong(1, evidenceId);
-            try (ResultSet results = statement.executeQuery()) {
-                List<Long> ticketList = new ArrayList<>();
-                while (results.next()) {
-                    long ticketId = results.getLong("ticket_id");
-                    ticketList.add(ticketId);
-                }
-
-                return ticketList.toArray(new Long[0]);
-            }
+            return Repositories.links().ticketIdsLinkedToEvidence(evidenceId);
         }
     }
 
@@ -180,20 +122,7 @@ public class Links {
          * @throws SQLException If an SQL error occurs while querying the database.
          */
         public static AWEvidence[] getEvidenceLinkedToUser(long robloxUserId) throws SQLException {
-            var statement = AWDatabase.connection.prepareStatement("""
-                    SELECT evidence_id FROM ban_evidence_link
-                    WHERE user_id = ?""");
-            statement.setLong(1, robloxUserId);
-
-            try (ResultSet results = statement.executeQuery()) {
-                List<AWEvidence> evidenceList = new ArrayList<>();
-                while (results.next()) {
-                    long evidenceId = results.getLong("evidence_id");
-                    evidenceList.add(AWEvidence.loadFromDatabase(evidenceId));
-                }
-
-                return evidenceList.toArray(new AWEvidence[0]);
-            }
+            return Repositories.links().evidenceLinkedToUserBans(robloxUserId);
         }
 
         /**
@@ -206,37 +135,20 @@ public class Links {
          * @throws SQLException If an SQL error occurs while querying the database.
          */
         public static AWEvidence[] getEvidenceLinkedToBan(long robloxUserId, long banStartTime) throws SQLException {
-            var statement = AWDatabase.connection.prepareStatement("""
-                    SELECT evidence_id FROM ban_evidence_link
-                    WHERE user_id = ? AND starts_timestamp = ?""");
-            statement.setLong(1, robloxUserId);
-            statement.setLong(2, banStartTime);
-
-            try (ResultSet results = statement.executeQuery()) {
-                List<AWEvidence> evidenceList = new ArrayList<>();
-                while (results.next()) {
-                    long evidenceId = results.getLong("evidence_id");
-                    evidenceList.add(AWEvidence.loadFromDatabase(evidenceId));
-                }
-
-                return evidenceList.toArray(new AWEvidence[0]);
-            }
+            return Repositories.links().evidenceLinkedToBan(robloxUserId, banStartTime);
         }
 
         /**
-         * Links a specific evidence entry to a ban in the database.
+         * Links one or more evidence entries to a ban in the database, in a single batch write.
          *
-         * @param ban        An instance of {@code AWBan} representing the ban to which the evidence is being linked.
-         *                   Contains information such as the user ID and the start timestamp of the ban.
-         * @param evidenceId The unique identifier of the evidence to be linked to the ban.
-         * @throws SQLException If there is an error while executing the SQL query to link the evidence.
+         * @param ban         An instance of {@code AWBan} representing the ban to which the evidence is being linked.
+         *                    Contains information such as the user ID and the start timestamp of the ban.
+         * @param evidenceIds The unique identifiers of the evidence to be linked to the ban.
+         * @throws SQLException If there is an error while executing the SQL query to link the evidence. None of the
+         *                      links are written if so.
          */
-        public static void linkEvidenceToBan(AWBan ban, long evidenceId) throws SQLException {
-            var statement = AWDatabase.connection.prepareStatement("INSERT INTO ban_evidence_link VALUES (?, ?, ?)");
-            statement.setLong(1, ban.userId());
-            statement.setLong(2, ban.starts());
-            statement.setLong(3, evidenceId);
-            statement.execute();
+        public static void linkEvidenceToBan(AWBan ban, long... evidenceIds) throws SQLException {
+            Repositories.links().linkEvidenceToBan(ban, evidenceIds);
         }
 
         /**
@@ -248,11 +160,7 @@ public class Links {
          * @throws SQLException If an error occurs while executing the SQL query to unlink the evidence.
          */
         public static void unlinkEvidenceFromBan(AWBan ban, long evidenceId) throws SQLException {
-            var statement = AWDatabase.connection.prepareStatement("DELETE FROM ban_evidence_link WHERE user_id = ? AND starts_timestamp = ? AND evidence_id = ?");
-            statement.setLong(1, ban.userId());
-            statement.setLong(2, ban.starts());
-            statement.setLong(3, evidenceId);
-            statement.execute();
+            Repositories.links().unlinkEvidenceFromBan(ban, evidenceId);
         }
 
         /**
@@ -264,24 +172,7 @@ public class Links {
          * @throws SQLException If an SQL error occurs while querying the database.
          */
         public static AWBan[] getBansLinkedToEvidence(long evidenceId) throws SQLException {
-            var statement = AWDatabase.connection.prepareStatement("""
-                    SELECT starts_timestamp, user_id FROM ban_evidence_link
-                    WHERE evidence_id = ?""");
-            statement.setLong(1, evidenceId);
-
-            try (ResultSet results = statement.executeQuery()) {
-                List<AWBan> banList = new ArrayList<>();
-                while (results.next()) {
-                    long starts = results.getLong("starts_timestamp");
-                    long userId = results.getLong("user_id");
-                    AWPlayer player = AWPlayer.loadFromDatabase(userId, false, true, false, false);
-                    for (AWBan ban : player.bans.iterateBans()) {
-                        if (ban.starts() == starts)
-                            banList.add(ban);
-                    }
-                }
-                return banList.toArray(new AWBan[0]);
-            }
+            return Repositories.links().bansLinkedToEvidence(evidenceId);
         }
     }
 }
\ No newline at end of file
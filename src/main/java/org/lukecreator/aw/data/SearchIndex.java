@@ -0,0 +1,287 @@
+package org.lukecreator.aw.data;
+
+import org.jetbrains.annotations.Nullable;
+import org.lukecreator.aw.AWConnectionPool;
+import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.AWQuery;
+import org.lukecreator.aw.AWStatement;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * API for full-text search over ban reasons, evidence details and ticket input questions.
+ * <p>
+ * Each is backed by an FTS5 index over its table (ban_search, evidence_search and ticket_search), which has to be told
+ * about every change to the text it indexes. {@link AWBans}, {@link AWEvidence} and {@link AWTicket} do this in the same
+ * transaction as their writes, using the index/unindex methods here. Anything that writes those tables some other way
+ * should call {@link #rebuild()} afterward. The ticket index covers archived tickets too (see {@link TicketArchive}), and
+ * moving a ticket in or out of the archive doesn't change it.
+ * <p>
+ * The indexes only exist in the database, so searches always go to it, even with other repositories installed (see
+ * {@link org.lukecreator.aw.data.repository.Repositories}).
+ */
+public class SearchIndex {
+    /**
+     * How many of the newest matches of a search get ranked. Scoring every match of a word that's in most ban reasons
+     * (like "exploiting") takes hundreds of milliseconds on a large table, so a search matching more than this ranks
+     * the newest ones and leaves the rest out. No page of results goes past this.
+     */
+    public static final int MAX_RANKED_MATCHES = 5000;
+
+    /**
+     * Searches ban reasons, best matches first.
+     *
+     * @param query    The search terms, as typed by the user. See {@link #toMatchQuery(String)}.
+     * @param page     The page of results to get, starting at 1.
+     * @param pageSize The number of results on each page.
+     * @return The page of matching bans, each with a snippet of its reason with the matches in bold.
+     * @throws SQLException If a database access error occurs or the SQL statement execution fails.
+     */
+    public static Results<Hit<AWBan>> searchBans(String query, int page, int pageSize) throws SQLException {
+        try (var db = AWDatabase.read();
+             var statement = db.prepare(AWQuery.SEARCH_BANS)) {
+            return search(db, statement, AWQuery.BAN_SEARCH_SNIPPET, query, page, pageSize, AWBan::fromRow);
+        }
+    }
+
+    /**
+     * Searches evidence details, best matches first.
+     *
+     * @param query    The search terms, as typed by the user. See {@link #toMatchQuery(String)}.
+     * @param page     The page of results to get, starting at 1.
+     * @param pageSize The number of results on each page.
+     * @return The page of matching evidence, each with a snippet of its details with the matches in bold.
+     * @throws SQLException If a database access error occurs or the SQL statement execution fails.
+     */
+    public static Results<Hit<AWEvidence>> searchEvidence(String query, int page, int pageSize) throws SQLException {
+        try (var db = AWDatabase.read();
+             var statement = db.prepare(AWQuery.SEARCH_EVIDENCE)) {
+            return search(db, statement, AWQuery.EVIDENCE_SEARCH_SNIPPET, query, page, pageSize, results -> {
+                long accusedUser = results.getLong("accused_user");
+                return new AWEvidence(
+                        results.getLong("evidence_id"),
+                        results.getLong("timestamp"),
+                        results.wasNull() ? null : accusedUser,
+                        results.getString("details"),
+                        results.getString("url"));
+            });
+        }
+    }
+
+    /**
+     * Searches the answers people gave when opening tickets, best matches first.
+     *
+     * @param query    The search terms, as typed by the user. See {@link #toMatchQuery(String)}.
+     * @param page     The page of results to get, starting at 1.
+     * @param pageSize The number of results on each page.
+     * @return The page of matching tickets, each with a snippet of its input questions with the matches in bold. Tickets
+     * with an invalid type are left out.
+     * @throws SQLException If a database access error occurs or the SQL statement execution fails.
+     */
+    public static Results<Hit<TicketSummary>> searchTickets(String query, int page, int pageSize) throws SQLException {
+        try (var db = AWDatabase.read();
+             var statement = db.prepare(AWQuery.SEARCH_TICKETS)) {
+            Results<Hit<TicketSummary>> results = search(db, statement, AWQuery.TICKET_SEARCH_SNIPPET, query, page, pageSize, row -> {
+                AWTicket.Type type = AWTicket.Type.fromId(row.getInt("type"));
+                if (type == null)
+                    return null;
+                return new TicketSummary(row.getLong("ticket_id"), type,
+                        row.getLong("discord_channel_id"),
+                        row.getLong("opened_timestamp"),
+                        row.getBoolean("is_open"),
+                        row.getString("close_reason"),
+                        row.getLong("closed_by"));
+            });
+            results.hits.removeIf(hit -> hit.item == null);
+            return results;
+        }
+    }
+
+    /**
+     * Turns what a user typed into an FTS5 query. Each word is searched for on its own (all of them have to match), and
+     * quoted so nothing in it is taken as query syntax. A word ending in {@code *} matches anything starting with it.
+     *
+     * @param input The search terms, as typed by the user.
+     * @return The FTS5 query, or {@code null} if there are no words to search for.
+     */
+    @Nullable
+    public static String toMatchQuery(String input) {
+        StringBuilder query = new StringBuilder();
+        for (String word : input.trim().split("\\s+")) {
+            boolean prefix = word.endsWith("*");
+            if (prefix)
+                word = word.substring(0, word.length() - 1);
+            if (word.isEmpty())
+                continue;
+            if (!query.isEmpty())
+                query.append(' ');
+            query.append('"').append(word.replace("\"", "\"\"")).append('"');
+            if (prefix)
+                query.append('*');
+        }
+        return query.isEmpty() ? null : query.toString();
+    }
+
+    /**
+     * Rebuilds every search index from scratch, from the tables they index.
+     *
+     * @throws SQLException If a database access error occurs or the SQL statement execution fails.
+     */
+    public static void rebuild() throws SQLException {
+        try (var db = AWDatabase.write();
+             var transaction = db.beginTransaction()) {
+            for (AWQuery query : new AWQuery[]{
+                    AWQuery.REBUILD_BAN_SEARCH,
+                    AWQuery.REBUILD_EVIDENCE_SEARCH,
+                    AWQuery.REBUILD_TICKET_SEARCH}) {
+                try (var statement = db.prepare(query)) {
+                    statement.executeUpdate();
+                }
+            }
+            transaction.commit();
+        }
+    }
+
+    /**
+     * Indexes the reasons of bans that were just inserted or changed, in one batch.
+     */
+    static void indexBans(AWConnectionPool.Lease db, Collection<AWBan> bans) throws SQLException {
+        if (bans.isEmpty())
+            return;
+        try (var statement = db.prepare(AWQuery.INDEX_BAN)) {
+            for (AWBan ban : bans) {
+                statement.setLong(1, ban.userId());
+                statement.setLong(2, ban.starts());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Removes the stored reasons of bans that are about to be upserted and differ from what's on record, in one batch.
+     * Bans that are new, or identical to the stored ones, are left alone. Call this right before the upsert.
+     */
+    static void unindexChangedBans(AWConnectionPool.Lease db, Collection<AWBan> bans, @Nullable Long linkedTicketId)
+            throws SQLException {
+        try (var statement = db.prepare(AWQuery.UNINDEX_CHANGED_BAN)) {
+            for (AWBan ban : bans) {
+                AWBans.bindBan(statement, ban, linkedTicketId);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Removes the reasons of all of a user's bans from the index. Call this right before the bans are deleted.
+     */
+    public static void unindexBans(AWConnectionPool.Lease db, long userId) throws SQLException {
+        execute(db, AWQuery.UNINDEX_USER_BANS, userId);
+    }
+
+    /**
+     * Indexes a piece of evidence's details. Call this right after the evidence is written.
+     */
+    public static void indexEvidence(AWConnectionPool.Lease db, long evidenceId) throws SQLException {
+        execute(db, AWQuery.INDEX_EVIDENCE, evidenceId);
+    }
+
+    /**
+     * Removes a piece of evidence's details from the index, if it's in the database. Call this right before the evidence
+     * is overwritten or deleted.
+     */
+    public static void unindexEvidence(AWConnectionPool.Lease db, long evidenceId) throws SQLException {
+        execute(db, AWQuery.UNINDEX_EVIDENCE, evidenceId);
+    }
+
+    /**
+     * Indexes a ticket's input questions. Call this right after the ticket is written.
+     */
+    public static void indexTicket(AWConnectionPool.Lease db, long ticketId) throws SQLException {
+        execute(db, AWQuery.INDEX_TICKET, ticketId);
+    }
+
+    /**
+     * Removes a ticket's input questions from the index, if it's in the database. Call this right before the ticket is
+     * overwritten or deleted.
+     */
+    public static void unindexTicket(AWConnectionPool.Lease db, long ticketId) throws SQLException {
+        execute(db, AWQuery.UNINDEX_TICKET, ticketId);
+    }
+
+    private static void execute(AWConnectionPool.Lease db, AWQuery query, long... parameters) throws SQLException {
+        try (var statement = db.prepare(query)) {
+            for (int i = 0; i < parameters.length; i++)
+                statement.setLong(i + 1, parameters[i]);
+            statement.executeUpdate();
+        }
+    }
+
+    private static <T> Results<Hit<T>> search(AWConnectionPool.Lease db, AWStatement statement, AWQuery snippetQuery,
+                                              String input, int page, int pageSize, RowReader<T> reader) throws SQLException {
+        String query = toMatchQuery(input);
+        if (query == null)
+            return new Results<>(new ArrayList<>(), false);
+
+        // one extra row tells whether there's a page after this one.
+        statement.setString(1, query);
+        statement.setInt(2, MAX_RANKED_MATCHES);
+        statement.setInt(3, pageSize + 1);
+        statement.setLong(4, (Math.max(page, 1) - 1L) * pageSize);
+
+        List<Long> rowIds = new ArrayList<>();
+        List<T> items = new ArrayList<>();
+        try (ResultSet results = statement.executeQuery()) {
+            while (results.next()) {
+                rowIds.add(results.getLong("search_rowid"));
+                items.add(reader.read(results));
+            }
+        }
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) {
+            rowIds.removeLast();
+            items.removeLast();
+        }
+
+        // snippets are only worked out for the page being shown, not for every match that was ranked.
+        List<Hit<T>> hits = new ArrayList<>();
+        try (var snippetStatement = db.prepare(snippetQuery)) {
+            for (int i = 0; i < items.size(); i++) {
+                snippetStatement.setString(1, query);
+                snippetStatement.setLong(2, rowIds.get(i));
+                try (ResultSet results = snippetStatement.executeQuery()) {
+                    hits.add(new Hit<>(items.get(i), results.next() ? results.getString(1) : null));
+                }
+            }
+        }
+        return new Results<>(hits, hasMore);
+    }
+
+    @FunctionalInterface
+    private interface RowReader<T> {
+        T read(ResultSet results) throws SQLException;
+    }
+
+    /**
+     * A single search result.
+     *
+     * @param item    The ban, evidence or ticket that matched.
+     * @param snippet The part of the searched text around the matches, with the matches in bold (Discord markdown).
+     */
+    public record Hit<T>(T item, String snippet) {
+    }
+
+    /**
+     * A page of search results.
+     *
+     * @param hits    The results on this page, best match first.
+     * @param hasMore If there's another page after this one.
+     */
+    public record Results<T>(List<T> hits, boolean hasMore) {
+    }
+}
@@ -0,0 +1,119 @@
+package org.lukecreator.aw.data;
+
+import org.lukecreator.aw.AWConnectionPool;
+import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.AWQuery;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+
+/**
+ * API for the number of bans each staff member issued per week, which is what ticket counts are based on.
+ * <p>
+ * A ban counts towards a staff member's week if it's the latest ban of that user that started in that week, and the
+ * user hasn't been unbanned since. Rather than working that out from every ban each time someone asks, the counts are
+ * kept in the staff_weekly_ban_counts table, and updated in the same transaction as any write to a user's bans or
+ * unbans. Weeks start on Monday at 00:00 UTC.
+ * <p>
+ * Only the SQLite repositories keep the counts, so they only cover bans and unbans written to the database (see
+ * {@link org.lukecreator.aw.data.repository.Repositories}).
+ */
+public class StaffBanCounts {
+    /**
+     * Gets the number of bans credited to a staff member in a week.
+     *
+     * @param staffRobloxId The Roblox ID of the staff member.
+     * @param weekStart     The unix millisecond timestamp the week starts at, from
+     *                      {@link org.lukecreator.aw.discord.commands.TicketCountCommand#calculateWeekStart(long)}.
+     * @return The number of bans credited to the staff member that week.
+     * @throws SQLException If a database access error occurs or the SQL statement execution fails.
+     */
+    public static int countForStaff(long staffRobloxId, long weekStart) throws SQLException {
+        try (var db = AWDatabase.read();
+             var statement = db.prepare(AWQuery.STAFF_WEEKLY_BAN_COUNT)) {
+            statement.setLong(1, weekStart);
+            statement.setLong(2, staffRobloxId);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() ? result.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of bans credited to every staff member in a week.
+     *
+     * @param weekStart The unix millisecond timestamp the week starts at, from
+     *                  {@link org.lukecreator.aw.discord.commands.TicketCountCommand#calculateWeekStart(long)}.
+     * @return A map of staff Roblox IDs to their number of bans that week. Staff with no bans that week are left out.
+     * @throws SQLException If a database access error occurs or the SQL statement execution fails.
+     */
+    public static HashMap<Long, Integer> countsForWeek(long weekStart) throws SQLException {
+        try (var db = AWDatabase.read();
+             var statement = db.prepare(AWQuery.STAFF_WEEKLY_BAN_COUNTS)) {
+            statement.setLong(1, weekStart);
+            try (ResultSet result = statement.executeQuery()) {
+                HashMap<Long, Integer> counts = new HashMap<>();
+                while (result.next())
+                    counts.put(result.getLong(1), result.getInt(2));
+                return counts;
+            }
+        }
+    }
+
+    /**
+     * Recounts a user's contribution to the weekly counts, after their bans or unbans changed. Call this with the same
+     * writer lease (and inside the same transaction) as the change, so the counts never disagree with the bans.
+     *
+     * @param db     The writer lease the change was made with.
+     * @param userId The Roblox ID of the user whose bans or unbans changed.
+     * @throws SQLException If a database access error occurs or the SQL statement execution fails.
+     */
+    public static void recount(AWConnectionPool.Lease db, long userId) throws SQLException {
+        try (var transaction = db.beginTransaction()) {
+            // take back whatever the user was credited for before, then credit them again from their current bans.
+            adjust(db, userId, -1);
+            try (var statement = db.prepare(AWQuery.DELETE_STAFF_BAN_CREDITS)) {
+                statement.setLong(1, userId);
+                statement.executeUpdate();
+            }
+            try (var statement = db.prepare(AWQuery.INSERT_STAFF_BAN_CREDITS)) {
+                statement.setLong(1, userId);
+                statement.executeUpdate();
+            }
+            adjust(db, userId, 1);
+            transaction.commit();
+        }
+    }
+
+    /**
+     * Rebuilds every weekly count from scratch, from the bans and unbans on record. The counts are kept up to date as
+     * bans are written, so this is only needed after bans were changed without going through {@link AWBans} or
+     * {@link AWUnbans}, like an import.
+     *
+     * @throws SQLException If a database access error occurs or the SQL statement execution fails.
+     */
+    public static void rebuild() throws SQLException {
+        try (var db = AWDatabase.write();
+             var transaction = db.beginTransaction()) {
+            for (AWQuery query : new AWQuery[]{
+                    AWQuery.CLEAR_ALL_STAFF_BAN_COUNTS,
+                    AWQuery.CLEAR_ALL_STAFF_BAN_CREDITS,
+                    AWQuery.REBUILD_STAFF_BAN_CREDITS,
+                    AWQuery.REBUILD_STAFF_BAN_COUNTS}) {
+                try (var statement = db.prepare(query)) {
+                    statement.executeUpdate();
+                }
+            }
+            transaction.commit();
+        }
+    }
+
+    private static void adjust(AWConnectionPool.Lease db, long userId, int delta) throws SQLException {
+        try (var statement = db.prepare(AWQuery.ADJUST_STAFF_BAN_COUNTS)) {
+            statement.setLong(1, userId);
+            statement.setInt(2, delta);
+            statement.executeUpdate();
+        }
+    }
+}
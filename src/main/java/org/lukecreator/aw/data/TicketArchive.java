@@ -0,0 +1,167 @@
+package org.lukecreator.aw.data;
+
+import org.lukecreator.aw.AWConnectionPool;
+import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.AWQuery;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves tickets that have been closed for a while, along with their evidence links, from the tickets table to
+ * tickets_archive (and ticket_evidence_link_archive).
+ * <p>
+ * Closed tickets are almost never looked at again, but they'd otherwise stay in the same table (and indexes) as the
+ * open ones forever. Every query that reads tickets reads both tables, so nothing else needs to know whether a ticket
+ * was archived; the ticket search index reads from both as well, so archiving doesn't touch it. Writing an archived
+ * ticket moves it back first (see {@link #restore}).
+ * <p>
+ * Archiving moves rows between tables, so it works on the database directly rather than through the repositories (see
+ * {@link org.lukecreator.aw.data.repository.Repositories}). It's started by {@link AWDatabase#init}, and doesn't run
+ * without the database.
+ */
+public final class TicketArchive {
+    /**
+     * How many days a ticket has to have been closed before it's archived, set by the `AW_TICKET_ARCHIVE_DAYS`
+     * environment variable. Defaults to 90. Set to 0 to never archive tickets.
+     */
+    private static final int ARCHIVE_AFTER_DAYS = AWDatabase.intFromEnv("AW_TICKET_ARCHIVE_DAYS", 90);
+    /**
+     * How often to look for tickets to archive.
+     */
+    private static final long INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(6);
+    /**
+     * How many tickets are moved in each transaction. The writer is released between batches, so the first run on a
+     * large table doesn't hold up everything else.
+     */
+    private static final int BATCH_SIZE = 500;
+
+    private static volatile ScheduledExecutorService archiver = null;
+    /**
+     * Set on shutdown, so a run that's partway through a large backlog stops after the batch it's on.
+     */
+    private static volatile boolean stopping = false;
+
+    private TicketArchive() {
+    }
+
+    /**
+     * Starts archiving tickets on a schedule, starting shortly after startup. Does nothing if archiving is turned off.
+     */
+    public static synchronized void start() {
+        if (archiver != null || ARCHIVE_AFTER_DAYS <= 0)
+            return;
+        stopping = false;
+        archiver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "aw-ticket-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        archiver.scheduleWithFixedDelay(TicketArchive::archiveQuietly,
+                TimeUnit.MINUTES.toMillis(1), INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the scheduled archiving, waiting for a batch that's being written to finish. Called on shutdown, before the
+     * database is closed.
+     */
+    public static synchronized void close() {
+        ScheduledExecutorService current = archiver;
+        archiver = null;
+        if (current == null)
+            return;
+        stopping = true;
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(10, TimeUnit.SECONDS))
+                System.err.println("Timed out waiting for the ticket archiver to stop.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Archives every ticket closed before the given time.
+     *
+     * @param closedBefore The unix millisecond timestamp to archive tickets closed before.
+     * @return The number of tickets archived.
+     * @throws SQLException If a batch couldn't be archived. Batches before it stay archived.
+     */
+    public static int archiveClosedBefore(long closedBefore) throws SQLException {
+        int archived = 0;
+        while (!stopping) {
+            int moved = archiveBatch(closedBefore);
+            archived += moved;
+            if (moved < BATCH_SIZE)
+                break;
+        }
+        return archived;
+    }
+
+    /**
+     * Moves an archived ticket and its evidence links back to the tickets table, so it can be written like any other
+     * ticket. Call this with the writer lease (and inside the transaction) the ticket is about to be written with.
+     *
+     * @param db       The writer lease the ticket will be written with.
+     * @param ticketId The ID of the ticket.
+     * @return If the ticket was archived and has been moved back.
+     * @throws SQLException If a database access error occurs or the SQL statement execution fails.
+     */
+    public static boolean restore(AWConnectionPool.Lease db, long ticketId) throws SQLException {
+        try (var transaction = db.beginTransaction()) {
+            if (execute(db, AWQuery.RESTORE_TICKET, ticketId) == 0)
+                return false;
+            execute(db, AWQuery.RESTORE_TICKET_EVIDENCE_LINKS, ticketId);
+            execute(db, AWQuery.DELETE_ARCHIVED_TICKET, ticketId);
+            execute(db, AWQuery.UNLINK_ALL_EVIDENCE_FROM_ARCHIVED_TICKET, ticketId);
+            transaction.commit();
+            return true;
+        }
+    }
+
+    private static int archiveBatch(long closedBefore) throws SQLException {
+        try (var db = AWDatabase.write();
+             var transaction = db.beginTransaction()) {
+            List<Long> ticketIds = new ArrayList<>();
+            try (var statement = db.prepare(AWQuery.ARCHIVABLE_TICKETS)) {
+                statement.setLong(1, closedBefore);
+                statement.setInt(2, BATCH_SIZE);
+                try (ResultSet results = statement.executeQuery()) {
+                    while (results.next())
+                        ticketIds.add(results.getLong(1));
+                }
+            }
+            for (long ticketId : ticketIds) {
+                execute(db, AWQuery.ARCHIVE_TICKET, ticketId);
+                execute(db, AWQuery.ARCHIVE_TICKET_EVIDENCE_LINKS, ticketId);
+                execute(db, AWQuery.UNLINK_ALL_EVIDENCE_FROM_TICKET, ticketId);
+                execute(db, AWQuery.DELETE_TICKET, ticketId);
+            }
+            transaction.commit();
+            return ticketIds.size();
+        }
+    }
+
+    private static int execute(AWConnectionPool.Lease db, AWQuery query, long ticketId) throws SQLException {
+        try (var statement = db.prepare(query)) {
+            statement.setLong(1, ticketId);
+            return statement.executeUpdate();
+        }
+    }
+
+    private static void archiveQuietly() {
+        long closedBefore = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(ARCHIVE_AFTER_DAYS);
+        try {
+            int archived = archiveClosedBefore(closedBefore);
+            if (archived > 0)
+                System.out.println("Archived " + archived + " tickets closed more than " + ARCHIVE_AFTER_DAYS + " days ago.");
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Failed to archive old tickets; will retry next time.\n\n" + e);
+        }
+    }
+}
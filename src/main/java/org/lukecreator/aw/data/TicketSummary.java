@@ -0,0 +1,87 @@
+package org.lukecreator.aw.data;
+
+import org.jetbrains.annotations.Nullable;
+import org.lukecreator.aw.data.repository.Repositories;
+
+import java.sql.SQLException;
+
+/**
+ * A lightweight view of a ticket, holding only what's needed to list it in a ticket history.
+ * <p>
+ * Unlike {@link AWTicket#loadFromDatabase(long)}, loading these never parses the ticket's input questions or builds the
+ * concrete ticket type, so it's cheap enough to page through someone's entire history.
+ *
+ * @param id                The ID of the ticket.
+ * @param type              The type of the ticket.
+ * @param discordChannelId  The ID of the ticket's Discord channel. Only meaningful while the ticket is open.
+ * @param openedTimestamp   The unix millisecond the ticket was opened at.
+ * @param isOpen            If the ticket is still open.
+ * @param closeReason       Can be null. The reason the ticket was closed with, if any.
+ * @param closedByDiscordId The Discord ID of the user that closed the ticket, if it's closed.
+ */
+public record TicketSummary(long id, AWTicket.Type type, long discordChannelId, long openedTimestamp,
+                            boolean isOpen, @Nullable String closeReason, long closedByDiscordId) {
+    /**
+     * Loads a page of the tickets opened by a user, newest first.
+     *
+     * @param ownerId The Discord ID of the ticket owner.
+     * @param type    If not null, only tickets of this type are included.
+     * @param after   Where the page starts; only tickets older than this cursor are included. Use {@link Cursor#START}
+     *                for the first page, and the {@link #cursor()} of the last summary of a page for the page after it.
+     * @param limit   The maximum number of tickets in the page.
+     * @return The page of tickets. If it's shorter than {@code limit}, there are no more pages.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static TicketSummary[] historyByOwner(long ownerId, @Nullable AWTicket.Type type, Cursor after, int limit) throws SQLException {
+        return Repositories.tickets().historyByOwner(ownerId, type, after, limit);
+    }
+
+    /**
+     * Loads a page of the tickets closed by a user, newest first.
+     *
+     * @param closerId The Discord ID of the user that closed the tickets.
+     * @param type     If not null, only tickets of this type are included.
+     * @param after    Where the page starts; only tickets older than this cursor are included. Use {@link Cursor#START}
+     *                 for the first page, and the {@link #cursor()} of the last summary of a page for the page after it.
+     * @param limit    The maximum number of tickets in the page.
+     * @return The page of tickets. If it's shorter than {@code limit}, there are no more pages.
+     * @throws SQLException If a database access error occurs.
+     */
+    public static TicketSummary[] historyByCloser(long closerId, @Nullable AWTicket.Type type, Cursor after, int limit) throws SQLException {
+        return Repositories.tickets().historyByCloser(closerId, type, after, limit);
+    }
+
+    /**
+     * @return A cursor pointing at this ticket, which can be used to get the page of tickets that comes after it.
+     */
+    public Cursor cursor() {
+        return new Cursor(this.openedTimestamp, this.id);
+    }
+
+    /**
+     * A position in a ticket history. Histories are ordered newest first, so a page after a cursor contains the tickets
+     * opened before it.
+     *
+     * @param openedTimestamp The opened timestamp of the ticket the cursor points at.
+     * @param ticketId        The ID of the ticket the cursor points at. Breaks ties between tickets opened in the same
+     *                        millisecond.
+     */
+    public record Cursor(long openedTimestamp, long ticketId) {
+        /**
+         * The cursor to use for the first page of a history.
+         */
+        public static final Cursor START = new Cursor(Long.MAX_VALUE, Long.MAX_VALUE);
+
+        /**
+         * Creates a cursor pointing at the ticket with the given ID.
+         *
+         * @param ticketId The ID of the ticket.
+         * @return The cursor, or {@code null} if there's no ticket with that ID.
+         * @throws SQLException If a database access error occurs.
+         */
+        @Nullable
+        public static Cursor ofTicket(long ticketId) throws SQLException {
+            return Repositories.tickets().cursorOf(ticketId);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.lukecreator.aw.data.repository;
+
+import org.jetbrains.annotations.Nullable;
+import org.lukecreator.aw.data.AWBan;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Storage for the bans of each player. A player's bans are told apart by when they start.
+ */
+public interface BanRepository {
+    /**
+     * Reads every ban of a player.
+     *
+     * @param userId The Roblox user ID of the player.
+     * @return The player's bans, oldest first.
+     * @throws SQLException If the bans couldn't be read.
+     */
+    List<AWBan> load(long userId) throws SQLException;
+
+    /**
+     * Writes bans, replacing any ban of the same player with the same start time. If two of the bans are of the same
+     * player and start at the same time, the later one wins. Either every ban is written, or none are.
+     *
+     * @param bans           The bans to write.
+     * @param linkedTicketId The ticket to link the bans to, or null for none. {@link AWBan#linkedTicketId} isn't used.
+     * @throws SQLException If the bans couldn't be written.
+     */
+    void add(List<AWBan> bans, @Nullable Long linkedTicketId) throws SQLException;
+
+    /**
+     * Sets when a player's latest ban ends. Does nothing if they've never been banned.
+     *
+     * @param userId The Roblox user ID of the player.
+     * @param ends   The unix millisecond timestamp the ban ends at.
+     * @throws SQLException If the change couldn't be written.
+     */
+    void setLatestEnds(long userId, long ends) throws SQLException;
+
+    /**
+     * Deletes every ban of a player.
+     *
+     * @param userId The Roblox user ID of the player.
+     * @throws SQLException If the bans couldn't be deleted.
+     */
+    void clear(long userId) throws SQLException;
+}
@@ -0,0 +1,43 @@
+package org.lukecreator.aw.data.repository;
+
+import org.jetbrains.annotations.Nullable;
+import org.lukecreator.aw.data.DiscordAppealBlacklist;
+
+import java.sql.SQLException;
+
+/**
+ * Storage for the appeal blacklists of Discord users. See {@link DiscordAppealBlacklist}; Roblox users' blacklists are
+ * stored with the rest of the player, in {@link PlayerRepository}.
+ */
+public interface DiscordBlacklistRepository {
+    /**
+     * @param discordId The Discord ID of the user.
+     * @return If the user is blacklisted from appealing.
+     * @throws SQLException If the blacklist couldn't be read.
+     */
+    boolean isBlacklisted(long discordId) throws SQLException;
+
+    /**
+     * Reads a user's blacklist.
+     *
+     * @param discordId The Discord ID of the user.
+     * @return The blacklist, or {@code null} if the user isn't blacklisted.
+     * @throws SQLException If the blacklist couldn't be read.
+     */
+    @Nullable
+    DiscordAppealBlacklist load(long discordId) throws SQLException;
+
+    /**
+     * Writes a blacklist, replacing whatever the same user had before.
+     *
+     * @param blacklist The blacklist to write.
+     * @throws SQLException If the blacklist couldn't be written.
+     */
+    void save(DiscordAppealBlacklist blacklist) throws SQLException;
+
+    /**
+     * @param discordId The Discord ID of the user to remove the blacklist of. Does nothing if they don't have one.
+     * @throws SQLException If the blacklist couldn't be deleted.
+     */
+    void delete(long discordId) throws SQLException;
+}
@@ -0,0 +1,46 @@
+package org.lukecreator.aw.data.repository;
+
+import org.jetbrains.annotations.Nullable;
+import org.lukecreator.aw.data.AWEvidence;
+
+import java.sql.SQLException;
+
+/**
+ * Storage for evidence. Links between evidence and tickets or bans are in {@link LinkRepository}.
+ */
+public interface EvidenceRepository {
+    /**
+     * Reads a piece of evidence.
+     *
+     * @param id The ID of the evidence.
+     * @return The evidence, or {@code null} if there's none with that ID.
+     * @throws SQLException If the evidence couldn't be read.
+     */
+    @Nullable
+    AWEvidence load(long id) throws SQLException;
+
+    /**
+     * Reads every piece of evidence against a user.
+     *
+     * @param userId The Roblox user ID of the accused user.
+     * @return The evidence, in order of ID.
+     * @throws SQLException If the evidence couldn't be read.
+     */
+    AWEvidence[] loadAgainstUser(long userId) throws SQLException;
+
+    /**
+     * Writes a piece of evidence, replacing whatever had the same ID.
+     *
+     * @param evidence The evidence to write.
+     * @throws SQLException If the evidence couldn't be written.
+     */
+    void save(AWEvidence evidence) throws SQLException;
+
+    /**
+     * Deletes a piece of evidence, and unlinks it from every ticket it was linked to.
+     *
+     * @param id The ID of the evidence.
+     * @throws SQLException If the evidence couldn't be deleted.
+     */
+    void delete(long id) throws SQLException;
+}
@@ -0,0 +1,1141 @@
+package org.lukecreator.aw.data.repository;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.jetbrains.annotations.Nullable;
+import org.lukecreator.aw.data.AWBan;
+import org.lukecreator.aw.data.AWEvidence;
+import org.lukecreator.aw.data.AWPlayer;
+import org.lukecreator.aw.data.AWPunchUpdate;
+import org.lukecreator.aw.data.AWStats;
+import org.lukecreator.aw.data.AWTicket;
+import org.lukecreator.aw.data.AWUnban;
+import org.lukecreator.aw.data.DiscordAppealBlacklist;
+import org.lukecreator.aw.data.TicketSummary;
+
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Repositories that keep everything in memory, for load testing the fulfillment pipeline and ticket flows without any
+ * disk I/O in the loop. Install them with {@link Repositories#install(Repositories.Provider)} before anything is loaded;
+ * nothing is ever written to the database.
+ * <p>
+ * Every repository is safe to use from many threads at once. Like the database, there's a single writer: every write
+ * (and every transaction, for as long as it's open) holds {@link #writer}, so writes from different threads take turns.
+ * Each change a write makes is logged with how to undo it, so savepoints and rollbacks behave like they do in SQLite.
+ * Reads don't wait for the writer and aren't isolated from it, though: they see a transaction's changes before it
+ * commits, and those changes disappear again if it rolls back. Constraints nothing reads back (like unique usernames)
+ * aren't enforced. Search, staff ban counts, the ticket archive and bulk import/export aren't part of the repositories
+ * (see {@link Repositories}), so they don't see anything stored here.
+ */
+public final class InMemoryRepositories implements Repositories.Provider {
+    /**
+     * Tickets in the order histories list them: newest first, with ties broken by ID.
+     */
+    private static final Comparator<TicketRow> NEWEST_FIRST = Comparator
+            .comparingLong(TicketRow::openedTimestamp).reversed()
+            .thenComparing(Comparator.comparingLong(TicketRow::id).reversed());
+
+    private final ConcurrentHashMap<Long, PlayerRecord> players = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, ConcurrentSkipListSet<Long>> gamepassOwners = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, TicketRow> tickets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, ConcurrentSkipListSet<TicketRow>> ticketsByOwner = new ConcurrentHashMap<>();
+    /**
+     * Only closed tickets, like the SQLite queries (which skip open tickets that somehow have a closer).
+     */
+    private final ConcurrentHashMap<Long, ConcurrentSkipListSet<TicketRow>> ticketsByCloser = new ConcurrentHashMap<>();
+    private final AtomicLong maxTicketId = new AtomicLong();
+
+    private final ConcurrentHashMap<Long, AWEvidence> evidence = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, ConcurrentSkipListSet<Long>> evidenceByAccused = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, ConcurrentSkipListSet<Long>> evidenceByTicket = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, ConcurrentSkipListSet<Long>> ticketsByEvidence = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, ConcurrentSkipListSet<BanEvidenceLink>> banLinksByUser = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<BanKey>> banLinksByEvidence = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, Long> robloxIdsByDiscordId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> discordIdsByRobloxId = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Long, DiscordAppealBlacklist> discordBlacklists = new ConcurrentHashMap<>();
+
+    /**
+     * Held by whichever thread is writing, for as long as its outermost transaction is open.
+     */
+    private final ReentrantLock writer = new ReentrantLock();
+    /**
+     * How to undo each change made by the open transaction on this thread, oldest first. Only set while the thread
+     * holds {@link #writer}.
+     */
+    private final ThreadLocal<ArrayList<Runnable>> undoLogs = new ThreadLocal<>();
+
+    private final PlayerRepository playerRepository = new Players();
+    private final BanRepository banRepository = new Bans();
+    private final UnbanRepository unbanRepository = new Unbans();
+    private final PunchUpdateRepository punchUpdateRepository = new PunchUpdates();
+    private final TicketRepository ticketRepository = new Tickets();
+    private final EvidenceRepository evidenceRepository = new Evidence();
+    private final Links linkRepository = new Links();
+    private final DiscordBlacklistRepository discordBlacklistRepository = new DiscordBlacklists();
+
+    /**
+     * Adds an item to a list that's sorted by the given key, after any items with the same key, so items with the same
+     * key stay in the order they were added (like rows with the same value in an {@code ORDER BY} column).
+     */
+    private static <T> void insertSorted(List<T> list, T item, ToLongFunction<T> key) {
+        long itemKey = key.applyAsLong(item);
+        int index = list.size();
+        while (index > 0 && key.applyAsLong(list.get(index - 1)) > itemKey)
+            index--;
+        list.add(index, item);
+    }
+
+    private static AWBan copyOf(AWBan ban, @Nullable Long linkedTicketId) {
+        return new AWBan(ban.userId(), ban.responsibleModerator(), ban.reason(),
+                ban.starts(), ban.ends(), linkedTicketId, ban.isLegacy());
+    }
+
+    private static AWEvidence copyOf(AWEvidence evidence) {
+        return new AWEvidence(evidence.evidenceId, evidence.timestamp,
+                evidence.accusedUserRobloxId, evidence.details, evidence.url);
+    }
+
+    private static <K, V> ConcurrentSkipListSet<V> setOf(ConcurrentHashMap<K, ConcurrentSkipListSet<V>> map, K key) {
+        return map.computeIfAbsent(key, ignored -> new ConcurrentSkipListSet<>());
+    }
+
+    /**
+     * Runs the undo log backwards until only the given number of entries are left in it.
+     */
+    private static void undoTo(ArrayList<Runnable> undoLog, int size) {
+        for (int i = undoLog.size() - 1; i >= size; i--)
+            undoLog.remove(i).run();
+    }
+
+    @Override
+    public PlayerRepository players() {
+        return this.playerRepository;
+    }
+
+    @Override
+    public BanRepository bans() {
+        return this.banRepository;
+    }
+
+    @Override
+    public UnbanRepository unbans() {
+        return this.unbanRepository;
+    }
+
+    @Override
+    public PunchUpdateRepository punchUpdates() {
+        return this.punchUpdateRepository;
+    }
+
+    @Override
+    public TicketRepository tickets() {
+        return this.ticketRepository;
+    }
+
+    @Override
+    public EvidenceRepository evidence() {
+        return this.evidenceRepository;
+    }
+
+    @Override
+    public LinkRepository links() {
+        return this.linkRepository;
+    }
+
+    @Override
+    public DiscordBlacklistRepository discordBlacklists() {
+        return this.discordBlacklistRepository;
+    }
+
+    /**
+     * Takes the writer and starts a transaction with it, waiting for any other thread's transaction to close first. The
+     * writer is held until the transaction is closed, and every repository write on this thread joins the transaction
+     * in the meantime.
+     */
+    @Override
+    public RepositoryTransaction beginTransaction() {
+        this.writer.lock();
+        ArrayList<Runnable> undoLog = this.undoLogs.get();
+        boolean outermost = undoLog == null;
+        if (outermost) {
+            undoLog = new ArrayList<>();
+            this.undoLogs.set(undoLog);
+        }
+        return new InMemoryTransaction(undoLog, outermost, undoLog.size());
+    }
+
+    /**
+     * Runs a write in its own transaction (or as part of the one open on this thread), so it either makes all of its
+     * changes or none of them.
+     */
+    private void write(Write write) throws SQLException {
+        try (var transaction = this.beginTransaction()) {
+            write.run();
+            transaction.commit();
+        }
+    }
+
+    /**
+     * Logs how to undo a change that was just made. Only call this inside {@link #write(Write)}.
+     */
+    private void undo(Runnable undo) {
+        this.undoLogs.get().add(undo);
+    }
+
+    /**
+     * Changes a player's record, logging how to change it back. Only call this inside {@link #write(Write)}.
+     */
+    private void update(PlayerRecord record, Consumer<PlayerRecord> change) {
+        synchronized (record) {
+            this.undo(record.snapshot());
+            change.accept(record);
+        }
+    }
+
+    private <T> void add(Set<T> set, T item) {
+        if (set.add(item))
+            this.undo(() -> set.remove(item));
+    }
+
+    private <T> void remove(@Nullable Set<T> set, T item) {
+        if (set != null && set.remove(item))
+            this.undo(() -> set.add(item));
+    }
+
+    private PlayerRecord recordOf(long userId) {
+        return this.players.computeIfAbsent(userId, PlayerRecord::new);
+    }
+
+    private AWTicket toTicket(TicketRow row) {
+        JsonObject inputQuestions = JsonParser.parseString(row.inputQuestions).getAsJsonObject();
+        AWTicket ticket = AWTicket.createBasedOnType(row.type, row.id, row.discordChannelId, row.openedTimestamp,
+                row.isOpen, row.closeReason, row.closedBy, inputQuestions, row.ownerDiscordId);
+        ticket.processInputQuestionsJSON(inputQuestions);
+        return ticket;
+    }
+
+    @FunctionalInterface
+    private interface Write {
+        void run() throws SQLException;
+    }
+
+    /**
+     * A point in an undo log. Rolling back to it undoes every change logged after it.
+     */
+    private record UndoMark(int position) implements Savepoint {
+        @Override
+        public int getSavepointId() {
+            return this.position;
+        }
+
+        @Override
+        public String getSavepointName() throws SQLException {
+            throw new SQLException("In-memory savepoints don't have names.");
+        }
+    }
+
+    /**
+     * Everything stored about a player, including their bans, unbans and punch updates. Only touched while holding its
+     * monitor. A record exists for any player with something stored, but {@link #exists} is only set once the player
+     * itself is, like the players table.
+     */
+    private static final class PlayerRecord {
+        final long userId;
+        final ArrayList<AWBan> bans = new ArrayList<>();
+        final ArrayList<AWUnban> unbans = new ArrayList<>();
+        final ArrayList<AWPunchUpdate> punchUpdates = new ArrayList<>();
+        boolean exists;
+        String username;
+        boolean isAppealBlacklisted;
+        String appealBlacklistReason;
+        long appealBlacklistDate;
+        long appealBlacklistIssuer;
+        long punches;
+        long[] gamepasses = new long[0];
+
+        PlayerRecord(long userId) {
+            this.userId = userId;
+        }
+
+        void ensureExists(@Nullable String username) {
+            if (this.exists)
+                return;
+            this.exists = true;
+            this.username = username;
+        }
+
+        /**
+         * @return Something that puts this record back the way it is now. Bans and gamepass arrays are never changed
+         * in place, so the lists and arrays are only copied shallowly.
+         */
+        Runnable snapshot() {
+            List<AWBan> bans = List.copyOf(this.bans);
+            List<AWUnban> unbans = List.copyOf(this.unbans);
+            List<AWPunchUpdate> punchUpdates = List.copyOf(this.punchUpdates);
+            boolean exists = this.exists;
+            String username = this.username;
+            boolean isAppealBlacklisted = this.isAppealBlacklisted;
+            String appealBlacklistReason = this.appealBlacklistReason;
+            long appealBlacklistDate = this.appealBlacklistDate;
+            long appealBlacklistIssuer = this.appealBlacklistIssuer;
+            long punches = this.punches;
+            long[] gamepasses = this.gamepasses;
+            return () -> {
+                synchronized (this) {
+                    this.bans.clear();
+                    this.bans.addAll(bans);
+                    this.unbans.clear();
+                    this.unbans.addAll(unbans);
+                    this.punchUpdates.clear();
+                    this.punchUpdates.addAll(punchUpdates);
+                    this.exists = exists;
+                    this.username = username;
+                    this.isAppealBlacklisted = isAppealBlacklisted;
+                    this.appealBlacklistReason = appealBlacklistReason;
+                    this.appealBlacklistDate = appealBlacklistDate;
+                    this.appealBlacklistIssuer = appealBlacklistIssuer;
+                    this.punches = punches;
+                    this.gamepasses = gamepasses;
+                }
+            };
+        }
+    }
+
+    /**
+     * A stored ticket, in the form the tickets table holds it.
+     */
+    private record TicketRow(long id, long discordChannelId, AWTicket.Type type, long openedTimestamp, boolean isOpen,
+                             String closeReason, long closedBy, String inputQuestions, long ownerDiscordId,
+                             Long closedTimestamp) {
+        /**
+         * A row that sorts right where the given cursor points, for finding the tickets after it.
+         */
+        static TicketRow at(TicketSummary.Cursor cursor) {
+            return new TicketRow(cursor.ticketId(), 0L, null, cursor.openedTimestamp(), false,
+                    null, 0L, null, 0L, null);
+        }
+
+        TicketSummary toSummary() {
+            return new TicketSummary(this.id, this.type, this.discordChannelId, this.openedTimestamp,
+                    this.isOpen, this.closeReason, this.closedBy);
+        }
+    }
+
+    /**
+     * A link from one of a user's bans to a piece of evidence, sorted by ban and then evidence.
+     */
+    private record BanEvidenceLink(long starts, long evidenceId) implements Comparable<BanEvidenceLink> {
+        @Override
+        public int compareTo(BanEvidenceLink other) {
+            int byStarts = Long.compare(this.starts, other.starts);
+            return byStarts != 0 ? byStarts : Long.compare(this.evidenceId, other.evidenceId);
+        }
+    }
+
+    private record BanKey(long userId, long starts) {
+    }
+
+    /**
+     * A transaction over the undo log of the thread that started it. Nested transactions share the outermost one's log,
+     * so committing one just leaves its changes there for the outer transaction to keep or undo.
+     */
+    private final class InMemoryTransaction implements RepositoryTransaction {
+        private final ArrayList<Runnable> undoLog;
+        private final boolean outermost;
+        /**
+         * The size of the undo log when this transaction began. Closing it without committing undoes back to here.
+         */
+        private final int start;
+        private boolean finished = false;
+        private boolean closed = false;
+
+        private InMemoryTransaction(ArrayList<Runnable> undoLog, boolean outermost, int start) {
+            this.undoLog = undoLog;
+            this.outermost = outermost;
+            this.start = start;
+        }
+
+        private UndoMark markOf(Savepoint savepoint) throws SQLException {
+            if (!(savepoint instanceof UndoMark mark) || mark.position < this.start)
+                throw new SQLException("Savepoint " + savepoint + " isn't from this transaction.");
+            return mark;
+        }
+
+        @Override
+        public Savepoint savepoint() {
+            return new UndoMark(this.undoLog.size());
+        }
+
+        @Override
+        public void release(Savepoint savepoint) throws SQLException {
+            this.markOf(savepoint);
+        }
+
+        @Override
+        public void rollbackTo(Savepoint savepoint) throws SQLException {
+            undoTo(this.undoLog, this.markOf(savepoint).position);
+        }
+
+        @Override
+        public void commit() {
+            // the outermost transaction has nothing left to hand its changes to, so they're kept for good.
+            if (this.outermost)
+                this.undoLog.clear();
+            this.finished = true;
+        }
+
+        @Override
+        public void close() {
+            if (this.closed)
+                return;
+            this.closed = true;
+
+            try {
+                if (!this.finished)
+                    undoTo(this.undoLog, this.start);
+            } finally {
+                if (this.outermost)
+                    InMemoryRepositories.this.undoLogs.remove();
+                InMemoryRepositories.this.writer.unlock();
+            }
+        }
+    }
+
+    private final class Players implements PlayerRepository {
+        @Override
+        public AWPlayer.Snapshot load(long userId,
+                                      boolean loadStats,
+                                      boolean loadBans,
+                                      boolean loadUnbans,
+                                      boolean loadPunchUpdates) {
+            PlayerRecord record = InMemoryRepositories.this.players.get(userId);
+            if (record == null) {
+                return new AWPlayer.Snapshot(userId, false, null, false, null, 0L, 0L,
+                        0L, new long[0], new AWBan[0], new AWUnban[0], new AWPunchUpdate[0]);
+            }
+            synchronized (record) {
+                return new AWPlayer.Snapshot(userId, record.exists, record.username,
+                        record.isAppealBlacklisted, record.appealBlacklistReason,
+                        record.appealBlacklistDate, record.appealBlacklistIssuer,
+                        loadStats ? record.punches : 0L,
+                        loadStats ? record.gamepasses.clone() : new long[0],
+                        loadBans ? record.bans.stream().map(ban -> copyOf(ban, ban.linkedTicketId)).toArray(AWBan[]::new) : new AWBan[0],
+                        loadUnbans ? record.unbans.toArray(new AWUnban[0]) : new AWUnban[0],
+                        loadPunchUpdates ? record.punchUpdates.toArray(new AWPunchUpdate[0]) : new AWPunchUpdate[0]);
+            }
+        }
+
+        @Override
+        public void ensureExists(long userId, @Nullable String username) throws SQLException {
+            InMemoryRepositories.this.write(() -> InMemoryRepositories.this.update(
+                    InMemoryRepositories.this.recordOf(userId), record -> record.ensureExists(username)));
+        }
+
+        @Override
+        public void setUsername(long userId, String username) throws SQLException {
+            InMemoryRepositories.this.write(() -> InMemoryRepositories.this.update(
+                    InMemoryRepositories.this.recordOf(userId), record -> {
+                        record.ensureExists(username);
+                        record.username = username;
+                    }));
+        }
+
+        @Override
+        public void setBlacklist(long userId, long date, @Nullable String reason, long issuer) throws SQLException {
+            InMemoryRepositories.this.write(() -> InMemoryRepositories.this.update(
+                    InMemoryRepositories.this.recordOf(userId), record -> {
+                        record.ensureExists(null);
+                        record.isAppealBlacklisted = true;
+                        record.appealBlacklistDate = date;
+                        record.appealBlacklistReason = reason;
+                        record.appealBlacklistIssuer = issuer;
+                    }));
+        }
+
+        @Override
+        public void removeBlacklist(long userId) throws SQLException {
+            PlayerRecord record = InMemoryRepositories.this.players.get(userId);
+            if (record == null)
+                return;
+            InMemoryRepositories.this.write(() -> InMemoryRepositories.this.update(record, changed -> {
+                changed.isAppealBlacklisted = false;
+                changed.appealBlacklistDate = 0L;
+                changed.appealBlacklistReason = null;
+                changed.appealBlacklistIssuer = 0L;
+            }));
+        }
+
+        @Override
+        public AWStats loadStats(long userId) {
+            PlayerRecord record = InMemoryRepositories.this.players.get(userId);
+            if (record == null)
+                return AWStats.empty(userId);
+            synchronized (record) {
+                return new AWStats(userId, record.punches, record.gamepasses.clone());
+            }
+        }
+
+        @Override
+        public void ensureStats(long userId) {
+            // a player without stats already reads as having 0 punches, and an empty record reads the same as none.
+            InMemoryRepositories.this.recordOf(userId);
+        }
+
+        @Override
+        public void setPunches(long userId, long punches) throws SQLException {
+            InMemoryRepositories.this.write(() -> InMemoryRepositories.this.update(
+                    InMemoryRepositories.this.recordOf(userId), record -> record.punches = punches));
+        }
+
+        @Override
+        public void setPunches(Map<Long, Long> punches) throws SQLException {
+            InMemoryRepositories.this.write(() -> {
+                for (Map.Entry<Long, Long> entry : punches.entrySet())
+                    this.setPunches(entry.getKey(), entry.getValue());
+            });
+        }
+
+        @Override
+        public void setGamepasses(long userId, long[] gamepasses) throws SQLException {
+            InMemoryRepositories.this.write(() -> InMemoryRepositories.this.update(
+                    InMemoryRepositories.this.recordOf(userId), record -> {
+                        for (long gamepassId : record.gamepasses) {
+                            if (Arrays.binarySearch(gamepasses, gamepassId) < 0)
+                                InMemoryRepositories.this.remove(InMemoryRepositories.this.gamepassOwners.get(gamepassId), userId);
+                        }
+                        for (long gamepassId : gamepasses) {
+                            if (Arrays.binarySearch(record.gamepasses, gamepassId) < 0)
+                                InMemoryRepositories.this.add(setOf(InMemoryRepositories.this.gamepassOwners, gamepassId), userId);
+                        }
+                        record.gamepasses = gamepasses.clone();
+                    }));
+        }
+
+        @Override
+        public long[] gamepassOwners(long gamepassId, int limit) {
+            Set<Long> owners = InMemoryRepositories.this.gamepassOwners.get(gamepassId);
+            if (owners == null)
+                return new long[0];
+            return owners.stream().limit(limit).mapToLong(Long::longValue).toArray();
+        }
+
+        @Override
+        public int countGamepassOwners(long gamepassId) {
+            Set<Long> owners = InMemoryRepositories.this.gamepassOwners.get(gamepassId);
+            return owners == null ? 0 : owners.size();
+        }
+    }
+
+    private final class Bans implements BanRepository {
+        @Override
+        public List<AWBan> load(long userId) {
+            PlayerRecord record = InMemoryRepositories.this.players.get(userId);
+            if (record == null)
+                return new ArrayList<>();
+            synchronized (record) {
+                List<AWBan> bans = new ArrayList<>(record.bans.size());
+                for (AWBan ban : record.bans)
+                    bans.add(copyOf(ban, ban.linkedTicketId));
+                return bans;
+            }
+        }
+
+        @Override
+        public void add(List<AWBan> bans, @Nullable Long linkedTicketId) throws SQLException {
+            InMemoryRepositories.this.write(() -> {
+                for (AWBan ban : bans) {
+                    InMemoryRepositories.this.update(InMemoryRepositories.this.recordOf(ban.userId()), record -> {
+                        record.bans.removeIf(existing -> existing.starts() == ban.starts());
+                        insertSorted(record.bans, copyOf(ban, linkedTicketId), AWBan::starts);
+                    });
+                }
+            });
+        }
+
+        @Override
+        public void setLatestEnds(long userId, long ends) throws SQLException {
+            PlayerRecord record = InMemoryRepositories.this.players.get(userId);
+            if (record == null)
+                return;
+            InMemoryRepositories.this.write(() -> InMemoryRepositories.this.update(record, changed -> {
+                if (changed.bans.isEmpty())
+                    return;
+                long latestStarts = changed.bans.getLast().starts();
+                for (int i = 0; i < changed.bans.size(); i++) {
+                    AWBan ban = changed.bans.get(i);
+                    if (ban.starts() == latestStarts) {
+                        changed.bans.set(i, new AWBan(ban.userId(), ban.responsibleModerator(), ban.reason(),
+                                ban.starts(), ends, ban.linkedTicketId, ban.isLegacy()));
+                    }
+                }
+            }));
+        }
+
+        @Override
+        public void clear(long userId) throws SQLException {
+            PlayerRecord record = InMemoryRepositories.this.players.get(userId);
+            if (record == null)
+                return;
+            InMemoryRepositories.this.write(() -> InMemoryRepositories.this.update(record, changed -> changed.bans.clear()));
+        }
+    }
+
+    private final class Unbans implements UnbanRepository {
+        @Override
+        public List<AWUnban> load(long userId) {
+            PlayerRecord record = InMemoryRepositories.this.players.get(userId);
+            if (record == null)
+                return new ArrayList<>();
+            synchronized (record) {
+                return new ArrayList<>(record.unbans);
+            }
+        }
+
+        @Override
+        public void add(List<AWUnban> unbans) throws SQLException {
+            InMemoryRepositories.this.write(() -> {
+                for (AWUnban unban : unbans) {
+                    InMemoryRepositories.this.update(InMemoryRepositories.this.recordOf(unban.userId()),
+                            record -> insertSorted(record.unbans, unban, AWUnban::date));
+                }
+            });
+        }
+
+        @Override
+        public void clear(long userId) throws SQLException {
+            PlayerRecord record = InMemoryRepositories.this.players.get(userId);
+            if (record == null)
+                return;
+            InMemoryRepositories.this.write(() -> InMemoryRepositories.this.update(record, changed -> changed.unbans.clear()));
+        }
+    }
+
+    private final class PunchUpdates implements PunchUpdateRepository {
+        @Override
+        public List<AWPunchUpdate> load(long userId) {
+            PlayerRecord record = InMemoryRepositories.this.players.get(userId);
+            if (record == null)
+                return new ArrayList<>();
+            synchronized (record) {
+                return new ArrayList<>(record.punchUpdates);
+            }
+        }
+
+        @Override
+        public void add(List<AWPunchUpdate> records) throws SQLException {
+            InMemoryRepositories.this.write(() -> {
+                for (AWPunchUpdate update : records) {
+                    InMemoryRepositories.this.update(InMemoryRepositories.this.recordOf(update.userId()),
+                            record -> insertSorted(record.punchUpdates, update, AWPunchUpdate::date));
+                }
+            });
+        }
+
+        @Override
+        public void clear(long userId) throws SQLException {
+            PlayerRecord record = InMemoryRepositories.this.players.get(userId);
+            if (record == null)
+                return;
+            InMemoryRepositories.this.write(() -> InMemoryRepositories.this.update(record, changed -> changed.punchUpdates.clear()));
+        }
+    }
+
+    private final class Tickets implements TicketRepository {
+        private static ConcurrentSkipListSet<TicketRow> newIndex() {
+            return new ConcurrentSkipListSet<>(NEWEST_FIRST);
+        }
+
+        private static <T> List<T> take(NavigableSet<TicketRow> rows, @Nullable AWTicket.Type type, int limit,
+                                        Function<TicketRow, T> mapper) {
+            List<T> taken = new ArrayList<>();
+            for (TicketRow row : rows) {
+                if (taken.size() >= limit)
+                    break;
+                if (type == null || row.type == type)
+                    taken.add(mapper.apply(row));
+            }
+            return taken;
+        }
+
+        private static int count(@Nullable Set<TicketRow> rows, @Nullable AWTicket.Type type) {
+            if (rows == null)
+                return 0;
+            if (type == null)
+                return rows.size();
+            int count = 0;
+            for (TicketRow row : rows) {
+                if (row.type == type)
+                    count++;
+            }
+            return count;
+        }
+
+        private void index(TicketRow row) {
+            InMemoryRepositories.this.ticketsByOwner.computeIfAbsent(row.ownerDiscordId, ignored -> newIndex()).add(row);
+            if (!row.isOpen)
+                InMemoryRepositories.this.ticketsByCloser.computeIfAbsent(row.closedBy, ignored -> newIndex()).add(row);
+        }
+
+        private void unindex(TicketRow row) {
+            Set<TicketRow> byOwner = InMemoryRepositories.this.ticketsByOwner.get(row.ownerDiscordId);
+            if (byOwner != null)
+                byOwner.remove(row);
+            Set<TicketRow> byCloser = InMemoryRepositories.this.ticketsByCloser.get(row.closedBy);
+            if (byCloser != null)
+                byCloser.remove(row);
+        }
+
+        /**
+         * Swaps one stored version of a ticket for another, along with its place in the indexes. Either can be
+         * {@code null}, for a ticket that didn't exist before or doesn't afterward.
+         */
+        private void replace(long id, @Nullable TicketRow old, @Nullable TicketRow row) {
+            if (old != null)
+                this.unindex(old);
+            if (row == null) {
+                InMemoryRepositories.this.tickets.remove(id);
+            } else {
+                InMemoryRepositories.this.tickets.put(id, row);
+                this.index(row);
+            }
+        }
+
+        private NavigableSet<TicketRow> indexed(ConcurrentHashMap<Long, ConcurrentSkipListSet<TicketRow>> index, long userId) {
+            NavigableSet<TicketRow> rows = index.get(userId);
+            return rows == null ? newIndex() : rows;
+        }
+
+        @Override
+        public AWTicket load(long id) {
+            TicketRow row = InMemoryRepositories.this.tickets.get(id);
+            return row == null ? null : InMemoryRepositories.this.toTicket(row);
+        }
+
+        @Override
+        public List<AWTicket> loadOpen() {
+            List<AWTicket> open = new ArrayList<>();
+            for (TicketRow row : InMemoryRepositories.this.tickets.values()) {
+                if (row.isOpen)
+                    open.add(InMemoryRepositories.this.toTicket(row));
+            }
+            return open;
+        }
+
+        @Override
+        public AWTicket[] loadByOwner(long ownerId, @Nullable AWTicket.Type type, int limit) {
+            return take(this.indexed(InMemoryRepositories.this.ticketsByOwner, ownerId), type, limit,
+                    InMemoryRepositories.this::toTicket).toArray(new AWTicket[0]);
+        }
+
+        @Override
+        public AWTicket[] loadByCloser(long closerId, @Nullable AWTicket.Type type, int limit) {
+            return take(this.indexed(InMemoryRepositories.this.ticketsByCloser, closerId), type, limit,
+                    InMemoryRepositories.this::toTicket).toArray(new AWTicket[0]);
+        }
+
+        @Override
+        public int countByOwner(long ownerId, @Nullable AWTicket.Type type) {
+            return count(InMemoryRepositories.this.ticketsByOwner.get(ownerId), type);
+        }
+
+        @Override
+        public int countByCloser(long closerId, @Nullable AWTicket.Type type) {
+            return count(InMemoryRepositories.this.ticketsByCloser.get(closerId), type);
+        }
+
+        @Override
+        public long maxId() {
+            return InMemoryRepositories.this.maxTicketId.get();
+        }
+
+        @Override
+        public TicketSummary[] historyByOwner(long ownerId, @Nullable AWTicket.Type type, TicketSummary.Cursor after, int limit) {
+            NavigableSet<TicketRow> rows = this.indexed(InMemoryRepositories.this.ticketsByOwner, ownerId)
+                    .tailSet(TicketRow.at(after), false);
+            return take(rows, type, limit, TicketRow::toSummary).toArray(new TicketSummary[0]);
+        }
+
+        @Override
+        public TicketSummary[] historyByCloser(long closerId, @Nullable AWTicket.Type type, TicketSummary.Cursor after, int limit) {
+            NavigableSet<TicketRow> rows = this.indexed(InMemoryRepositories.this.ticketsByCloser, closerId)
+                    .tailSet(TicketRow.at(after), false);
+            return take(rows, type, limit, TicketRow::toSummary).toArray(new TicketSummary[0]);
+        }
+
+        @Override
+        public TicketSummary.Cursor cursorOf(long ticketId) {
+            TicketRow row = InMemoryRepositories.this.tickets.get(ticketId);
+            return row == null ? null : new TicketSummary.Cursor(row.openedTimestamp, ticketId);
+        }
+
+        @Override
+        public void save(AWTicket ticket) throws SQLException {
+            long closedBy = ticket.closedByDiscordId;
+            String inputQuestions = ticket.getInputQuestionsJSON().toString();
+            long now = System.currentTimeMillis();
+            InMemoryRepositories.this.write(() -> {
+                long id = ticket.id;
+                TicketRow old = InMemoryRepositories.this.tickets.get(id);
+                Long closedTimestamp = ticket.isOpen ? null
+                        : (old != null && old.closedTimestamp != null) ? old.closedTimestamp : now;
+                TicketRow row = new TicketRow(id, ticket.getDiscordChannelId(), ticket.type(), ticket.openedTimestamp,
+                        ticket.isOpen, ticket.closeReason, closedBy, inputQuestions, ticket.ownerDiscordId,
+                        closedTimestamp);
+                this.replace(id, old, row);
+                InMemoryRepositories.this.undo(() -> this.replace(id, row, old));
+
+                long previousMaxId = InMemoryRepositories.this.maxTicketId.get();
+                if (id > previousMaxId) {
+                    InMemoryRepositories.this.maxTicketId.set(id);
+                    InMemoryRepositories.this.undo(() -> InMemoryRepositories.this.maxTicketId.set(previousMaxId));
+                }
+            });
+        }
+
+        @Override
+        public void delete(long id) throws SQLException {
+            InMemoryRepositories.this.write(() -> {
+                TicketRow old = InMemoryRepositories.this.tickets.get(id);
+                if (old != null) {
+                    this.replace(id, old, null);
+                    InMemoryRepositories.this.undo(() -> this.replace(id, null, old));
+                }
+                Set<Long> linked = InMemoryRepositories.this.evidenceByTicket.get(id);
+                if (linked != null) {
+                    for (long evidenceId : List.copyOf(linked))
+                        InMemoryRepositories.this.linkRepository.unlinkEvidenceFromTicket(id, evidenceId);
+                }
+            });
+        }
+    }
+
+    private final class Evidence implements EvidenceRepository {
+        /**
+         * Swaps one stored version of a piece of evidence for another, along with its place in the index of accused
+         * users. Either can be {@code null}, for evidence that didn't exist before or doesn't afterward.
+         */
+        private void replace(long id, @Nullable AWEvidence old, @Nullable AWEvidence stored) {
+            if (old != null && old.accusedUserRobloxId != null)
+                setOf(InMemoryRepositories.this.evidenceByAccused, old.accusedUserRobloxId).remove(id);
+            if (stored == null) {
+                InMemoryRepositories.this.evidence.remove(id);
+            } else {
+                InMemoryRepositories.this.evidence.put(id, stored);
+                if (stored.accusedUserRobloxId != null)
+                    setOf(InMemoryRepositories.this.evidenceByAccused, stored.accusedUserRobloxId).add(id);
+            }
+        }
+
+        @Override
+        public AWEvidence load(long id) {
+            AWEvidence stored = InMemoryRepositories.this.evidence.get(id);
+            return stored == null ? null : copyOf(stored);
+        }
+
+        @Override
+        public AWEvidence[] loadAgainstUser(long userId) {
+            Set<Long> ids = InMemoryRepositories.this.evidenceByAccused.get(userId);
+            if (ids == null)
+                return new AWEvidence[0];
+            List<AWEvidence> found = new ArrayList<>();
+            for (long id : ids) {
+                AWEvidence stored = InMemoryRepositories.this.evidence.get(id);
+                if (stored != null)
+                    found.add(copyOf(stored));
+            }
+            return found.toArray(new AWEvidence[0]);
+        }
+
+        @Override
+        public void save(AWEvidence evidence) throws SQLException {
+            AWEvidence copy = copyOf(evidence);
+            long id = copy.evidenceId;
+            InMemoryRepositories.this.write(() -> {
+                AWEvidence old = InMemoryRepositories.this.evidence.get(id);
+                this.replace(id, old, copy);
+                InMemoryRepositories.this.undo(() -> this.replace(id, copy, old));
+            });
+        }
+
+        @Override
+        public void delete(long id) throws SQLException {
+            InMemoryRepositories.this.write(() -> {
+                AWEvidence old = InMemoryRepositories.this.evidence.get(id);
+                if (old != null) {
+                    this.replace(id, old, null);
+                    InMemoryRepositories.this.undo(() -> this.replace(id, null, old));
+                }
+                InMemoryRepositories.this.linkRepository.unlinkEvidenceFromAllTickets(id);
+            });
+        }
+    }
+
+    private final class Links implements LinkRepository {
+        private AWEvidence[] loadEvidence(Iterable<Long> ids) {
+            List<AWEvidence> found = new ArrayList<>();
+            for (long id : ids) {
+                AWEvidence stored = InMemoryRepositories.this.evidence.get(id);
+                if (stored != null)
+                    found.add(copyOf(stored));
+            }
+            return found.toArray(new AWEvidence[0]);
+        }
+
+        @Override
+        public AWEvidence[] evidenceLinkedToTicket(long ticketId) {
+            Set<Long> ids = InMemoryRepositories.this.evidenceByTicket.get(ticketId);
+            return ids == null ? new AWEvidence[0] : this.loadEvidence(ids);
+        }
+
+        @Override
+        public long[] evidenceIdsLinkedToTicket(long ticketId) {
+            Set<Long> ids = InMemoryRepositories.this.evidenceByTicket.get(ticketId);
+            return ids == null ? new long[0] : ids.stream().mapToLong(Long::longValue).toArray();
+        }
+
+        @Override
+        public void linkEvidenceToTicket(long ticketId, long... evidenceIds) throws SQLException {
+            InMemoryRepositories.this.write(() -> {
+                Set<Long> linked = setOf(InMemoryRepositories.this.evidenceByTicket, ticketId);
+                Set<Long> adding = new HashSet<>();
+                for (long evidenceId : evidenceIds) {
+                    if (linked.contains(evidenceId) || !adding.add(evidenceId))
+                        throw new SQLException("Evidence " + evidenceId + " is already linked to ticket " + ticketId + ".");
+                    InMemoryRepositories.this.add(linked, evidenceId);
+                    InMemoryRepositories.this.add(setOf(InMemoryRepositories.this.ticketsByEvidence, evidenceId), ticketId);
+                }
+            });
+        }
+
+        @Override
+        public void unlinkEvidenceFromTicket(long ticketId, long evidenceId) throws SQLException {
+            InMemoryRepositories.this.write(() -> {
+                InMemoryRepositories.this.remove(InMemoryRepositories.this.evidenceByTicket.get(ticketId), evidenceId);
+                InMemoryRepositories.this.remove(InMemoryRepositories.this.ticketsByEvidence.get(evidenceId), ticketId);
+            });
+        }
+
+        @Override
+        public void unlinkEvidenceFromAllTickets(long evidenceId) throws SQLException {
+            Set<Long> ticketIds = InMemoryRepositories.this.ticketsByEvidence.get(evidenceId);
+            if (ticketIds == null)
+                return;
+            InMemoryRepositories.this.write(() -> {
+                for (long ticketId : List.copyOf(ticketIds))
+                    this.unlinkEvidenceFromTicket(ticketId, evidenceId);
+            });
+        }
+
+        @Override
+        public AWTicket[] ticketsLinkedToEvidence(long evidenceId) {
+            Set<Long> ticketIds = InMemoryRepositories.this.ticketsByEvidence.get(evidenceId);
+            if (ticketIds == null)
+                return new AWTicket[0];
+            List<AWTicket> found = new ArrayList<>();
+            for (long ticketId : ticketIds) {
+                TicketRow row = InMemoryRepositories.this.tickets.get(ticketId);
+                if (row != null)
+                    found.add(InMemoryRepositories.this.toTicket(row));
+            }
+            return found.toArray(new AWTicket[0]);
+        }
+
+        @Override
+        public Long[] ticketIdsLinkedToEvidence(long evidenceId) {
+            Set<Long> ticketIds = InMemoryRepositories.this.ticketsByEvidence.get(evidenceId);
+            return ticketIds == null ? new Long[0] : ticketIds.toArray(new Long[0]);
+        }
+
+        @Override
+        public AWEvidence[] evidenceLinkedToUserBans(long userId) {
+            Set<BanEvidenceLink> links = InMemoryRepositories.this.banLinksByUser.get(userId);
+            if (links == null)
+                return new AWEvidence[0];
+            return this.loadEvidence(links.stream().map(BanEvidenceLink::evidenceId).toList());
+        }
+
+        @Override
+        public AWEvidence[] evidenceLinkedToBan(long userId, long starts) {
+            ConcurrentSkipListSet<BanEvidenceLink> links = InMemoryRepositories.this.banLinksByUser.get(userId);
+            if (links == null)
+                return new AWEvidence[0];
+            Set<BanEvidenceLink> ban = links.subSet(
+                    new BanEvidenceLink(starts, Long.MIN_VALUE), true,
+                    new BanEvidenceLink(starts, Long.MAX_VALUE), true);
+            return this.loadEvidence(ban.stream().map(BanEvidenceLink::evidenceId).toList());
+        }
+
+        @Override
+        public void linkEvidenceToBan(AWBan ban, long... evidenceIds) throws SQLException {
+            InMemoryRepositories.this.write(() -> {
+                Set<BanEvidenceLink> linked = setOf(InMemoryRepositories.this.banLinksByUser, ban.userId());
+                Set<Long> adding = new HashSet<>();
+                for (long evidenceId : evidenceIds) {
+                    BanEvidenceLink link = new BanEvidenceLink(ban.starts(), evidenceId);
+                    if (linked.contains(link) || !adding.add(evidenceId))
+                        throw new SQLException("Evidence " + evidenceId + " is already linked to this ban.");
+                    InMemoryRepositories.this.add(linked, link);
+                    InMemoryRepositories.this.add(InMemoryRepositories.this.banLinksByEvidence
+                                    .computeIfAbsent(evidenceId, ignored -> ConcurrentHashMap.newKeySet()),
+                            new BanKey(ban.userId(), ban.starts()));
+                }
+            });
+        }
+
+        @Override
+        public void unlinkEvidenceFromBan(AWBan ban, long evidenceId) throws SQLException {
+            InMemoryRepositories.this.write(() -> {
+                InMemoryRepositories.this.remove(InMemoryRepositories.this.banLinksByUser.get(ban.userId()),
+                        new BanEvidenceLink(ban.starts(), evidenceId));
+                InMemoryRepositories.this.remove(InMemoryRepositories.this.banLinksByEvidence.get(evidenceId),
+                        new BanKey(ban.userId(), ban.starts()));
+            });
+        }
+
+        @Override
+        public AWBan[] bansLinkedToEvidence(long evidenceId) {
+            Set<BanKey> keys = InMemoryRepositories.this.banLinksByEvidence.get(evidenceId);
+            if (keys == null)
+                return new AWBan[0];
+            List<AWBan> found = new ArrayList<>();
+            for (BanKey key : keys) {
+                PlayerRecord record = InMemoryRepositories.this.players.get(key.userId);
+                if (record == null)
+                    continue;
+                synchronized (record) {
+                    for (AWBan ban : record.bans) {
+                        if (ban.starts() == key.starts)
+                            found.add(copyOf(ban, ban.linkedTicketId));
+                    }
+                }
+            }
+            return found.toArray(new AWBan[0]);
+        }
+
+        /**
+         * Adds or removes a link in both directions. Writes take turns, so the two maps stay one-to-one.
+         */
+        private void setDiscordLink(long discordId, long robloxId, boolean linked) {
+            if (linked) {
+                InMemoryRepositories.this.robloxIdsByDiscordId.put(discordId, robloxId);
+                InMemoryRepositories.this.discordIdsByRobloxId.put(robloxId, discordId);
+            } else {
+                InMemoryRepositories.this.robloxIdsByDiscordId.remove(discordId);
+                InMemoryRepositories.this.discordIdsByRobloxId.remove(robloxId);
+            }
+        }
+
+        @Override
+        public void linkDiscordToRoblox(long discordId, long robloxId) throws SQLException {
+            InMemoryRepositories.this.write(() -> {
+                if (InMemoryRepositories.this.robloxIdsByDiscordId.containsKey(discordId)
+                        || InMemoryRepositories.this.discordIdsByRobloxId.containsKey(robloxId))
+                    return;
+                this.setDiscordLink(discordId, robloxId, true);
+                InMemoryRepositories.this.undo(() -> this.setDiscordLink(discordId, robloxId, false));
+            });
+        }
+
+        @Override
+        public void unlinkDiscordId(long discordId) throws SQLException {
+            InMemoryRepositories.this.write(() -> {
+                Long robloxId = InMemoryRepositories.this.robloxIdsByDiscordId.get(discordId);
+                if (robloxId == null)
+                    return;
+                this.setDiscordLink(discordId, robloxId, false);
+                InMemoryRepositories.this.undo(() -> this.setDiscordLink(discordId, robloxId, true));
+            });
+        }
+
+        @Override
+        public void unlinkRobloxId(long robloxId) throws SQLException {
+            InMemoryRepositories.this.write(() -> {
+                Long discordId = InMemoryRepositories.this.discordIdsByRobloxId.get(robloxId);
+                if (discordId == null)
+                    return;
+                this.setDiscordLink(discordId, robloxId, false);
+                InMemoryRepositories.this.undo(() -> this.setDiscordLink(discordId, robloxId, true));
+            });
+        }
+
+        @Override
+        public Long robloxIdFromDiscordId(long discordId) {
+            return InMemoryRepositories.this.robloxIdsByDiscordId.get(discordId);
+        }
+
+        @Override
+        public Long discordIdFromRobloxId(long robloxId) {
+            return InMemoryRepositories.this.discordIdsByRobloxId.get(robloxId);
+        }
+
+        @Override
+        public Map<Long, Long> allDiscordRobloxLinks() {
+            return new HashMap<>(InMemoryRepositories.this.robloxIdsByDiscordId);
+        }
+    }
+
+    private final class DiscordBlacklists implements DiscordBlacklistRepository {
+        /**
+         * Stores or removes a user's blacklist. Blacklists are never changed after they're made, so they aren't copied.
+         */
+        private void put(long discordId, @Nullable DiscordAppealBlacklist blacklist) {
+            if (blacklist == null)
+                InMemoryRepositories.this.discordBlacklists.remove(discordId);
+            else
+                InMemoryRepositories.this.discordBlacklists.put(discordId, blacklist);
+        }
+
+        @Override
+        public boolean isBlacklisted(long discordId) {
+            return InMemoryRepositories.this.discordBlacklists.containsKey(discordId);
+        }
+
+        @Override
+        public DiscordAppealBlacklist load(long discordId) {
+            return InMemoryRepositories.this.discordBlacklists.get(discordId);
+        }
+
+        @Override
+        public void save(DiscordAppealBlacklist blacklist) throws SQLException {
+            InMemoryRepositories.this.write(() -> {
+                DiscordAppealBlacklist old = InMemoryRepositories.this.discordBlacklists.get(blacklist.discordId);
+                this.put(blacklist.discordId, blacklist);
+                InMemoryRepositories.this.undo(() -> this.put(blacklist.discordId, old));
+            });
+        }
+
+        @Override
+        public void delete(long discordId) throws SQLException {
+            InMemoryRepositories.this.write(() -> {
+                DiscordAppealBlacklist old = InMemoryRepositories.this.discordBlacklists.get(discordId);
+                if (old == null)
+                    return;
+                this.put(discordId, null);
+                InMemoryRepositories.this.undo(() -> this.put(discordId, old));
+            });
+        }
+    }
+}
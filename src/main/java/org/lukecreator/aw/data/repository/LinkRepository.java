@@ -0,0 +1,152 @@
+package org.lukecreator.aw.data.repository;
+
+import org.jetbrains.annotations.Nullable;
+import org.lukecreator.aw.data.AWBan;
+import org.lukecreator.aw.data.AWEvidence;
+import org.lukecreator.aw.data.AWTicket;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Storage for the links between tickets and evidence, bans and evidence, and Discord and Roblox accounts. See
+ * {@link org.lukecreator.aw.data.Links} and {@link org.lukecreator.aw.data.DiscordRobloxLinks}.
+ */
+public interface LinkRepository {
+    // tickets >< evidence
+
+    /**
+     * @param ticketId The ID of the ticket.
+     * @return The evidence linked to the ticket, in order of ID.
+     * @throws SQLException If the evidence couldn't be read.
+     */
+    AWEvidence[] evidenceLinkedToTicket(long ticketId) throws SQLException;
+
+    /**
+     * @param ticketId The ID of the ticket.
+     * @return The IDs of the evidence linked to the ticket.
+     * @throws SQLException If the links couldn't be read.
+     */
+    long[] evidenceIdsLinkedToTicket(long ticketId) throws SQLException;
+
+    /**
+     * Links one or more pieces of evidence to a ticket. Either all of them are linked, or none are.
+     *
+     * @param ticketId    The ID of the ticket.
+     * @param evidenceIds The IDs of the evidence.
+     * @throws SQLException If the links couldn't be written, like if one of them already exists.
+     */
+    void linkEvidenceToTicket(long ticketId, long... evidenceIds) throws SQLException;
+
+    /**
+     * @param ticketId   The ID of the ticket.
+     * @param evidenceId The ID of the evidence.
+     * @throws SQLException If the link couldn't be deleted.
+     */
+    void unlinkEvidenceFromTicket(long ticketId, long evidenceId) throws SQLException;
+
+    /**
+     * @param evidenceId The ID of the evidence to unlink from every ticket it's linked to.
+     * @throws SQLException If the links couldn't be deleted.
+     */
+    void unlinkEvidenceFromAllTickets(long evidenceId) throws SQLException;
+
+    /**
+     * @param evidenceId The ID of the evidence.
+     * @return The tickets the evidence is linked to.
+     * @throws SQLException If the tickets couldn't be read.
+     */
+    AWTicket[] ticketsLinkedToEvidence(long evidenceId) throws SQLException;
+
+    /**
+     * @param evidenceId The ID of the evidence.
+     * @return The IDs of the tickets the evidence is linked to.
+     * @throws SQLException If the links couldn't be read.
+     */
+    Long[] ticketIdsLinkedToEvidence(long evidenceId) throws SQLException;
+
+    // bans >< evidence
+
+    /**
+     * @param userId The Roblox user ID of the banned player.
+     * @return The evidence linked to any of the player's bans, in order of ban and then ID.
+     * @throws SQLException If the evidence couldn't be read.
+     */
+    AWEvidence[] evidenceLinkedToUserBans(long userId) throws SQLException;
+
+    /**
+     * @param userId The Roblox user ID of the banned player.
+     * @param starts The unix millisecond timestamp the ban starts at.
+     * @return The evidence linked to the ban, in order of ID.
+     * @throws SQLException If the evidence couldn't be read.
+     */
+    AWEvidence[] evidenceLinkedToBan(long userId, long starts) throws SQLException;
+
+    /**
+     * Links one or more pieces of evidence to a ban. Either all of them are linked, or none are.
+     *
+     * @param ban         The ban.
+     * @param evidenceIds The IDs of the evidence.
+     * @throws SQLException If the links couldn't be written, like if one of them already exists.
+     */
+    void linkEvidenceToBan(AWBan ban, long... evidenceIds) throws SQLException;
+
+    /**
+     * @param ban        The ban.
+     * @param evidenceId The ID of the evidence.
+     * @throws SQLException If the link couldn't be deleted.
+     */
+    void unlinkEvidenceFromBan(AWBan ban, long evidenceId) throws SQLException;
+
+    /**
+     * @param evidenceId The ID of the evidence.
+     * @return The bans the evidence is linked to.
+     * @throws SQLException If the bans couldn't be read.
+     */
+    AWBan[] bansLinkedToEvidence(long evidenceId) throws SQLException;
+
+    // discord >< roblox
+
+    /**
+     * Links a Discord account to a Roblox account, unless either one is already linked.
+     *
+     * @param discordId The Discord ID.
+     * @param robloxId  The Roblox user ID.
+     * @throws SQLException If the link couldn't be written.
+     */
+    void linkDiscordToRoblox(long discordId, long robloxId) throws SQLException;
+
+    /**
+     * @param discordId The Discord ID whose link to remove.
+     * @throws SQLException If the link couldn't be deleted.
+     */
+    void unlinkDiscordId(long discordId) throws SQLException;
+
+    /**
+     * @param robloxId The Roblox user ID whose link to remove.
+     * @throws SQLException If the link couldn't be deleted.
+     */
+    void unlinkRobloxId(long robloxId) throws SQLException;
+
+    /**
+     * @param discordId The Discord ID.
+     * @return The Roblox user ID linked to it, or {@code null} if there is none.
+     * @throws SQLException If the link couldn't be read.
+     */
+    @Nullable
+    Long robloxIdFromDiscordId(long discordId) throws SQLException;
+
+    /**
+     * @param robloxId The Roblox user ID.
+     * @return The Discord ID linked to it, or {@code null} if there is none.
+     * @throws SQLException If the link couldn't be read.
+     */
+    @Nullable
+    Long discordIdFromRobloxId(long robloxId) throws SQLException;
+
+    /**
+     * @return Every link, as Roblox user IDs by Discord ID.
+     * @throws SQLException If the links couldn't be read.
+     */
+    Map<Long, Long> allDiscordRobloxLinks() throws SQLException;
+}
@@ -0,0 +1,137 @@
+package org.lukecreator.aw.data.repository;
+
+import org.jetbrains.annotations.Nullable;
+import org.lukecreator.aw.data.AWPlayer;
+import org.lukecreator.aw.data.AWStats;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Storage for players and their stats (punches and gamepasses). Bans, unbans and punch updates have their own
+ * repositories, but {@link #load} reads them together with the player.
+ * <p>
+ * None of this knows about {@link org.lukecreator.aw.data.AWPlayerCache} or
+ * {@link org.lukecreator.aw.data.AWStatsBuffer}; {@link AWPlayer} and {@link AWStats} take care of those.
+ */
+public interface PlayerRepository {
+    /**
+     * Reads a player along with whichever of their stats, bans, unbans, and punch updates are requested.
+     *
+     * @param userId           The Roblox user ID of the player.
+     * @param loadStats        Whether to read the player's stats.
+     * @param loadBans         Whether to read the player's bans.
+     * @param loadUnbans       Whether to read the player's unbans.
+     * @param loadPunchUpdates Whether to read the player's punch update records.
+     * @return Everything that was read. Sections which weren't requested are empty, and {@link AWPlayer.Snapshot#exists()}
+     * is false if there's no player with that ID (though they may still have bans and the like).
+     * @throws SQLException If the player couldn't be read.
+     */
+    AWPlayer.Snapshot load(long userId,
+                           boolean loadStats,
+                           boolean loadBans,
+                           boolean loadUnbans,
+                           boolean loadPunchUpdates) throws SQLException;
+
+    /**
+     * Creates a player with no appeal blacklist, if there isn't one with that ID already.
+     *
+     * @param userId   The Roblox user ID of the player.
+     * @param username The player's username, if known. Ignored if the player already exists.
+     * @throws SQLException If the player couldn't be written.
+     */
+    void ensureExists(long userId, @Nullable String username) throws SQLException;
+
+    /**
+     * Sets a player's username, creating the player first if needed.
+     *
+     * @param userId   The Roblox user ID of the player.
+     * @param username The new username.
+     * @throws SQLException If the username couldn't be written, like if another player already has it.
+     */
+    void setUsername(long userId, String username) throws SQLException;
+
+    /**
+     * Blacklists a player from appealing, creating the player first if needed.
+     *
+     * @param userId The Roblox user ID of the player.
+     * @param date   The unix millisecond timestamp the blacklist was issued at.
+     * @param reason The reason for the blacklist. Can be null.
+     * @param issuer The Discord ID of the moderator who issued the blacklist.
+     * @throws SQLException If the blacklist couldn't be written.
+     */
+    void setBlacklist(long userId, long date, @Nullable String reason, long issuer) throws SQLException;
+
+    /**
+     * Removes a player's appeal blacklist, if they have one.
+     *
+     * @param userId The Roblox user ID of the player.
+     * @throws SQLException If the change couldn't be written.
+     */
+    void removeBlacklist(long userId) throws SQLException;
+
+    /**
+     * Reads a player's stats as they're stored, without any punches still waiting to be written.
+     *
+     * @param userId The Roblox user ID of the player.
+     * @return The player's stats. A player without stats has 0 punches and no gamepasses.
+     * @throws SQLException If the stats couldn't be read.
+     */
+    AWStats loadStats(long userId) throws SQLException;
+
+    /**
+     * Gives a player 0 punches, if they don't have stats yet.
+     *
+     * @param userId The Roblox user ID of the player.
+     * @throws SQLException If the stats couldn't be written.
+     */
+    void ensureStats(long userId) throws SQLException;
+
+    /**
+     * Sets a player's punches.
+     *
+     * @param userId  The Roblox user ID of the player.
+     * @param punches The player's new number of punches.
+     * @throws SQLException If the punches couldn't be written.
+     */
+    void setPunches(long userId, long punches) throws SQLException;
+
+    /**
+     * Sets the punches of many players at once. Used by {@link org.lukecreator.aw.data.AWStatsBuffer} to write what
+     * it's buffered.
+     *
+     * @param punches The new number of punches of each player, by Roblox user ID.
+     * @throws SQLException If the punches couldn't be written. Some of them may have been, unless this is called
+     *                      inside a {@link RepositoryTransaction}.
+     */
+    void setPunches(Map<Long, Long> punches) throws SQLException;
+
+    /**
+     * Sets the gamepasses a player owns. Only the gamepasses that were added or removed are written.
+     *
+     * @param userId     The Roblox user ID of the player.
+     * @param gamepasses The IDs of every gamepass the player owns, as returned by
+     *                   {@link AWStats#normalizeGamepasses(long[])}.
+     * @throws SQLException If the gamepasses couldn't be written.
+     */
+    void setGamepasses(long userId, long[] gamepasses) throws SQLException;
+
+    /**
+     * Finds the players that own a gamepass.
+     *
+     * @param gamepassId The ID of the gamepass.
+     * @param limit      The maximum number of players to return.
+     * @return The Roblox IDs of up to {@code limit} players that own the gamepass, in order of ID.
+     * @throws SQLException If the owners couldn't be read.
+     */
+    long[] gamepassOwners(long gamepassId, int limit) throws SQLException;
+
+    /**
+     * Counts the players that own a gamepass.
+     *
+     * @param gamepassId The ID of the gamepass.
+     * @return The number of players that own the gamepass.
+     * @throws SQLException If the owners couldn't be counted.
+     */
+    int countGamepassOwners(long gamepassId) throws SQLException;
+}
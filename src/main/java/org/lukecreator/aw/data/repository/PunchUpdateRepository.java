@@ -0,0 +1,39 @@
+package org.lukecreator.aw.data.repository;
+
+import org.lukecreator.aw.data.AWPunchUpdate;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Storage for the punch update records of each player.
+ */
+public interface PunchUpdateRepository {
+    /**
+     * Reads every punch update record of a player, as stored. Records still waiting in
+     * {@link org.lukecreator.aw.data.AWStatsBuffer} aren't included.
+     *
+     * @param userId The Roblox user ID of the player.
+     * @return The player's punch update records, oldest first.
+     * @throws SQLException If the records couldn't be read.
+     */
+    List<AWPunchUpdate> load(long userId) throws SQLException;
+
+    /**
+     * Writes punch update records, in order. Used both for single records and by
+     * {@link org.lukecreator.aw.data.AWStatsBuffer} to write what it's buffered.
+     *
+     * @param records The records to write.
+     * @throws SQLException If the records couldn't be written. Some of them may have been, unless this is called inside
+     *                      a {@link RepositoryTransaction}.
+     */
+    void add(List<AWPunchUpdate> records) throws SQLException;
+
+    /**
+     * Deletes every punch update record of a player.
+     *
+     * @param userId The Roblox user ID of the player.
+     * @throws SQLException If the records couldn't be deleted.
+     */
+    void clear(long userId) throws SQLException;
+}
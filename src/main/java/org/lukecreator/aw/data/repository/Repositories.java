@@ -0,0 +1,113 @@
+package org.lukecreator.aw.data.repository;
+
+import java.sql.SQLException;
+
+/**
+ * The repositories everything in {@link org.lukecreator.aw.data} reads and writes through.
+ * <p>
+ * These are backed by the SQLite database ({@link SQLiteRepositories}) unless something else is installed with
+ * {@link #install(Provider)}, like {@link InMemoryRepositories} for load testing the fulfillment pipeline and ticket
+ * flows without any disk I/O.
+ * <p>
+ * Some things only exist in the database, and aren't part of these repositories: full-text search
+ * ({@link org.lukecreator.aw.data.SearchIndex}), the staff ban counts ({@link org.lukecreator.aw.data.StaffBanCounts}),
+ * the ticket archive ({@link org.lukecreator.aw.data.TicketArchive}) and bulk import/export
+ * ({@link org.lukecreator.aw.data.BanTransfer}). Each one is built from whole tables, so it uses
+ * {@link org.lukecreator.aw.AWDatabase} directly. The SQLite repositories keep search and the ban counts up to date as
+ * they write, and move archived tickets back before writing them. With any other repositories installed, these still
+ * go to the database, and don't see anything written through the repositories.
+ */
+public final class Repositories {
+    private static volatile Provider current = SQLiteRepositories.INSTANCE;
+
+    private Repositories() {
+    }
+
+    /**
+     * Replaces the repositories used from here on. Install them before anything is loaded, since loaded state (like
+     * {@link org.lukecreator.aw.data.AWPlayerCache} and the next ticket ID) isn't reset.
+     *
+     * @param provider The repositories to use.
+     */
+    public static void install(Provider provider) {
+        current = provider;
+    }
+
+    /**
+     * @return The repositories in use.
+     */
+    public static Provider current() {
+        return current;
+    }
+
+    public static PlayerRepository players() {
+        return current.players();
+    }
+
+    public static BanRepository bans() {
+        return current.bans();
+    }
+
+    public static UnbanRepository unbans() {
+        return current.unbans();
+    }
+
+    public static PunchUpdateRepository punchUpdates() {
+        return current.punchUpdates();
+    }
+
+    public static TicketRepository tickets() {
+        return current.tickets();
+    }
+
+    public static EvidenceRepository evidence() {
+        return current.evidence();
+    }
+
+    public static LinkRepository links() {
+        return current.links();
+    }
+
+    public static DiscordBlacklistRepository discordBlacklists() {
+        return current.discordBlacklists();
+    }
+
+    /**
+     * Starts a transaction over every repository. See {@link RepositoryTransaction}.
+     *
+     * @return The transaction.
+     * @throws SQLException If the transaction couldn't be started.
+     */
+    public static RepositoryTransaction beginTransaction() throws SQLException {
+        return current.beginTransaction();
+    }
+
+    /**
+     * A complete set of repositories, all backed by the same storage.
+     */
+    public interface Provider {
+        PlayerRepository players();
+
+        BanRepository bans();
+
+        UnbanRepository unbans();
+
+        PunchUpdateRepository punchUpdates();
+
+        TicketRepository tickets();
+
+        EvidenceRepository evidence();
+
+        LinkRepository links();
+
+        DiscordBlacklistRepository discordBlacklists();
+
+        /**
+         * Starts a transaction over every repository in this set.
+         *
+         * @return The transaction.
+         * @throws SQLException If the transaction couldn't be started.
+         */
+        RepositoryTransaction beginTransaction() throws SQLException;
+    }
+}
@@ -0,0 +1,46 @@
+package org.lukecreator.aw.data.repository;
+
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * A transaction over every repository at once, from {@link Repositories#beginTransaction()}. Commit it with
+ * {@link #commit()}; closing it without committing rolls back everything done through the repositories since it began.
+ * Use with try-with-resources. Transactions started inside another one (on the same thread) nest, like
+ * {@link org.lukecreator.aw.AWConnectionPool.Transaction}.
+ */
+public interface RepositoryTransaction extends AutoCloseable {
+    /**
+     * Marks a point inside this transaction that can be rolled back to without losing the rest of it.
+     *
+     * @return The new savepoint. Pass it to either {@link #release(Savepoint)} or {@link #rollbackTo(Savepoint)}.
+     * @throws SQLException If the savepoint couldn't be created.
+     */
+    Savepoint savepoint() throws SQLException;
+
+    /**
+     * Keeps everything done since the given savepoint, and forgets the savepoint.
+     *
+     * @param savepoint The savepoint to release.
+     * @throws SQLException If the savepoint couldn't be released.
+     */
+    void release(Savepoint savepoint) throws SQLException;
+
+    /**
+     * Undoes everything done since the given savepoint, and forgets the savepoint.
+     *
+     * @param savepoint The savepoint to roll back to.
+     * @throws SQLException If the rollback failed.
+     */
+    void rollbackTo(Savepoint savepoint) throws SQLException;
+
+    /**
+     * Commits this transaction. If it's nested, its changes are handed to the outer transaction instead.
+     *
+     * @throws SQLException If the commit failed. The transaction will be rolled back when closed.
+     */
+    void commit() throws SQLException;
+
+    @Override
+    void close() throws SQLException;
+}
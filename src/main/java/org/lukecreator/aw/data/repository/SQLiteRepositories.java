@@ -0,0 +1,1129 @@
+package org.lukecreator.aw.data.repository;
+
+import org.jetbrains.annotations.Nullable;
+import org.lukecreator.aw.AWConnectionPool;
+import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.AWQuery;
+import org.lukecreator.aw.AWStatement;
+import org.lukecreator.aw.data.AWBan;
+import org.lukecreator.aw.data.AWBans;
+import org.lukecreator.aw.data.AWEvidence;
+import org.lukecreator.aw.data.AWPlayer;
+import org.lukecreator.aw.data.AWPunchUpdate;
+import org.lukecreator.aw.data.AWPunchUpdates;
+import org.lukecreator.aw.data.AWStats;
+import org.lukecreator.aw.data.AWTicket;
+import org.lukecreator.aw.data.AWUnban;
+import org.lukecreator.aw.data.DiscordAppealBlacklist;
+import org.lukecreator.aw.data.SearchIndex;
+import org.lukecreator.aw.data.StaffBanCounts;
+import org.lukecreator.aw.data.TicketArchive;
+import org.lukecreator.aw.data.TicketSummary;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The repositories backed by the SQLite database, through {@link AWDatabase}. This is what {@link Repositories} uses
+ * unless something else is installed.
+ * <p>
+ * Writes keep the full-text search index ({@link SearchIndex}) and the staff ban counts ({@link StaffBanCounts}) up to
+ * date in the same transaction, and writing an archived ticket moves it out of the archive first
+ * ({@link TicketArchive#restore}).
+ */
+public final class SQLiteRepositories implements Repositories.Provider {
+    public static final SQLiteRepositories INSTANCE = new SQLiteRepositories();
+
+    private final PlayerRepository players = new SQLitePlayerRepository();
+    private final BanRepository bans = new SQLiteBanRepository();
+    private final UnbanRepository unbans = new SQLiteUnbanRepository();
+    private final PunchUpdateRepository punchUpdates = new SQLitePunchUpdateRepository();
+    private final TicketRepository tickets = new SQLiteTicketRepository();
+    private final SQLiteLinkRepository links = new SQLiteLinkRepository();
+    private final EvidenceRepository evidence = new SQLiteEvidenceRepository(this.links);
+    private final DiscordBlacklistRepository discordBlacklists = new SQLiteDiscordBlacklistRepository();
+
+    private SQLiteRepositories() {
+    }
+
+    @Override
+    public PlayerRepository players() {
+        return this.players;
+    }
+
+    @Override
+    public BanRepository bans() {
+        return this.bans;
+    }
+
+    @Override
+    public UnbanRepository unbans() {
+        return this.unbans;
+    }
+
+    @Override
+    public PunchUpdateRepository punchUpdates() {
+        return this.punchUpdates;
+    }
+
+    @Override
+    public TicketRepository tickets() {
+        return this.tickets;
+    }
+
+    @Override
+    public EvidenceRepository evidence() {
+        return this.evidence;
+    }
+
+    @Override
+    public LinkRepository links() {
+        return this.links;
+    }
+
+    @Override
+    public DiscordBlacklistRepository discordBlacklists() {
+        return this.discordBlacklists;
+    }
+
+    /**
+     * Takes the writer and starts a transaction on it. The writer is held until the transaction is closed, and every
+     * repository write on this thread joins the transaction in the meantime.
+     */
+    @Override
+    public RepositoryTransaction beginTransaction() throws SQLException {
+        AWConnectionPool.Lease db = AWDatabase.write();
+        try {
+            return new SQLiteTransaction(db, db.beginTransaction());
+        } catch (SQLException | RuntimeException e) {
+            db.close();
+            throw e;
+        }
+    }
+
+    private static int readCount(AWStatement statement) throws SQLException {
+        try (var results = statement.executeQuery()) {
+            if (!results.next()) {
+                return 0;
+            }
+            return results.getInt(1);
+        }
+    }
+
+    private static AWTicket[] readTickets(AWStatement statement) throws SQLException {
+        try (var results = statement.executeQuery()) {
+            List<AWTicket> tickets = new ArrayList<>();
+            while (results.next()) {
+                tickets.add(AWTicket.fromRow(results));
+            }
+            return tickets.toArray(new AWTicket[0]);
+        }
+    }
+
+    private record SQLiteTransaction(AWConnectionPool.Lease db,
+                                     AWConnectionPool.Transaction transaction) implements RepositoryTransaction {
+        @Override
+        public Savepoint savepoint() throws SQLException {
+            return this.transaction.savepoint();
+        }
+
+        @Override
+        public void release(Savepoint savepoint) throws SQLException {
+            this.transaction.release(savepoint);
+        }
+
+        @Override
+        public void rollbackTo(Savepoint savepoint) throws SQLException {
+            this.transaction.rollbackTo(savepoint);
+        }
+
+        @Override
+        public void commit() throws SQLException {
+            this.transaction.commit();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                this.transaction.close();
+            } finally {
+                this.db.close();
+            }
+        }
+    }
+
+    private static final class SQLitePlayerRepository implements PlayerRepository {
+        /**
+         * Reads the requested sections of a player in a single round trip, with {@link AWQuery#HYDRATE_PLAYER}.
+         */
+        @Override
+        public AWPlayer.Snapshot load(long userId,
+                                      boolean loadStats,
+                                      boolean loadBans,
+                                      boolean loadUnbans,
+                                      boolean loadPunchUpdates) throws SQLException {
+            boolean exists = false;
+            String username = null;
+            boolean isAppealBlacklisted = false;
+            String appealBlacklistReason = null;
+            long appealBlacklistDate = 0L;
+            long appealBlacklistIssuer = 0L;
+            long punches = 0L;
+            AWStats.GamepassList gamepasses = new AWStats.GamepassList();
+            ArrayList<AWBan> bans = new ArrayList<>();
+            ArrayList<AWUnban> unbans = new ArrayList<>();
+            ArrayList<AWPunchUpdate> punchUpdates = new ArrayList<>();
+
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.HYDRATE_PLAYER)) {
+                statement.setLong(1, userId);
+                statement.setBoolean(2, loadStats);
+                statement.setBoolean(3, loadBans);
+                statement.setBoolean(4, loadUnbans);
+                statement.setBoolean(5, loadPunchUpdates);
+                try (var results = statement.executeQuery()) {
+                    while (results.next()) {
+                        switch (results.getInt("kind")) {
+                            case 0 -> {
+                                exists = true;
+                                username = results.getString("text");
+                                appealBlacklistReason = results.getString("text2");
+                                isAppealBlacklisted = results.getBoolean("n1");
+                                appealBlacklistDate = results.getLong("n2");
+                                appealBlacklistIssuer = results.getLong("n3");
+                            }
+                            case 1 -> punches = results.getLong("n1");
+                            case 2 -> bans.add(new AWBan(userId,
+                                    results.getLong("n1"),
+                                    results.getString("text"),
+                                    results.getLong("n2"),
+                                    results.getLong("n3"),
+                                    results.getLong("n4"),
+                                    results.getBoolean("n5")));
+                            case 3 -> unbans.add(new AWUnban(userId,
+                                    results.getLong("n1"),
+                                    results.getLong("n2")));
+                            case 4 -> punchUpdates.add(new AWPunchUpdate(userId,
+                                    results.getLong("n1"),
+                                    results.getLong("n2"),
+                                    results.getLong("n3"),
+                                    results.getLong("n4")));
+                            case 5 -> gamepasses.add(results.getLong("n2"));
+                            default -> {
+                            }
+                        }
+                    }
+                }
+            }
+
+            return new AWPlayer.Snapshot(userId, exists, username,
+                    isAppealBlacklisted, appealBlacklistReason, appealBlacklistDate, appealBlacklistIssuer,
+                    punches, gamepasses.toArray(),
+                    bans.toArray(new AWBan[0]),
+                    unbans.toArray(new AWUnban[0]),
+                    punchUpdates.toArray(new AWPunchUpdate[0]));
+        }
+
+        @Override
+        public void ensureExists(long userId, @Nullable String username) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var statement = db.prepare(AWQuery.ENSURE_PLAYER)) {
+                statement.setLong(1, userId);
+                statement.setString(2, username);
+                statement.executeUpdate();
+            }
+        }
+
+        @Override
+        public void setUsername(long userId, String username) throws SQLException {
+            try (var db = AWDatabase.write()) {
+                this.ensureExists(userId, username);
+                try (var statement = db.prepare(AWQuery.SET_USERNAME)) {
+                    statement.setString(1, username);
+                    statement.setLong(2, userId);
+                    statement.executeUpdate();
+                }
+            }
+        }
+
+        @Override
+        public void setBlacklist(long userId, long date, @Nullable String reason, long issuer) throws SQLException {
+            try (var db = AWDatabase.write()) {
+                this.ensureExists(userId, null);
+                try (var statement = db.prepare(AWQuery.SET_PLAYER_BLACKLIST)) {
+                    statement.setLong(1, date);
+                    statement.setString(2, reason);
+                    statement.setLong(3, issuer);
+                    statement.setLong(4, userId);
+                    statement.executeUpdate();
+                }
+            }
+        }
+
+        @Override
+        public void removeBlacklist(long userId) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var statement = db.prepare(AWQuery.REMOVE_PLAYER_BLACKLIST)) {
+                statement.setLong(1, userId);
+                statement.executeUpdate();
+            }
+        }
+
+        @Override
+        public AWStats loadStats(long userId) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.LOAD_STATS)) {
+                statement.setLong(1, userId);
+                try (var results = statement.executeQuery()) {
+                    long punches = 0;
+                    AWStats.GamepassList gamepasses = new AWStats.GamepassList();
+                    while (results.next()) {
+                        if (results.getInt("kind") == 0)
+                            punches = results.getLong("value");
+                        else
+                            gamepasses.add(results.getLong("value"));
+                    }
+                    return new AWStats(userId, punches, gamepasses.toArray());
+                }
+            }
+        }
+
+        @Override
+        public void ensureStats(long userId) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var statement = db.prepare(AWQuery.ENSURE_STATS)) {
+                statement.setLong(1, userId);
+                statement.executeUpdate();
+            }
+        }
+
+        @Override
+        public void setPunches(long userId, long punches) throws SQLException {
+            try (var db = AWDatabase.write()) {
+                this.ensureStats(userId);
+                try (var statement = db.prepare(AWQuery.SET_PUNCHES)) {
+                    statement.setLong(1, punches);
+                    statement.setLong(2, userId);
+                    statement.executeUpdate();
+                }
+            }
+        }
+
+        @Override
+        public void setPunches(Map<Long, Long> punches) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var statement = db.prepare(AWQuery.UPSERT_PUNCHES)) {
+                for (Map.Entry<Long, Long> entry : punches.entrySet()) {
+                    statement.setLong(1, entry.getKey());
+                    statement.setLong(2, entry.getValue());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+
+        @Override
+        public void setGamepasses(long userId, long[] gamepasses) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var transaction = db.beginTransaction()) {
+                this.ensureStats(userId);
+
+                // diff against what's actually stored, in case the caller's copy is out of date.
+                long[] oldGamepasses;
+                try (var statement = db.prepare(AWQuery.LOAD_GAMEPASSES)) {
+                    statement.setLong(1, userId);
+                    try (var results = statement.executeQuery()) {
+                        AWStats.GamepassList stored = new AWStats.GamepassList();
+                        while (results.next())
+                            stored.add(results.getLong(1));
+                        oldGamepasses = stored.toArray();
+                    }
+                }
+
+                try (var statement = db.prepare(AWQuery.REMOVE_GAMEPASS)) {
+                    for (long gamepassId : oldGamepasses) {
+                        if (Arrays.binarySearch(gamepasses, gamepassId) >= 0)
+                            continue;
+                        statement.setLong(1, userId);
+                        statement.setLong(2, gamepassId);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                try (var statement = db.prepare(AWQuery.ADD_GAMEPASS)) {
+                    for (long gamepassId : gamepasses) {
+                        if (Arrays.binarySearch(oldGamepasses, gamepassId) >= 0)
+                            continue;
+                        statement.setLong(1, userId);
+                        statement.setLong(2, gamepassId);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                transaction.commit();
+            }
+        }
+
+        @Override
+        public long[] gamepassOwners(long gamepassId, int limit) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.GAMEPASS_OWNERS)) {
+                statement.setLong(1, gamepassId);
+                statement.setInt(2, limit);
+                try (var results = statement.executeQuery()) {
+                    AWStats.GamepassList owners = new AWStats.GamepassList();
+                    while (results.next())
+                        owners.add(results.getLong(1));
+                    return owners.toArray();
+                }
+            }
+        }
+
+        @Override
+        public int countGamepassOwners(long gamepassId) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.COUNT_GAMEPASS_OWNERS)) {
+                statement.setLong(1, gamepassId);
+                return readCount(statement);
+            }
+        }
+    }
+
+    private static final class SQLiteBanRepository implements BanRepository {
+        @Override
+        public List<AWBan> load(long userId) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.LOAD_BANS)) {
+                statement.setLong(1, userId);
+                try (var resultSet = statement.executeQuery()) {
+                    List<AWBan> bans = new ArrayList<>();
+                    while (resultSet.next()) {
+                        bans.add(AWBan.fromRow(resultSet));
+                    }
+                    return bans;
+                }
+            }
+        }
+
+        @Override
+        public void add(List<AWBan> bans, @Nullable Long linkedTicketId) throws SQLException {
+            if (bans.isEmpty())
+                return;
+
+            try (var db = AWDatabase.write();
+                 var transaction = db.beginTransaction()) {
+                // a ban with the same starting timestamp is the same ban, so it's updated rather than duplicated.
+                List<AWBan> changed = AWBans.upsertBans(db, bans, linkedTicketId);
+
+                // nothing to recount for bans that were already on record as-is.
+                Set<Long> users = new LinkedHashSet<>();
+                for (AWBan ban : changed)
+                    users.add(ban.userId());
+                for (long userId : users)
+                    StaffBanCounts.recount(db, userId);
+                transaction.commit();
+            }
+        }
+
+        @Override
+        public void setLatestEnds(long userId, long ends) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var statement = db.prepare(AWQuery.SET_LATEST_BAN_ENDS)) {
+                statement.setLong(1, ends);
+                statement.setLong(2, userId);
+                statement.setLong(3, userId);
+                statement.executeUpdate();
+            }
+        }
+
+        @Override
+        public void clear(long userId) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var transaction = db.beginTransaction()) {
+                SearchIndex.unindexBans(db, userId);
+                try (var statement = db.prepare(AWQuery.CLEAR_BANS)) {
+                    statement.setLong(1, userId);
+                    statement.execute();
+                }
+                StaffBanCounts.recount(db, userId);
+                transaction.commit();
+            }
+        }
+    }
+
+    private static final class SQLiteUnbanRepository implements UnbanRepository {
+        @Override
+        public List<AWUnban> load(long userId) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.LOAD_UNBANS)) {
+                statement.setLong(1, userId);
+                try (var resultSet = statement.executeQuery()) {
+                    List<AWUnban> unbans = new ArrayList<>();
+                    while (resultSet.next()) {
+                        unbans.add(new AWUnban(
+                                resultSet.getLong("user_id"),
+                                resultSet.getLong("responsible_moderator"),
+                                resultSet.getLong("date")
+                        ));
+                    }
+                    return unbans;
+                }
+            }
+        }
+
+        @Override
+        public void add(List<AWUnban> unbans) throws SQLException {
+            if (unbans.isEmpty())
+                return;
+
+            try (var db = AWDatabase.write();
+                 var transaction = db.beginTransaction()) {
+                Set<Long> users = new LinkedHashSet<>();
+                try (var statement = db.prepare(AWQuery.INSERT_UNBAN)) {
+                    for (AWUnban unban : unbans) {
+                        statement.setLong(1, unban.userId());
+
+                        if (unban.responsibleModerator() == null)
+                            statement.setNull(2, Types.INTEGER);
+                        else
+                            statement.setLong(2, unban.responsibleModerator());
+
+                        statement.setLong(3, unban.date());
+
+                        statement.addBatch();
+                        users.add(unban.userId());
+                    }
+                    statement.executeBatch();
+                }
+                for (long userId : users)
+                    StaffBanCounts.recount(db, userId);
+                transaction.commit();
+            }
+        }
+
+        @Override
+        public void clear(long userId) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var transaction = db.beginTransaction()) {
+                try (var statement = db.prepare(AWQuery.CLEAR_UNBANS)) {
+                    statement.setLong(1, userId);
+                    statement.execute();
+                }
+                StaffBanCounts.recount(db, userId);
+                transaction.commit();
+            }
+        }
+    }
+
+    private static final class SQLitePunchUpdateRepository implements PunchUpdateRepository {
+        @Override
+        public List<AWPunchUpdate> load(long userId) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.LOAD_PUNCH_UPDATES)) {
+                statement.setLong(1, userId);
+                try (var resultSet = statement.executeQuery()) {
+                    List<AWPunchUpdate> punchUpdates = new ArrayList<>();
+                    while (resultSet.next()) {
+                        punchUpdates.add(new AWPunchUpdate(
+                                resultSet.getLong("user_id"),
+                                resultSet.getLong("responsible_moderator"),
+                                resultSet.getLong("date"),
+                                resultSet.getLong("old_punches"),
+                                resultSet.getLong("new_punches")
+                        ));
+                    }
+                    return punchUpdates;
+                }
+            }
+        }
+
+        @Override
+        public void add(List<AWPunchUpdate> records) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var statement = db.prepare(AWQuery.INSERT_PUNCH_UPDATE)) {
+                for (AWPunchUpdate record : records) {
+                    AWPunchUpdates.bindRecord(statement, record);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        }
+
+        @Override
+        public void clear(long userId) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var statement = db.prepare(AWQuery.CLEAR_PUNCH_UPDATES)) {
+                statement.setLong(1, userId);
+                statement.execute();
+            }
+        }
+    }
+
+    private static final class SQLiteTicketRepository implements TicketRepository {
+        private static void bindPage(AWStatement statement, long userId, @Nullable AWTicket.Type type,
+                                     TicketSummary.Cursor after, int limit) throws SQLException {
+            int index = 1;
+            statement.setLong(index++, userId);
+            if (type != null)
+                statement.setInt(index++, type.id);
+            statement.setLong(index++, after.openedTimestamp());
+            statement.setLong(index++, after.ticketId());
+            statement.setInt(index, limit);
+        }
+
+        private static TicketSummary[] readSummaries(AWStatement statement) throws SQLException {
+            try (var results = statement.executeQuery()) {
+                List<TicketSummary> summaries = new ArrayList<>();
+                while (results.next()) {
+                    long id = results.getLong(1);
+                    AWTicket.Type type = AWTicket.Type.fromId(results.getInt(2));
+                    if (type == null) {
+                        System.err.println("Skipping ticket %d in history since it has an invalid type. (type: %d)"
+                                .formatted(id, results.getInt(2)));
+                        continue;
+                    }
+                    summaries.add(new TicketSummary(id, type,
+                            results.getLong(3),
+                            results.getLong(4),
+                            results.getBoolean(5),
+                            results.getString(6),
+                            results.getLong(7)));
+                }
+                return summaries.toArray(new TicketSummary[0]);
+            }
+        }
+
+        /**
+         * Binds a user ID, an optional type and a limit, in the order the TICKETS_BY_* queries take them.
+         */
+        private static AWTicket[] loadBy(AWQuery query, long userId, @Nullable AWTicket.Type type, int limit) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(query)) {
+                int index = 1;
+                statement.setLong(index++, userId);
+                if (type != null)
+                    statement.setInt(index++, type.id);
+                statement.setInt(index, limit);
+                return readTickets(statement);
+            }
+        }
+
+        private static int countBy(AWQuery query, long userId, @Nullable AWTicket.Type type) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(query)) {
+                statement.setLong(1, userId);
+                if (type != null)
+                    statement.setInt(2, type.id);
+                return readCount(statement);
+            }
+        }
+
+        @Override
+        public AWTicket load(long id) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.LOAD_TICKET)) {
+                statement.setLong(1, id);
+                try (var results = statement.executeQuery()) {
+                    if (!results.next()) {
+                        return null;
+                    }
+                    return AWTicket.fromRow(results);
+                }
+            }
+        }
+
+        @Override
+        public List<AWTicket> loadOpen() throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.OPEN_TICKETS);
+                 var results = statement.executeQuery()) {
+                List<AWTicket> tickets = new ArrayList<>();
+                while (results.next()) {
+                    try {
+                        tickets.add(AWTicket.fromRow(results));
+                    } catch (RuntimeException e) {
+                        System.err.println("Skipping open ticket that couldn't be loaded: " + e.getMessage());
+                    }
+                }
+                return tickets;
+            }
+        }
+
+        @Override
+        public AWTicket[] loadByOwner(long ownerId, @Nullable AWTicket.Type type, int limit) throws SQLException {
+            return loadBy(type == null ? AWQuery.TICKETS_BY_OWNER : AWQuery.TICKETS_BY_OWNER_AND_TYPE, ownerId, type, limit);
+        }
+
+        @Override
+        public AWTicket[] loadByCloser(long closerId, @Nullable AWTicket.Type type, int limit) throws SQLException {
+            return loadBy(type == null ? AWQuery.TICKETS_BY_CLOSER : AWQuery.TICKETS_BY_CLOSER_AND_TYPE, closerId, type, limit);
+        }
+
+        @Override
+        public int countByOwner(long ownerId, @Nullable AWTicket.Type type) throws SQLException {
+            return countBy(type == null ? AWQuery.COUNT_TICKETS_BY_OWNER : AWQuery.COUNT_TICKETS_BY_OWNER_AND_TYPE, ownerId, type);
+        }
+
+        @Override
+        public int countByCloser(long closerId, @Nullable AWTicket.Type type) throws SQLException {
+            return countBy(type == null ? AWQuery.COUNT_TICKETS_BY_CLOSER : AWQuery.COUNT_TICKETS_BY_CLOSER_AND_TYPE, closerId, type);
+        }
+
+        @Override
+        public long maxId() throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.MAX_TICKET_ID);
+                 var results = statement.executeQuery()) {
+                return results.next() ? results.getLong(1) : 0L;
+            }
+        }
+
+        @Override
+        public TicketSummary[] historyByOwner(long ownerId, @Nullable AWTicket.Type type, TicketSummary.Cursor after, int limit) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(type == null ? AWQuery.TICKET_SUMMARIES_BY_OWNER : AWQuery.TICKET_SUMMARIES_BY_OWNER_AND_TYPE)) {
+                bindPage(statement, ownerId, type, after, limit);
+                return readSummaries(statement);
+            }
+        }
+
+        @Override
+        public TicketSummary[] historyByCloser(long closerId, @Nullable AWTicket.Type type, TicketSummary.Cursor after, int limit) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(type == null ? AWQuery.TICKET_SUMMARIES_BY_CLOSER : AWQuery.TICKET_SUMMARIES_BY_CLOSER_AND_TYPE)) {
+                bindPage(statement, closerId, type, after, limit);
+                return readSummaries(statement);
+            }
+        }
+
+        @Override
+        public TicketSummary.Cursor cursorOf(long ticketId) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.TICKET_CURSOR)) {
+                statement.setLong(1, ticketId);
+                try (var results = statement.executeQuery()) {
+                    if (!results.next())
+                        return null;
+                    return new TicketSummary.Cursor(results.getLong(1), ticketId);
+                }
+            }
+        }
+
+        @Override
+        public void save(AWTicket ticket) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var transaction = db.beginTransaction()) {
+                TicketArchive.restore(db, ticket.id);
+                SearchIndex.unindexTicket(db, ticket.id);
+                try (var statement = db.prepare(AWQuery.UPSERT_TICKET)) {
+                    statement.setLong(1, ticket.id);
+                    statement.setLong(2, ticket.getDiscordChannelId());
+                    statement.setInt(3, ticket.type().id);
+                    statement.setLong(4, ticket.openedTimestamp);
+                    statement.setBoolean(5, ticket.isOpen);
+                    statement.setString(6, ticket.closeReason);
+                    statement.setLong(7, ticket.closedByDiscordId);
+                    statement.setString(8, ticket.getInputQuestionsJSON().toString());
+                    statement.setLong(9, ticket.ownerDiscordId);
+                    statement.setLong(10, System.currentTimeMillis()); // when it was closed, if this closes it
+                    statement.executeUpdate();
+                }
+                SearchIndex.indexTicket(db, ticket.id);
+                transaction.commit();
+            }
+        }
+
+        @Override
+        public void delete(long id) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var transaction = db.beginTransaction()) {
+                SearchIndex.unindexTicket(db, id);
+                for (AWQuery query : new AWQuery[]{
+                        AWQuery.DELETE_TICKET,
+                        AWQuery.DELETE_ARCHIVED_TICKET,
+                        AWQuery.UNLINK_ALL_EVIDENCE_FROM_TICKET,
+                        AWQuery.UNLINK_ALL_EVIDENCE_FROM_ARCHIVED_TICKET}) {
+                    try (var statement = db.prepare(query)) {
+                        statement.setLong(1, id);
+                        statement.executeUpdate();
+                    }
+                }
+                transaction.commit();
+            }
+        }
+    }
+
+    private static final class SQLiteEvidenceRepository implements EvidenceRepository {
+        private final SQLiteLinkRepository links;
+
+        private SQLiteEvidenceRepository(SQLiteLinkRepository links) {
+            this.links = links;
+        }
+
+        @Override
+        public AWEvidence load(long id) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.LOAD_EVIDENCE)) {
+                statement.setLong(1, id);
+                try (var resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        long timestamp = resultSet.getLong("timestamp");
+                        Long accusedUserRobloxId = resultSet.getLong("accused_user");
+                        String details = resultSet.getString("details");
+                        String url = resultSet.getString("url");
+                        return new AWEvidence(id, timestamp, accusedUserRobloxId, details, url);
+                    }
+                }
+                return null;
+            }
+        }
+
+        @Override
+        public AWEvidence[] loadAgainstUser(long userId) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.LOAD_EVIDENCE_AGAINST_USER)) {
+                statement.setLong(1, userId);
+                return AWEvidence.readAll(statement);
+            }
+        }
+
+        @Override
+        public void save(AWEvidence evidence) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var transaction = db.beginTransaction()) {
+                SearchIndex.unindexEvidence(db, evidence.evidenceId);
+                try (var statement = db.prepare(AWQuery.UPSERT_EVIDENCE)) {
+                    statement.setLong(1, evidence.evidenceId);
+                    statement.setLong(2, evidence.timestamp);
+
+                    if (evidence.accusedUserRobloxId == null)
+                        statement.setNull(3, Types.INTEGER);
+                    else
+                        statement.setLong(3, evidence.accusedUserRobloxId);
+
+                    statement.setString(4, evidence.details);
+                    statement.setString(5, evidence.url);
+                    statement.execute();
+                }
+                SearchIndex.indexEvidence(db, evidence.evidenceId);
+                transaction.commit();
+            }
+        }
+
+        @Override
+        public void delete(long id) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var transaction = db.beginTransaction()) {
+                SearchIndex.unindexEvidence(db, id);
+                try (var statement = db.prepare(AWQuery.DELETE_EVIDENCE)) {
+                    statement.setLong(1, id);
+                    statement.execute();
+                }
+
+                // remove any ticket links to this evidence
+                this.links.unlinkEvidenceFromAllTickets(id);
+                transaction.commit();
+            }
+        }
+    }
+
+    private static final class SQLiteLinkRepository implements LinkRepository {
+        @Override
+        public AWEvidence[] evidenceLinkedToTicket(long ticketId) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.EVIDENCE_LINKED_TO_TICKET)) {
+                statement.setLong(1, ticketId);
+                return AWEvidence.readAll(statement);
+            }
+        }
+
+        @Override
+        public long[] evidenceIdsLinkedToTicket(long ticketId) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.EVIDENCE_IDS_LINKED_TO_TICKET)) {
+                statement.setLong(1, ticketId);
+                try (ResultSet results = statement.executeQuery()) {
+                    List<Long> idList = new ArrayList<>();
+                    while (results.next()) {
+                        long evidenceId = results.getLong("evidence_id");
+                        idList.add(evidenceId);
+                    }
+
+                    return idList.stream().mapToLong(Long::longValue).toArray();
+                }
+            }
+        }
+
+        @Override
+        public void linkEvidenceToTicket(long ticketId, long... evidenceIds) throws SQLException {
+            if (evidenceIds.length == 0)
+                return;
+
+            try (var db = AWDatabase.write();
+                 var transaction = db.beginTransaction()) {
+                try (var statement = db.prepare(AWQuery.LINK_EVIDENCE_TO_TICKET)) {
+                    for (long evidenceId : evidenceIds) {
+                        statement.setLong(1, ticketId);
+                        statement.setLong(2, evidenceId);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                transaction.commit();
+            }
+        }
+
+        @Override
+        public void unlinkEvidenceFromTicket(long ticketId, long evidenceId) throws SQLException {
+            // the link could be in either table, depending on if the ticket was archived.
+            try (var db = AWDatabase.write();
+                 var transaction = db.beginTransaction()) {
+                for (AWQuery query : new AWQuery[]{
+                        AWQuery.UNLINK_EVIDENCE_FROM_TICKET,
+                        AWQuery.UNLINK_EVIDENCE_FROM_ARCHIVED_TICKET}) {
+                    try (var statement = db.prepare(query)) {
+                        statement.setLong(1, ticketId);
+                        statement.setLong(2, evidenceId);
+                        statement.execute();
+                    }
+                }
+                transaction.commit();
+            }
+        }
+
+        @Override
+        public void unlinkEvidenceFromAllTickets(long evidenceId) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var transaction = db.beginTransaction()) {
+                for (AWQuery query : new AWQuery[]{
+                        AWQuery.UNLINK_EVIDENCE_FROM_ALL_TICKETS,
+                        AWQuery.UNLINK_EVIDENCE_FROM_ALL_ARCHIVED_TICKETS}) {
+                    try (var statement = db.prepare(query)) {
+                        statement.setLong(1, evidenceId);
+                        statement.execute();
+                    }
+                }
+                transaction.commit();
+            }
+        }
+
+        @Override
+        public AWTicket[] ticketsLinkedToEvidence(long evidenceId) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.TICKETS_LINKED_TO_EVIDENCE)) {
+                statement.setLong(1, evidenceId);
+                return readTickets(statement);
+            }
+        }
+
+        @Override
+        public Long[] ticketIdsLinkedToEvidence(long evidenceId) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.TICKET_IDS_LINKED_TO_EVIDENCE)) {
+                statement.setLong(1, evidenceId);
+                try (ResultSet results = statement.executeQuery()) {
+                    List<Long> ticketList = new ArrayList<>();
+                    while (results.next()) {
+                        ticketList.add(results.getLong("ticket_id"));
+                    }
+                    return ticketList.toArray(new Long[0]);
+                }
+            }
+        }
+
+        @Override
+        public AWEvidence[] evidenceLinkedToUserBans(long userId) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.EVIDENCE_LINKED_TO_USER_BANS)) {
+                statement.setLong(1, userId);
+                return AWEvidence.readAll(statement);
+            }
+        }
+
+        @Override
+        public AWEvidence[] evidenceLinkedToBan(long userId, long starts) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.EVIDENCE_LINKED_TO_BAN)) {
+                statement.setLong(1, userId);
+                statement.setLong(2, starts);
+                return AWEvidence.readAll(statement);
+            }
+        }
+
+        @Override
+        public void linkEvidenceToBan(AWBan ban, long... evidenceIds) throws SQLException {
+            if (evidenceIds.length == 0)
+                return;
+
+            try (var db = AWDatabase.write();
+                 var transaction = db.beginTransaction()) {
+                try (var statement = db.prepare(AWQuery.LINK_EVIDENCE_TO_BAN)) {
+                    for (long evidenceId : evidenceIds) {
+                        statement.setLong(1, ban.userId());
+                        statement.setLong(2, ban.starts());
+                        statement.setLong(3, evidenceId);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+                transaction.commit();
+            }
+        }
+
+        @Override
+        public void unlinkEvidenceFromBan(AWBan ban, long evidenceId) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var statement = db.prepare(AWQuery.UNLINK_EVIDENCE_FROM_BAN)) {
+                statement.setLong(1, ban.userId());
+                statement.setLong(2, ban.starts());
+                statement.setLong(3, evidenceId);
+                statement.execute();
+            }
+        }
+
+        @Override
+        public AWBan[] bansLinkedToEvidence(long evidenceId) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.BANS_LINKED_TO_EVIDENCE)) {
+                statement.setLong(1, evidenceId);
+                try (ResultSet results = statement.executeQuery()) {
+                    List<AWBan> banList = new ArrayList<>();
+                    while (results.next()) {
+                        banList.add(AWBan.fromRow(results));
+                    }
+                    return banList.toArray(new AWBan[0]);
+                }
+            }
+        }
+
+        @Override
+        public void linkDiscordToRoblox(long discordId, long robloxId) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var statement = db.prepare(AWQuery.CREATE_DISCORD_ROBLOX_LINK)) {
+                statement.setLong(1, discordId);
+                statement.setLong(2, robloxId);
+                statement.executeUpdate();
+            }
+        }
+
+        @Override
+        public void unlinkDiscordId(long discordId) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var statement = db.prepare(AWQuery.DELETE_LINK_BY_DISCORD_ID)) {
+                statement.setLong(1, discordId);
+                statement.executeUpdate();
+            }
+        }
+
+        @Override
+        public void unlinkRobloxId(long robloxId) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var statement = db.prepare(AWQuery.DELETE_LINK_BY_ROBLOX_ID)) {
+                statement.setLong(1, robloxId);
+                statement.executeUpdate();
+            }
+        }
+
+        @Override
+        public Long robloxIdFromDiscordId(long discordId) throws SQLException {
+            return this.findLink(AWQuery.ROBLOX_ID_FROM_DISCORD_ID, discordId);
+        }
+
+        @Override
+        public Long discordIdFromRobloxId(long robloxId) throws SQLException {
+            return this.findLink(AWQuery.DISCORD_ID_FROM_ROBLOX_ID, robloxId);
+        }
+
+        private Long findLink(AWQuery query, long id) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(query)) {
+                statement.setLong(1, id);
+                try (var results = statement.executeQuery()) {
+                    if (!results.next()) {
+                        return null;
+                    }
+                    return results.getLong(1);
+                }
+            }
+        }
+
+        @Override
+        public Map<Long, Long> allDiscordRobloxLinks() throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.ALL_DISCORD_ROBLOX_LINKS)) {
+                HashMap<Long, Long> links = new HashMap<>();
+
+                try (ResultSet results = statement.executeQuery()) {
+                    while (results.next()) {
+                        long discordId = results.getLong(1);
+                        long robloxId = results.getLong(2);
+                        links.put(discordId, robloxId);
+                    }
+                }
+
+                return links;
+            }
+        }
+    }
+
+    private static final class SQLiteDiscordBlacklistRepository implements DiscordBlacklistRepository {
+        @Override
+        public boolean isBlacklisted(long discordId) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.IS_DISCORD_BLACKLISTED)) {
+                statement.setLong(1, discordId);
+                try (ResultSet results = statement.executeQuery()) {
+                    return results.next();
+                }
+            }
+        }
+
+        @Override
+        public DiscordAppealBlacklist load(long discordId) throws SQLException {
+            try (var db = AWDatabase.read();
+                 var statement = db.prepare(AWQuery.LOAD_DISCORD_BLACKLIST)) {
+                statement.setLong(1, discordId);
+                try (var results = statement.executeQuery()) {
+                    if (!results.next()) {
+                        return null;
+                    }
+                    return new DiscordAppealBlacklist(discordId,
+                            results.getLong(3),
+                            results.getString(1),
+                            results.getLong(2)
+                    );
+                }
+            }
+        }
+
+        @Override
+        public void save(DiscordAppealBlacklist blacklist) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var statement = db.prepare(AWQuery.UPSERT_DISCORD_BLACKLIST)) {
+                statement.setLong(1, blacklist.discordId);
+                statement.setString(2, blacklist.reason);
+                statement.setLong(3, blacklist.date);
+                statement.setLong(4, blacklist.issuerId);
+                statement.executeUpdate();
+            }
+        }
+
+        @Override
+        public void delete(long discordId) throws SQLException {
+            try (var db = AWDatabase.write();
+                 var statement = db.prepare(AWQuery.DELETE_DISCORD_BLACKLIST)) {
+                statement.setLong(1, discordId);
+                statement.executeUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.lukecreator.aw.data.repository;
+
+import org.jetbrains.annotations.Nullable;
+import org.lukecreator.aw.data.AWTicket;
+import org.lukecreator.aw.data.TicketSummary;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Storage for tickets, open and closed. Everything here covers archived tickets too (see
+ * {@link org.lukecreator.aw.data.TicketArchive}).
+ */
+public interface TicketRepository {
+    /**
+     * Reads a ticket.
+     *
+     * @param id The ID of the ticket.
+     * @return The ticket, with its input questions already processed, or {@code null} if there's no ticket with that ID.
+     * @throws SQLException If the ticket couldn't be read.
+     */
+    @Nullable
+    AWTicket load(long id) throws SQLException;
+
+    /**
+     * Reads every open ticket.
+     *
+     * @return Every open ticket. Tickets with an unknown type are logged and left out.
+     * @throws SQLException If the tickets couldn't be read.
+     */
+    List<AWTicket> loadOpen() throws SQLException;
+
+    /**
+     * Reads the newest tickets opened by a user.
+     *
+     * @param ownerId The Discord ID of the ticket owner.
+     * @param type    If not null, only tickets of this type are included.
+     * @param limit   The maximum number of tickets to read.
+     * @return The tickets, newest first.
+     * @throws SQLException If the tickets couldn't be read.
+     */
+    AWTicket[] loadByOwner(long ownerId, @Nullable AWTicket.Type type, int limit) throws SQLException;
+
+    /**
+     * Reads the newest tickets closed by a user.
+     *
+     * @param closerId The Discord ID of the user that closed the tickets.
+     * @param type     If not null, only tickets of this type are included.
+     * @param limit    The maximum number of tickets to read.
+     * @return The tickets, newest first.
+     * @throws SQLException If the tickets couldn't be read.
+     */
+    AWTicket[] loadByCloser(long closerId, @Nullable AWTicket.Type type, int limit) throws SQLException;
+
+    /**
+     * Counts the tickets opened by a user.
+     *
+     * @param ownerId The Discord ID of the ticket owner.
+     * @param type    If not null, only tickets of this type are counted.
+     * @return The number of tickets.
+     * @throws SQLException If the tickets couldn't be counted.
+     */
+    int countByOwner(long ownerId, @Nullable AWTicket.Type type) throws SQLException;
+
+    /**
+     * Counts the tickets closed by a user.
+     *
+     * @param closerId The Discord ID of the user that closed the tickets.
+     * @param type     If not null, only tickets of this type are counted.
+     * @return The number of tickets.
+     * @throws SQLException If the tickets couldn't be counted.
+     */
+    int countByCloser(long closerId, @Nullable AWTicket.Type type) throws SQLException;
+
+    /**
+     * @return The highest ticket ID ever stored, or 0 if there are no tickets.
+     * @throws SQLException If the tickets couldn't be read.
+     */
+    long maxId() throws SQLException;
+
+    /**
+     * Reads a page of the tickets opened by a user. See {@link TicketSummary#historyByOwner}.
+     *
+     * @param ownerId The Discord ID of the ticket owner.
+     * @param type    If not null, only tickets of this type are included.
+     * @param after   Where the page starts; only tickets older than this cursor are included.
+     * @param limit   The maximum number of tickets in the page.
+     * @return The page of tickets, newest first.
+     * @throws SQLException If the tickets couldn't be read.
+     */
+    TicketSummary[] historyByOwner(long ownerId, @Nullable AWTicket.Type type, TicketSummary.Cursor after, int limit) throws SQLException;
+
+    /**
+     * Reads a page of the tickets closed by a user. See {@link TicketSummary#historyByCloser}.
+     *
+     * @param closerId The Discord ID of the user that closed the tickets.
+     * @param type     If not null, only tickets of this type are included.
+     * @param after    Where the page starts; only tickets older than this cursor are included.
+     * @param limit    The maximum number of tickets in the page.
+     * @return The page of tickets, newest first.
+     * @throws SQLException If the tickets couldn't be read.
+     */
+    TicketSummary[] historyByCloser(long closerId, @Nullable AWTicket.Type type, TicketSummary.Cursor after, int limit) throws SQLException;
+
+    /**
+     * Finds where a ticket is in the ticket histories.
+     *
+     * @param ticketId The ID of the ticket.
+     * @return A cursor pointing at the ticket, or {@code null} if there's no ticket with that ID.
+     * @throws SQLException If the ticket couldn't be read.
+     */
+    @Nullable
+    TicketSummary.Cursor cursorOf(long ticketId) throws SQLException;
+
+    /**
+     * Writes a ticket with its current state, creating it if it's new. The first time a ticket is written as closed,
+     * the time is recorded as when it was closed.
+     *
+     * @param ticket The ticket to write.
+     * @throws SQLException If the ticket couldn't be written.
+     */
+    void save(AWTicket ticket) throws SQLException;
+
+    /**
+     * Deletes a ticket along with its evidence links.
+     *
+     * @param id The ID of the ticket.
+     * @throws SQLException If the ticket couldn't be deleted.
+     */
+    void delete(long id) throws SQLException;
+}
@@ -0,0 +1,36 @@
+package org.lukecreator.aw.data.repository;
+
+import org.lukecreator.aw.data.AWUnban;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Storage for the unbans of each player.
+ */
+public interface UnbanRepository {
+    /**
+     * Reads every unban of a player.
+     *
+     * @param userId The Roblox user ID of the player.
+     * @return The player's unbans, oldest first.
+     * @throws SQLException If the unbans couldn't be read.
+     */
+    List<AWUnban> load(long userId) throws SQLException;
+
+    /**
+     * Writes unbans, in order. Either every unban is written, or none are.
+     *
+     * @param unbans The unbans to write.
+     * @throws SQLException If the unbans couldn't be written.
+     */
+    void add(List<AWUnban> unbans) throws SQLException;
+
+    /**
+     * Deletes every unban of a player.
+     *
+     * @param userId The Roblox user ID of the player.
+     * @throws SQLException If the unbans couldn't be deleted.
+     */
+    void clear(long userId) throws SQLException;
+}
@@ -121,6 +121,23 @@ public class AWPlayerReportTicket extends AWTicket {
         return channel.sendMessage(message).setAllowedMentions(Collections.emptySet());
     }
 
+    /**
+     * Makes a timeout callback for a request sent to the game while closing a ticket. The ticket's channel is deleted
+     * by the time the request expires, so the moderator who closed it is told in the #in-game-punishments channel.
+     *
+     * @param jda       The API instance to use.
+     * @param moderator The moderator who closed the ticket.
+     * @param ticketId  The ID of the ticket.
+     * @param outcome   What may not have happened, like "the ban may not have gone through".
+     * @return The callback, to pass to {@link PendingRequest#onTimeout(Runnable)}.
+     */
+    public static Runnable reportTimeout(JDA jda, User moderator, long ticketId, String outcome) {
+        return () -> sendInGamePunishmentsMessage(jda, "%s, the game didn't respond in time after ticket #%d was closed, so %s. Check `/aw-ban-status` before trying again."
+                .formatted(moderator.getAsMention(), ticketId, outcome))
+                .mention(moderator)
+                .queue();
+    }
+
     /**
      * Returns if the given URL is part of our supported service list.
      *
@@ -845,6 +862,9 @@ public class AWPlayerReportTicket extends AWTicket {
                 // finish the chain
                 onFinishedLoading.accept(true);
                 return;
+            }).onTimeout(() -> {
+                event.getHook().editOriginal("Ability Wars didn't respond in time, so I couldn't check the user you tried to report. Please try again in a couple of minutes.").queue();
+                onFinishedLoading.accept(false);
             });
 
             PendingRequests.add(request);
@@ -856,6 +856,8 @@ public abstract class AWUnbanTicket extends AWTicket {
                 closeReason += "\n\nBot note: I wasn't able to unban you automagically, please reach out to a moderator and have them unban you!";
             } else {
                 UnbanRequest unbanRequest = new UnbanRequest(PendingRequest.getNextRequestId(), this.robloxIdToUnban, moderatorId);
+                unbanRequest.onTimeout(AWPlayerReportTicket.reportTimeout(jda, closedByUser, this.id,
+                        "the unban may not have gone through"));
                 PendingRequests.add(unbanRequest);
             }
         }
@@ -1037,33 +1039,42 @@ public abstract class AWUnbanTicket extends AWTicket {
                 return;
             }
 
-            // check for blacklist
-            AWPlayer player = AWPlayer.loadFromDatabase(this.robloxIdToUnban,
-                    true, true, true, false);
-            if (player.isAppealBlacklisted()) {
-                event.getHook().editOriginal("The Roblox user [%s](%s) is blacklisted. This ticket cannot be opened.".formatted(this.robloxUserToUnban.username(), this.robloxUserToUnban.getProfileURL())).queue();
-                onFinishedLoading.accept(false);
-                return;
-            }
-
-            // make sure the user is actually banned.
-            PendingRequest infoRequest = new InfoRequest(PendingRequest.getNextRequestId(), this.robloxIdToUnban).onFulfilled(info -> {
-                this.temporaryInfoFulfillment = (InfoFulfillment) info;
-                if (!this.temporaryInfoFulfillment.isCurrentlyBanned()) {
-                    // we didn't ban this user. so either they have the wrong account, or they're IP banned on another account
-                    event.getHook().editOriginal("The Roblox user [%s](%s) is not currently banned from the game. This ticket cannot be opened.".formatted(this.robloxUserToUnban.username(), this.robloxUserToUnban.getProfileURL()))
-                            .setComponents(ActionRow.of(Button.secondary(AbilityWarsBot.BUTTON_ID_EXPLAIN_IP_BAN, "I still can't join")))
-                            .queue();
+            // check for blacklist. the rest picks up back on the interaction thread, since it changes the ticket.
+            AWPlayer.loadFromDatabaseAsync(this.robloxIdToUnban, true, true, true, false).whenCompleteAsync((player, error) -> {
+                if (error != null) {
+                    error.printStackTrace();
+                    event.getHook().editOriginal("I encountered an issue while looking through my database. Pls report! Here's the error:\n```\n" + error + "\n```").queue();
+                    onFinishedLoading.accept(false);
+                    return;
+                }
+                if (player.isAppealBlacklisted()) {
+                    event.getHook().editOriginal("The Roblox user [%s](%s) is blacklisted. This ticket cannot be opened.".formatted(this.robloxUserToUnban.username(), this.robloxUserToUnban.getProfileURL())).queue();
                     onFinishedLoading.accept(false);
                     return;
                 }
 
-                // check for any other tickets that are appealing for the same account
-                this.collectRelatedTickets(true);
-                onFinishedLoading.accept(true);
-                return;
-            });
-            PendingRequests.add(infoRequest);
+                // make sure the user is actually banned.
+                PendingRequest infoRequest = new InfoRequest(PendingRequest.getNextRequestId(), this.robloxIdToUnban).onFulfilled(info -> {
+                    this.temporaryInfoFulfillment = (InfoFulfillment) info;
+                    if (!this.temporaryInfoFulfillment.isCurrentlyBanned()) {
+                        // we didn't ban this user. so either they have the wrong account, or they're IP banned on another account
+                        event.getHook().editOriginal("The Roblox user [%s](%s) is not currently banned from the game. This ticket cannot be opened.".formatted(this.robloxUserToUnban.username(), this.robloxUserToUnban.getProfileURL()))
+                                .setComponents(ActionRow.of(Button.secondary(AbilityWarsBot.BUTTON_ID_EXPLAIN_IP_BAN, "I still can't join")))
+                                .queue();
+                        onFinishedLoading.accept(false);
+                        return;
+                    }
+
+                    // check for any other tickets that are appealing for the same account
+                    this.collectRelatedTickets(true);
+                    onFinishedLoading.accept(true);
+                    return;
+                }).onTimeout(() -> {
+                    event.getHook().editOriginal("Ability Wars didn't respond in time, so I couldn't check if [%s](%s) is banned. Please try again in a couple of minutes.".formatted(this.robloxUserToUnban.username(), this.robloxUserToUnban.getProfileURL())).queue();
+                    onFinishedLoading.accept(false);
+                });
+                PendingRequests.add(infoRequest);
+            }, AbilityWarsBot.interactions());
         }
     }
 }
@@ -27,6 +27,7 @@ import net.dv8tion.jda.api.requests.GatewayIntent;
 import net.dv8tion.jda.api.requests.restaction.CommandListUpdateAction;
 import org.apache.commons.text.similarity.LevenshteinDistance;
 import org.jetbrains.annotations.NotNull;
+import org.lukecreator.aw.AWDatabase;
 import org.lukecreator.aw.data.AWEvidence;
 import org.lukecreator.aw.data.AWTicket;
 import org.lukecreator.aw.data.AWTicketsManager;
@@ -38,6 +39,9 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 
 /**
@@ -67,6 +71,8 @@ public class AbilityWarsBot extends ListenerAdapter {
             new RobloxLinkCommand(),
             new RobloxSearchCommand(),
             new StatsCommand(),
+            new GamepassOwnersCommand(),
+            new SearchCommand(),
             new BanCheckCommand(),
             new BanCommand(),
             new MassbanCommand(),
@@ -114,6 +120,44 @@ public class AbilityWarsBot extends ListenerAdapter {
         action.addCommands(data).queue();
     }
 
+    /**
+     * Runs event handlers off JDA's event thread, so a slow handler doesn't hold up the gateway. There's a single thread,
+     * so handlers still run one at a time and in the order their events arrived, like they would on JDA's thread;
+     * tickets and other shared state never see two events at once. Handlers also wait on things like the Roblox API,
+     * so they're kept off the database executor, which is left for the database work they hand off to it.
+     */
+    private static final ExecutorService interactionThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "aw-interactions");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @return The executor event handlers run on. Callbacks of async database work that touch a ticket (or anything else
+     * shared between handlers) should be run on this too, e.g. with {@code thenAcceptAsync(..., interactions())}.
+     */
+    public static Executor interactions() {
+        return interactionThread;
+    }
+
+    /**
+     * Hands an event off to the interaction thread (see {@link #interactions()}). Handlers deal with their own errors;
+     * anything that slips through is only logged.
+     *
+     * @param description What's being handled, for the log.
+     * @param handler     The handler to run.
+     */
+    private static void offload(String description, AWDatabase.SQLRunnable handler) {
+        interactionThread.execute(() -> {
+            try {
+                handler.run();
+            } catch (Throwable error) {
+                System.err.println("Unhandled error while handling " + description + ":");
+                error.printStackTrace();
+            }
+        });
+    }
+
     @Override
     public void onReady(@NotNull ReadyEvent event) {
         System.out.println("Ability Warden is ready to roll! Loading tickets from database...");
@@ -140,11 +184,8 @@ public class AbilityWarsBot extends ListenerAdapter {
                 Consumer<User> acceptDeletedUser = (user) -> {
                     boolean hasUser = user != null;
                     JDA jda = hasUser ? user.getJDA() : event.getJDA();
-                    try {
-                        ticketTest.close(jda, hasUser ? user : jda.getSelfUser(), "No reason specified. (channel was deleted)", null, null);
-                    } catch (SQLException e) {
-                        e.printStackTrace();
-                    }
+                    offload("deleted ticket channel #" + tc.getName(), () ->
+                            ticketTest.close(jda, hasUser ? user : jda.getSelfUser(), "No reason specified. (channel was deleted)", null, null));
                 };
 
                 // try to get who did it from the Audit Log
@@ -177,12 +218,16 @@ public class AbilityWarsBot extends ListenerAdapter {
         AWTicket ticketTest = AWTicketsManager.getTicketFromCacheByDiscordChannel(tc);
         if (ticketTest != null) {
             // signal to the ticket about the message
-            ticketTest.onMessageReceived(event);
+            offload("message in #" + tc.getName(), () -> ticketTest.onMessageReceived(event));
         }
     }
 
     @Override
     public void onMessageContextInteraction(MessageContextInteractionEvent event) {
+        offload("context command " + event.getName(), () -> this.handleMessageContextInteraction(event));
+    }
+
+    private void handleMessageContextInteraction(MessageContextInteractionEvent event) {
         String contextCommandName = event.getName().toUpperCase();
 
         // for now, the only context commands we have are for use in tickets only by staff.
@@ -242,6 +287,10 @@ public class AbilityWarsBot extends ListenerAdapter {
 
     @Override
     public void onSlashCommandInteraction(SlashCommandInteractionEvent event) {
+        offload("command /" + event.getFullCommandName(), () -> this.handleSlashCommandInteraction(event));
+    }
+
+    private void handleSlashCommandInteraction(SlashCommandInteractionEvent event) {
         if (!event.isFromGuild() || event.getGuild() == null) {
             event.reply("This bot can only be used in a server.").setEphemeral(true).queue();
             return;
@@ -270,6 +319,10 @@ public class AbilityWarsBot extends ListenerAdapter {
 
     @Override
     public void onButtonInteraction(ButtonInteractionEvent event) {
+        offload("button " + event.getComponentId(), () -> this.handleButtonInteraction(event));
+    }
+
+    private void handleButtonInteraction(ButtonInteractionEvent event) {
         if (!event.isFromGuild() || event.getGuild() == null) {
             event.reply("This bot can only be used in a server.").setEphemeral(true).queue();
             return;
@@ -397,6 +450,10 @@ public class AbilityWarsBot extends ListenerAdapter {
 
     @Override
     public void onModalInteraction(ModalInteractionEvent event) {
+        offload("modal " + event.getModalId(), () -> this.handleModalInteraction(event));
+    }
+
+    private void handleModalInteraction(ModalInteractionEvent event) {
         if (!event.isFromGuild()) {
             event.reply("This bot can only be used in a server.").setEphemeral(true).queue();
             return;
@@ -439,13 +496,11 @@ public class AbilityWarsBot extends ListenerAdapter {
                             String successMessage = "Your ticket has been successfully opened: " + channel.getAsMention();
 
                             // we're done with the ticket for now, update it in the database
-                            try {
-                                ticket.updateInDatabase();
-                            } catch (SQLException e) {
-                                e.printStackTrace();
-                            } finally {
+                            AWDatabase.runAsync(ticket::updateInDatabase).whenComplete((ignored, error) -> {
+                                if (error != null)
+                                    error.printStackTrace();
                                 event.getInteraction().getHook().editOriginal(successMessage).queue();
-                            }
+                            });
                         }), (error -> event.getHook().editOriginal("Failed to open the ticket. Error from Discord: `%s`".formatted(error.getMessage() != null ? error.getMessage() : "No message provided")).queue()));
                     });
                 } catch (java.sql.SQLException e) {
@@ -323,6 +323,8 @@ public class ActionModals {
                 ticket.id
         );
 
+        banRequest.onTimeout(AWPlayerReportTicket.reportTimeout(event.getJDA(), closedBy, ticket.id,
+                "the ban may not have gone through"));
         PendingRequests.add(banRequest);
 
         // close the ticket
@@ -387,6 +389,8 @@ public class ActionModals {
                 ticket.getEvidenceId(),
                 ticket.id
         );
+        banRequest.onTimeout(AWPlayerReportTicket.reportTimeout(event.getJDA(), closedBy, ticket.id,
+                "the ban may not have gone through"));
         PendingRequests.add(banRequest);
 
         // close the ticket
@@ -467,6 +471,8 @@ public class ActionModals {
                     ticket.getEvidenceId(),
                     ticket.id
             );
+            banRequest.onTimeout(AWPlayerReportTicket.reportTimeout(event.getJDA(), closedBy, ticket.id,
+                    "the temp-ban may not have gone through"));
             PendingRequests.add(banRequest);
 
             // close the ticket
@@ -552,6 +558,8 @@ public class ActionModals {
                     ticket.getEvidenceId(),
                     ticket.id
             );
+            banRequest.onTimeout(AWPlayerReportTicket.reportTimeout(event.getJDA(), closedBy, ticket.id,
+                    "the temp-ban may not have gone through"));
             PendingRequests.add(banRequest);
 
             // close the ticket
@@ -631,6 +639,8 @@ public class ActionModals {
             // send a new ban request to correct the duration
             PendingRequest request = new BanRequest(PendingRequest.getNextRequestId(), userIdToBan, moderatorId,
                     "Ban length correction", isPermanent, isPermanent ? 0L : durationMs, null, ticket.id);
+            request.onTimeout(AWPlayerReportTicket.reportTimeout(event.getJDA(), closedBy, ticket.id,
+                    "the ban duration may not have been changed"));
             PendingRequests.add(request);
 
             // close the ticket with no further action
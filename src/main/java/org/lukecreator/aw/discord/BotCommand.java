@@ -115,5 +115,13 @@ public abstract class BotCommand {
      */
     public abstract SlashCommandData constructCommand();
 
+    /**
+     * Runs this command. Called on the bot's interaction thread (see {@link AbilityWarsBot#interactions()}) rather than
+     * JDA's event thread, one event at a time. Database work that can run alongside other work, like a count next to a
+     * page of results, can use the data layer's async variants.
+     *
+     * @param e The event of the command being used.
+     * @throws SQLException If something went wrong with the database; the user is told to try again later.
+     */
     public abstract void execute(SlashCommandInteractionEvent e) throws SQLException;
 }
@@ -232,7 +232,8 @@ public class BanCheckCommand extends BotCommand {
                     if (!getEvidence && !player.bans.isCurrentlyBanned())
                         edit.setComponents(ActionRow.of(Button.secondary(AbilityWarsBot.BUTTON_ID_EXPLAIN_IP_BAN, "I still can't join")));
                     edit.queue();
-                });
+                })
+                .onTimeout(() -> e.getInteraction().getHook().editOriginal("The game didn't respond in time, so I couldn't check their ban status. Try again in a couple of minutes.").queue());
         PendingRequests.add(request);
     }
 }
\ No newline at end of file
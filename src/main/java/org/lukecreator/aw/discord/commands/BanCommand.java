@@ -93,7 +93,8 @@ public class BanCommand extends BotCommand {
                     if (report != null)
                         AWPlayerReportTicket.sendInGamePunishmentsMessage(e.getJDA(), report).queue();
                 })
-                .onNoPermission(() -> e.getInteraction().getHook().editOriginal("You don't have permission to ban users in-game.").queue());
+                .onNoPermission(() -> e.getInteraction().getHook().editOriginal("You don't have permission to ban users in-game.").queue())
+                .onTimeout(() -> e.getInteraction().getHook().editOriginal("The game didn't respond in time, so the ban may not have gone through. Check `/aw-ban-status` before trying again.").queue());
         PendingRequests.add(request);
     }
 }
@@ -0,0 +1,67 @@
+package org.lukecreator.aw.discord.commands;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import org.lukecreator.aw.RobloxAPI;
+import org.lukecreator.aw.data.AWStats;
+import org.lukecreator.aw.discord.BotCommand;
+import org.lukecreator.aw.discord.StaffRoles;
+
+import java.awt.*;
+import java.sql.SQLException;
+
+public class GamepassOwnersCommand extends BotCommand {
+    /**
+     * The maximum number of owners listed in the reply.
+     */
+    private static final int MAX_LISTED_OWNERS = 25;
+
+    public GamepassOwnersCommand() {
+        super("aw-gamepass-owners", "(staff only) List the players that own a gamepass, e.g. for data/gift loss tickets.");
+    }
+
+    @Override
+    public SlashCommandData constructCommand() {
+        return Commands.slash(this.name, this.description)
+                .addOption(OptionType.INTEGER, "gamepass", "The ID of the gamepass.", true);
+    }
+
+    @Override
+    public void execute(SlashCommandInteractionEvent e) throws SQLException {
+        if (StaffRoles.blockIfNotStaff(e))
+            return;
+
+        OptionMapping gamepassMapping = e.getOption("gamepass");
+        if (gamepassMapping == null) {
+            e.reply("Gamepass wasn't present?").setEphemeral(true).queue();
+            return;
+        }
+
+        // send "bot is thinking...", since the gamepass's name comes from Roblox
+        e.deferReply(true).queue();
+
+        long gamepassId = gamepassMapping.getAsLong();
+        int ownerCount = AWStats.countOwners(gamepassId);
+        long[] owners = AWStats.ownersOf(gamepassId, MAX_LISTED_OWNERS);
+
+        RobloxAPI.Gamepass gamepass = RobloxAPI.getGamepassById(gamepassId);
+        String gamepassName = gamepass == null ? "Gamepass " + gamepassId : gamepass.name();
+
+        StringBuilder ownerList = new StringBuilder();
+        for (long owner : owners)
+            ownerList.append("[`%d`](https://www.roblox.com/users/%d/profile)\n".formatted(owner, owner));
+        if (ownerCount > owners.length)
+            ownerList.append("...and ").append(ownerCount - owners.length).append(" more.");
+
+        EmbedBuilder eb = new EmbedBuilder()
+                .setTitle("Owners of " + gamepassName, gamepass == null ? null : gamepass.getURL())
+                .setColor(Color.CYAN)
+                .setDescription(ownerCount == 0 ? "Nobody owns this gamepass." : ownerList.toString())
+                .addField("Owner Count", String.format("%,d", ownerCount), true);
+        e.getHook().editOriginalEmbeds(eb.build()).queue();
+    }
+}
@@ -102,6 +102,7 @@ public class MassbanCommand extends BotCommand {
                     }
                 });
                 request.onNoPermission(() -> channel.sendMessage(e.getUser().getAsMention() + ", you don't have permission to ban users in-game.").queue());
+                request.onTimeout(() -> channel.sendMessage(e.getUser().getAsMention() + ", the game didn't respond in time, so user " + entry.username + " may not have been banned. Check `/aw-ban-status` before trying again.").queue());
                 PendingRequests.add(request);
             }
         } catch (SQLException ex) {
@@ -121,23 +122,27 @@ public class MassbanCommand extends BotCommand {
             return;
 
         long userId = e.getUser().getIdLong();
-        Long linkedRobloxId = DiscordRobloxLinks.robloxIdFromDiscordId(userId);
-
-        if (linkedRobloxId == null) {
-            e.reply("Couldn't get your Roblox ID from your Discord ID. If you haven't already, get your accounts linked with an administrator.").setEphemeral(false).queue();
-            return;
-        }
-
-        Modal modal = Modal.create("massban_" + linkedRobloxId, "Massban GUI")
-                .addComponents(
-                        Label.of("Ban List", TextInput.create("bans", TextInputStyle.PARAGRAPH)
-                                .setRequired(true)
-                                .setPlaceholder("username 1\nreason 1\nusername 2\nreason 2\netc...")
-                                .build()
-                        )
-                ).build();
+        DiscordRobloxLinks.robloxIdFromDiscordIdAsync(userId).whenComplete((linkedRobloxId, error) -> {
+            if (error != null) {
+                e.reply("The Ability Wars database messed up somehow; try again later.").setEphemeral(false).queue();
+                return;
+            }
+            if (linkedRobloxId == null) {
+                e.reply("Couldn't get your Roblox ID from your Discord ID. If you haven't already, get your accounts linked with an administrator.").setEphemeral(false).queue();
+                return;
+            }
 
-        e.replyModal(modal).queue();
+            Modal modal = Modal.create("massban_" + linkedRobloxId, "Massban GUI")
+                    .addComponents(
+                            Label.of("Ban List", TextInput.create("bans", TextInputStyle.PARAGRAPH)
+                                    .setRequired(true)
+                                    .setPlaceholder("username 1\nreason 1\nusername 2\nreason 2\netc...")
+                                    .build()
+                            )
+                    ).build();
+
+            e.replyModal(modal).queue();
+        });
     }
 
     private record ResolvedMassbanEntry(long id, String username, String reason, long responsibleModerator) {
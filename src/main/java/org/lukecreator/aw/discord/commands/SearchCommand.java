@@ -0,0 +1,145 @@
+package org.lukecreator.aw.discord.commands;
+
+import net.dv8tion.jda.api.EmbedBuilder;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.interactions.commands.OptionMapping;
+import net.dv8tion.jda.api.interactions.commands.OptionType;
+import net.dv8tion.jda.api.interactions.commands.build.Commands;
+import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
+import org.lukecreator.aw.data.AWBan;
+import org.lukecreator.aw.data.AWEvidence;
+import org.lukecreator.aw.data.SearchIndex;
+import org.lukecreator.aw.data.TicketSummary;
+import org.lukecreator.aw.discord.BotCommand;
+import org.lukecreator.aw.discord.StaffRoles;
+
+import java.awt.*;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SearchCommand extends BotCommand {
+    /**
+     * The number of results on each page.
+     */
+    private static final int PAGE_SIZE = 10;
+    /**
+     * The longest a single result is allowed to be in the embed, so a full page always fits in the description.
+     */
+    private static final int MAX_RESULT_LENGTH = MessageEmbed.DESCRIPTION_MAX_LENGTH / PAGE_SIZE - 16;
+
+    public SearchCommand() {
+        super("aw-search", "(staff only) Search ban reasons, evidence details or ticket answers.");
+    }
+
+    /**
+     * Makes a snippet fit on a single line of the result list.
+     */
+    private static String oneLine(String snippet) {
+        return snippet == null ? "" : snippet.replaceAll("\\s+", " ").trim();
+    }
+
+    private static String describeBan(SearchIndex.Hit<AWBan> hit) {
+        AWBan ban = hit.item();
+        String moderator = ban.responsibleModerator() == null ? "unknown" : "`" + ban.responsibleModerator() + "`";
+        return "[`%d`](https://www.roblox.com/users/%d/profile) on <t:%d:d> by %s: %s".formatted(
+                ban.userId(), ban.userId(), ban.starts() / 1000L, moderator, oneLine(hit.snippet()));
+    }
+
+    private static String describeEvidence(SearchIndex.Hit<AWEvidence> hit) {
+        AWEvidence evidence = hit.item();
+        String accused = evidence.accusedUserRobloxId == null ? "" : " against `" + evidence.accusedUserRobloxId + "`";
+        String link = evidence.url == null ? "" : " ([link](" + evidence.url + "))";
+        return "Evidence %d%s on <t:%d:d>: %s%s".formatted(
+                evidence.evidenceId, accused, evidence.timestamp / 1000L, oneLine(hit.snippet()), link);
+    }
+
+    private static String describeTicket(SearchIndex.Hit<TicketSummary> hit) {
+        TicketSummary ticket = hit.item();
+        String status = ticket.isOpen() ? "open: <#" + ticket.discordChannelId() + ">" : "closed";
+        return "%s%d (%s) opened <t:%d:d>: %s".formatted(
+                ticket.type().channelPrefix, ticket.id(), status, ticket.openedTimestamp() / 1000L, oneLine(hit.snippet()));
+    }
+
+    @Override
+    public SlashCommandData constructCommand() {
+        return Commands.slash(this.name, this.description)
+                .addOptions(
+                        new OptionData(OptionType.STRING, "in", "What to search.", true)
+                                .addChoice("Ban reasons", "bans")
+                                .addChoice("Evidence details", "evidence")
+                                .addChoice("Ticket answers", "tickets"),
+                        new OptionData(OptionType.STRING, "query", "The words to search for. End a word with * to match anything starting with it.", true),
+                        new OptionData(OptionType.INTEGER, "page", "The page of results to show. (defaults to 1)", false)
+                                .setRequiredRange(1, SearchIndex.MAX_RANKED_MATCHES / PAGE_SIZE)
+                );
+    }
+
+    @Override
+    public void execute(SlashCommandInteractionEvent e) throws SQLException {
+        if (StaffRoles.blockIfNotStaff(e))
+            return;
+
+        OptionMapping inMapping = e.getOption("in");
+        OptionMapping queryMapping = e.getOption("query");
+        OptionMapping pageMapping = e.getOption("page");
+        if (inMapping == null || queryMapping == null) {
+            e.reply("Both what to search and the query are required.").setEphemeral(true).queue();
+            return;
+        }
+
+        String query = queryMapping.getAsString();
+        if (SearchIndex.toMatchQuery(query) == null) {
+            e.reply("There's nothing to search for in that query.").setEphemeral(true).queue();
+            return;
+        }
+        int page = pageMapping == null ? 1 : pageMapping.getAsInt();
+
+        String title;
+        List<String> results = new ArrayList<>();
+        boolean hasMore;
+        switch (inMapping.getAsString()) {
+            case "bans" -> {
+                title = "Ban Reasons";
+                var found = SearchIndex.searchBans(query, page, PAGE_SIZE);
+                found.hits().forEach(hit -> results.add(describeBan(hit)));
+                hasMore = found.hasMore();
+            }
+            case "evidence" -> {
+                title = "Evidence Details";
+                var found = SearchIndex.searchEvidence(query, page, PAGE_SIZE);
+                found.hits().forEach(hit -> results.add(describeEvidence(hit)));
+                hasMore = found.hasMore();
+            }
+            case "tickets" -> {
+                title = "Ticket Answers";
+                var found = SearchIndex.searchTickets(query, page, PAGE_SIZE);
+                found.hits().forEach(hit -> results.add(describeTicket(hit)));
+                hasMore = found.hasMore();
+            }
+            default -> {
+                e.reply("Unknown thing to search: `" + inMapping.getAsString() + "`").setEphemeral(true).queue();
+                return;
+            }
+        }
+
+        EmbedBuilder eb = new EmbedBuilder()
+                .setTitle("Search: " + title)
+                .setColor(Color.CYAN);
+        if (results.isEmpty()) {
+            eb.setDescription(page == 1 ? "Nothing matched your search." : "There are no results on page %d.".formatted(page));
+        } else {
+            for (String result : results) {
+                if (result.length() > MAX_RESULT_LENGTH)
+                    result = result.substring(0, MAX_RESULT_LENGTH - 3) + "...";
+                eb.appendDescription("- " + result + "\n");
+            }
+        }
+        eb.setFooter(hasMore
+                ? "Page %d. Use page:%d to see more results.".formatted(page, page + 1)
+                : "Page %d. Best matches first.".formatted(page));
+        e.replyEmbeds(eb.build()).setEphemeral(true).queue();
+    }
+}
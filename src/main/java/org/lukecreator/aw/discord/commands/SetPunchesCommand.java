@@ -62,7 +62,8 @@ public class SetPunchesCommand extends BotCommand {
                     long newPunches = fulfillment.newPunches;
                     e.getInteraction().getHook().editOriginal("Changed [" + targetUser.username() + "](" + targetUser.getProfileURL() + ")'s punches from " + oldPunches + " to " + newPunches + " successfully.").queue();
                 })
-                .onNoPermission(() -> e.getInteraction().getHook().editOriginal("You don't have permission to set punches in-game.").queue());
+                .onNoPermission(() -> e.getInteraction().getHook().editOriginal("You don't have permission to set punches in-game.").queue())
+                .onTimeout(() -> e.getInteraction().getHook().editOriginal("The game didn't respond in time, so their punches may not have been changed. Check `/aw-stats` before trying again.").queue());
         PendingRequests.add(request);
     }
 }
@@ -81,7 +81,8 @@ public class StatsCommand extends BotCommand {
                                     .addField("Is Banned?", (isBanned) ? "Yes (see `/aw-ban-status`)" : "No", true)
                                     .build()
                     ).queue();
-                }));
+                }))
+                .onTimeout(() -> e.getInteraction().getHook().editOriginal("The game didn't respond in time, so I couldn't get their stats. Try again in a couple of minutes.").queue());
         PendingRequests.add(request);
     }
 }
@@ -98,7 +98,8 @@ public class TempbanCommand extends BotCommand {
                     if (report != null)
                         AWPlayerReportTicket.sendInGamePunishmentsMessage(e.getJDA(), report).queue();
                 })
-                .onNoPermission(() -> e.getInteraction().getHook().editOriginal("You don't have permission to ban users in-game.").queue());
+                .onNoPermission(() -> e.getInteraction().getHook().editOriginal("You don't have permission to ban users in-game.").queue())
+                .onTimeout(() -> e.getInteraction().getHook().editOriginal("The game didn't respond in time, so the temp-ban may not have gone through. Check `/aw-ban-status` before trying again.").queue());
         PendingRequests.add(request);
     }
 }
@@ -10,8 +10,8 @@ import net.dv8tion.jda.api.interactions.commands.OptionType;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
 import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
 import org.lukecreator.aw.RobloxAPI;
-import org.lukecreator.aw.data.AWBans;
 import org.lukecreator.aw.data.DiscordRobloxLinks;
+import org.lukecreator.aw.data.StaffBanCounts;
 import org.lukecreator.aw.discord.AbilityWarsBot;
 import org.lukecreator.aw.discord.BotCommand;
 import org.lukecreator.aw.discord.StaffRoles;
@@ -101,7 +101,8 @@ public class TicketCountAllCommand extends BotCommand {
             weekStart = calculateWeekStart(currentTimeMillis);
         }
 
-        // collect all staff members and count their tickets.
+        // collect all staff members and look up their tickets.
+        HashMap<Long, Integer> ticketCounts = StaffBanCounts.countsForWeek(weekStart);
         e.reply("Counting tickets... This may take a little while.").setEphemeral(false).queue();
         HashMap<Long, Long> discordRobloxLinks = DiscordRobloxLinks.getAllLinks();
 
@@ -131,13 +132,8 @@ public class TicketCountAllCommand extends BotCommand {
                 if (roblox == null)
                     continue;
 
-                // count the number of tickets this staff has done
-                try {
-                    int ticketCount = AWBans.countBansByStaff(robloxId, weekStart, weekEnd);
-                    eb.appendDescription("\n- %s %d".formatted(roblox.username(), ticketCount));
-                } catch (SQLException ex) {
-                    ex.printStackTrace();
-                }
+                int ticketCount = ticketCounts.getOrDefault(robloxId, 0);
+                eb.appendDescription("\n- %s %d".formatted(roblox.username(), ticketCount));
             }
             e.getHook().editOriginalEmbeds(eb.build()).setContent("Completed after %dms".formatted(System.currentTimeMillis() - startedMs)).queue();
         }).onError(throwable -> {
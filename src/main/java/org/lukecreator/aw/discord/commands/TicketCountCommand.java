@@ -7,8 +7,8 @@ import net.dv8tion.jda.api.interactions.commands.OptionMapping;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
 import net.dv8tion.jda.api.interactions.commands.build.Commands;
 import net.dv8tion.jda.api.interactions.commands.build.SlashCommandData;
-import org.lukecreator.aw.data.AWBans;
 import org.lukecreator.aw.data.DiscordRobloxLinks;
+import org.lukecreator.aw.data.StaffBanCounts;
 import org.lukecreator.aw.discord.BotCommand;
 import org.lukecreator.aw.discord.StaffRoles;
 
@@ -114,8 +114,8 @@ public class TicketCountCommand extends BotCommand {
             weekStart = calculateWeekStart(currentTimeMillis);
         }
 
-        // count all bans between the two dates
-        int ticketCount = AWBans.countBansByStaff(staffRobloxId, weekStart, weekEnd);
+        // count all bans during the week
+        int ticketCount = StaffBanCounts.countForStaff(staffRobloxId, weekStart);
         e.replyEmbeds(buildTicketCountEmbed(staff, ticketCount, lastWeek, weekStart, weekEnd).build()).queue();
     }
 }
@@ -15,6 +15,7 @@ import net.dv8tion.jda.api.requests.restaction.pagination.PaginationAction;
 import org.jetbrains.annotations.NotNull;
 import org.lukecreator.aw.data.AWTicket;
 import org.lukecreator.aw.data.AWTicketsManager;
+import org.lukecreator.aw.data.TicketSummary;
 import org.lukecreator.aw.data.tickets.AWPlayerReportTicket;
 import org.lukecreator.aw.data.tickets.AWUnbanTicket;
 import org.lukecreator.aw.discord.AbilityWarsBot;
@@ -24,6 +25,7 @@ import org.lukecreator.aw.discord.StaffRoles;
 import java.awt.*;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class TicketManageCommand extends BotCommand {
     private static final long DISCORD_PUNISHMENTS_CHANNEL = 1329630636499144764L;
@@ -61,12 +63,16 @@ public class TicketManageCommand extends BotCommand {
                                         new OptionData(OptionType.USER, "user", "The Discord user to get ticket history for.", true),
                                         new OptionData(OptionType.STRING, "type-filter", "The type of ticket to filter by, if specified.", false)
                                                 .addChoices(AWTicket.Type.AS_COMMAND_CHOICES)
+                                ,
+                                        new OptionData(OptionType.INTEGER, "before", "Only show tickets older than this ticket ID. Used to see the next page.", false)
                                 ),
                         new SubcommandData("history-by-closer", "Get ticket history based on the ticket closer.")
                                 .addOptions(
                                         new OptionData(OptionType.USER, "closer", "The user to look up tickets they've closed.", true),
                                         new OptionData(OptionType.STRING, "type-filter", "The type of ticket to filter by, if specified.", false)
                                                 .addChoices(AWTicket.Type.AS_COMMAND_CHOICES)
+                                ,
+                                        new OptionData(OptionType.INTEGER, "before", "Only show tickets older than this ticket ID. Used to see the next page.", false)
                                 ),
                         new SubcommandData("history-by-recent", "Get recently closed tickets.")
                                 .addOptions(
@@ -102,6 +108,37 @@ public class TicketManageCommand extends BotCommand {
         );
     }
 
+    /**
+     * Reads the "before" option of a history subcommand into the cursor the page should start at. If the option
+     * points at a ticket that doesn't exist, the (already deferred) reply is edited to say so.
+     *
+     * @param e The event of the history subcommand.
+     * @return The cursor to start the page at, or {@code null} if the option was invalid and the command should stop.
+     * @throws SQLException If the ticket couldn't be looked up.
+     */
+    private TicketSummary.Cursor getHistoryCursor(SlashCommandInteractionEvent e) throws SQLException {
+        OptionMapping beforeMapping = e.getOption("before");
+        if (beforeMapping == null)
+            return TicketSummary.Cursor.START;
+
+        long beforeTicketId = beforeMapping.getAsLong();
+        TicketSummary.Cursor cursor = TicketSummary.Cursor.ofTicket(beforeTicketId);
+        if (cursor == null)
+            e.getHook().editOriginal("Couldn't find a ticket with the ID `%d`.".formatted(beforeTicketId)).queue();
+        return cursor;
+    }
+
+    /**
+     * If a history page is full, there may be more tickets after it; tells the user how to get to them.
+     */
+    private static void setNextPageFooter(EmbedBuilder eb, TicketSummary[] page) {
+        if (page.length < MessageEmbed.MAX_FIELD_AMOUNT)
+            return;
+        long lastTicketId = page[page.length - 1].id();
+        eb.setFooter("Showing the %d latest entries due to Discord limitation. Use before:%d to see older tickets."
+                .formatted(MessageEmbed.MAX_FIELD_AMOUNT, lastTicketId));
+    }
+
     private void executeHistory(SlashCommandInteractionEvent e) {
         OptionMapping userMapping = e.getOption("user");
         OptionMapping typeFilterMapping = e.getOption("type-filter");
@@ -126,43 +163,43 @@ public class TicketManageCommand extends BotCommand {
         e.deferReply(true).queue();
 
         try {
-            AWTicket[] ticketHistory = typeFilter != null
-                    ? AWTicket.loadByOwner(user, MessageEmbed.MAX_FIELD_AMOUNT, typeFilter)
-                    : AWTicket.loadByOwner(user, MessageEmbed.MAX_FIELD_AMOUNT);
-            int totalTickets = typeFilter != null
-                    ? AWTicket.countByOwner(user, typeFilter)
-                    : AWTicket.countByOwner(user);
-
-            EmbedBuilder eb = new EmbedBuilder()
-                    .setAuthor(user.getName(), null, user.getEffectiveAvatarUrl())
-                    .setTitle("Ticket History")
-                    .setColor(Color.DARK_GRAY)
-                    .setDescription("Found %d tickets by the user %s.".formatted(totalTickets, user.getAsMention()));
-            if (typeFilter != null)
-                eb.appendDescription("\n- Showing only tickets of type **%s**".formatted(typeFilter.title));
-
-            int currentTicketsInEmbed = 0;
-            for (AWTicket ticket : ticketHistory) {
-                if (typeFilter != null && ticket.type() != typeFilter)
-                    continue;
-                StringBuilder ticketDescription = new StringBuilder();
-                ticketDescription.append("- Opened on <t:").append(ticket.openedTimestamp / 1000L).append(":f>\n");
-                if (ticket.isOpen()) {
-                    ticketDescription.append("- Currently open: <#").append(ticket.getDiscordChannelId()).append('>');
-                } else {
-                    ticketDescription.append("- Closed by <@").append(ticket.closedByDiscordId).append('>');
-                    if (ticket.closeReason != null && !ticket.closeReason.isBlank()) {
-                        ticketDescription.append(" For reason:\n-# ").append(ticket.closeReason.replace("\n", "\n-# "));
-                    }
+            TicketSummary.Cursor cursor = this.getHistoryCursor(e);
+            if (cursor == null)
+                return;
+            // the total doesn't depend on the page, so it's counted on another connection while the page is read.
+            final AWTicket.Type shownType = typeFilter;
+            CompletableFuture<Integer> totalTicketsFuture = AWTicket.countByOwnerAsync(user, shownType);
+            TicketSummary[] ticketHistory = TicketSummary.historyByOwner(user.getIdLong(), shownType, cursor, MessageEmbed.MAX_FIELD_AMOUNT);
+
+            totalTicketsFuture.whenComplete((totalTickets, error) -> {
+                if (error != null) {
+                    e.getHook().editOriginal("A database error occurred while retrieving the ticket history:\n```\n" + error + "\n```").queue();
+                    return;
                 }
-                eb.addField(ticket.type().channelPrefix + ticket.id, ticketDescription.toString(), false);
-                currentTicketsInEmbed++;
-                if (currentTicketsInEmbed >= MessageEmbed.MAX_FIELD_AMOUNT) {
-                    eb.setFooter("Truncated to the 25 latest entries due to Discord limitation.");
-                    break;
+                EmbedBuilder eb = new EmbedBuilder()
+                        .setAuthor(user.getName(), null, user.getEffectiveAvatarUrl())
+                        .setTitle("Ticket History")
+                        .setColor(Color.DARK_GRAY)
+                        .setDescription("Found %d tickets by the user %s.".formatted(totalTickets, user.getAsMention()));
+                if (shownType != null)
+                    eb.appendDescription("\n- Showing only tickets of type **%s**".formatted(shownType.title));
+
+                for (TicketSummary ticket : ticketHistory) {
+                    StringBuilder ticketDescription = new StringBuilder();
+                    ticketDescription.append("- Opened on <t:").append(ticket.openedTimestamp() / 1000L).append(":f>\n");
+                    if (ticket.isOpen()) {
+                        ticketDescription.append("- Currently open: <#").append(ticket.discordChannelId()).append('>');
+                    } else {
+                        ticketDescription.append("- Closed by <@").append(ticket.closedByDiscordId()).append('>');
+                        if (ticket.closeReason() != null && !ticket.closeReason().isBlank()) {
+                            ticketDescription.append(" For reason:\n-# ").append(ticket.closeReason().replace("\n", "\n-# "));
+                        }
+                    }
+                    eb.addField(ticket.type().channelPrefix + ticket.id(), ticketDescription.toString(), false);
                 }
-            }
-            e.getHook().editOriginalEmbeds(eb.build()).queue();
+                setNextPageFooter(eb, ticketHistory);
+                e.getHook().editOriginalEmbeds(eb.build()).queue();
+            });
         } catch (SQLException ex) {
             e.getHook().editOriginal("A database error occurred while retrieving the ticket history:\n```\n" + ex + "\n```").queue();
         }
@@ -192,9 +229,10 @@ public class TicketManageCommand extends BotCommand {
         e.deferReply(true).queue();
 
         try {
-            AWTicket[] ticketHistory = typeFilter != null
-                    ? AWTicket.loadByCloser(closer, MessageEmbed.MAX_FIELD_AMOUNT, typeFilter)
-                    : AWTicket.loadByCloser(closer, MessageEmbed.MAX_FIELD_AMOUNT);
+            TicketSummary.Cursor cursor = this.getHistoryCursor(e);
+            if (cursor == null)
+                return;
+            TicketSummary[] ticketHistory = TicketSummary.historyByCloser(closer.getIdLong(), typeFilter, cursor, MessageEmbed.MAX_FIELD_AMOUNT);
             int totalTickets = typeFilter != null
                     ? AWTicket.countByCloser(closer, typeFilter)
                     : AWTicket.countByCloser(closer);
@@ -207,22 +245,15 @@ public class TicketManageCommand extends BotCommand {
             if (typeFilter != null)
                 eb.appendDescription("\n- Showing only tickets of type **%s**".formatted(typeFilter.title));
 
-            int currentTicketsInEmbed = 0;
-            for (AWTicket ticket : ticketHistory) {
-                if (typeFilter != null && ticket.type() != typeFilter)
-                    continue;
+            for (TicketSummary ticket : ticketHistory) {
                 StringBuilder ticketDescription = new StringBuilder();
-                ticketDescription.append("- Opened on <t:").append(ticket.openedTimestamp / 1000L).append(":f>\n");
-                if (ticket.closeReason != null && !ticket.closeReason.isBlank()) {
-                    ticketDescription.append("- Closed for reason:\n-# ").append(ticket.closeReason.replace("\n", "\n-# "));
-                }
-                eb.addField(ticket.type().channelPrefix + ticket.id, ticketDescription.toString(), false);
-                currentTicketsInEmbed++;
-                if (currentTicketsInEmbed >= MessageEmbed.MAX_FIELD_AMOUNT) {
-                    eb.setFooter("Truncated to the 25 latest entries due to Discord limitation.");
-                    break;
+                ticketDescription.append("- Opened on <t:").append(ticket.openedTimestamp() / 1000L).append(":f>\n");
+                if (ticket.closeReason() != null && !ticket.closeReason().isBlank()) {
+                    ticketDescription.append("- Closed for reason:\n-# ").append(ticket.closeReason().replace("\n", "\n-# "));
                 }
+                eb.addField(ticket.type().channelPrefix + ticket.id(), ticketDescription.toString(), false);
             }
+            setNextPageFooter(eb, ticketHistory);
             e.getHook().editOriginalEmbeds(eb.build()).queue();
         } catch (SQLException ex) {
             e.getHook().editOriginal("A database error occurred while retrieving the ticket history:\n```\n" + ex + "\n```").queue();
@@ -51,7 +51,8 @@ public class UnbanCommand extends BotCommand {
         e.deferReply().queue();
         PendingRequest request = new UnbanRequest(PendingRequest.getNextRequestId(), targetUser.userId(), responsibleModerator)
                 .onFulfilled(ignored -> e.getInteraction().getHook().editOriginal("Successfully unbanned user [" + targetUser.username() + "](" + targetUser.getProfileURL() + ").").queue())
-                .onNoPermission(() -> e.getInteraction().getHook().editOriginal("You don't have permission to unban users in-game.").queue());
+                .onNoPermission(() -> e.getInteraction().getHook().editOriginal("You don't have permission to unban users in-game.").queue())
+                .onTimeout(() -> e.getInteraction().getHook().editOriginal("The game didn't respond in time, so the unban may not have gone through. Check `/aw-ban-status` before trying again.").queue());
         PendingRequests.add(request);
     }
 }
@@ -1,15 +1,25 @@
 package org.lukecreator.aw.webserver;
 
 import com.google.gson.*;
+import jakarta.servlet.http.HttpServletResponse;
+import org.lukecreator.aw.data.AWStatsBuffer;
+import org.lukecreator.aw.data.BanTransfer;
+import org.lukecreator.aw.data.repository.Repositories;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.io.*;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.util.ArrayList;
+import java.util.List;
 
 @RestController
 @RequestMapping("/aw")
@@ -27,24 +37,47 @@ public class AWEndpoint {
     }
 
     @GetMapping("/poll")
-    public ResponseEntity<String> poll(@RequestHeader("Api-Key") String inputApiKey) {
+    public void poll(
+            @RequestHeader("Api-Key") String inputApiKey,
+            HttpServletResponse response) throws IOException {
         if (inputApiKey == null || !inputApiKey.equals(this.API_KEY)) {
-            return ResponseEntity
-                    .status(HttpStatus.UNAUTHORIZED)
-                    .build();
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            return;
         }
 
-        // remove any expired requests
-        PendingRequests.removeExpiredRequests();
+        // return JSON of all current (unexpired) requests, copied straight from each request's cached JSON.
+        response.setContentType("application/json");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream out = response.getOutputStream();
+        PendingRequests.writePendingRequestsJSON(out);
+        out.flush();
+    }
 
-        // return JSON of all current requests
-        return ResponseEntity.ok(this.gsonInstance.toJson(PendingRequests.getPendingRequestsJSON()));
+    /**
+     * Long-polling version of {@link #poll}, picked when the `wait` parameter is given. Responds as soon as there's a
+     * pending request with an ID above `after` (the highest ID the caller has seen, or 0), or once `wait` milliseconds
+     * have passed. See {@link PollWaiters}.
+     */
+    @GetMapping(value = "/poll", params = "wait")
+    public DeferredResult<ResponseEntity<byte[]>> longPoll(
+            @RequestHeader("Api-Key") String inputApiKey,
+            @RequestParam("wait") long waitMillis,
+            @RequestParam(name = "after", defaultValue = "0") long afterId) {
+        if (inputApiKey == null || !inputApiKey.equals(this.API_KEY)) {
+            DeferredResult<ResponseEntity<byte[]>> result = new DeferredResult<>();
+            result.setResult(ResponseEntity
+                    .status(HttpStatus.UNAUTHORIZED)
+                    .build());
+            return result;
+        }
+
+        return PollWaiters.await(waitMillis, afterId);
     }
 
     @PostMapping("/fulfill")
     public ResponseEntity<?> fulfill(
             @RequestHeader("Api-Key") String inputApiKey,
-            @RequestBody String body) {
+            InputStream body) {
         if (inputApiKey == null || !inputApiKey.equals(this.API_KEY)) {
             return ResponseEntity
                     .status(HttpStatus.UNAUTHORIZED)
@@ -52,23 +85,15 @@ public class AWEndpoint {
         }
 
         ArrayList<Fulfillment> fulfillments = new ArrayList<>();
+        ArrayList<String> keys = new ArrayList<>();
 
         try {
-            JsonObject json = JsonParser
-                    .parseString(body)
-                    .getAsJsonObject();
-            if (!json.has("fulfill")) {
-                JsonObject error = new JsonObject();
-                error.addProperty("error", "Missing 'fulfill' array in JSON.");
-                System.out.println(this.gsonInstance.toJson(error));
-                return ResponseEntity.badRequest().body(this.gsonInstance.toJson(error));
-            }
-            for (JsonElement f : json.getAsJsonArray("fulfill")) {
-                JsonObject fulfillmentJson = f.getAsJsonObject();
-                Fulfillment parsed = Fulfillment.parse(fulfillmentJson);
-                fulfillments.add(parsed);
-            }
-        } catch (JsonParseException e) {
+            // read straight off the request as it arrives, without holding the body or a tree of it in memory.
+            FulfillmentReader.read(new InputStreamReader(body, StandardCharsets.UTF_8), (fulfillment, key) -> {
+                fulfillments.add(fulfillment);
+                keys.add(key);
+            });
+        } catch (JsonParseException | IOException e) {
             JsonObject error = new JsonObject();
             error.addProperty("error", "Couldn't parse JSON");
             System.out.println(this.gsonInstance.toJson(error));
@@ -76,7 +101,7 @@ public class AWEndpoint {
             return ResponseEntity.badRequest().body(this.gsonInstance.toJson(error));
         } catch (IllegalStateException e) {
             JsonObject error = new JsonObject();
-            error.addProperty("error", "Input JSON was not a JSON object {}. Additional info: " + e.getMessage());
+            error.addProperty("error", "Input JSON was not in the expected format. Additional info: " + e.getMessage());
             System.out.println(this.gsonInstance.toJson(error));
 
             return ResponseEntity.badRequest().body(this.gsonInstance.toJson(error));
@@ -92,13 +117,128 @@ public class AWEndpoint {
             return ResponseEntity.ok().build();
         }
 
-        // process fulfillments from start to finish.
-        // the method calls `process()` internally
-        for (Fulfillment fulfillment : fulfillments) {
-            PendingRequests.fulfill(fulfillment);
+        if (!processBatch(fulfillments, keys))
+            return ResponseEntity.internalServerError().build();
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Processes a batch of fulfillments from {@link #fulfill}, given the {@link RecentFulfillments} key of each, and
+     * then completes the requests they respond to.
+     *
+     * @param fulfillments The fulfillments, in the order they were sent.
+     * @param keys         The key of each fulfillment, from {@link FulfillmentReader}.
+     * @return If the batch was committed. If it wasn't, none of it was processed, and retries of it will go through.
+     */
+    static boolean processBatch(List<Fulfillment> fulfillments, List<String> keys) {
+        // anything that was already processed is a retry of an earlier call (or repeated in this one), so it's skipped.
+        // the rest are claimed now, so a retry arriving while this batch is still running is skipped too.
+        ArrayList<Fulfillment> claimed = new ArrayList<>(fulfillments.size());
+        ArrayList<String> claimedKeys = new ArrayList<>(fulfillments.size());
+        for (int i = 0; i < fulfillments.size(); i++) {
+            if (RecentFulfillments.claim(keys.get(i))) {
+                claimed.add(fulfillments.get(i));
+                claimedKeys.add(keys.get(i));
+            }
         }
+        if (claimed.size() < fulfillments.size())
+            System.out.println("Skipped " + (fulfillments.size() - claimed.size()) + " already processed fulfillment(s).");
+        if (claimed.isEmpty())
+            return true;
 
-        return ResponseEntity.ok().build();
+        // process fulfillments from start to finish, all inside one transaction so the whole batch costs a single
+        // commit. each one gets its own savepoint, so a bad fulfillment only rolls back its own changes. punch changes
+        // are buffered rather than written (see AWStatsBuffer), so they're staged alongside and only buffered once the
+        // batch commits.
+        boolean committed = false;
+        ArrayList<Fulfillment> processed = new ArrayList<>(claimed.size());
+        try (var transaction = Repositories.beginTransaction();
+             var staged = AWStatsBuffer.stage()) {
+            for (int i = 0; i < claimed.size(); i++) {
+                Fulfillment fulfillment = claimed.get(i);
+                Savepoint savepoint = transaction.savepoint();
+                AWStatsBuffer.Staging.Mark mark = staged.mark();
+                try {
+                    PendingRequests.process(fulfillment);
+                    transaction.release(savepoint);
+                    processed.add(fulfillment);
+                } catch (SQLException | RuntimeException e) {
+                    transaction.rollbackTo(savepoint);
+                    staged.rollbackTo(mark);
+                    RecentFulfillments.forget(claimedKeys.get(i));
+                    System.err.println("Failed to process " + fulfillment.type + " fulfillment, rolled it back: " + e);
+                }
+            }
+            transaction.commit();
+            committed = true;
+            staged.publish();
+        } catch (SQLException e) {
+            System.err.println("Failed to commit fulfillments: " + e);
+            return false;
+        } finally {
+            // nothing in a batch that didn't commit was processed, so retries of it have to go through.
+            if (!committed)
+                claimedKeys.forEach(RecentFulfillments::forget);
+        }
+
+        // callbacks only run once the batch is committed, since they may read it back from other threads. requests
+        // whose fulfillment was rolled back stay pending, so a retry can still fulfill them (or they time out).
+        for (Fulfillment fulfillment : processed) {
+            PendingRequests.complete(fulfillment);
+        }
+
+        return true;
+    }
+
+    @PostMapping("/bans/import")
+    public ResponseEntity<String> importBans(
+            @RequestHeader("Api-Key") String inputApiKey,
+            InputStream body) {
+        if (inputApiKey == null || !inputApiKey.equals(this.API_KEY)) {
+            return ResponseEntity
+                    .status(HttpStatus.UNAUTHORIZED)
+                    .build();
+        }
+
+        // the body is read straight from the request as it's imported, rather than all at once.
+        try (Reader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            BanTransfer.ImportResult result = BanTransfer.importNdjson(reader);
+            System.out.println("Imported " + result.bans + " bans and " + result.unbans +
+                    " unbans, skipped " + result.skipped + " lines.");
+            return ResponseEntity.ok(this.gsonInstance.toJson(result.toJSON()));
+        } catch (IOException | SQLException e) {
+            JsonObject error = new JsonObject();
+            error.addProperty("error", "Import stopped partway through (earlier batches were kept): " + e.getMessage());
+            System.err.println(this.gsonInstance.toJson(error));
+            return ResponseEntity.internalServerError().body(this.gsonInstance.toJson(error));
+        }
+    }
+
+    @GetMapping("/bans/export")
+    public void exportBans(
+            @RequestHeader("Api-Key") String inputApiKey,
+            HttpServletResponse response) throws IOException {
+        if (inputApiKey == null || !inputApiKey.equals(this.API_KEY)) {
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            return;
+        }
+
+        // written straight to the response as rows are read, so the export never has to fit in memory.
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        try {
+            BanTransfer.exportNdjson(writer);
+        } catch (SQLException e) {
+            // the status has most likely been sent already, so all that can be done is cut the export short.
+            System.err.println("Failed to export bans: " + e);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+                return;
+            }
+        }
+        writer.flush();
     }
 
     @PostMapping("/webhook")
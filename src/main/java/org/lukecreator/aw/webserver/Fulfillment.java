@@ -1,6 +1,5 @@
 package org.lukecreator.aw.webserver;
 
-import com.google.gson.JsonObject;
 import org.jetbrains.annotations.Nullable;
 import org.lukecreator.aw.webserver.fulfillments.*;
 
@@ -32,26 +31,25 @@ public abstract class Fulfillment {
     }
 
     /**
-     * Parses a {@link JsonObject} to construct a specific type of {@link Fulfillment} object.
-     * The type of fulfillment is determined by the "type" field present in the provided JSON.
+     * Constructs a specific type of {@link Fulfillment} object from the fields read by a {@link FulfillmentReader}.
+     * The type of fulfillment is determined by the "type" field.
      *
-     * @param json A {@link JsonObject} containing the data required to create a {@link Fulfillment}.
-     *             The JSON must include a "type" key to indicate the type of fulfillment and
-     *             additional fields specific to the respective fulfillment type.
+     * @param fields The fields of the fulfillment. They must include a "type" to indicate the type of fulfillment and
+     *               additional fields specific to the respective fulfillment type.
      * @return A {@link Fulfillment} object corresponding to the "type" specified in the JSON.
      * Possible return types include {@link InfoFulfillment}, {@link BanFulfillment},
      * {@link UnbanFulfillment}, and {@link SetPunchesFulfillment}.
      * @throws Exception If the "type" field is missing or contains an unsupported value.
      */
-    public static Fulfillment parse(JsonObject json) throws Exception {
-        String type = json.get("type").getAsString();
+    public static Fulfillment parse(FulfillmentFields fields) throws Exception {
+        String type = fields.type();
 
         return switch (type.toUpperCase()) {
-            case "INFO" -> InfoFulfillment.parse(json);
-            case "BAN" -> BanFulfillment.parse(json);
-            case "UNBAN" -> UnbanFulfillment.parse(json);
-            case "SETPUNCHES" -> SetPunchesFulfillment.parse(json);
-            case "NOPERMISSION" -> NoPermissionFulfillment.parse(json);
+            case "INFO" -> InfoFulfillment.parse(fields);
+            case "BAN" -> BanFulfillment.parse(fields);
+            case "UNBAN" -> UnbanFulfillment.parse(fields);
+            case "SETPUNCHES" -> SetPunchesFulfillment.parse(fields);
+            case "NOPERMISSION" -> NoPermissionFulfillment.parse(fields);
             default -> throw new Exception("Unknown fulfillment type: " + type);
         };
     }
@@ -0,0 +1,190 @@
+package org.lukecreator.aw.webserver;
+
+import org.jetbrains.annotations.Nullable;
+import org.lukecreator.aw.data.AWBan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The fields of a single fulfillment, as they're read by {@link FulfillmentReader}. The "type" can come anywhere in a
+ * fulfillment's JSON, so every field a fulfillment might have is read into here first, and then made into the right
+ * type of {@link Fulfillment} with {@link Fulfillment#parse(FulfillmentFields)}. One instance is reused for every
+ * fulfillment in a batch.
+ * <p>
+ * Fields that are missing or null read as null, or throw an {@link IllegalArgumentException} if they're required.
+ */
+public final class FulfillmentFields {
+    /**
+     * The ban fields at the top level (for ban fulfillments), along with "responsible_user".
+     */
+    final BanFields ban = new BanFields();
+    /**
+     * The bans under "ban" (for info fulfillments).
+     */
+    final List<BanFields> bans = new ArrayList<>();
+    Long id;
+    String type;
+    Long user;
+    String username;
+    Long punches;
+    Long newPunches;
+    Long oldPunches;
+    long[] gamepasses = new long[16];
+    int gamepassCount;
+
+    FulfillmentFields() {
+    }
+
+    /**
+     * @param value The value of a field.
+     * @param field The name of the field, for the error message.
+     * @return The value, if it's not null.
+     * @throws IllegalArgumentException If the value is null, i.e., the field is missing.
+     */
+    public static <T> T require(@Nullable T value, String field) {
+        if (value == null)
+            throw new IllegalArgumentException("Missing field \"" + field + "\" in fulfillment JSON.");
+        return value;
+    }
+
+    /**
+     * Clears the fields before the next fulfillment is read.
+     */
+    void clear() {
+        this.ban.clear();
+        this.bans.clear();
+        this.id = null;
+        this.type = null;
+        this.user = null;
+        this.username = null;
+        this.punches = null;
+        this.newPunches = null;
+        this.oldPunches = null;
+        this.gamepassCount = 0;
+    }
+
+    /**
+     * Adds a gamepass ID from the "gamepasses" array.
+     */
+    void addGamepass(long gamepassId) {
+        if (this.gamepassCount == this.gamepasses.length)
+            this.gamepasses = Arrays.copyOf(this.gamepasses, this.gamepassCount * 2);
+        this.gamepasses[this.gamepassCount++] = gamepassId;
+    }
+
+    public boolean hasRequestId() {
+        return this.id != null;
+    }
+
+    /**
+     * @return The ID of the request being fulfilled, or -1 if there isn't one.
+     */
+    public long requestId() {
+        return this.id == null ? -1 : this.id;
+    }
+
+    public String type() {
+        return require(this.type, "type");
+    }
+
+    public long user() {
+        return require(this.user, "user");
+    }
+
+    @Nullable
+    public String username() {
+        return this.username;
+    }
+
+    public long punches() {
+        return require(this.punches, "punches");
+    }
+
+    @Nullable
+    public Long responsibleUser() {
+        return this.ban.responsibleUser;
+    }
+
+    public long newPunches() {
+        return require(this.newPunches, "new_punches");
+    }
+
+    public long oldPunches() {
+        return require(this.oldPunches, "old_punches");
+    }
+
+    /**
+     * @return The distinct gamepass IDs, in the order they first appeared. Sorting a copy and binary searching it keeps
+     * this O(n log n) without boxing the IDs.
+     */
+    public long[] gamepasses() {
+        long[] unique = Arrays.copyOf(this.gamepasses, this.gamepassCount);
+        Arrays.sort(unique);
+        int uniqueCount = 0;
+        for (int i = 0; i < unique.length; i++) {
+            if (i == 0 || unique[i] != unique[i - 1])
+                unique[uniqueCount++] = unique[i];
+        }
+
+        boolean[] seen = new boolean[uniqueCount];
+        long[] output = new long[uniqueCount];
+        int outputCount = 0;
+        for (int i = 0; i < this.gamepassCount; i++) {
+            int index = Arrays.binarySearch(unique, 0, uniqueCount, this.gamepasses[i]);
+            if (seen[index])
+                continue;
+            seen[index] = true;
+            output[outputCount++] = this.gamepasses[i];
+        }
+        return output;
+    }
+
+    /**
+     * @return The ban described by the top-level fields, like {@link AWBan#fromFulfillmentJSON}.
+     */
+    public AWBan ban() {
+        return this.ban.toBan(this.user());
+    }
+
+    /**
+     * @return The bans under "ban", which may be a single object or an array of them.
+     */
+    public AWBan[] bans() {
+        long userId = this.user();
+        AWBan[] output = new AWBan[this.bans.size()];
+        for (int i = 0; i < output.length; i++)
+            output[i] = this.bans.get(i).toBan(userId);
+        return output;
+    }
+
+    /**
+     * The fields of a ban in a fulfillment. See {@link AWBan#fromFulfillmentJSON} for what each one means.
+     */
+    static final class BanFields {
+        Long responsibleUser;
+        String reason;
+        Long started;
+        Long starts;
+        Long ends;
+        boolean legacy;
+
+        void clear() {
+            this.responsibleUser = null;
+            this.reason = null;
+            this.started = null;
+            this.starts = null;
+            this.ends = null;
+            this.legacy = false;
+        }
+
+        AWBan toBan(long userId) {
+            // "started" wins if both are there.
+            Long starts = this.started != null ? this.started : this.starts;
+            if (starts == null)
+                throw new IllegalArgumentException("Missing field \"started\" or \"starts\" in ban fulfillment JSON.");
+            return new AWBan(userId, this.responsibleUser, this.reason, starts, this.ends, null, this.legacy);
+        }
+    }
+}
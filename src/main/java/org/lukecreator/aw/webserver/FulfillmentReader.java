@@ -0,0 +1,372 @@
+package org.lukecreator.aw.webserver;
+
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads the fulfillments sent to `/aw/fulfill` straight off the request, one token at a time, without ever holding the
+ * whole body or a tree of it in memory. Each fulfillment is read into a reused {@link FulfillmentFields} and made into
+ * its {@link Fulfillment} type right away.
+ * <p>
+ * While reading, every token of a fulfillment is also written back out in a canonical form (see {@link CanonicalJson}),
+ * which is hashed to get its {@link RecentFulfillments} key.
+ * <p>
+ * The body is expected to look like {@code {"fulfill": [{...}, {...}]}}. Anything else at the top level is skipped.
+ */
+public final class FulfillmentReader {
+    private final JsonReader in;
+    private final MessageDigest digest = RecentFulfillments.newDigest();
+    private final CanonicalJson echo = new CanonicalJson();
+    private final FulfillmentFields fields = new FulfillmentFields();
+    /**
+     * Whether the fulfillment being read has one of the {@link RecentFulfillments#DISTINGUISHING_FIELDS}.
+     */
+    private boolean distinguished;
+
+    private FulfillmentReader(Reader in) {
+        this.in = new JsonReader(in);
+        // lenient like JsonParser, which the body used to be parsed with.
+        this.in.setStrictness(Strictness.LENIENT);
+    }
+
+    /**
+     * Reads every fulfillment in a `/aw/fulfill` body, in order.
+     *
+     * @param in   The body.
+     * @param each Called with each fulfillment and its {@link RecentFulfillments} key, as soon as it's read. The key
+     *             is null if the fulfillment can't be told apart from a repeat of it by its content (see
+     *             {@link RecentFulfillments#dedupesByContent}), so it shouldn't be deduplicated.
+     * @throws IOException If the body couldn't be read, or isn't valid JSON.
+     * @throws Exception   If the body has no "fulfill" array, or a fulfillment is missing a field or has an unknown
+     *                     type.
+     */
+    public static void read(Reader in, BiConsumer<Fulfillment, String> each) throws Exception {
+        new FulfillmentReader(in).readBody(each);
+    }
+
+    private void readBody(BiConsumer<Fulfillment, String> each) throws Exception {
+        boolean hasFulfillArray = false;
+        this.in.beginObject();
+        while (this.in.hasNext()) {
+            if (hasFulfillArray || !this.in.nextName().equals("fulfill")) {
+                this.in.skipValue();
+                continue;
+            }
+            hasFulfillArray = true;
+            this.in.beginArray();
+            while (this.in.hasNext()) {
+                Fulfillment fulfillment = this.readFulfillment();
+                String json = this.echo.finish();
+                String key = null;
+                if (this.distinguished || RecentFulfillments.dedupesByContent(fulfillment.type)) {
+                    this.digest.update(json.getBytes(StandardCharsets.UTF_8));
+                    key = RecentFulfillments.keyOf(this.digest);
+                }
+                each.accept(fulfillment, key);
+            }
+            this.in.endArray();
+        }
+        this.in.endObject();
+
+        if (this.in.peek() != JsonToken.END_DOCUMENT)
+            throw new JsonSyntaxException("Did not consume the entire document.");
+        if (!hasFulfillArray)
+            throw new Exception("Missing 'fulfill' array in JSON.");
+    }
+
+    private Fulfillment readFulfillment() throws Exception {
+        FulfillmentFields fields = this.fields;
+        fields.clear();
+        this.distinguished = false;
+
+        this.in.beginObject();
+        this.echo.beginObject();
+        while (this.in.hasNext()) {
+            String name = this.in.nextName();
+            this.echo.name(name);
+            if (RecentFulfillments.DISTINGUISHING_FIELDS.contains(name))
+                this.distinguished = true;
+            switch (name) {
+                case "id" -> fields.id = this.nextLong();
+                case "type" -> fields.type = this.nextScalar();
+                case "user" -> fields.user = this.nextLong();
+                case "username" -> fields.username = this.nextScalar();
+                case "punches" -> fields.punches = this.nextLong();
+                case "new_punches" -> fields.newPunches = this.nextLong();
+                case "old_punches" -> fields.oldPunches = this.nextLong();
+                case "gamepasses" -> this.readGamepasses();
+                case "ban" -> this.readBans();
+                default -> {
+                    if (!this.readBanField(name, fields.ban))
+                        this.copyValue();
+                }
+            }
+        }
+        this.in.endObject();
+        this.echo.endObject();
+
+        return Fulfillment.parse(fields);
+    }
+
+    /**
+     * Reads "gamepasses", if it's an array. Anything in it that isn't a number is skipped.
+     */
+    private void readGamepasses() throws IOException {
+        if (this.in.peek() != JsonToken.BEGIN_ARRAY) {
+            this.copyValue();
+            return;
+        }
+        this.in.beginArray();
+        this.echo.beginArray();
+        while (this.in.hasNext()) {
+            JsonToken token = this.in.peek();
+            if (token == JsonToken.NUMBER || token == JsonToken.STRING || token == JsonToken.BOOLEAN)
+                this.fields.addGamepass(parseLong(this.nextScalar()));
+            else
+                this.copyValue();
+        }
+        this.in.endArray();
+        this.echo.endArray();
+    }
+
+    /**
+     * Reads "ban", which may be a single ban object or an array of them.
+     */
+    private void readBans() throws IOException {
+        switch (this.in.peek()) {
+            case BEGIN_OBJECT -> this.readBan();
+            case BEGIN_ARRAY -> {
+                this.in.beginArray();
+                this.echo.beginArray();
+                while (this.in.hasNext()) {
+                    if (this.in.peek() == JsonToken.BEGIN_OBJECT)
+                        this.readBan();
+                    else
+                        this.copyValue();
+                }
+                this.in.endArray();
+                this.echo.endArray();
+            }
+            default -> this.copyValue();
+        }
+    }
+
+    private void readBan() throws IOException {
+        FulfillmentFields.BanFields ban = new FulfillmentFields.BanFields();
+        this.in.beginObject();
+        this.echo.beginObject();
+        while (this.in.hasNext()) {
+            String name = this.in.nextName();
+            this.echo.name(name);
+            if (!this.readBanField(name, ban))
+                this.copyValue();
+        }
+        this.in.endObject();
+        this.echo.endObject();
+        this.fields.bans.add(ban);
+    }
+
+    /**
+     * @return True if the name was a ban field and its value was read, false if it needs to be read some other way.
+     */
+    private boolean readBanField(String name, FulfillmentFields.BanFields ban) throws IOException {
+        switch (name) {
+            case "responsible_user" -> ban.responsibleUser = this.nextLong();
+            case "reason" -> ban.reason = this.nextScalar();
+            case "started" -> ban.started = this.nextLong();
+            case "starts" -> ban.starts = this.nextLong();
+            case "ends" -> ban.ends = this.nextLong();
+            case "legacy" -> ban.legacy = Boolean.parseBoolean(this.nextScalar());
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Long nextLong() throws IOException {
+        String value = this.nextScalar();
+        return value == null ? null : parseLong(value);
+    }
+
+    /**
+     * Reads a string, number or boolean as text, or null.
+     */
+    private String nextScalar() throws IOException {
+        switch (this.in.peek()) {
+            case NULL -> {
+                this.in.nextNull();
+                this.echo.literal("null");
+                return null;
+            }
+            case BOOLEAN -> {
+                boolean value = this.in.nextBoolean();
+                this.echo.literal(String.valueOf(value));
+                return String.valueOf(value);
+            }
+            case NUMBER -> {
+                String value = this.in.nextString();
+                this.echo.number(value);
+                return value;
+            }
+            default -> {
+                // throws an IllegalStateException for an object or array.
+                String value = this.in.nextString();
+                this.echo.string(value);
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Reads a value that's not needed, only writing it out to the hash.
+     */
+    private void copyValue() throws IOException {
+        switch (this.in.peek()) {
+            case BEGIN_ARRAY -> {
+                this.in.beginArray();
+                this.echo.beginArray();
+                while (this.in.hasNext())
+                    this.copyValue();
+                this.in.endArray();
+                this.echo.endArray();
+            }
+            case BEGIN_OBJECT -> {
+                this.in.beginObject();
+                this.echo.beginObject();
+                while (this.in.hasNext()) {
+                    this.echo.name(this.in.nextName());
+                    this.copyValue();
+                }
+                this.in.endObject();
+                this.echo.endObject();
+            }
+            default -> this.nextScalar();
+        }
+    }
+
+    /**
+     * Parses a long the same way Gson does: exactly if it's an integer, otherwise truncated (like "1.0" or "1e3").
+     */
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return new BigDecimal(value).longValue();
+        }
+    }
+
+    /**
+     * Writes out JSON in a canonical form: object members sorted by name, numbers in their shortest exact form, and no
+     * whitespace. Fulfillments that only differ in the order of their fields or how a number is written (like "5",
+     * "5.0" and "5e0") come out the same, and so get the same {@link RecentFulfillments} key.
+     * <p>
+     * Only the object or array being read is held, so a fulfillment's members can be sorted once it's been read.
+     */
+    private static final class CanonicalJson {
+        private final ArrayDeque<Container> open = new ArrayDeque<>();
+        private String finished;
+
+        void beginObject() {
+            this.open.push(new Container(new TreeMap<>()));
+        }
+
+        void beginArray() {
+            this.open.push(new Container(null));
+        }
+
+        void name(String name) {
+            this.open.element().name = name;
+        }
+
+        void endObject() {
+            Container object = this.open.pop();
+            StringBuilder json = new StringBuilder("{");
+            for (Map.Entry<String, String> member : object.members.entrySet()) {
+                if (json.length() > 1)
+                    json.append(',');
+                json.append(quote(member.getKey())).append(':').append(member.getValue());
+            }
+            this.value(json.append('}').toString());
+        }
+
+        void endArray() {
+            Container array = this.open.pop();
+            this.value(array.elements.append(']').toString());
+        }
+
+        void string(String value) {
+            this.value(quote(value));
+        }
+
+        void number(String value) {
+            try {
+                this.value(new BigDecimal(value).stripTrailingZeros().toString());
+            } catch (NumberFormatException e) {
+                // NaN and Infinity, when lenient.
+                this.value(value);
+            }
+        }
+
+        /**
+         * Writes true, false or null.
+         */
+        void literal(String value) {
+            this.value(value);
+        }
+
+        /**
+         * @return The last value written at the top level, i.e., the whole fulfillment.
+         */
+        String finish() {
+            String finished = this.finished;
+            this.finished = null;
+            return finished;
+        }
+
+        private void value(String json) {
+            Container container = this.open.peek();
+            if (container == null)
+                this.finished = json;
+            else if (container.members != null)
+                // a repeated name replaces the earlier one, the same as it does in FulfillmentFields.
+                container.members.put(container.name, json);
+            else {
+                if (container.elements.length() > 1)
+                    container.elements.append(',');
+                container.elements.append(json);
+            }
+        }
+
+        private static String quote(String value) {
+            return new JsonPrimitive(value).toString();
+        }
+
+        private static final class Container {
+            /**
+             * The members of an object, by name, or null for an array.
+             */
+            final TreeMap<String, String> members;
+            final StringBuilder elements;
+            String name;
+
+            Container(TreeMap<String, String> members) {
+                this.members = members;
+                this.elements = members == null ? new StringBuilder("[") : null;
+            }
+        }
+    }
+}
@@ -1,17 +1,15 @@
 package org.lukecreator.aw.webserver;
 
+import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 public abstract class PendingRequest {
-    /**
-     * How long to keep new requests alive until they're removed prematurely from the list, presumably because the game
-     * is having an internal error due to its presence.
-     */
-    public static final long REQUEST_KEEP_ALIVE = 1000 * 60 * 3; // 3 minutes
     private static final AtomicLong CURRENT_REQUEST_ID = new AtomicLong(0);
+    private static final Gson gson = new Gson();
     /**
      * The ID of this request. Fulfillments of this request will include this ID.
      */
@@ -32,6 +30,14 @@ public abstract class PendingRequest {
      * If not null, the callback to call when this request is denied because of no permission.
      */
     private Runnable onNoPermissionCallback;
+    /**
+     * If not null, the callback to call when this request expires without being fulfilled.
+     */
+    private Runnable onTimeoutCallback;
+    /**
+     * This request's {@link #getJsonRepresentation() JSON} as UTF-8, once it's been serialized.
+     */
+    private byte[] jsonBytes;
 
     protected PendingRequest(long requestId, PendingRequestType type) {
         this.requestId = requestId;
@@ -71,6 +77,26 @@ public abstract class PendingRequest {
         return this;
     }
 
+    /**
+     * Sets the callback that should be run if this request expires before the game fulfills it. It may still have gone
+     * through in-game, the game just never said so.
+     *
+     * @param onTimeoutCallback The callback.
+     * @return {@code this} object for method chaining.
+     */
+    public PendingRequest onTimeout(Runnable onTimeoutCallback) {
+        this.onTimeoutCallback = onTimeoutCallback;
+        return this;
+    }
+
+    /**
+     * @return The unix timestamp that this request expires at, based on its type's
+     * {@link PendingRequestType#keepAliveMillis keep-alive}.
+     */
+    public long expiresAt() {
+        return this.timestamp + this.type.keepAliveMillis;
+    }
+
     /**
      * Represents the request as JSON to be sent to Ability Wars.
      *
@@ -83,6 +109,19 @@ public abstract class PendingRequest {
         return json;
     }
 
+    /**
+     * Serializes the request the same as {@link #getJsonRepresentation()}, to UTF-8. Requests don't change once they're
+     * made, so this is only done once: {@link PendingRequests#add} does it up front, and every poll after that reuses
+     * the same bytes.
+     *
+     * @return The UTF-8 bytes of this request's JSON. Don't modify the array.
+     */
+    public byte[] getJsonBytes() {
+        if (this.jsonBytes == null)
+            this.jsonBytes = gson.toJson(this.getJsonRepresentation()).getBytes(StandardCharsets.UTF_8);
+        return this.jsonBytes;
+    }
+
     /**
      * Implemented for each request type.
      *
@@ -108,4 +147,12 @@ public abstract class PendingRequest {
         if (this.onNoPermissionCallback != null)
             this.onNoPermissionCallback.run();
     }
+
+    /**
+     * Call the {@link #onTimeoutCallback} if it's not null.
+     */
+    public void timeout() {
+        if (this.onTimeoutCallback != null)
+            this.onTimeoutCallback.run();
+    }
 }
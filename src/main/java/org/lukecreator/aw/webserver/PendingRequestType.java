@@ -7,37 +7,45 @@ import org.lukecreator.aw.webserver.requests.SetPunchesRequest;
 import org.lukecreator.aw.webserver.requests.UnbanRequest;
 
 import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A type of request that can be made to the Ability Wars Roblox server.
  */
 public enum PendingRequestType {
     /**
-     * Requesting info about a particular player by ID.
+     * Requesting info about a particular player by ID. Someone's always waiting on these (like `/bancheck`, or a ticket
+     * being opened), so they give up sooner.
      */
-    INFO("info", InfoRequest.class, InfoFulfillment.class),
+    INFO("info", InfoRequest.class, InfoFulfillment.class, TimeUnit.MINUTES.toMillis(1)),
     /**
      * Requesting the banning of a player.
      */
-    BAN("ban", BanRequest.class, BanFulfillment.class),
+    BAN("ban", BanRequest.class, BanFulfillment.class, TimeUnit.MINUTES.toMillis(3)),
     /**
      * Requesting the unbanning of a player.
      */
-    UNBAN("unban", UnbanRequest.class, UnbanFulfillment.class),
+    UNBAN("unban", UnbanRequest.class, UnbanFulfillment.class, TimeUnit.MINUTES.toMillis(3)),
     /**
      * Requesting a player's punch count be set.
      */
-    SET_PUNCHES("setpunches", SetPunchesRequest.class, SetPunchesFulfillment.class),
-    NO_PERMISSION("nopermission", null, NoPermissionFulfillment.class);
+    SET_PUNCHES("setpunches", SetPunchesRequest.class, SetPunchesFulfillment.class, TimeUnit.MINUTES.toMillis(3)),
+    NO_PERMISSION("nopermission", null, NoPermissionFulfillment.class, 0L);
 
     public final String identifier;
     public final Class<? extends PendingRequest> requestClass;
     public final Class<? extends Fulfillment> fullfillmentClass;
+    /**
+     * How long to keep requests of this type alive until they're removed prematurely from the list, presumably because
+     * the game is having an internal error due to their presence. See {@link RequestExpiry}.
+     */
+    public final long keepAliveMillis;
 
-    PendingRequestType(String identifier, Class<? extends PendingRequest> requestClass, Class<? extends Fulfillment> fullfillmentClass) {
+    PendingRequestType(String identifier, Class<? extends PendingRequest> requestClass, Class<? extends Fulfillment> fullfillmentClass, long keepAliveMillis) {
         this.identifier = identifier;
         this.requestClass = requestClass;
         this.fullfillmentClass = fullfillmentClass;
+        this.keepAliveMillis = keepAliveMillis;
     }
 
     public static PendingRequestType byIdentifier(String identifier) {
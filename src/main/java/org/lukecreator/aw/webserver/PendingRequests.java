@@ -1,58 +1,73 @@
 package org.lukecreator.aw.webserver;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
 import org.lukecreator.aw.webserver.fulfillments.NoPermissionFulfillment;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 /**
  * Stores the queue of requests that need fulfillment from Ability Wars.
+ * <p>
+ * Requests are added from Discord interactions and the bot's own threads, polled and fulfilled from the web server's
+ * threads, and expired by {@link RequestExpiry}, all at once. The queue is a lock-free {@link ConcurrentSkipListMap}
+ * ordered by request ID, so none of these block each other, and iterating it never fails partway through. Removing a
+ * request is atomic: however many threads try to complete or expire the same request, exactly one of them gets it.
  */
 public class PendingRequests {
-    private static final HashMap<Long, PendingRequest> PENDING_REQUESTS = new HashMap<>();
+    private static final ConcurrentSkipListMap<Long, PendingRequest> PENDING_REQUESTS = new ConcurrentSkipListMap<>();
+    private static final byte[] JSON_PREFIX = "{\"requests\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] JSON_SUFFIX = "]}".getBytes(StandardCharsets.UTF_8);
 
     /**
-     * Removes all expired requests from the pending requests queue.
+     * Writes a JSON representation of all pending requests in the queue to a stream, as a JSON array under the
+     * "requests" property, in order of ID.
      * <p>
-     * This method iterates through all pending requests and determines whether each request
-     * has expired based on its timestamp and a predefined expiration period: {@link PendingRequest#REQUEST_KEEP_ALIVE}.
-     * The current system time is used for comparison to check
-     * the expiration status of each request.
+     * Each request's {@link PendingRequest#getJsonBytes() cached JSON} is written as-is, so nothing is serialized or
+     * allocated per request. The queue is written as it's iterated, so a request added or removed meanwhile may or
+     * may not be included.
+     *
+     * @param out The stream to write the JSON to, as UTF-8.
+     * @throws IOException If writing to the stream fails.
      */
-    public static void removeExpiredRequests() {
-        final long currentTime = System.currentTimeMillis();
-
-        PENDING_REQUESTS.values().stream()
-                .filter(request -> isRequestExpired(request, currentTime))
-                .map(request -> request.requestId)
-                .collect(Collectors.toSet())
-                .forEach(PENDING_REQUESTS::remove);
-    }
-
-    private static boolean isRequestExpired(PendingRequest request, long currentTime) {
-        return (request.timestamp + PendingRequest.REQUEST_KEEP_ALIVE) < currentTime;
+    public static void writePendingRequestsJSON(OutputStream out) throws IOException {
+        out.write(JSON_PREFIX);
+        boolean first = true;
+        for (PendingRequest request : PENDING_REQUESTS.values()) {
+            if (!first)
+                out.write(',');
+            out.write(request.getJsonBytes());
+            first = false;
+        }
+        out.write(JSON_SUFFIX);
     }
 
     /**
-     * Retrieves a JSON representation of all pending requests in the queue.
-     * Each pending request is represented as a JSON object and added to a JSON array
-     * under the "requests" property.
+     * Retrieves the same JSON as {@link #writePendingRequestsJSON(OutputStream)}, for a response that has to be built
+     * up front. The requests' cached JSON is copied into one array of exactly the right size.
      *
-     * @return A JsonObject containing all pending requests, where each request is structured
-     * as a JSON object within the "requests" array.
+     * @return The UTF-8 bytes of a JSON object containing all pending requests.
      */
-    public static JsonObject getPendingRequestsJSON() {
-        JsonObject output = new JsonObject();
-        JsonArray array = new JsonArray();
+    public static byte[] getPendingRequestsJSON() {
+        List<PendingRequest> requests = snapshot();
+        int length = JSON_PREFIX.length + Math.max(0, requests.size() - 1) + JSON_SUFFIX.length;
+        for (PendingRequest request : requests)
+            length += request.getJsonBytes().length;
 
-        for (PendingRequest request : PENDING_REQUESTS.values()) {
-            array.add(request.getJsonRepresentation());
+        byte[] output = new byte[length];
+        System.arraycopy(JSON_PREFIX, 0, output, 0, JSON_PREFIX.length);
+        int position = JSON_PREFIX.length;
+        for (PendingRequest request : requests) {
+            if (position > JSON_PREFIX.length)
+                output[position++] = ',';
+            byte[] json = request.getJsonBytes();
+            System.arraycopy(json, 0, output, position, json.length);
+            position += json.length;
         }
-
-        output.add("requests", array);
+        System.arraycopy(JSON_SUFFIX, 0, output, position, JSON_SUFFIX.length);
         return output;
     }
 
@@ -63,17 +78,42 @@ public class PendingRequests {
      * @return The {@link PendingRequest} associated with the given ID, or null if no such request exists.
      */
     public static PendingRequest get(long id) {
-        return PENDING_REQUESTS.getOrDefault(id, null);
+        return PENDING_REQUESTS.get(id);
+    }
+
+    /**
+     * @param id A request ID.
+     * @return If there's a pending request with an ID above the given one, i.e., one made after it.
+     */
+    public static boolean hasRequestAfter(long id) {
+        return PENDING_REQUESTS.higherKey(id) != null;
     }
 
     /**
      * Adds a new request into the pending list. It should technically be responded to once the next poll request
-     * from Ability Wars is received, and the callback should be called.
+     * from Ability Wars is received, and the callback should be called. If it isn't fulfilled within its type's
+     * {@link PendingRequestType#keepAliveMillis keep-alive}, it's removed and its timeout callback is called instead.
+     * Any long polls waiting for a new request are responded to right away (see {@link PollWaiters}).
      *
      * @param request The request to add.
      */
     public static void add(PendingRequest request) {
+        // serialized before it's visible to polls, so they only ever copy it.
+        request.getJsonBytes();
         PENDING_REQUESTS.put(request.requestId, request);
+        RequestExpiry.track(request);
+        PollWaiters.wake(request.requestId);
+    }
+
+    /**
+     * Removes a request that's expired from the queue, unless it's already been completed. Called by
+     * {@link RequestExpiry}.
+     *
+     * @param request The request that expired.
+     * @return True if it was removed and its timeout callback should run, false if it was already completed.
+     */
+    static boolean expire(PendingRequest request) {
+        return PENDING_REQUESTS.remove(request.requestId, request);
     }
 
     /**
@@ -87,34 +127,75 @@ public class PendingRequests {
      *                    the fulfillment data and removes it from the queue.
      */
     public static void fulfill(Fulfillment fulfillment) {
-        if (fulfillment instanceof NoPermissionFulfillment) {
-            PendingRequest r = PENDING_REQUESTS.remove(fulfillment.requestId);
-            r.noPermission();
-        } else {
-            try {
-                PendingRequest request = null;
-                if (fulfillment.hasRequestId)
-                    request = PENDING_REQUESTS.get(fulfillment.requestId);
-                fulfillment.process(request);
-            } catch (java.sql.SQLException e) {
-                throw new RuntimeException(e);
-            } finally {
-                if (fulfillment.hasRequestId) {
-                    PendingRequest request = PENDING_REQUESTS.remove(fulfillment.requestId);
-                    if (request != null) {
-                        request.fulfill(fulfillment);
-                    }
-                }
-            }
+        try {
+            process(fulfillment);
+        } catch (java.sql.SQLException e) {
+            throw new RuntimeException(e);
         }
+        // only once it's been processed, so a failed fulfillment leaves its request pending.
+        complete(fulfillment);
+    }
+
+    /**
+     * Commits the data in a fulfillment to the database, without removing its request from the queue or running any
+     * of the request's callbacks. Follow up with {@link #complete(Fulfillment)} once the changes are committed.
+     *
+     * @param fulfillment The fulfillment to process. {@link NoPermissionFulfillment}s have nothing to process.
+     * @throws java.sql.SQLException If something goes wrong with the SQL queries.
+     */
+    public static void process(Fulfillment fulfillment) throws java.sql.SQLException {
+        if (fulfillment instanceof NoPermissionFulfillment)
+            return;
+
+        PendingRequest request = null;
+        if (fulfillment.hasRequestId)
+            request = PENDING_REQUESTS.get(fulfillment.requestId);
+        fulfillment.process(request);
+    }
+
+    /**
+     * Removes the request a fulfillment is responding to from the queue and runs its callback: the no-permission
+     * callback for a {@link NoPermissionFulfillment}, and the fulfilled callback for everything else.
+     * <p>
+     * The request is claimed by removing it, so if the same request is completed from more than one thread at once
+     * (like a retried fulfillment), its callback still only runs once.
+     *
+     * @param fulfillment The fulfillment to complete. Does nothing if it doesn't respond to a pending request.
+     */
+    public static void complete(Fulfillment fulfillment) {
+        if (!fulfillment.hasRequestId)
+            return;
+        PendingRequest request = PENDING_REQUESTS.remove(fulfillment.requestId);
+        if (request == null)
+            return;
 
+        if (fulfillment instanceof NoPermissionFulfillment)
+            request.noPermission();
+        else
+            request.fulfill(fulfillment);
     }
 
+    /**
+     * @return The number of pending requests. This has to count them, so prefer {@link #hasRequestAfter} or
+     * {@link #snapshot()} where they'd do.
+     */
     public static int size() {
         return PENDING_REQUESTS.size();
     }
 
+    /**
+     * @return A live view of the pending requests, in order of ID. Safe to iterate while requests are being added and
+     * removed, but it may or may not reflect changes made while iterating.
+     */
     public static Collection<PendingRequest> values() {
         return PENDING_REQUESTS.values();
     }
+
+    /**
+     * @return A copy of the pending requests as they are right now, in order of ID. Use this for anything that needs
+     * one consistent list, like serializing them for a poll.
+     */
+    public static List<PendingRequest> snapshot() {
+        return List.copyOf(PENDING_REQUESTS.values());
+    }
 }
@@ -0,0 +1,85 @@
+package org.lukecreator.aw.webserver;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Long polls of `/aw/poll` that are waiting for a new {@link PendingRequest}.
+ * <p>
+ * Instead of polling on a tight loop, a game server can ask to be held until there's a request it hasn't seen yet (one
+ * with an ID above the highest it's been sent), up to {@link #MAX_WAIT_MILLIS}. {@link PendingRequests#add} wakes every
+ * poll waiting on it, so requests reach the game as soon as they're made, with far fewer round trips. The servlet thread
+ * isn't held while waiting, only the connection.
+ * <p>
+ * A long poll responds exactly like a regular one: every pending request, including ones it's already been sent.
+ */
+public final class PollWaiters {
+    /**
+     * The longest a poll can be held for, in milliseconds. Longer waits are cut down to this.
+     */
+    public static final long MAX_WAIT_MILLIS = 30_000;
+
+    private static final Set<Waiter> waiting = ConcurrentHashMap.newKeySet();
+
+    private PollWaiters() {
+    }
+
+    /**
+     * Builds the response to a long poll. Regular polls write the requests straight to the response instead.
+     *
+     * @return The response, containing every pending request.
+     */
+    static ResponseEntity<byte[]> currentRequests() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(PendingRequests.getPendingRequestsJSON());
+    }
+
+    /**
+     * Holds a poll until there's a pending request with an ID above {@code afterId}, or the wait is over. If there
+     * already is one, it responds straight away.
+     *
+     * @param waitMillis How long to hold the poll for at most, in milliseconds.
+     * @param afterId    The highest request ID the caller has already been sent, or 0 if none.
+     * @return The result that's completed with the response.
+     */
+    static DeferredResult<ResponseEntity<byte[]>> await(long waitMillis, long afterId) {
+        long timeout = Math.clamp(waitMillis, 0, MAX_WAIT_MILLIS);
+        DeferredResult<ResponseEntity<byte[]>> result = new DeferredResult<>(timeout, PollWaiters::currentRequests);
+        Waiter waiter = new Waiter(result, afterId);
+
+        // registered before checking, so a request added in between still wakes it.
+        waiting.add(waiter);
+        result.onCompletion(() -> waiting.remove(waiter));
+        if (timeout == 0 || PendingRequests.hasRequestAfter(afterId))
+            result.setResult(currentRequests());
+        return result;
+    }
+
+    /**
+     * Responds to every poll waiting on a request older than the one just added. Called by {@link PendingRequests#add}.
+     *
+     * @param requestId The ID of the request that was added.
+     */
+    static void wake(long requestId) {
+        if (waiting.isEmpty())
+            return;
+
+        // built once and shared, since every waiting poll gets the same response.
+        ResponseEntity<byte[]> response = null;
+        for (Waiter waiter : waiting) {
+            if (waiter.afterId >= requestId)
+                continue;
+            if (response == null)
+                response = currentRequests();
+            waiter.result.setResult(response);
+        }
+    }
+
+    private record Waiter(DeferredResult<ResponseEntity<byte[]>> result, long afterId) {
+    }
+}
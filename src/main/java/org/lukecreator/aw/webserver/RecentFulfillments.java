@@ -0,0 +1,124 @@
+package org.lukecreator.aw.webserver;
+
+import org.jetbrains.annotations.Nullable;
+import org.lukecreator.aw.AWDatabase;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded window of the fulfillments processed recently, so a Roblox server retrying `/aw/fulfill` (like after a
+ * timeout, when the first attempt actually went through) doesn't get the same fulfillment processed twice. Bans are
+ * upserted on their user and start time anyway, but things like punch update records would be duplicated.
+ * <p>
+ * Fulfillments are told apart by a hash of their JSON, since the ones the game sends on its own don't have an ID.
+ * {@link FulfillmentReader} writes it back out canonically first, so whitespace, field order and how numbers are
+ * written don't matter. A retry sends the same JSON.
+ * <p>
+ * Two separate events can send the same JSON too, if they're the same change to the same player. That's harmless for
+ * fulfillments that leave the player in a given state (a ban, or their info), but not for ones that add to their
+ * history (setting their punches from 10 to 50 twice is two punch updates). Those are only deduplicated if they have
+ * one of the {@link #DISTINGUISHING_FIELDS}, and otherwise always processed.
+ * <p>
+ * A fulfillment is claimed before it's processed and forgotten again if it fails, so only ones that were committed
+ * stay in the window. The oldest are dropped once the window is full, and expire after a while regardless.
+ */
+public final class RecentFulfillments {
+    /**
+     * The maximum number of fulfillments to remember, set by the `AW_FULFILLMENT_DEDUPE_SIZE` environment variable.
+     * Defaults to 16384. Set to 0 to disable deduplication.
+     */
+    private static final int MAX_SIZE = AWDatabase.intFromEnv("AW_FULFILLMENT_DEDUPE_SIZE", 16384);
+    /**
+     * How long a fulfillment is remembered after it's processed, set by the `AW_FULFILLMENT_DEDUPE_TTL_MILLIS`
+     * environment variable. Defaults to 10 minutes.
+     */
+    private static final long TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            AWDatabase.intFromEnv("AW_FULFILLMENT_DEDUPE_TTL_MILLIS", 600_000));
+
+    /**
+     * Fields that tell apart separate events with otherwise the same content: the ID of the request being fulfilled,
+     * or a timestamp or nonce from the game.
+     */
+    static final Set<String> DISTINGUISHING_FIELDS = Set.of("id", "timestamp", "nonce");
+
+    private static final LinkedHashMap<String, Long> claimedAt = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return this.size() > MAX_SIZE;
+        }
+    };
+
+    private RecentFulfillments() {
+    }
+
+    /**
+     * @return A new digest for hashing fulfillments, to pass to {@link #keyOf(MessageDigest)}.
+     */
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM is required to have SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param type The type of fulfillment.
+     * @return False if processing the same fulfillment twice adds to the player's history twice, so it can't be
+     * deduplicated by content alone.
+     */
+    public static boolean dedupesByContent(PendingRequestType type) {
+        return type != PendingRequestType.SET_PUNCHES && type != PendingRequestType.UNBAN;
+    }
+
+    /**
+     * Finishes hashing a single fulfillment, and resets the digest for the next one.
+     *
+     * @param digest A {@link #newDigest() digest} the fulfillment's canonical JSON was written to, as UTF-8.
+     * @return The key the fulfillment is remembered by.
+     */
+    public static String keyOf(MessageDigest digest) {
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
+    /**
+     * Claims a fulfillment for processing, unless it's already been processed (or is being processed right now).
+     *
+     * @param key The fulfillment's {@link #keyOf key}, or null if it isn't deduplicated.
+     * @return True if the fulfillment should be processed, false if it's a replay and should be skipped.
+     */
+    public static boolean claim(@Nullable String key) {
+        if (MAX_SIZE <= 0 || key == null)
+            return true;
+        long now = System.nanoTime();
+        synchronized (claimedAt) {
+            Long previous = claimedAt.get(key);
+            if (previous != null && now - previous < TTL_NANOS)
+                return false;
+            // re-inserted so it moves to the end, and is dropped last.
+            claimedAt.remove(key);
+            claimedAt.put(key, now);
+            return true;
+        }
+    }
+
+    /**
+     * Releases a claimed fulfillment that failed or was rolled back, so a retry of it gets processed.
+     *
+     * @param key The fulfillment's {@link #keyOf key}, or null if it isn't deduplicated.
+     */
+    public static void forget(@Nullable String key) {
+        if (MAX_SIZE <= 0 || key == null)
+            return;
+        synchronized (claimedAt) {
+            claimedAt.remove(key);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.lukecreator.aw.webserver;
+
+import java.util.EnumMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expires pending requests the game doesn't fulfill within their type's {@link PendingRequestType#keepAliveMillis}, and
+ * runs their {@link PendingRequest#onTimeout timeout callbacks} so whoever made them hears back.
+ * <p>
+ * Every request of a type is kept alive for the same amount of time, so they expire in the order they're added. Each
+ * type gets its own FIFO queue, and a background thread checks the head of each one every second, expiring requests
+ * until it reaches one that isn't due yet. Adding and expiring a request are both O(1), and none of it happens on a
+ * poll. Requests that are fulfilled in the meantime stay queued until they're due, and are skipped then.
+ */
+public final class RequestExpiry {
+    /**
+     * How often to check for expired requests, in milliseconds. Requests expire up to this late.
+     */
+    private static final long CHECK_INTERVAL_MILLIS = 1000;
+
+    private static final EnumMap<PendingRequestType, Queue<PendingRequest>> queues = new EnumMap<>(PendingRequestType.class);
+    private static final ScheduledExecutorService expirer;
+
+    static {
+        for (PendingRequestType type : PendingRequestType.values())
+            queues.put(type, new ConcurrentLinkedQueue<>());
+
+        expirer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "aw-request-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expirer.scheduleWithFixedDelay(RequestExpiry::expireDue,
+                CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private RequestExpiry() {
+    }
+
+    /**
+     * Starts tracking a request that was just added, so it's expired once it's due. Called by
+     * {@link PendingRequests#add}.
+     *
+     * @param request The request.
+     */
+    static void track(PendingRequest request) {
+        queues.get(request.type).offer(request);
+    }
+
+    /**
+     * Expires every request that's due. Only ever runs on the expiry thread, so nothing else takes from the queues.
+     */
+    private static void expireDue() {
+        final long currentTime = System.currentTimeMillis();
+        for (Queue<PendingRequest> queue : queues.values()) {
+            PendingRequest request;
+            while ((request = queue.peek()) != null && request.expiresAt() < currentTime) {
+                queue.poll();
+
+                // false if it was fulfilled in the meantime; then it's not expired, just done.
+                if (!PendingRequests.expire(request))
+                    continue;
+                System.err.println("Request " + request.requestId + " (" + request.type.identifier + ") expired without being fulfilled.");
+                try {
+                    request.timeout();
+                } catch (RuntimeException e) {
+                    // an exception here would stop the expiry thread for good.
+                    System.err.println("Failed to run the timeout callback of request " + request.requestId + ".\n\n" + e);
+                }
+            }
+        }
+    }
+}
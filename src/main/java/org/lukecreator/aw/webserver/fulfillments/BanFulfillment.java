@@ -1,10 +1,10 @@
 package org.lukecreator.aw.webserver.fulfillments;
 
-import com.google.gson.JsonObject;
 import org.lukecreator.aw.data.AWBan;
 import org.lukecreator.aw.data.AWBans;
 import org.lukecreator.aw.data.Links;
 import org.lukecreator.aw.webserver.Fulfillment;
+import org.lukecreator.aw.webserver.FulfillmentFields;
 import org.lukecreator.aw.webserver.PendingRequest;
 import org.lukecreator.aw.webserver.PendingRequestType;
 import org.lukecreator.aw.webserver.requests.BanRequest;
@@ -21,21 +21,17 @@ public class BanFulfillment extends Fulfillment {
     }
 
     /**
-     * Parses a {@link JsonObject} and constructs a new {@link BanFulfillment} object.
+     * Constructs a new {@link BanFulfillment} object from the fields of a fulfillment.
      *
-     * @param json A {@link JsonObject} containing the data required to create a {@link BanFulfillment}.
-     *             The JSON should include a "user" key with a long value for the user's ID, and optionally an "id" key
-     *             for the request ID. The content for the {@link AWBan} object should also be present in the JSON.
+     * @param fields The fields read from the fulfillment's JSON, containing the data required to create a
+     *               {@link BanFulfillment}. The JSON should include a "user" key with a long value for the user's ID,
+     *               and optionally an "id" key for the request ID. The content for the {@link AWBan} object should also
+     *               be present in the JSON.
      * @return A {@link BanFulfillment} object populated with the data extracted from the provided JSON.
      */
-    public static BanFulfillment parse(JsonObject json) {
-        boolean hasRequestId = json.has("id");
-        long requestId = json.has("id") ?
-                json.get("id").getAsLong() :
-                -1;
-
-        AWBan ban = AWBan.fromFulfillmentJSON(json.get("user").getAsLong(), json);
-        return new BanFulfillment(hasRequestId, requestId, ban);
+    public static BanFulfillment parse(FulfillmentFields fields) {
+        AWBan ban = fields.ban();
+        return new BanFulfillment(fields.hasRequestId(), fields.requestId(), ban);
     }
 
     @Override
@@ -75,9 +71,8 @@ public class BanFulfillment extends Fulfillment {
         bans.addBan(this.ban);
 
         if (evidenceIds != null) {
-            // register ban/evidence link(s)
-            for (long evidenceId : evidenceIds)
-                Links.BanEvidenceLinks.linkEvidenceToBan(this.ban, evidenceId);
+            // register ban/evidence link(s), all in one batch
+            Links.BanEvidenceLinks.linkEvidenceToBan(this.ban, evidenceIds);
         }
     }
 }
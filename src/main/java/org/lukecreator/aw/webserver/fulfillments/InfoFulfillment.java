@@ -1,23 +1,19 @@
 package org.lukecreator.aw.webserver.fulfillments;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import org.jetbrains.annotations.Nullable;
 import org.lukecreator.aw.AWDatabase;
 import org.lukecreator.aw.RobloxAPI;
 import org.lukecreator.aw.data.AWBan;
 import org.lukecreator.aw.data.AWPlayer;
+import org.lukecreator.aw.data.AWStats;
 import org.lukecreator.aw.webserver.Fulfillment;
+import org.lukecreator.aw.webserver.FulfillmentFields;
 import org.lukecreator.aw.webserver.PendingRequest;
 import org.lukecreator.aw.webserver.PendingRequestType;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.List;
-import java.util.function.Consumer;
 
 public class InfoFulfillment extends Fulfillment {
     public final long userId;
@@ -38,55 +34,15 @@ public class InfoFulfillment extends Fulfillment {
         Arrays.sort(bans, Comparator.comparingLong(AWBan::starts));
     }
 
-    public static InfoFulfillment parse(JsonObject json) {
-        boolean hasRequestId = json.has("id");
-        long requestId = json.has("id") ? json.get("id").getAsLong() : -1;
-
-        long userId = json.get("user").getAsLong();
-        String username = json.get("username").getAsString();
-        long punches = json.get("punches").getAsLong();
-
-        ArrayList<Long> _gamepassesList = new ArrayList<>();
-        if (json.has("gamepasses")) {
-            JsonElement gamepassesElement = json.get("gamepasses");
-            if (!gamepassesElement.isJsonNull() && gamepassesElement.isJsonArray()) {
-                JsonArray gamepassesJson = gamepassesElement.getAsJsonArray();
-                for (int i = 0; i < gamepassesJson.size(); i++) {
-                    JsonElement element = gamepassesJson.get(i);
-                    if (!element.isJsonPrimitive()) {
-                        continue;
-                    }
-                    _gamepassesList.add(element.getAsLong());
-                }
-            }
-        }
-        long[] gamepasses = _gamepassesList
-                .stream()
-                .distinct()
-                .mapToLong(Long::longValue)
-                .toArray();
-
-        List<AWBan> bans = new ArrayList<>();
-        final Consumer<JsonObject> addBan = ban -> bans.add(AWBan.fromFulfillmentJSON(userId, ban));
-
-        if (json.has("ban")) {
-            JsonElement banElement = json.get("ban");
-            if (!banElement.isJsonNull()) {
-                if (banElement.isJsonObject()) {
-                    addBan.accept(banElement.getAsJsonObject());
-                } else if (banElement.isJsonArray()) {
-                    JsonArray banArray = banElement.getAsJsonArray();
-                    for (JsonElement singleBan : banArray) {
-                        if (singleBan.isJsonObject()) {
-                            addBan.accept(singleBan.getAsJsonObject());
-                        }
-                    }
-                }
-            }
-        }
+    public static InfoFulfillment parse(FulfillmentFields fields) {
+        long userId = fields.user();
+        String username = FulfillmentFields.require(fields.username(), "username");
+        long punches = fields.punches();
+        long[] gamepasses = fields.gamepasses();
+        AWBan[] bans = fields.bans();
 
-        return new InfoFulfillment(hasRequestId, requestId,
-                userId, username, punches, gamepasses, bans.toArray(new AWBan[0]));
+        return new InfoFulfillment(fields.hasRequestId(), fields.requestId(),
+                userId, username, punches, gamepasses, bans);
     }
 
     @Override
@@ -97,16 +53,15 @@ public class InfoFulfillment extends Fulfillment {
         if (this.username != null && !this.username.isBlank() && !this.username.equalsIgnoreCase(player.username()))
             player.setUsername(this.username);
 
-        if (this.bans != null) {
-            for (AWBan ban : this.bans)
-                player.bans.addBan(ban);
-        }
+        if (this.bans != null)
+            player.bans.addBans(Arrays.asList(this.bans));
 
         if (this.punches != player.stats.punches()) {
-            player.stats.setPunches(this.punches);
+            player.stats.queuePunches(this.punches);
         }
 
-        if (!Arrays.equals(this.gamepasses, player.stats.gamepasses())) {
+        // stored gamepasses are always sorted, so compare against the same form to avoid rewriting them every time.
+        if (!Arrays.equals(AWStats.normalizeGamepasses(this.gamepasses), player.stats.gamepasses())) {
             player.stats.setGamepasses(this.gamepasses);
         }
     }
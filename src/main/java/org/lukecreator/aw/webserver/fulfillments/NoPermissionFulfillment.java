@@ -1,7 +1,7 @@
 package org.lukecreator.aw.webserver.fulfillments;
 
-import com.google.gson.JsonObject;
 import org.lukecreator.aw.webserver.Fulfillment;
+import org.lukecreator.aw.webserver.FulfillmentFields;
 import org.lukecreator.aw.webserver.PendingRequest;
 import org.lukecreator.aw.webserver.PendingRequestType;
 
@@ -12,10 +12,8 @@ public class NoPermissionFulfillment extends Fulfillment {
         super(hasRequestId, requestId, PendingRequestType.NO_PERMISSION);
     }
 
-    public static NoPermissionFulfillment parse(JsonObject json) {
-        boolean hasRequestId = json.has("id");
-        long requestId = json.has("id") ? json.get("id").getAsLong() : -1;
-        return new NoPermissionFulfillment(hasRequestId, requestId);
+    public static NoPermissionFulfillment parse(FulfillmentFields fields) {
+        return new NoPermissionFulfillment(fields.hasRequestId(), fields.requestId());
     }
 
     @Override
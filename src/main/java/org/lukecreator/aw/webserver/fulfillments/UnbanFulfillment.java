@@ -1,9 +1,9 @@
 package org.lukecreator.aw.webserver.fulfillments;
 
-import com.google.gson.JsonObject;
 import org.lukecreator.aw.AWDatabase;
 import org.lukecreator.aw.data.AWPlayer;
 import org.lukecreator.aw.webserver.Fulfillment;
+import org.lukecreator.aw.webserver.FulfillmentFields;
 import org.lukecreator.aw.webserver.PendingRequest;
 import org.lukecreator.aw.webserver.PendingRequestType;
 
@@ -22,22 +22,20 @@ public class UnbanFulfillment extends Fulfillment {
     }
 
     /**
-     * Parses a {@link JsonObject} and constructs a new {@link UnbanFulfillment} object.
+     * Constructs a new {@link UnbanFulfillment} object from the fields of a fulfillment.
      *
-     * @param json A {@link JsonObject} containing the data required to create an {@link UnbanFulfillment}.
-     *             The JSON should include a "user" key with a long value for the user's ID, and optionally an "id" key
-     *             for the request ID. It may also contain optional keys such as "username" and "responsible_user".
+     * @param fields The fields read from the fulfillment's JSON, containing the data required to create an
+     *               {@link UnbanFulfillment}. The JSON should include a "user" key with a long value for the user's ID,
+     *               and optionally an "id" key for the request ID. It may also contain optional keys such as "username"
+     *               and "responsible_user".
      * @return A {@link UnbanFulfillment} object populated with the data extracted from the provided JSON.
      */
-    public static UnbanFulfillment parse(JsonObject json) {
-        boolean hasRequestId = json.has("id");
-        long requestId = json.has("id") ? json.get("id").getAsLong() : -1;
+    public static UnbanFulfillment parse(FulfillmentFields fields) {
+        long userId = fields.user();
+        String username = fields.username();
+        Long responsibleModerator = fields.responsibleUser();
 
-        long userId = json.get("user").getAsLong();
-        String username = json.has("username") ? json.get("username").getAsString() : null;
-        Long responsibleModerator = json.has("responsible_user") ? json.get("responsible_user").getAsLong() : null;
-
-        return new UnbanFulfillment(hasRequestId, requestId, userId, username, responsibleModerator);
+        return new UnbanFulfillment(fields.hasRequestId(), fields.requestId(), userId, username, responsibleModerator);
     }
 
     @Override
@@ -8,15 +8,15 @@ public class SetPunchesRequest extends PendingRequest {
     /**
      * The ID of the player to set the punches of.
      */
-    public long userIdToSetPunches;
+    public final long userIdToSetPunches;
     /**
      * The Roblox ID of the moderator responsible for this action. Required for authorization.
      */
-    public long responsibleModerator;
+    public final long responsibleModerator;
     /**
      * The number of punches the player should have.
      */
-    public long punches;
+    public final long punches;
 
     /**
      * Represents a request to set the punch count of a player on the Ability Wars Roblox server.
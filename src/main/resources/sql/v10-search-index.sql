@@ -0,0 +1,36 @@
+-- v10 adds full-text search over ban reasons, evidence details and ticket input questions, for /search.
+--
+-- Each index is an FTS5 table over the table it searches (external content), so the text itself isn't stored twice.
+-- The index doesn't update itself; SearchIndex is told about every write to the indexed columns, in the same
+-- transaction. If a table is ever changed without going through it (or vacuumed, which can renumber the rowids of
+-- bans), run SearchIndex.rebuild().
+--
+-- The porter tokenizer matches different forms of the same word, so "exploiting" finds bans for "exploit" too.
+
+CREATE VIRTUAL TABLE ban_search USING fts5
+(
+    reason,
+    content = 'bans',
+    tokenize = 'porter unicode61 remove_diacritics 2'
+);
+
+CREATE VIRTUAL TABLE evidence_search USING fts5
+(
+    details,
+    content = 'evidence',
+    content_rowid = 'evidence_id',
+    tokenize = 'porter unicode61 remove_diacritics 2'
+);
+
+CREATE VIRTUAL TABLE ticket_search USING fts5
+(
+    input_questions,
+    content = 'tickets',
+    content_rowid = 'ticket_id',
+    tokenize = 'porter unicode61 remove_diacritics 2'
+);
+
+-- index everything that's already there.
+INSERT INTO ban_search (ban_search) VALUES ('rebuild');
+INSERT INTO evidence_search (evidence_search) VALUES ('rebuild');
+INSERT INTO ticket_search (ticket_search) VALUES ('rebuild');
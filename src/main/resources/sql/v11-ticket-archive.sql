@@ -0,0 +1,59 @@
+-- v11 moves tickets that have been closed for a while out of the tickets table, so the lookups staff run all the time
+-- (history, counts, the next ticket ID) only have to go through recent tickets and the few archived ones they ask for.
+--
+-- TicketArchive moves them in the background. Every query that reads tickets or their evidence links reads both
+-- tables, so an archived ticket shows up everywhere a recent one does.
+
+-- The unix millisecond the ticket was closed at, or NULL while it's open. Nothing recorded this before, so tickets that
+-- are already closed get their opened time, which archives them by how long ago they were opened instead.
+ALTER TABLE tickets
+    ADD COLUMN closed_timestamp INTEGER DEFAULT NULL;
+UPDATE tickets
+SET closed_timestamp = opened_timestamp
+WHERE is_open = false;
+CREATE INDEX tickets_by_closed_timestamp ON tickets (closed_timestamp);
+
+-- Same columns as tickets, except only closed tickets end up here.
+CREATE TABLE tickets_archive
+(
+    ticket_id          INTEGER NOT NULL PRIMARY KEY,
+    discord_channel_id INTEGER NOT NULL,
+    type               INTEGER NOT NULL,
+    opened_timestamp   INTEGER NOT NULL,
+    is_open            INTEGER NOT NULL DEFAULT FALSE,
+    close_reason       TEXT,
+    closed_by          INTEGER,
+    input_questions    TEXT    NOT NULL,
+    owner_discord_id   INTEGER NOT NULL,
+    closed_timestamp   INTEGER
+);
+CREATE INDEX tickets_archive_by_owner ON tickets_archive (owner_discord_id, opened_timestamp, ticket_id);
+CREATE INDEX tickets_archive_by_closer ON tickets_archive (closed_by, opened_timestamp, ticket_id);
+
+-- The evidence links of archived tickets.
+CREATE TABLE ticket_evidence_link_archive
+(
+    ticket_id   INTEGER NOT NULL,
+    evidence_id INTEGER NOT NULL,
+    PRIMARY KEY (ticket_id, evidence_id)
+);
+CREATE INDEX ticket_evidence_link_archive_by_evidence ON ticket_evidence_link_archive (evidence_id);
+
+-- The ticket search index reads its text from both tables through this view, so moving a ticket between them doesn't
+-- change what's indexed.
+CREATE VIEW ticket_search_content AS
+SELECT ticket_id, input_questions
+FROM tickets
+UNION ALL
+SELECT ticket_id, input_questions
+FROM tickets_archive;
+
+DROP TABLE ticket_search;
+CREATE VIRTUAL TABLE ticket_search USING fts5
+(
+    input_questions,
+    content = 'ticket_search_content',
+    content_rowid = 'ticket_id',
+    tokenize = 'porter unicode61 remove_diacritics 2'
+);
+INSERT INTO ticket_search (ticket_search) VALUES ('rebuild');
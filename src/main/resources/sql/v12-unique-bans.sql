@@ -0,0 +1,35 @@
+-- v12 makes a ban's user and start time unique, which is what already tells bans apart everywhere else (ban/evidence
+-- links, AWBans.addBan). Bans are upserted on it, so a fulfillment the game retries doesn't rewrite anything.
+--
+-- Older versions only replaced a ban with the same start time if it happened to be loaded already, so there may be
+-- duplicates. The last one written wins, same as it would have if it had been replaced properly.
+DELETE
+FROM bans
+WHERE rowid NOT IN (SELECT MAX(rowid) FROM bans GROUP BY user_id, starts);
+
+-- replaces bans_by_user from v7, which covered the same columns.
+DROP INDEX IF EXISTS bans_by_user;
+CREATE UNIQUE INDEX bans_by_user_and_start ON bans (user_id, starts);
+
+-- the duplicates that were just deleted can still be in the search index and staff ban counts, so rebuild both. this is
+-- the same as SearchIndex.rebuild() and StaffBanCounts.rebuild().
+INSERT INTO ban_search (ban_search) VALUES ('rebuild');
+
+DELETE FROM staff_weekly_ban_counts;
+DELETE FROM staff_ban_credits;
+
+INSERT INTO staff_ban_credits (user_id, week_start, responsible_moderator)
+SELECT user_id, week_start, responsible_moderator
+FROM (SELECT user_id, responsible_moderator, starts, week_start,
+             ROW_NUMBER() OVER (PARTITION BY user_id, week_start ORDER BY starts DESC) AS latest
+      FROM (SELECT user_id, responsible_moderator, starts,
+                   (starts / 86400000 - (starts / 86400000 + 3) % 7) * 86400000 AS week_start
+            FROM bans)) ban
+WHERE latest = 1
+  AND responsible_moderator IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM unbans WHERE unbans.user_id = ban.user_id AND unbans.date > ban.starts);
+
+INSERT INTO staff_weekly_ban_counts (week_start, responsible_moderator, ban_count)
+SELECT week_start, responsible_moderator, COUNT(*)
+FROM staff_ban_credits
+GROUP BY week_start, responsible_moderator;
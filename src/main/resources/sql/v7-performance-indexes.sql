@@ -0,0 +1,24 @@
+-- Indexes for the predicates the data classes actually run. Everything here is keyed on the
+-- WHERE/ORDER BY of a query in AWQuery, so lookups stop scanning whole tables as they grow.
+
+-- loading a player's records (and the ban/evidence link joins) by user, oldest first.
+CREATE INDEX IF NOT EXISTS bans_by_user ON bans (user_id, starts);
+CREATE INDEX IF NOT EXISTS unbans_by_user ON unbans (user_id, date);
+CREATE INDEX IF NOT EXISTS punch_update_records_by_user ON punch_update_records (user_id, date);
+
+-- counting the bans a staff member issued in a given week.
+CREATE INDEX IF NOT EXISTS bans_by_moderator ON bans (responsible_moderator, starts);
+
+-- ticket history, newest first, for both the owner and the closer of a ticket.
+CREATE INDEX IF NOT EXISTS tickets_by_owner ON tickets (owner_discord_id, opened_timestamp, ticket_id);
+CREATE INDEX IF NOT EXISTS tickets_by_closer ON tickets (closed_by, opened_timestamp, ticket_id);
+
+-- loading every open ticket on startup.
+CREATE INDEX IF NOT EXISTS tickets_by_is_open ON tickets (is_open);
+
+-- evidence against a specific user.
+CREATE INDEX IF NOT EXISTS evidence_by_accused_user ON evidence (accused_user);
+
+-- the primary keys of the link tables only cover lookups from the ticket/ban side.
+CREATE INDEX IF NOT EXISTS ticket_evidence_link_by_evidence ON ticket_evidence_link (evidence_id);
+CREATE INDEX IF NOT EXISTS ban_evidence_link_by_evidence ON ban_evidence_link (evidence_id);
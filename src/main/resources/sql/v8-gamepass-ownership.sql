@@ -0,0 +1,34 @@
+-- v8 moves gamepass ownership out of the comma-separated stats.gamepasses column and into its own table.
+
+-- Each row is one gamepass owned by one player.
+CREATE TABLE gamepass_ownership
+(
+    -- The Roblox ID of the player that owns the gamepass.
+    user_id     INTEGER NOT NULL,
+    -- The ID of the gamepass.
+    gamepass_id INTEGER NOT NULL,
+
+    PRIMARY KEY (user_id, gamepass_id),
+    FOREIGN KEY (user_id) REFERENCES players (user_id)
+) WITHOUT ROWID;
+
+-- finding every player that owns a specific gamepass.
+CREATE INDEX gamepass_ownership_by_gamepass ON gamepass_ownership (gamepass_id, user_id);
+
+-- copy over the existing lists, one row per comma-separated ID.
+WITH RECURSIVE split (user_id, gamepass_id, rest) AS (
+    SELECT user_id, '', gamepasses || ','
+    FROM stats
+    WHERE gamepasses IS NOT NULL AND trim(gamepasses) != ''
+    UNION ALL
+    SELECT user_id, trim(substr(rest, 1, instr(rest, ',') - 1)), substr(rest, instr(rest, ',') + 1)
+    FROM split
+    WHERE rest != ''
+)
+INSERT OR IGNORE INTO gamepass_ownership (user_id, gamepass_id)
+SELECT user_id, CAST(gamepass_id AS INTEGER)
+FROM split
+WHERE gamepass_id != '';
+
+ALTER TABLE stats
+    DROP COLUMN gamepasses;
@@ -0,0 +1,48 @@
+-- v9 keeps a running count of the bans each staff member issued per week, so ticket counts don't have to be worked out
+-- from the whole bans table every time.
+--
+-- A ban counts towards a staff member's week if it's the latest ban of that user that started in that week, and the
+-- user hasn't been unbanned since. Weeks start on Monday at 00:00 UTC, and are stored as that unix millisecond.
+
+-- For each user, which staff member (if any) gets the credit for banning them in each week.
+CREATE TABLE staff_ban_credits
+(
+    -- The Roblox ID of the banned user.
+    user_id               INTEGER NOT NULL,
+    -- The unix millisecond the week started at.
+    week_start            INTEGER NOT NULL,
+    -- The Roblox ID of the staff member credited with the ban.
+    responsible_moderator INTEGER NOT NULL,
+
+    PRIMARY KEY (user_id, week_start)
+) WITHOUT ROWID;
+
+-- The number of credits each staff member has in each week.
+CREATE TABLE staff_weekly_ban_counts
+(
+    -- The unix millisecond the week started at.
+    week_start            INTEGER NOT NULL,
+    -- The Roblox ID of the staff member.
+    responsible_moderator INTEGER NOT NULL,
+    -- The number of bans credited to the staff member that week.
+    ban_count             INTEGER NOT NULL,
+
+    PRIMARY KEY (week_start, responsible_moderator)
+) WITHOUT ROWID;
+
+-- build both from the existing bans. this is the same as StaffBanCounts.rebuild().
+INSERT INTO staff_ban_credits (user_id, week_start, responsible_moderator)
+SELECT user_id, week_start, responsible_moderator
+FROM (SELECT user_id, responsible_moderator, starts, week_start,
+             ROW_NUMBER() OVER (PARTITION BY user_id, week_start ORDER BY starts DESC) AS latest
+      FROM (SELECT user_id, responsible_moderator, starts,
+                   (starts / 86400000 - (starts / 86400000 + 3) % 7) * 86400000 AS week_start
+            FROM bans)) ban
+WHERE latest = 1
+  AND responsible_moderator IS NOT NULL
+  AND NOT EXISTS (SELECT 1 FROM unbans WHERE unbans.user_id = ban.user_id AND unbans.date > ban.starts);
+
+INSERT INTO staff_weekly_ban_counts (week_start, responsible_moderator, ban_count)
+SELECT week_start, responsible_moderator, COUNT(*)
+FROM staff_ban_credits
+GROUP BY week_start, responsible_moderator;
@@ -0,0 +1,76 @@
+package org.lukecreator.aw;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plans every query in {@link AWQuery} against a freshly migrated database, and fails for any that scan a whole table
+ * without being marked as a full scan.
+ */
+public class AWQueryPlansTest {
+    @TempDir
+    static Path directory;
+    private static AWConnectionPool pool;
+
+    @BeforeAll
+    static void migrate() throws Exception {
+        pool = new AWConnectionPool("jdbc:sqlite:" + directory.resolve("plans.db"), 1, 5000);
+        AWMigrations.migrate(pool);
+    }
+
+    @AfterAll
+    static void close() {
+        pool.close();
+    }
+
+    @TestFactory
+    Stream<DynamicTest> queriesUseAnIndex() {
+        return Arrays.stream(AWQuery.values())
+                .filter(query -> !query.fullScan)
+                .map(query -> DynamicTest.dynamicTest(query.name(), () -> {
+                    try (var db = pool.read()) {
+                        assertEquals(List.of(), AWQueryPlans.findTableScans(db.connection(), query));
+                    }
+                }));
+    }
+
+    @Test
+    void fullScansAreFound() throws Exception {
+        try (var db = pool.read()) {
+            assertFalse(AWQueryPlans.findTableScans(db.connection(), AWQuery.EXPORT_BANS).isEmpty());
+            assertFalse(AWQueryPlans.findTableScans(db.connection(), AWQuery.ALL_DISCORD_ROBLOX_LINKS).isEmpty());
+        }
+    }
+
+    @Test
+    void scansThroughAnIndexAreTableScans() {
+        assertTrue(AWQueryPlans.isTableScan("SCAN bans", List.of()));
+        assertTrue(AWQueryPlans.isTableScan("SCAN TABLE bans", List.of()));
+        assertTrue(AWQueryPlans.isTableScan("SCAN bans USING INDEX bans_by_user", List.of()));
+        assertTrue(AWQueryPlans.isTableScan("SCAN bans USING COVERING INDEX bans_by_user", List.of()));
+        assertTrue(AWQueryPlans.isTableScan("SCAN ban_search VIRTUAL TABLE INDEX 0:", List.of()));
+    }
+
+    @Test
+    void searchesAndSubqueriesAreNotTableScans() {
+        assertFalse(AWQueryPlans.isTableScan("SEARCH bans USING INDEX bans_by_user (user_id=?)", List.of()));
+        assertFalse(AWQueryPlans.isTableScan("SEARCH b USING INTEGER PRIMARY KEY (rowid=?)", List.of()));
+        assertFalse(AWQueryPlans.isTableScan("SCAN CONSTANT ROW", List.of()));
+        assertFalse(AWQueryPlans.isTableScan("SCAN ban_search VIRTUAL TABLE INDEX 0:M1", List.of()));
+        assertFalse(AWQueryPlans.isTableScan("SCAN m", List.of("m")));
+        assertFalse(AWQueryPlans.isTableScan("SCAN link USING COVERING INDEX x", List.of("link")));
+    }
+}
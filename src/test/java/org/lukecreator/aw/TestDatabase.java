@@ -0,0 +1,33 @@
+package org.lukecreator.aw;
+
+import java.io.File;
+import java.nio.file.Files;
+
+/**
+ * Opens a temporary, freshly migrated database for tests. It's shared by every test in the run, so tests should use
+ * their own user and ticket IDs rather than expecting empty tables.
+ */
+public final class TestDatabase {
+    private static boolean opened = false;
+
+    private TestDatabase() {
+    }
+
+    /**
+     * Opens the database with {@link AWDatabase#init(String)}, if it isn't open already. It's deleted when the tests
+     * finish.
+     */
+    public static synchronized void open() throws Exception {
+        if (opened)
+            return;
+        File directory = Files.createTempDirectory("aw-test").toFile();
+        File file = new File(directory, "aw.db");
+        // deleted in reverse order, after the database has been closed.
+        directory.deleteOnExit();
+        file.deleteOnExit();
+        new File(directory, "aw.db-wal").deleteOnExit();
+        new File(directory, "aw.db-shm").deleteOnExit();
+        AWDatabase.init("jdbc:sqlite:" + file.getAbsolutePath());
+        opened = true;
+    }
+}
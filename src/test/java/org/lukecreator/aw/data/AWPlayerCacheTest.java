@@ -0,0 +1,50 @@
+package org.lukecreator.aw.data;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.lukecreator.aw.TestDatabase;
+import org.lukecreator.aw.data.repository.Repositories;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class AWPlayerCacheTest {
+    @BeforeAll
+    static void open() throws Exception {
+        TestDatabase.open();
+        assumeTrue(AWPlayerCache.isEnabled());
+    }
+
+    @Test
+    void punchUpdateHistoryIsNotCached() throws Exception {
+        long userId = 12_000_001L;
+        Repositories.players().ensureExists(userId, "cached");
+        Repositories.punchUpdates().add(List.of(
+                new AWPunchUpdate(userId, null, 1_000L, 0, 10),
+                new AWPunchUpdate(userId, null, 2_000L, 10, 20)));
+        AWPlayerCache.invalidate(userId);
+
+        assertEquals(2, AWPlayer.loadFromDatabase(userId, true, true, true, true).punchUpdates.size());
+        AWPlayer.Snapshot cached = AWPlayerCache.get(userId);
+        assertNotNull(cached);
+        assertEquals("cached", cached.username());
+        assertEquals(0, cached.punchUpdates().length);
+    }
+
+    @Test
+    void punchUpdateHistoryIsLoadedOnACacheHit() throws Exception {
+        long userId = 12_000_002L;
+        Repositories.players().ensureExists(userId, "hit");
+        AWPlayerCache.invalidate(userId);
+        AWPlayer.loadFromDatabase(userId, true, false, false, false);
+        assertNotNull(AWPlayerCache.get(userId));
+
+        // written behind the cache's back, so only a fresh load of the history sees it.
+        Repositories.punchUpdates().add(List.of(new AWPunchUpdate(userId, null, 3_000L, 0, 5)));
+        assertEquals(1, AWPlayer.loadFromDatabase(userId, true, false, false, true).punchUpdates.size());
+        assertEquals(0, AWPlayerCache.get(userId).punchUpdates().length);
+    }
+}
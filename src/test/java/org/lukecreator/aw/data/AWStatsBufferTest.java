@@ -0,0 +1,93 @@
+package org.lukecreator.aw.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that staged punch changes only reach {@link AWStatsBuffer} once they're published.
+ */
+public class AWStatsBufferTest {
+    private static List<AWPunchUpdate> pendingRecords(long userId) {
+        List<AWPunchUpdate> records = new ArrayList<>();
+        AWStatsBuffer.addPendingRecords(userId, records);
+        return records;
+    }
+
+    private static AWPunchUpdate record(long userId, long oldPunches, long newPunches) {
+        return new AWPunchUpdate(userId, null, 1_000L, oldPunches, newPunches);
+    }
+
+    @Test
+    void unpublishedChangesAreDropped() {
+        long userId = 11_000_001L;
+        try (var staged = AWStatsBuffer.stage()) {
+            AWStatsBuffer.setPunches(userId, 50);
+            AWStatsBuffer.addRecord(record(userId, 0, 50));
+
+            // visible to loads on the staging thread while the transaction is open.
+            assertEquals(50L, AWStatsBuffer.pendingPunches(userId));
+            assertEquals(1, pendingRecords(userId).size());
+            assertEquals(new AWStatsBuffer.Staging.Mark(1, 1), staged.mark());
+        }
+        assertNull(AWStatsBuffer.pendingPunches(userId));
+        assertEquals(List.of(), pendingRecords(userId));
+    }
+
+    @Test
+    void publishedChangesAreBuffered() {
+        long userId = 11_000_004L;
+        try (var staged = AWStatsBuffer.stage()) {
+            AWStatsBuffer.setPunches(userId, 40);
+            AWStatsBuffer.addRecord(record(userId, 0, 40));
+            staged.publish();
+        }
+        assertEquals(40L, AWStatsBuffer.pendingPunches(userId));
+        assertEquals(1, pendingRecords(userId).size());
+        AWStatsBuffer.discardPunches(userId);
+        AWStatsBuffer.discardRecords(userId);
+    }
+
+    @Test
+    void rollingBackToAMarkDropsLaterChanges() {
+        long userId = 11_000_002L;
+        try (var staged = AWStatsBuffer.stage()) {
+            AWStatsBuffer.setPunches(userId, 10);
+            AWStatsBuffer.addRecord(record(userId, 0, 10));
+            AWStatsBuffer.Staging.Mark mark = staged.mark();
+            AWStatsBuffer.setPunches(userId, 20);
+            AWStatsBuffer.addRecord(record(userId, 10, 20));
+
+            staged.rollbackTo(mark);
+            assertEquals(10L, AWStatsBuffer.pendingPunches(userId));
+            staged.publish();
+        }
+        assertEquals(10L, AWStatsBuffer.pendingPunches(userId));
+        List<AWPunchUpdate> records = pendingRecords(userId);
+        assertEquals(1, records.size());
+        assertEquals(10L, records.get(0).newPunches());
+        AWStatsBuffer.discardPunches(userId);
+        AWStatsBuffer.discardRecords(userId);
+    }
+
+    @Test
+    void stagingIsPerThread() throws InterruptedException {
+        long userId = 11_000_003L;
+        try (var staged = AWStatsBuffer.stage()) {
+            AWStatsBuffer.setPunches(userId, 30);
+            Long[] seenElsewhere = {0L};
+            Thread other = new Thread(() -> seenElsewhere[0] = AWStatsBuffer.pendingPunches(userId));
+            other.start();
+            other.join();
+            assertNull(seenElsewhere[0]);
+            assertThrows(IllegalStateException.class, AWStatsBuffer::stage);
+            staged.publish();
+        }
+        AWStatsBuffer.discardPunches(userId);
+    }
+}
@@ -0,0 +1,108 @@
+package org.lukecreator.aw.data;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.TestDatabase;
+import org.lukecreator.aw.data.repository.Repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares resolving the evidence linked to a ticket or ban with one join query against how it used to be done: a
+ * query for the linked IDs, then a query per piece of evidence. Run with {@code gradle benchmark}.
+ * <p>
+ * Everything runs inside one read lease, so both sides use statements that are already prepared.
+ */
+@Tag("benchmark")
+public class EvidenceLinkBenchmark {
+    private static final long FIRST_TICKET = 9_000_000L;
+    private static final long FIRST_USER = 7_000_000L;
+    private static final long FIRST_EVIDENCE = 8_000_000L;
+    private static final long BAN_STARTS = 1_000L;
+    private static final int WARMUP_LOOKUPS = 2_000;
+    private static final int LOOKUPS = 10_000;
+
+    @BeforeAll
+    static void seed() throws Exception {
+        TestDatabase.open();
+        for (int links : new int[]{1, 10, 100}) {
+            long ticketId = FIRST_TICKET + links;
+            AWBan ban = new AWBan(FIRST_USER + links, 1L, "linked", BAN_STARTS, null, null, false);
+            Repositories.bans().add(List.of(ban), null);
+
+            long[] evidenceIds = new long[links];
+            for (int i = 0; i < links; i++) {
+                evidenceIds[i] = FIRST_EVIDENCE + links * 1000L + i;
+                Repositories.evidence().save(new AWEvidence(evidenceIds[i], 1_700_000_000_000L + i, null,
+                        "evidence " + i, "https://example.com/" + i + ".png"));
+            }
+            Repositories.links().linkEvidenceToTicket(ticketId, evidenceIds);
+            Repositories.links().linkEvidenceToBan(ban, evidenceIds);
+        }
+    }
+
+    private static AWEvidence[] loadEach(long[] evidenceIds) throws SQLException {
+        AWEvidence[] evidence = new AWEvidence[evidenceIds.length];
+        for (int i = 0; i < evidenceIds.length; i++)
+            evidence[i] = Repositories.evidence().load(evidenceIds[i]);
+        return evidence;
+    }
+
+    private static AWEvidence[] banEvidenceSeparately(PreparedStatement idsLinkedToBan, long userId) throws SQLException {
+        idsLinkedToBan.setLong(1, userId);
+        idsLinkedToBan.setLong(2, BAN_STARTS);
+        ArrayList<Long> ids = new ArrayList<>();
+        try (ResultSet results = idsLinkedToBan.executeQuery()) {
+            while (results.next())
+                ids.add(results.getLong(1));
+        }
+        return loadEach(ids.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    private static double microsPerLookup(Lookup lookup, int lookups) throws SQLException {
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++)
+            lookup.run();
+        return (System.nanoTime() - start) / 1000.0 / lookups;
+    }
+
+    @ParameterizedTest(name = "{0} links")
+    @ValueSource(ints = {1, 10, 100})
+    void evidenceLinks(int links) throws SQLException {
+        long ticketId = FIRST_TICKET + links;
+        long userId = FIRST_USER + links;
+
+        try (var db = AWDatabase.read();
+             var idsLinkedToBan = db.connection().prepareStatement("""
+                     SELECT evidence_id FROM ban_evidence_link WHERE user_id = ? AND starts_timestamp = ?""")) {
+            Lookup ticketSeparately = () -> loadEach(Repositories.links().evidenceIdsLinkedToTicket(ticketId));
+            Lookup ticketJoined = () -> Repositories.links().evidenceLinkedToTicket(ticketId);
+            Lookup banSeparately = () -> banEvidenceSeparately(idsLinkedToBan, userId);
+            Lookup banJoined = () -> Repositories.links().evidenceLinkedToBan(userId, BAN_STARTS);
+
+            assertEquals(links, Repositories.links().evidenceLinkedToTicket(ticketId).length);
+            assertEquals(links, Repositories.links().evidenceLinkedToBan(userId, BAN_STARTS).length);
+            assertEquals(links, banEvidenceSeparately(idsLinkedToBan, userId).length);
+
+            for (Lookup lookup : new Lookup[]{ticketSeparately, ticketJoined, banSeparately, banJoined})
+                microsPerLookup(lookup, WARMUP_LOOKUPS);
+
+            System.out.printf("%3d links: ticket %.1fus -> %.1fus, ban %.1fus -> %.1fus%n", links,
+                    microsPerLookup(ticketSeparately, LOOKUPS), microsPerLookup(ticketJoined, LOOKUPS),
+                    microsPerLookup(banSeparately, LOOKUPS), microsPerLookup(banJoined, LOOKUPS));
+        }
+    }
+
+    private interface Lookup {
+        void run() throws SQLException;
+    }
+}
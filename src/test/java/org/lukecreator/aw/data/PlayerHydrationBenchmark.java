@@ -0,0 +1,122 @@
+package org.lukecreator.aw.data;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.lukecreator.aw.TestDatabase;
+import org.lukecreator.aw.data.repository.Repositories;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares loading a player with the single {@link org.lukecreator.aw.AWQuery#HYDRATE_PLAYER} query against the five
+ * separate round trips (player, stats, bans, unbans, punch updates) plus the default player insert it replaced.
+ * <p>
+ * Run with {@code gradle benchmark}. Both go through the repositories directly, so {@link AWPlayerCache} doesn't hide
+ * the difference.
+ */
+@Tag("benchmark")
+public class PlayerHydrationBenchmark {
+    private static final long FIRST_USER = 4_000_000L;
+    private static final int PLAYERS = 500;
+    private static final int WARMUP_LOOKUPS = 5_000;
+    private static final int LOOKUPS = 20_000;
+
+    @BeforeAll
+    static void seed() throws Exception {
+        TestDatabase.open();
+        for (int i = 0; i < PLAYERS; i++) {
+            long userId = FIRST_USER + i;
+            Repositories.players().setUsername(userId, "player" + i);
+            Repositories.players().ensureStats(userId);
+            Repositories.players().setPunches(userId, i * 10L);
+            Repositories.bans().add(List.of(
+                    new AWBan(userId, 1L, "first", 1_000L, 2_000L, null, false),
+                    new AWBan(userId, 1L, "second", 3_000L, 4_000L, null, false),
+                    new AWBan(userId, 2L, "third", 5_000L, null, null, false)), null);
+            Repositories.unbans().add(List.of(new AWUnban(userId, 2L, 6_000L)));
+        }
+    }
+
+    /**
+     * How the player was loaded before: the player row, then each section on its own, then the default player insert
+     * (which took the writer lock on every lookup).
+     */
+    private static AWPlayer.Snapshot loadSeparately(long userId) throws SQLException {
+        AWPlayer.Snapshot player = Repositories.players().load(userId, false, false, false, false);
+        AWStats stats = Repositories.players().loadStats(userId);
+        List<AWBan> bans = Repositories.bans().load(userId);
+        List<AWUnban> unbans = Repositories.unbans().load(userId);
+        List<AWPunchUpdate> punchUpdates = Repositories.punchUpdates().load(userId);
+        Repositories.players().ensureExists(userId, player.username());
+        return new AWPlayer.Snapshot(userId, player.exists(), player.username(),
+                player.isAppealBlacklisted(), player.appealBlacklistReason(),
+                player.appealBlacklistDate(), player.appealBlacklistIssuer(),
+                stats.punches(), stats.gamepasses(),
+                bans.toArray(new AWBan[0]),
+                unbans.toArray(new AWUnban[0]),
+                punchUpdates.toArray(new AWPunchUpdate[0]));
+    }
+
+    /**
+     * How the player is loaded now: one query, and the insert only if the player doesn't exist.
+     */
+    private static AWPlayer.Snapshot loadHydrated(long userId) throws SQLException {
+        AWPlayer.Snapshot player = Repositories.players().load(userId, true, true, true, true);
+        if (!player.exists())
+            Repositories.players().ensureExists(userId, null);
+        return player;
+    }
+
+    private static double microsPerLookup(Loader loader, long firstUser, int players, int lookups) throws SQLException {
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++)
+            loader.load(firstUser + (i % players));
+        return (System.nanoTime() - start) / 1000.0 / lookups;
+    }
+
+    @Test
+    void loadsTheSamePlayer() throws SQLException {
+        for (int i = 0; i < PLAYERS; i += 50) {
+            AWPlayer.Snapshot separate = loadSeparately(FIRST_USER + i);
+            AWPlayer.Snapshot hydrated = loadHydrated(FIRST_USER + i);
+            assertEquals(separate.username(), hydrated.username());
+            assertEquals(separate.punches(), hydrated.punches());
+            assertEquals(3, hydrated.bans().length);
+            assertEquals(1, hydrated.unbans().length);
+            for (int b = 0; b < 3; b++) {
+                assertEquals(separate.bans()[b].reason(), hydrated.bans()[b].reason());
+                assertEquals(separate.bans()[b].starts(), hydrated.bans()[b].starts());
+            }
+            assertArrayEquals(separate.gamepasses(), hydrated.gamepasses());
+        }
+    }
+
+    @Test
+    void existingPlayers() throws SQLException {
+        microsPerLookup(PlayerHydrationBenchmark::loadSeparately, FIRST_USER, PLAYERS, WARMUP_LOOKUPS);
+        microsPerLookup(PlayerHydrationBenchmark::loadHydrated, FIRST_USER, PLAYERS, WARMUP_LOOKUPS);
+
+        double separate = microsPerLookup(PlayerHydrationBenchmark::loadSeparately, FIRST_USER, PLAYERS, LOOKUPS);
+        double hydrated = microsPerLookup(PlayerHydrationBenchmark::loadHydrated, FIRST_USER, PLAYERS, LOOKUPS);
+        System.out.printf("Existing players (%d lookups over %d players): separate %.1fus, hydrated %.1fus%n",
+                LOOKUPS, PLAYERS, separate, hydrated);
+    }
+
+    @Test
+    void newPlayers() throws SQLException {
+        // every lookup is of a player that isn't in the database yet, so both end up inserting it.
+        double separate = microsPerLookup(PlayerHydrationBenchmark::loadSeparately, 5_000_000L, LOOKUPS, LOOKUPS);
+        double hydrated = microsPerLookup(PlayerHydrationBenchmark::loadHydrated, 6_000_000L, LOOKUPS, LOOKUPS);
+        System.out.printf("New players (%d lookups): separate %.1fus, hydrated %.1fus%n",
+                LOOKUPS, separate, hydrated);
+    }
+
+    private interface Loader {
+        void load(long userId) throws SQLException;
+    }
+}
@@ -0,0 +1,179 @@
+package org.lukecreator.aw.data;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.lukecreator.aw.AWDatabase;
+import org.lukecreator.aw.AWQuery;
+import org.lukecreator.aw.TestDatabase;
+import org.lukecreator.aw.data.repository.Repositories;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the weekly counts kept by {@link StaffBanCounts} against the query they replaced, which worked each count out
+ * from the bans and unbans every time.
+ */
+public class StaffBanCountsTest {
+    private static final long DAY = 86_400_000L;
+    private static final long WEEK = 7 * DAY;
+    /**
+     * Monday, January 1st 2024, 00:00 UTC.
+     */
+    private static final long FIRST_WEEK = 1_704_067_200_000L;
+    private static final int WEEKS = 3;
+    private static final long FIRST_MODERATOR = 13_000_001L;
+    private static final int MODERATORS = 4;
+    /**
+     * The credit query from before the counts were kept: the moderator's bans that started in the week, that are the
+     * latest ban of their user that started in the week, and that the user hasn't been unbanned since.
+     */
+    private static final String BASELINE = """
+            SELECT COUNT(*)
+            FROM bans ban
+            LEFT JOIN unbans unban ON ban.user_id = unban.user_id
+                                   AND unban.date > ban.starts
+            WHERE ban.responsible_moderator = ?
+            AND ban.starts >= ? AND ban.starts <= ?
+            AND unban.user_id IS NULL
+            AND ban.starts = (
+                SELECT MAX(b2.starts)
+                FROM bans b2
+                WHERE b2.user_id = ban.user_id
+                  AND b2.starts >= ? AND b2.starts <= ?
+            )""";
+
+    @BeforeAll
+    static void open() throws Exception {
+        TestDatabase.open();
+    }
+
+    private static int baseline(long moderator, long weekStart) throws SQLException {
+        long weekEnd = weekStart + WEEK - 1;
+        try (var db = AWDatabase.read();
+             var statement = db.connection().prepareStatement(BASELINE)) {
+            statement.setLong(1, moderator);
+            statement.setLong(2, weekStart);
+            statement.setLong(3, weekEnd);
+            statement.setLong(4, weekStart);
+            statement.setLong(5, weekEnd);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() ? result.getInt(1) : 0;
+            }
+        }
+    }
+
+    private static void assertMatchesBaseline(String when) throws SQLException {
+        for (int m = 0; m < MODERATORS; m++) {
+            for (int w = 0; w < WEEKS; w++) {
+                long moderator = FIRST_MODERATOR + m;
+                long weekStart = FIRST_WEEK + w * WEEK;
+                assertEquals(baseline(moderator, weekStart), StaffBanCounts.countForStaff(moderator, weekStart),
+                        "moderator " + moderator + ", week " + w + ", " + when);
+            }
+        }
+    }
+
+    private static void ban(long userId, long moderator, long starts) throws SQLException {
+        Repositories.bans().add(List.of(new AWBan(userId, moderator, "exploiting", starts, null, null, false)), null);
+    }
+
+    private static void unban(long userId, long moderator, long date) throws SQLException {
+        Repositories.unbans().add(List.of(new AWUnban(userId, moderator, date)));
+    }
+
+    @Test
+    void unbanTakesBackTheCredit() throws SQLException {
+        long userId = 13_100_001L;
+        long moderator = FIRST_MODERATOR;
+        int before = StaffBanCounts.countForStaff(moderator, FIRST_WEEK);
+
+        ban(userId, moderator, FIRST_WEEK + DAY);
+        assertEquals(before + 1, StaffBanCounts.countForStaff(moderator, FIRST_WEEK));
+        unban(userId, moderator, FIRST_WEEK + 2 * DAY);
+        assertEquals(before, StaffBanCounts.countForStaff(moderator, FIRST_WEEK));
+        assertMatchesBaseline("after a ban and an unban");
+    }
+
+    @Test
+    void laterBanInTheSameWeekWins() throws SQLException {
+        long userId = 13_100_002L;
+        long first = FIRST_MODERATOR + 1;
+        long second = FIRST_MODERATOR + 2;
+        int firstBefore = StaffBanCounts.countForStaff(first, FIRST_WEEK);
+        int secondBefore = StaffBanCounts.countForStaff(second, FIRST_WEEK);
+
+        ban(userId, first, FIRST_WEEK + DAY);
+        ban(userId, second, FIRST_WEEK + 3 * DAY);
+        assertEquals(firstBefore, StaffBanCounts.countForStaff(first, FIRST_WEEK));
+        assertEquals(secondBefore + 1, StaffBanCounts.countForStaff(second, FIRST_WEEK));
+        assertMatchesBaseline("after two bans in the same week");
+    }
+
+    @Test
+    void replacedBanMovesTheCredit() throws SQLException {
+        long userId = 13_100_003L;
+        long original = FIRST_MODERATOR + 3;
+        long replacement = FIRST_MODERATOR;
+        long starts = FIRST_WEEK + WEEK + DAY;
+        int originalBefore = StaffBanCounts.countForStaff(original, FIRST_WEEK + WEEK);
+        int replacementBefore = StaffBanCounts.countForStaff(replacement, FIRST_WEEK + WEEK);
+
+        ban(userId, original, starts);
+        ban(userId, replacement, starts);
+        assertEquals(originalBefore, StaffBanCounts.countForStaff(original, FIRST_WEEK + WEEK));
+        assertEquals(replacementBefore + 1, StaffBanCounts.countForStaff(replacement, FIRST_WEEK + WEEK));
+        assertMatchesBaseline("after a ban was replaced");
+    }
+
+    @Test
+    void matchesTheBaselineThroughRandomWritesAndARebuild() throws SQLException {
+        Random random = new Random(13);
+        long firstUser = 13_200_000L;
+        int users = 20;
+        for (int i = 0; i < 300; i++) {
+            long userId = firstUser + random.nextInt(users);
+            long moderator = FIRST_MODERATOR + random.nextInt(MODERATORS);
+            // whole hours, so some bans land right on the start of a week.
+            long time = FIRST_WEEK + random.nextInt(WEEKS * 7 * 24) * 3_600_000L;
+            switch (random.nextInt(10)) {
+                case 0 -> Repositories.unbans().clear(userId);
+                case 1 -> Repositories.bans().clear(userId);
+                case 2, 3 -> unban(userId, moderator, time);
+                default -> ban(userId, moderator, time);
+            }
+            assertMatchesBaseline("after write " + i);
+        }
+
+        StaffBanCounts.rebuild();
+        assertMatchesBaseline("after a rebuild");
+    }
+
+    /**
+     * The migrations that build the counts can't call {@link StaffBanCounts#rebuild()}, so they have copies of its
+     * queries. Those copies have to stay the same.
+     */
+    @Test
+    void migrationsRebuildTheSameWay() throws Exception {
+        for (String migration : new String[]{"v9-staff-ban-counts.sql", "v12-unique-bans.sql"}) {
+            String script;
+            try (InputStream stream = StaffBanCountsTest.class.getResourceAsStream("/sql/" + migration)) {
+                assertTrue(stream != null, "missing " + migration);
+                script = normalize(new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            for (AWQuery query : new AWQuery[]{AWQuery.REBUILD_STAFF_BAN_CREDITS, AWQuery.REBUILD_STAFF_BAN_COUNTS})
+                assertTrue(script.contains(normalize(query.sql)), migration + " doesn't match " + query.name());
+        }
+    }
+
+    private static String normalize(String sql) {
+        return sql.replaceAll("\\s+", " ").trim();
+    }
+}
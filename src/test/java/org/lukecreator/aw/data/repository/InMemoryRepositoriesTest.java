@@ -0,0 +1,150 @@
+package org.lukecreator.aw.data.repository;
+
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.lukecreator.aw.data.AWBan;
+import org.lukecreator.aw.data.AWEvidence;
+import org.lukecreator.aw.data.AWTicket;
+import org.lukecreator.aw.data.DiscordAppealBlacklist;
+
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that transactions over {@link InMemoryRepositories} commit and roll back like the SQLite ones do.
+ */
+public class InMemoryRepositoriesTest {
+    private final InMemoryRepositories repositories = new InMemoryRepositories();
+
+    private static AWBan ban(long userId, long starts) {
+        return new AWBan(userId, 1L, "exploiting", starts, null, null, false);
+    }
+
+    private static AWTicket ticket(long id, long owner, boolean isOpen, long closedBy) {
+        JsonObject inputQuestions = new JsonObject();
+        inputQuestions.addProperty("username", "accused");
+        inputQuestions.addProperty("rule", "exploiting");
+        AWTicket ticket = AWTicket.createBasedOnType(AWTicket.Type.PlayerReport, id, 0L, id * 1_000L,
+                isOpen, isOpen ? null : "done", closedBy, inputQuestions, owner);
+        ticket.processInputQuestionsJSON(inputQuestions);
+        return ticket;
+    }
+
+    @Test
+    void rollingBackToASavepointOnlyUndoesWhatCameAfter() throws SQLException {
+        try (var transaction = this.repositories.beginTransaction()) {
+            this.repositories.players().setPunches(1L, 10L);
+            Savepoint savepoint = transaction.savepoint();
+            this.repositories.players().setPunches(1L, 20L);
+            this.repositories.bans().add(List.of(ban(1L, 1_000L)), null);
+            this.repositories.players().setGamepasses(1L, new long[]{5L});
+            assertEquals(20L, this.repositories.players().loadStats(1L).punches());
+
+            transaction.rollbackTo(savepoint);
+            assertEquals(10L, this.repositories.players().loadStats(1L).punches());
+            assertEquals(List.of(), this.repositories.bans().load(1L));
+            assertEquals(0, this.repositories.players().countGamepassOwners(5L));
+            transaction.commit();
+        }
+        assertEquals(10L, this.repositories.players().loadStats(1L).punches());
+    }
+
+    @Test
+    void closingWithoutCommittingUndoesEverything() throws SQLException {
+        this.repositories.tickets().save(ticket(1L, 100L, true, 0L));
+        this.repositories.evidence().save(new AWEvidence(7L, 1_000L, 2L, "details", "url"));
+
+        var transaction = this.repositories.beginTransaction();
+        try {
+            this.repositories.tickets().save(ticket(1L, 100L, false, 200L));
+            this.repositories.tickets().save(ticket(2L, 100L, true, 0L));
+            this.repositories.links().linkEvidenceToTicket(1L, 7L);
+            this.repositories.evidence().delete(7L);
+            this.repositories.links().linkDiscordToRoblox(3L, 4L);
+            this.repositories.discordBlacklists().save(new DiscordAppealBlacklist(3L, 5L, "spam", 1_000L));
+            assertEquals(2L, this.repositories.tickets().maxId());
+        } finally {
+            transaction.close();
+        }
+        // closing it again does nothing.
+        transaction.close();
+
+        assertEquals(1L, this.repositories.tickets().maxId());
+        assertNull(this.repositories.tickets().load(2L));
+        assertEquals(1, this.repositories.tickets().countByOwner(100L, null));
+        assertEquals(0, this.repositories.tickets().countByCloser(200L, null));
+        assertEquals(1, this.repositories.tickets().loadOpen().size());
+        assertArrayEquals(new long[0], this.repositories.links().evidenceIdsLinkedToTicket(1L));
+        assertEquals(1, this.repositories.evidence().loadAgainstUser(2L).length);
+        assertNull(this.repositories.links().robloxIdFromDiscordId(3L));
+        assertNull(this.repositories.links().discordIdFromRobloxId(4L));
+        assertFalse(this.repositories.discordBlacklists().isBlacklisted(3L));
+    }
+
+    @Test
+    void nestedCommitsAreUndoneWithTheOuterTransaction() throws SQLException {
+        try (var transaction = this.repositories.beginTransaction()) {
+            Savepoint outer = transaction.savepoint();
+            this.repositories.players().setUsername(1L, "player");
+            try (var nested = this.repositories.beginTransaction()) {
+                this.repositories.players().setBlacklist(1L, 1_000L, "alt", 2L);
+                nested.commit();
+            }
+            try (var nested = this.repositories.beginTransaction()) {
+                assertThrows(SQLException.class, () -> nested.rollbackTo(outer));
+                Savepoint savepoint = nested.savepoint();
+                this.repositories.players().setPunches(1L, 50L);
+                // releasing a savepoint keeps its changes in the transaction, but doesn't commit them.
+                nested.release(savepoint);
+            }
+            var player = this.repositories.players().load(1L, true, false, false, false);
+            assertEquals("player", player.username());
+            assertEquals("alt", player.appealBlacklistReason());
+            assertEquals(0L, player.punches());
+        }
+        assertFalse(this.repositories.players().load(1L, false, false, false, false).exists());
+    }
+
+    @Test
+    void failedWritesChangeNothing() throws SQLException {
+        this.repositories.links().linkEvidenceToTicket(1L, 2L);
+        assertThrows(SQLException.class, () -> this.repositories.links().linkEvidenceToTicket(1L, 3L, 2L));
+        assertArrayEquals(new long[]{2L}, this.repositories.links().evidenceIdsLinkedToTicket(1L));
+        assertEquals(0, this.repositories.links().ticketIdsLinkedToEvidence(3L).length);
+    }
+
+    @Test
+    void writersTakeTurns() throws Exception {
+        CountDownLatch began = new CountDownLatch(1);
+        ExecutorService thread = Executors.newSingleThreadExecutor();
+        try (var transaction = this.repositories.beginTransaction()) {
+            this.repositories.players().setPunches(1L, 10L);
+            Future<?> write = thread.submit(() -> {
+                began.countDown();
+                this.repositories.players().setPunches(1L, 20L);
+                return null;
+            });
+            began.await();
+            Thread.sleep(50);
+            assertFalse(write.isDone(), "wrote while another thread's transaction was open");
+            transaction.commit();
+        } finally {
+            thread.shutdown();
+            assertTrue(thread.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(20L, this.repositories.players().loadStats(1L).punches());
+    }
+}
@@ -0,0 +1,262 @@
+package org.lukecreator.aw.webserver;
+
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.lukecreator.aw.TestDatabase;
+import org.lukecreator.aw.data.AWBan;
+import org.lukecreator.aw.data.AWEvidence;
+import org.lukecreator.aw.data.AWStatsBuffer;
+import org.lukecreator.aw.data.AWTicket;
+import org.lukecreator.aw.data.Links;
+import org.lukecreator.aw.data.repository.InMemoryRepositories;
+import org.lukecreator.aw.data.repository.Repositories;
+import org.lukecreator.aw.data.repository.SQLiteRepositories;
+import org.lukecreator.aw.webserver.requests.BanRequest;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the {@code /aw/fulfill} batch loop ({@link AWEndpoint#processBatch}) and the data side of player reports being
+ * opened and closed with a ban, through both the SQLite repositories and {@link InMemoryRepositories}. The in-memory
+ * numbers are what the pipeline costs with the disk out of the loop.
+ * <p>
+ * Run with {@code gradle benchmark}. Some of the ban fulfillments fail partway, since their evidence is already linked
+ * to the ban, so their savepoints get rolled back. Both repositories are checked to have undone the same things.
+ */
+@Tag("benchmark")
+public class FulfillPipelineBenchmark {
+    private static final int BATCH_SIZE = 50;
+    private static final int WARMUP_BATCHES = 20;
+    private static final int BATCHES = 200;
+    private static final int WARMUP_TICKETS = 200;
+    private static final int TICKETS = 2_000;
+    /**
+     * One in this many ticket closes has a ban fulfillment that fails.
+     */
+    private static final int FAIL_EVERY = 20;
+    private static final long MODERATOR = 18_000_001L;
+    private static final long MODERATOR_DISCORD_ID = 18_000_002L;
+    private static final long REPORTER_DISCORD_ID = 18_000_003L;
+    /**
+     * Each ticket's channel is this plus its ID, since no two tickets can share a channel.
+     */
+    private static final long FIRST_CHANNEL_ID = 18_200_000_000L;
+    private static final long BAN_STARTS = 1_700_000_000_000L;
+    private static final String REASON = "exploiting";
+
+    /**
+     * Every run uses new players and evidence, so nothing is carried over between the two repositories by
+     * {@link org.lukecreator.aw.data.AWPlayerCache}.
+     */
+    private static long nextUser = 18_100_000L;
+    private static long nextEvidenceId = 18_000_000_000L;
+
+    @BeforeAll
+    static void open() throws Exception {
+        TestDatabase.open();
+    }
+
+    /**
+     * Times a flow with the given repositories installed, after warming it up, and then checks what it wrote.
+     *
+     * @return The microseconds each iteration took.
+     */
+    private static double microsPerIteration(Repositories.Provider provider, Flow flow, int warmups, int iterations)
+            throws Exception {
+        Repositories.Provider previous = Repositories.current();
+        Repositories.install(provider);
+        try {
+            flow.run(warmups);
+            AWStatsBuffer.flush();
+
+            long start = System.nanoTime();
+            List<Runnable> checks = flow.run(iterations);
+            // buffered punches are part of the cost, so they're written before the clock stops.
+            AWStatsBuffer.flush();
+            double micros = (System.nanoTime() - start) / 1_000.0 / iterations;
+
+            checks.forEach(Runnable::run);
+            return micros;
+        } finally {
+            Repositories.install(previous);
+        }
+    }
+
+    private static void processBatch(String body) throws Exception {
+        List<Fulfillment> fulfillments = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        FulfillmentReader.read(new StringReader(body), (fulfillment, key) -> {
+            fulfillments.add(fulfillment);
+            keys.add(key);
+        });
+        assertTrue(AWEndpoint.processBatch(fulfillments, keys), "batch wasn't committed");
+    }
+
+    /**
+     * A batch like the game sends after a busy poll: player info, punch changes, bans, and unbans of the bans just
+     * before them.
+     */
+    private static String mixedBatch(long firstUser) {
+        StringBuilder body = new StringBuilder("{\"fulfill\": [");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            long userId = firstUser + i;
+            if (i > 0)
+                body.append(',');
+            body.append(switch (i % 4) {
+                case 0 -> """
+                        {"type": "INFO", "user": %d, "username": "player%d", "punches": %d, "gamepasses": [2, 1],
+                         "ban": [{"reason": "%s", "starts": %d, "responsible_user": %d}]}"""
+                        .formatted(userId, userId, i * 10L, REASON, BAN_STARTS, MODERATOR);
+                case 1 -> """
+                        {"type": "SETPUNCHES", "user": %d, "old_punches": 0, "new_punches": 50, "timestamp": %d}"""
+                        .formatted(userId, BAN_STARTS + i);
+                case 2 -> """
+                        {"type": "BAN", "user": %d, "reason": "%s", "starts": %d, "responsible_user": %d}"""
+                        .formatted(userId, REASON, BAN_STARTS, MODERATOR);
+                default -> """
+                        {"type": "UNBAN", "user": %d, "responsible_user": %d}"""
+                        .formatted(userId - 1, MODERATOR);
+            });
+        }
+        return body.append("]}").toString();
+    }
+
+    /**
+     * Processes batches of {@link #mixedBatch}.
+     */
+    private static List<Runnable> fulfillBatches(int batches) throws Exception {
+        List<Runnable> checks = new ArrayList<>();
+        for (int b = 0; b < batches; b++) {
+            long firstUser = nextUser;
+            nextUser += BATCH_SIZE;
+            processBatch(mixedBatch(firstUser));
+            checks.add(() -> {
+                try {
+                    // the BAN at firstUser + 2 was unbanned right after, by the UNBAN at firstUser + 3.
+                    assertEquals(1, Repositories.bans().load(firstUser).size());
+                    assertEquals(1, Repositories.unbans().load(firstUser + 2).size());
+                    assertEquals(50L, Repositories.players().loadStats(firstUser + 1).punches());
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            });
+        }
+        return checks;
+    }
+
+    /**
+     * Opens a player report with evidence, like {@link AWTicket#tryOpenNewTicket} and the modal that follows it do.
+     */
+    private static AWTicket openReport(long accused, long evidenceId) throws Exception {
+        long id = AWTicket.nextAvailableTicketID();
+        long now = System.currentTimeMillis();
+        JsonObject inputQuestions = new JsonObject();
+        inputQuestions.addProperty("username", "player" + accused);
+        inputQuestions.addProperty("rule", REASON);
+        inputQuestions.addProperty("evidence", "https://example.com/" + evidenceId);
+
+        AWTicket ticket = AWTicket.createBasedOnType(AWTicket.Type.PlayerReport, id, FIRST_CHANNEL_ID + id, now, true,
+                null, -1L, inputQuestions, REPORTER_DISCORD_ID);
+        ticket.processInputQuestionsJSON(inputQuestions);
+        ticket.updateInDatabase();
+
+        new AWEvidence(evidenceId, now, accused, null, "https://example.com/" + evidenceId).pushToDatabase();
+        Links.TicketEvidenceLinks.linkEvidenceToTicket(id, evidenceId);
+        return ticket;
+    }
+
+    /**
+     * Opens reports and closes them with a ban, like {@code ActionModals} does without the Discord side, and then
+     * fulfills the bans a batch at a time, like the game does on its next poll.
+     */
+    private static List<Runnable> openAndCloseReports(int tickets) throws Exception {
+        List<Runnable> checks = new ArrayList<>();
+        StringBuilder body = new StringBuilder();
+        for (int t = 0; t < tickets; t++) {
+            long accused = nextUser++;
+            long evidenceId = nextEvidenceId++;
+            AWTicket ticket = openReport(accused, evidenceId);
+
+            boolean fails = t % FAIL_EVERY == 0;
+            if (fails) {
+                // already linked to the ban about to be fulfilled, so linking it again fails and rolls the ban back.
+                Links.BanEvidenceLinks.linkEvidenceToBan(
+                        new AWBan(accused, MODERATOR, REASON, BAN_STARTS, null, null, false), evidenceId);
+            }
+
+            BanRequest request = new BanRequest(PendingRequest.getNextRequestId(), accused, MODERATOR, REASON,
+                    true, 0L, evidenceId, ticket.id);
+            PendingRequests.add(request);
+            ticket.isOpen = false;
+            ticket.closeReason = REASON;
+            ticket.closedByDiscordId = MODERATOR_DISCORD_ID;
+            ticket.updateInDatabase();
+
+            body.append(body.isEmpty() ? "{\"fulfill\": [" : ",").append("""
+                    {"type": "BAN", "id": %d, "user": %d, "reason": "%s", "starts": %d, "responsible_user": %d}"""
+                    .formatted(request.requestId, accused, REASON, BAN_STARTS, MODERATOR));
+            if ((t + 1) % BATCH_SIZE == 0 || t == tickets - 1) {
+                processBatch(body.append("]}").toString());
+                body.setLength(0);
+            }
+
+            long ticketId = ticket.id;
+            checks.add(() -> {
+                try {
+                    List<AWBan> bans = Repositories.bans().load(accused);
+                    if (fails) {
+                        assertEquals(List.of(), bans, "ban of ticket " + ticketId + " wasn't rolled back");
+                        // a rolled back fulfillment leaves its request pending, for a retry.
+                        assertTrue(PendingRequests.expire(request));
+                    } else {
+                        assertEquals(1, bans.size());
+                        assertEquals(1, Repositories.links().bansLinkedToEvidence(evidenceId).length);
+                    }
+                    assertEquals(1, Repositories.links().ticketIdsLinkedToEvidence(evidenceId).length);
+                    assertFalse(Repositories.tickets().load(ticketId).isOpen);
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+            });
+        }
+        return checks;
+    }
+
+    @Test
+    void fulfillBatches() throws Exception {
+        double sqlite = microsPerIteration(SQLiteRepositories.INSTANCE,
+                FulfillPipelineBenchmark::fulfillBatches, WARMUP_BATCHES, BATCHES);
+        double inMemory = microsPerIteration(new InMemoryRepositories(),
+                FulfillPipelineBenchmark::fulfillBatches, WARMUP_BATCHES, BATCHES);
+
+        System.out.printf("Batches of %d fulfillments: SQLite %.1f µs, in-memory %.1f µs per batch (%.1fx)%n",
+                BATCH_SIZE, sqlite, inMemory, sqlite / inMemory);
+    }
+
+    @Test
+    void openAndCloseReports() throws Exception {
+        double sqlite = microsPerIteration(SQLiteRepositories.INSTANCE,
+                FulfillPipelineBenchmark::openAndCloseReports, WARMUP_TICKETS, TICKETS);
+        double inMemory = microsPerIteration(new InMemoryRepositories(),
+                FulfillPipelineBenchmark::openAndCloseReports, WARMUP_TICKETS, TICKETS);
+
+        System.out.printf("Reports opened, closed and banned: SQLite %.1f µs, in-memory %.1f µs per ticket (%.1fx)%n",
+                sqlite, inMemory, sqlite / inMemory);
+    }
+
+    /**
+     * Something to time, given how many times to do it. Returns checks of what it wrote, to run once the clock stops.
+     */
+    @FunctionalInterface
+    private interface Flow {
+        List<Runnable> run(int iterations) throws Exception;
+    }
+}
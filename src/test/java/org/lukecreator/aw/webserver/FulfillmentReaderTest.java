@@ -0,0 +1,66 @@
+package org.lukecreator.aw.webserver;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Checks the {@link RecentFulfillments} keys {@link FulfillmentReader} gives fulfillments.
+ */
+public class FulfillmentReaderTest {
+    private static List<String> keys(String body) throws Exception {
+        List<String> keys = new ArrayList<>();
+        FulfillmentReader.read(new StringReader(body), (fulfillment, key) -> keys.add(key));
+        return keys;
+    }
+
+    @Test
+    void fieldOrderAndNumberFormatDontChangeTheKey() throws Exception {
+        List<String> keys = keys("""
+                {"fulfill": [
+                    {"type": "INFO", "user": 1, "username": "a", "punches": 50, "gamepasses": [2, 1],
+                     "ban": [{"reason": "x", "starts": 1000, "responsible_user": 3}]},
+                    {"gamepasses": [2.0, 1e0], "punches": 5e1, "username": "a", "user": 1.00, "type": "INFO",
+                     "ban": [{"responsible_user": 3, "starts": 1.0e3, "reason": "x"}]}
+                ]}""");
+        assertNotNull(keys.get(0));
+        assertEquals(keys.get(0), keys.get(1));
+    }
+
+    @Test
+    void differentContentGetsADifferentKey() throws Exception {
+        List<String> keys = keys("""
+                {"fulfill": [
+                    {"type": "BAN", "user": 1, "reason": "x", "starts": 1000},
+                    {"type": "BAN", "user": 1, "reason": "x", "starts": 1001},
+                    {"type": "BAN", "user": 1, "reason": "x", "starts": "1000"},
+                    {"type": "BAN", "user": 1, "reason": "x", "starts": 1000, "extra": {"b": 1, "a": [1, 2]}},
+                    {"type": "BAN", "user": 1, "reason": "x", "starts": 1000, "extra": {"a": [2, 1], "b": 1}}
+                ]}""");
+        assertEquals(5, keys.stream().distinct().count());
+    }
+
+    @Test
+    void historyIsOnlyDeduplicatedWithADistinguishingField() throws Exception {
+        List<String> keys = keys("""
+                {"fulfill": [
+                    {"type": "SETPUNCHES", "user": 1, "old_punches": 10, "new_punches": 50},
+                    {"type": "UNBAN", "user": 1, "responsible_user": 2},
+                    {"type": "SETPUNCHES", "user": 1, "old_punches": 10, "new_punches": 50, "id": 7},
+                    {"type": "SETPUNCHES", "user": 1, "old_punches": 10, "new_punches": 50, "timestamp": 1000},
+                    {"type": "SETPUNCHES", "user": 1, "old_punches": 10, "new_punches": 50, "timestamp": 1001}
+                ]}""");
+        assertNull(keys.get(0));
+        assertNull(keys.get(1));
+        assertNotNull(keys.get(2));
+        assertNotNull(keys.get(3));
+        assertNotEquals(keys.get(3), keys.get(4));
+    }
+}
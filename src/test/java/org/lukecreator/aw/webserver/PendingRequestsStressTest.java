@@ -0,0 +1,160 @@
+package org.lukecreator.aw.webserver;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.lukecreator.aw.webserver.requests.InfoRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Adds, polls, completes and expires requests in {@link PendingRequests} from many threads at once, and checks that
+ * every request is resolved exactly once (fulfilled, denied or timed out), and that every poll is a consistent list.
+ */
+public class PendingRequestsStressTest {
+    private static final int ADDERS = 4;
+    private static final int REQUESTS_PER_ADDER = 2_500;
+    private static final int POLLERS = 2;
+    private static final int COMPLETERS = 3;
+    private static final int EXPIRERS = 2;
+
+    /**
+     * Fulfills even requests with no permission, and odd ones with their info, so both callbacks are exercised.
+     */
+    private static Fulfillment fulfillmentFor(long requestId) throws Exception {
+        FulfillmentFields fields = new FulfillmentFields();
+        fields.id = requestId;
+        if (requestId % 2 == 0) {
+            fields.type = "NOPERMISSION";
+        } else {
+            fields.type = "INFO";
+            fields.user = requestId;
+            fields.username = "player";
+            fields.punches = 0L;
+        }
+        return Fulfillment.parse(fields);
+    }
+
+    /**
+     * Checks a poll's JSON parses, and lists requests in order of ID without repeating any.
+     */
+    private static void checkPoll(byte[] json) {
+        long previous = Long.MIN_VALUE;
+        for (JsonElement request : JsonParser.parseString(new String(json, StandardCharsets.UTF_8))
+                .getAsJsonObject().getAsJsonArray("requests")) {
+            long id = request.getAsJsonObject().get("id").getAsLong();
+            assertTrue(id > previous, "poll listed request " + id + " after " + previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void everyRequestIsResolvedExactlyOnce() throws Exception {
+        ConcurrentHashMap<Long, AtomicInteger> resolutions = new ConcurrentHashMap<>();
+        AtomicInteger addersLeft = new AtomicInteger(ADDERS);
+        AtomicBoolean done = new AtomicBoolean();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for (int a = 0; a < ADDERS; a++) {
+            tasks.add(() -> {
+                start.await();
+                for (int i = 0; i < REQUESTS_PER_ADDER; i++) {
+                    long id = PendingRequest.getNextRequestId();
+                    AtomicInteger resolved = new AtomicInteger();
+                    assertNull(resolutions.put(id, resolved), "request ID " + id + " was handed out twice");
+                    PendingRequests.add(new InfoRequest(id, id)
+                            .onFulfilled(fulfillment -> resolved.incrementAndGet())
+                            .onNoPermission(resolved::incrementAndGet)
+                            .onTimeout(resolved::incrementAndGet));
+                }
+                addersLeft.decrementAndGet();
+                return null;
+            });
+        }
+        for (int p = 0; p < POLLERS; p++) {
+            boolean streamed = p % 2 == 0;
+            tasks.add(() -> {
+                start.await();
+                while (!done.get()) {
+                    if (streamed) {
+                        ByteArrayOutputStream out = new ByteArrayOutputStream();
+                        PendingRequests.writePendingRequestsJSON(out);
+                        checkPoll(out.toByteArray());
+                    } else {
+                        checkPoll(PendingRequests.getPendingRequestsJSON());
+                    }
+                }
+                return null;
+            });
+        }
+        for (int c = 0; c < COMPLETERS; c++) {
+            tasks.add(() -> {
+                start.await();
+                while (!done.get()) {
+                    for (PendingRequest request : PendingRequests.values())
+                        PendingRequests.complete(fulfillmentFor(request.requestId));
+                }
+                return null;
+            });
+        }
+        for (int e = 0; e < EXPIRERS; e++) {
+            tasks.add(() -> {
+                start.await();
+                while (!done.get()) {
+                    // the same as RequestExpiry, without waiting for the requests to be due.
+                    for (PendingRequest request : PendingRequests.snapshot()) {
+                        if (PendingRequests.expire(request))
+                            request.timeout();
+                    }
+                }
+                return null;
+            });
+        }
+
+        ExecutorService threads = Executors.newFixedThreadPool(tasks.size());
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Callable<Void> task : tasks)
+                futures.add(threads.submit(task));
+            start.countDown();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (addersLeft.get() > 0 || PendingRequests.size() > 0) {
+                assertTrue(System.nanoTime() < deadline, "requests were never resolved");
+                // rethrows anything a thread failed with, like a ConcurrentModificationException.
+                for (Future<Void> future : futures) {
+                    if (future.isDone())
+                        future.get();
+                }
+                Thread.sleep(10);
+            }
+            done.set(true);
+            for (Future<Void> future : futures)
+                future.get(60, TimeUnit.SECONDS);
+        } finally {
+            done.set(true);
+            threads.shutdownNow();
+        }
+
+        assertEquals(ADDERS * REQUESTS_PER_ADDER, resolutions.size());
+        resolutions.forEach((id, resolved) ->
+                assertEquals(1, resolved.get(), "request " + id + " was resolved " + resolved.get() + " times"));
+    }
+}